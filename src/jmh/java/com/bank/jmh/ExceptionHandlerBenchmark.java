@@ -0,0 +1,54 @@
+package com.bank.jmh;
+
+import com.bank.exception.GlobalExceptionHandler;
+import com.bank.exception.TransactionNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GlobalExceptionHandler生成错误响应并序列化为JSON的开销, 包含异常对象本身的创建
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+
+    private ObjectMapper objectMapper;
+
+    private MethodParameter parameter;
+
+    @Setup
+    public void setUp() throws Exception {
+        handler = new GlobalExceptionHandler();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        parameter = new MethodParameter(ExceptionHandlerBenchmark.class.getDeclaredMethod("setUp"), -1);
+    }
+
+    @Benchmark
+    public byte[] renderNotFound() throws Exception {
+        TransactionNotFoundException ex = new TransactionNotFoundException("Transaction with reference REF-1 not found");
+        return objectMapper.writeValueAsBytes(handler.handleTransactionNotFoundException(ex).getBody());
+    }
+
+    @Benchmark
+    public byte[] renderValidationError() throws Exception {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new Object(), "transaction");
+        bindingResult.addError(new FieldError("transaction", "amount", "Amount must greater than zero"));
+        bindingResult.addError(new FieldError("transaction", "reference", "Reference cannot be blank"));
+        MethodArgumentNotValidException ex = new MethodArgumentNotValidException(parameter, bindingResult);
+        return objectMapper.writeValueAsBytes(handler.handleValidationExceptions(ex).getBody());
+    }
+}
@@ -0,0 +1,67 @@
+package com.bank.jmh;
+
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson序列化 Transaction 和 Page&lt;Transaction&gt; 的开销, ObjectMapper配置与Spring MVC一致
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private Transaction transaction;
+
+    private Page<Transaction> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        transaction = transaction(1);
+        List<Transaction> content = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            content.add(transaction(i));
+        }
+        page = new PageImpl<>(content, PageRequest.of(3, pageSize), 1_000_000);
+    }
+
+    @Benchmark
+    public byte[] serializeTransaction() throws Exception {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    static Transaction transaction(long id) {
+        Transaction transaction = new Transaction(id, "REF-" + id, "ACC-" + (id % 100),
+            new BigDecimal("1234.56"), TransactionType.values()[(int) (id % 4)], "serialization benchmark " + id);
+        transaction.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusSeconds(id));
+        transaction.setUpdatedAt(transaction.getCreatedAt());
+        return transaction;
+    }
+}
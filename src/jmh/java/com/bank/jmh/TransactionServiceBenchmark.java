@@ -0,0 +1,92 @@
+package com.bank.jmh;
+
+import com.bank.dto.TransactionView;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.service.TransactionService;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TransactionService热点路径: 按编号查询(缓存命中/未命中)和创建交易
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionServiceBenchmark {
+
+    private static final int PRELOADED = 10_000;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private Cache<String, Object> transactionByReferenceCache;
+
+    private List<String> references;
+
+    private String hotReference;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = BenchmarkApplication.start("jmh-service");
+        transactionService = context.getBean(TransactionService.class);
+        transactionByReferenceCache = context.getBean("transactionByReferenceCache", Cache.class);
+
+        references = new ArrayList<>(PRELOADED);
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < PRELOADED; i++) {
+            String reference = "JMH-" + i;
+            references.add(reference);
+            batch.add(transaction(reference));
+            if (batch.size() == 1000) {
+                transactionService.createTransactions(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        hotReference = references.get(0);
+        transactionService.getTransactionByReference(hotReference);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionView getTransactionByReferenceCacheHit() {
+        return transactionService.getTransactionByReference(hotReference);
+    }
+
+    @Benchmark
+    public TransactionView getTransactionByReferenceCacheMiss() {
+        String reference = references.get(ThreadLocalRandom.current().nextInt(PRELOADED));
+        transactionByReferenceCache.invalidate(reference);
+        return transactionService.getTransactionByReference(reference);
+    }
+
+    @Benchmark
+    public Transaction createTransaction() {
+        return transactionService.createTransaction(transaction("JMH-NEW-" + sequence.incrementAndGet()));
+    }
+
+    private static Transaction transaction(String reference) {
+        return new Transaction(null, reference, "JMH-ACC-" + (reference.hashCode() & 1023),
+            new BigDecimal("123.45"), TransactionType.DEPOSIT, "jmh benchmark transaction");
+    }
+}
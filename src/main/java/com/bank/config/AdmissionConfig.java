@@ -0,0 +1,45 @@
+package com.bank.config;
+
+import com.bank.service.AdaptiveConcurrencyLimiter;
+import com.bank.service.ClientRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * 准入控制, bank.admission.enabled=true 时开启
+ * 在请求进入Spring MVC之前按客户端限流(429)并限制全局并发(503), 过载时快速拒绝, 而不是在Tomcat和连接池里排队
+ */
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+@ConditionalOnProperty(name = "bank.admission.enabled", havingValue = "true")
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(AdmissionProperties properties,
+                                                                                 ObjectMapper objectMapper) {
+        AdmissionProperties.Budget read = properties.getRead();
+        AdmissionProperties.Budget write = properties.getWrite();
+        ClientRateLimiter rateLimiter = new ClientRateLimiter(
+            new double[]{read.getRate(), write.getRate()},
+            new int[]{read.getBurst(), write.getBurst()},
+            properties.getMaxClients(), System::nanoTime);
+
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties.getClientHeader(), properties.getTrustedProxies(), rateLimiter,
+            limiter(read, properties), limiter(write, properties), objectMapper);
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setUrlPatterns(properties.getUrlPatterns());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(AdmissionProperties.Budget budget, AdmissionProperties properties) {
+        return new AdaptiveConcurrencyLimiter(budget.getInitialLimit(), budget.getMinLimit(), budget.getMaxLimit(),
+            budget.getTargetLatency(), properties.getBackoffRatio(), System::nanoTime);
+    }
+}
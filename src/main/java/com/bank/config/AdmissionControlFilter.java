@@ -0,0 +1,214 @@
+package com.bank.config;
+
+import com.bank.exception.GlobalExceptionHandler.ErrorResponse;
+import com.bank.service.AdaptiveConcurrencyLimiter;
+import com.bank.service.ClientRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.net.InetAddresses;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 准入控制: 先按客户端的读/写令牌桶限流, 超出返回429; 再占用读/写各自的全局并发名额, 名额用完返回503
+ * 两种拒绝都带Retry-After, 在进入Spring MVC和数据库之前完成, 耗时与负载无关
+ * 异步请求(流式导出)在异步处理结束时才释放名额, 它的耗时不作为延迟样本
+ * 客户端按认证用户或来源IP区分, 客户端标识请求头只在请求来自可信代理时采用
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final String clientHeader;
+
+    private final List<Subnet> trustedProxies;
+
+    private final ClientRateLimiter rateLimiter;
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+
+    private final ObjectMapper objectMapper;
+
+    public AdmissionControlFilter(String clientHeader, List<String> trustedProxies, ClientRateLimiter rateLimiter,
+                                  AdaptiveConcurrencyLimiter readLimiter, AdaptiveConcurrencyLimiter writeLimiter,
+                                  ObjectMapper objectMapper) {
+        this.clientHeader = clientHeader;
+        this.trustedProxies = trustedProxies.stream().map(Subnet::parse).toList();
+        this.rateLimiter = rateLimiter;
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+
+        long waitNanos = rateLimiter.tryAcquire(clientId(request), read ? ClientRateLimiter.READ : ClientRateLimiter.WRITE);
+        if (waitNanos > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos,
+                "Rate limit exceeded for " + (read ? "reads" : "writes") + ", retry later");
+            return;
+        }
+
+        AdaptiveConcurrencyLimiter limiter = read ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1),
+                "Server is at its " + (read ? "read" : "write") + " concurrency limit, retry later");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limiter));
+            } else {
+                limiter.release(System.nanoTime() - start, !completed || isOverloaded(response.getStatus()));
+            }
+        }
+    }
+
+    /**
+     * 限流的客户端标识; 前缀区分三种来源, 代理转发的标识不会与某个来源IP共用一个桶
+     */
+    private String clientId(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "user:" + principal.getName();
+        }
+        String remoteAddress = request.getRemoteAddr();
+        if (isTrustedProxy(remoteAddress)) {
+            String client = request.getHeader(clientHeader);
+            if (client != null && !client.isBlank()) {
+                return "client:" + client;
+            }
+        }
+        return "ip:" + remoteAddress;
+    }
+
+    private boolean isTrustedProxy(String remoteAddress) {
+        if (trustedProxies.isEmpty() || remoteAddress == null || !InetAddresses.isInetAddress(remoteAddress)) {
+            return false;
+        }
+        InetAddress address = InetAddresses.forString(remoteAddress);
+        for (Subnet subnet : trustedProxies) {
+            if (subnet.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 下游已经在拒绝或失败, 例如数据库锁超时(500)或异步写入队列已满(429)
+     */
+    private static boolean isOverloaded(int status) {
+        return status >= 500 || status == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos, String message)
+        throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+            Long.toString(Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(status.value(), message, LocalDateTime.now()));
+    }
+
+    private static final class ReleaseOnComplete implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimiter limiter;
+
+        private boolean released;
+
+        private ReleaseOnComplete(AdaptiveConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // The listener is not carried over to a new async cycle, keep it registered
+            event.getAsyncContext().addListener(this);
+        }
+
+        // onComplete also follows onTimeout/onError, release exactly once
+        private synchronized void release() {
+            if (!released) {
+                released = true;
+                limiter.releaseIgnored();
+            }
+        }
+    }
+
+    /**
+     * 一个IP地址或CIDR网段; 只解析IP字面量, 不做DNS查询
+     */
+    private record Subnet(byte[] network, int prefixLength) {
+
+        static Subnet parse(String value) {
+            String[] parts = value.trim().split("/", 2);
+            byte[] network = InetAddresses.forString(parts[0]).getAddress();
+            int prefixLength = parts.length == 2 ? Integer.parseInt(parts[1]) : network.length * 8;
+            if (prefixLength < 0 || prefixLength > network.length * 8) {
+                throw new IllegalArgumentException("Invalid trusted proxy " + value);
+            }
+            return new Subnet(network, prefixLength);
+        }
+
+        boolean contains(InetAddress address) {
+            byte[] bytes = address.getAddress();
+            if (bytes.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (bytes[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits) & 0xFF;
+            return (bytes[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.bank.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 准入控制配置, 对应 bank.admission.*
+ */
+@Data
+@ConfigurationProperties(prefix = "bank.admission")
+public class AdmissionProperties {
+
+    /**
+     * 是否在交易接口前启用准入控制
+     */
+    private boolean enabled = false;
+
+    /**
+     * 受控的URL
+     */
+    private List<String> urlPatterns = List.of("/v1/transactions", "/v1/transactions/*");
+
+    /**
+     * 标识客户端的请求头, 应由网关设置; 只接受来自 trustedProxies 的请求携带的值,
+     * 其他请求按认证用户或来源IP区分, 否则客户端每次换一个值就能得到一个新的满桶
+     */
+    private String clientHeader = "X-Client-Id";
+
+    /**
+     * 可信代理(网关)的IP地址或网段(CIDR), 例如 10.0.0.0/8
+     */
+    private List<String> trustedProxies = List.of();
+
+    /**
+     * 同时保存限流状态的最大客户端数
+     */
+    private long maxClients = 100_000;
+
+    /**
+     * 过载时并发上限的缩减比例
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * GET/HEAD 请求的预算
+     */
+    private final Budget read = new Budget(200, 400, 32, 4, 256, Duration.ofMillis(50));
+
+    /**
+     * 其余请求的预算
+     */
+    private final Budget write = new Budget(50, 100, 8, 2, 64, Duration.ofMillis(100));
+
+    @Data
+    public static class Budget {
+
+        /**
+         * 每个客户端每秒允许的请求数
+         */
+        private double rate;
+
+        /**
+         * 每个客户端空闲之后允许的突发请求数
+         */
+        private int burst;
+
+        /**
+         * 全局并发上限的初始值、下限和上限
+         */
+        private int initialLimit;
+
+        private int minLimit;
+
+        private int maxLimit;
+
+        /**
+         * 目标延迟, 请求超过它时缩减并发上限
+         */
+        private Duration targetLatency;
+
+        public Budget(double rate, int burst, int initialLimit, int minLimit, int maxLimit, Duration targetLatency) {
+            this.rate = rate;
+            this.burst = burst;
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.targetLatency = targetLatency;
+        }
+    }
+}
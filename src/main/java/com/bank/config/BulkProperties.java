@@ -0,0 +1,18 @@
+package com.bank.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 按条件批量更新/删除的配置, 对应 bank.bulk.*
+ */
+@Data
+@ConfigurationProperties(prefix = "bank.bulk")
+public class BulkProperties {
+
+    /**
+     * 每个数据库事务锁定并修改的最大行数, 越小持锁时间越短, 事务数越多
+     */
+    private int chunkSize = 1000;
+}
@@ -0,0 +1,37 @@
+package com.bank.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 多节点缓存: 可选的共享L2和失效广播, 默认都关闭, 即单节点只用本地缓存
+ * 这里提供的是进程内的替身, 同一JVM里的多个应用上下文可以当作多个节点;
+ * 部署多个实例时替换成 SharedTransactionCache 和 CacheInvalidationBus 的外部实现(如Redis)
+ */
+@Configuration
+@EnableConfigurationProperties(CacheClusterProperties.class)
+public class CacheClusterConfig {
+
+    @Bean
+    public SharedTransactionCache sharedTransactionCache(CacheClusterProperties properties) {
+        CacheClusterProperties.L2 l2 = properties.getL2();
+        return l2.isEnabled() ? EmbeddedSharedTransactionCache.named(l2.getName(), l2) : SharedTransactionCache.NONE;
+    }
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(CacheClusterProperties properties) {
+        CacheClusterProperties.Invalidation invalidation = properties.getInvalidation();
+        return invalidation.isEnabled()
+            ? EmbeddedCacheInvalidationBus.named(invalidation.getChannel(), invalidation.getDeliveryDelay())
+            : CacheInvalidationBus.NONE;
+    }
+
+    @Bean
+    public CacheInvalidationBroadcaster cacheInvalidationBroadcaster(CacheClusterProperties properties,
+                                                                     CacheInvalidationBus cacheInvalidationBus) {
+        CacheClusterProperties.Invalidation invalidation = properties.getInvalidation();
+        return new CacheInvalidationBroadcaster(cacheInvalidationBus, properties.getNodeId(), invalidation.getBatchWindow(),
+            invalidation.getMaxBatchSize());
+    }
+}
@@ -0,0 +1,95 @@
+package com.bank.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * 多节点缓存配置, 对应 bank.cache.cluster.*
+ * 本节点的 transactionByReferenceCache 是L1, 可选的共享存储是L2, 失效消息经消息总线广播给其他节点
+ */
+@Data
+@ConfigurationProperties(prefix = "bank.cache.cluster")
+public class CacheClusterProperties {
+
+    /**
+     * 本节点的标识, 收到自己发出的失效消息时忽略
+     */
+    private String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 共享的L2缓存, 对应 bank.cache.cluster.l2.*
+     */
+    private final L2 l2 = new L2();
+
+    /**
+     * 失效广播, 对应 bank.cache.cluster.invalidation.*
+     */
+    private final Invalidation invalidation = new Invalidation();
+
+    @Data
+    public static class L2 {
+
+        /**
+         * 关闭时L1未命中直接查库
+         */
+        private boolean enabled = false;
+
+        /**
+         * 内嵌存储的名字, 同一JVM里同名的节点共享一个存储
+         */
+        private String name = "bank";
+
+        /**
+         * 最大条数
+         */
+        private long maximumSize = 100_000;
+
+        /**
+         * 写入后过期时间, 也是没有收到失效时L2可能保留旧值的上限
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(30);
+
+        /**
+         * 删除留下的失效标记的存活时间, 期间慢的读取不能把已删除的交易写回L2; 应大于一次查库的耗时
+         */
+        private Duration tombstoneTtl = Duration.ofSeconds(30);
+
+        /**
+         * 模拟的网络往返时间, 内嵌存储每次访问前等待这么久
+         */
+        private Duration roundTrip = Duration.ZERO;
+    }
+
+    @Data
+    public static class Invalidation {
+
+        /**
+         * 关闭时其他节点的L1只能等过期
+         */
+        private boolean enabled = false;
+
+        /**
+         * 内嵌消息总线的频道名, 同一JVM里同一频道的节点互相接收
+         */
+        private String channel = "bank";
+
+        /**
+         * 第一个失效之后最多等待这么久再发出, 期间的失效合并成一条消息, 重复的编号只发一次
+         */
+        private Duration batchWindow = Duration.ofMillis(20);
+
+        /**
+         * 一条消息最多的编号数, 攒够就立即发出
+         */
+        private int maxBatchSize = 500;
+
+        /**
+         * 模拟的投递延迟, 内嵌消息总线发布后等待这么久才投递
+         */
+        private Duration deliveryDelay = Duration.ZERO;
+    }
+}
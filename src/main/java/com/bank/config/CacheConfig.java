@@ -1,32 +1,85 @@
 package com.bank.config;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.bank.dto.TransactionView;
+import com.bank.repository.ShardRouter;
+import com.bank.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
 
 /**
- * 生产环境使用Redis做分布式缓存，
- * 这里模拟单节点服务，简化缓存一致性的处理逻辑，
+ * 本节点的缓存(L1)
+ * 多节点部署时由 CacheClusterConfig 提供共享的L2和失效广播, 其他节点的修改和删除会清掉这里的条目
  */
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(TransactionCacheProperties.class)
 public class CacheConfig {
 
     /**
      * 配置交易信息缓存
-     * 最大容量500条，过期时间5分钟
-     * key是交易编号, value是交易信息obj
+     * 使用Caffeine的W-TinyLFU淘汰策略, 报表类的全量扫描不会冲掉热点交易;
+     * 容量、过期和刷新时间从 bank.cache.transaction.* 读取
+     * key是交易编号, value是交易信息obj或其紧凑编码, 经 TransactionCacheCodec 读写
      */
     @Bean(name = "transactionByReferenceCache")
-    public Cache<String, Object> transactionByReferenceCache() {
-        return CacheBuilder.newBuilder()
-            .maximumSize(500)
-            .expireAfterWrite(5, TimeUnit.MINUTES)
+    public Cache<String, Object> transactionByReferenceCache(TransactionCacheProperties properties,
+                                                             TransactionRepository transactionRepository,
+                                                             ShardRouter shardRouter) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .recordStats();
+        if (properties.getMaximumWeight() != null) {
+            builder.maximumWeight(properties.getMaximumWeight().toBytes())
+                .weigher(new TransactionWeigher());
+        } else {
+            builder.maximumSize(properties.getMaximumSize());
+        }
+
+        if (properties.getRefreshAfterWrite() == null) {
+            return builder.build();
+        }
+        // Refresh reloads in the background, a reference that no longer exists is dropped
+        TransactionCacheCodec codec = transactionCacheCodec(properties);
+        CacheLoader<String, Object> loader = reference -> {
+            for (int shard : shardRouter.shardsOfReference(reference)) {
+                Optional<TransactionView> transaction = shardRouter.on(shard, () -> ReplicaRoutingDataSource.onPrimary(
+                    () -> transactionRepository.findViewByReference(reference)));
+                if (transaction.isPresent()) {
+                    return codec.encode(transaction.get());
+                }
+            }
+            return null;
+        };
+        return builder.refreshAfterWrite(properties.getRefreshAfterWrite()).build(loader);
+    }
+
+    /**
+     * 交易缓存值的编解码, 由 bank.cache.transaction.encoding 决定缓存对象还是紧凑的二进制编码
+     */
+    @Bean
+    public TransactionCacheCodec transactionCacheCodec(TransactionCacheProperties properties) {
+        return new TransactionCacheCodec(properties.getEncoding());
+    }
+
+    /**
+     * 配置交易不存在的负缓存
+     * 客户端会反复重试查询尚未创建的交易编号, 缓存"不存在"的结果避免每次都查库;
+     * 过期时间很短, 且创建交易时会主动失效对应编号
+     * key是交易编号, value固定为TRUE
+     */
+    @Bean(name = "transactionNotFoundCache")
+    public Cache<String, Boolean> transactionNotFoundCache(TransactionCacheProperties properties) {
+        return Caffeine.newBuilder()
+            .maximumSize(properties.getNotFoundMaximumSize())
+            .expireAfterWrite(properties.getNotFoundExpireAfterWrite())
             .recordStats()
             .build();
     }
@@ -0,0 +1,164 @@
+package com.bank.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 把本节点提交的失效批量广播给其他节点
+ * 第一个失效到达后最多等 batch-window 再发出, 期间的失效合并成一条消息, 同一编号只发一次;
+ * 攒够 max-batch-size 个编号时立即发出. 写入突发时消息数随时间窗口增长, 而不是随写入次数增长
+ * 收到其他节点的消息时交给 listen 注册的监听器, 自己发出的消息忽略
+ */
+@Slf4j
+public class CacheInvalidationBroadcaster implements AutoCloseable {
+
+    private final CacheInvalidationBus bus;
+
+    private final String nodeId;
+
+    private final long batchWindowNanos;
+
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService executor;
+
+    private final List<CacheInvalidationBus.Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private Set<String> pending = new LinkedHashSet<>();
+
+    private boolean flushScheduled;
+
+    private final LongAdder requestedReferences = new LongAdder();
+
+    private final LongAdder publishedReferences = new LongAdder();
+
+    private final LongAdder messages = new LongAdder();
+
+    private final LongAdder receivedMessages = new LongAdder();
+
+    public CacheInvalidationBroadcaster(CacheInvalidationBus bus, String nodeId, Duration batchWindow, int maxBatchSize) {
+        this.bus = bus;
+        this.nodeId = nodeId;
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.executor = bus == CacheInvalidationBus.NONE ? null : Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("cache-invalidation-" + nodeId).setDaemon(true).build());
+    }
+
+    /**
+     * 单节点, 不广播也不接收
+     */
+    public static CacheInvalidationBroadcaster local() {
+        return new CacheInvalidationBroadcaster(CacheInvalidationBus.NONE, "local", Duration.ZERO, 1);
+    }
+
+    /**
+     * 在事务提交后调用, 编号进入待发送集合, 由后台线程发出
+     */
+    public void broadcast(Collection<String> references) {
+        if (executor == null || references.isEmpty()) {
+            return;
+        }
+        requestedReferences.add(references.size());
+        boolean flushNow;
+        boolean schedule;
+        synchronized (this) {
+            pending.addAll(references);
+            flushNow = pending.size() >= maxBatchSize;
+            schedule = !flushNow && !flushScheduled;
+            flushScheduled |= schedule;
+        }
+        try {
+            if (flushNow) {
+                executor.execute(this::flush);
+            } else if (schedule) {
+                executor.schedule(this::flush, batchWindowNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // Closing, close() publishes what is still pending
+        }
+    }
+
+    /**
+     * 立即发出所有待发送的编号
+     */
+    public void flush() {
+        List<String> references;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            references = List.copyOf(pending);
+            pending = new LinkedHashSet<>();
+        }
+        messages.increment();
+        publishedReferences.add(references.size());
+        try {
+            bus.publish(new CacheInvalidationBus.Invalidation(nodeId, references));
+        } catch (RuntimeException e) {
+            // Other nodes keep their entries until they expire
+            log.warn("Publishing {} cache invalidations failed: {}", references.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 注册其他节点失效消息的监听器, 在总线的投递线程上调用
+     */
+    public void listen(Consumer<List<String>> listener) {
+        subscriptions.add(bus.subscribe(invalidation -> {
+            if (!nodeId.equals(invalidation.origin())) {
+                receivedMessages.increment();
+                listener.accept(invalidation.references());
+            }
+        }));
+    }
+
+    /**
+     * 调用 broadcast 时传入的编号总数
+     */
+    public long getRequestedReferences() {
+        return requestedReferences.sum();
+    }
+
+    /**
+     * 合并去重后实际发出的编号总数
+     */
+    public long getPublishedReferences() {
+        return publishedReferences.sum();
+    }
+
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    public long getReceivedMessages() {
+        return receivedMessages.sum();
+    }
+
+    /**
+     * 发出剩余的失效, 停止接收
+     */
+    @Override
+    public void close() {
+        subscriptions.forEach(CacheInvalidationBus.Subscription::close);
+        if (executor != null) {
+            executor.shutdown();
+            flush();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.bank.config;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 节点之间广播缓存失效的消息总线, 每条消息投递给所有订阅者, 包括发出它的节点
+ * 接入Redis pub/sub等外部总线时实现这个接口; 消息可能丢失, 丢失时接收方的L1等到过期才更新
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * 单节点, 不广播
+     */
+    CacheInvalidationBus NONE = new CacheInvalidationBus() {
+
+        @Override
+        public void publish(Invalidation invalidation) {
+        }
+
+        @Override
+        public Subscription subscribe(Consumer<Invalidation> subscriber) {
+            return () -> {
+            };
+        }
+    };
+
+    void publish(Invalidation invalidation);
+
+    Subscription subscribe(Consumer<Invalidation> subscriber);
+
+    /**
+     * 一条失效消息: 发出的节点和需要丢弃的交易编号
+     */
+    record Invalidation(String origin, List<String> references) {
+    }
+
+    interface Subscription extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,76 @@
+package com.bank.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 进程内的消息总线替身: 同一JVM里同一频道的节点互相接收, 用来在一台机器上运行和测试多个节点
+ * 由一个后台线程按发布顺序投递, 可以按 delivery-delay 模拟投递延迟
+ */
+@Slf4j
+public class EmbeddedCacheInvalidationBus implements CacheInvalidationBus {
+
+    private static final ConcurrentMap<String, EmbeddedCacheInvalidationBus> CHANNELS = new ConcurrentHashMap<>();
+
+    private final List<Consumer<Invalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService delivery;
+
+    private final long deliveryDelayNanos;
+
+    private final LongAdder published = new LongAdder();
+
+    public EmbeddedCacheInvalidationBus(String channel, Duration deliveryDelay) {
+        this.deliveryDelayNanos = deliveryDelay.toNanos();
+        this.delivery = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("cache-invalidation-bus-" + channel).setDaemon(true).build());
+    }
+
+    /**
+     * 按频道取共享的总线, 第一个节点的配置决定投递延迟
+     */
+    public static EmbeddedCacheInvalidationBus named(String channel, Duration deliveryDelay) {
+        return CHANNELS.computeIfAbsent(channel, k -> new EmbeddedCacheInvalidationBus(channel, deliveryDelay));
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        published.increment();
+        delivery.schedule(() -> deliver(invalidation), deliveryDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void deliver(Invalidation invalidation) {
+        for (Consumer<Invalidation> subscriber : subscribers) {
+            try {
+                subscriber.accept(invalidation);
+            } catch (RuntimeException e) {
+                log.warn("Cache invalidation subscriber failed", e);
+            }
+        }
+    }
+
+    @Override
+    public Subscription subscribe(Consumer<Invalidation> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    /**
+     * 所有节点发布的消息数
+     */
+    public long getPublished() {
+        return published.sum();
+    }
+}
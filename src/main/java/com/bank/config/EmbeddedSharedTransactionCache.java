@@ -0,0 +1,122 @@
+package com.bank.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内的L2替身: 同一JVM里同名的节点共享一个Caffeine存储, 用来在一台机器上运行和测试多个节点
+ * 每次访问算一次往返, 可以按 round-trip 模拟网络延迟
+ */
+public class EmbeddedSharedTransactionCache implements SharedTransactionCache {
+
+    private static final ConcurrentMap<String, EmbeddedSharedTransactionCache> STORES = new ConcurrentHashMap<>();
+
+    private final Cache<String, Entry> entries;
+
+    private final long expireAfterWriteNanos;
+
+    private final long tombstoneTtlNanos;
+
+    private final long roundTripNanos;
+
+    private final LongAdder roundTrips = new LongAdder();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public EmbeddedSharedTransactionCache(CacheClusterProperties.L2 properties) {
+        this.expireAfterWriteNanos = properties.getExpireAfterWrite().toNanos();
+        this.tombstoneTtlNanos = properties.getTombstoneTtl().toNanos();
+        this.roundTripNanos = properties.getRoundTrip().toNanos();
+        this.entries = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfter(new Expiry<String, Entry>() {
+                @Override
+                public long expireAfterCreate(String reference, Entry entry, long currentTime) {
+                    return entry.ttlNanos();
+                }
+
+                @Override
+                public long expireAfterUpdate(String reference, Entry entry, long currentTime, long currentDuration) {
+                    return entry.ttlNanos();
+                }
+
+                @Override
+                public long expireAfterRead(String reference, Entry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+    }
+
+    /**
+     * 按名字取共享的存储, 第一个节点的配置决定它的容量和过期时间
+     */
+    public static EmbeddedSharedTransactionCache named(String name, CacheClusterProperties.L2 properties) {
+        return STORES.computeIfAbsent(name, k -> new EmbeddedSharedTransactionCache(properties));
+    }
+
+    @Override
+    public byte[] get(String reference) {
+        roundTrip();
+        Entry entry = entries.getIfPresent(reference);
+        if (entry == null || entry.value() == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    @Override
+    public void put(String reference, long version, byte[] value) {
+        roundTrip();
+        entries.asMap().compute(reference, (k, current) ->
+            current == null || (current.value() != null && current.version() < version)
+                ? new Entry(version, value, expireAfterWriteNanos)
+                : current);
+    }
+
+    @Override
+    public void invalidate(Collection<String> references) {
+        roundTrip();
+        Entry tombstone = new Entry(Long.MAX_VALUE, null, tombstoneTtlNanos);
+        references.forEach(reference -> entries.put(reference, tombstone));
+    }
+
+    private void roundTrip() {
+        roundTrips.increment();
+        if (roundTripNanos > 0) {
+            LockSupport.parkNanos(roundTripNanos);
+        }
+    }
+
+    /**
+     * 所有节点对这个存储的访问次数
+     */
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * value为null的是失效标记
+     */
+    private record Entry(long version, byte[] value, long ttlNanos) {
+    }
+}
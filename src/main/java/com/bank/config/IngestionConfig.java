@@ -0,0 +1,35 @@
+package com.bank.config;
+
+import com.bank.dto.IngestionStatus;
+import com.bank.service.PendingTransactions;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(IngestionProperties.class)
+public class IngestionConfig {
+
+    /**
+     * 异步写入状态, key是交易编号
+     * 写入完成后保留 bank.ingestion.status-retention, 之后按编号直接查询交易即可
+     */
+    @Bean(name = "ingestionStatusCache")
+    public Cache<String, IngestionStatus> ingestionStatusCache(IngestionProperties properties) {
+        return Caffeine.newBuilder()
+            .maximumSize(properties.getStatusMaximumSize())
+            .expireAfterWrite(properties.getStatusRetention())
+            .build();
+    }
+
+    /**
+     * 等待异步写入的交易, 容量与写入队列相同
+     */
+    @Bean
+    public PendingTransactions pendingTransactions(IngestionProperties properties) {
+        return new PendingTransactions(properties.getQueueCapacity());
+    }
+}
@@ -0,0 +1,37 @@
+package com.bank.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 异步写入队列配置, 对应 bank.ingestion.*
+ */
+@Data
+@ConfigurationProperties(prefix = "bank.ingestion")
+public class IngestionProperties {
+
+    /**
+     * 队列容量, 满了之后新请求返回429
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * 每个数据库事务最多写入的条数
+     */
+    private int maxBatchSize = 500;
+
+    /**
+     * 取到第一条后最多再等待多久凑批, 越长批次越大, 单条延迟也越高
+     */
+    private Duration maxBatchDelay = Duration.ofMillis(5);
+
+    /**
+     * 最终状态保留多久供客户端轮询
+     */
+    private Duration statusRetention = Duration.ofMinutes(10);
+
+    private long statusMaximumSize = 100_000;
+}
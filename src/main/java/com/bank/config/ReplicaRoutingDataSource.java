@@ -0,0 +1,235 @@
+package com.bank.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 读写分离: 只读事务轮流路由到延迟不超过 max-lag 的副本, 其他访问和读写事务使用主库
+ * 副本都落后或不可用时, 只读事务回到主库; 一个web请求用过主库后, 该请求之后的读取也留在主库, 能读到自己的写入
+ * 结果要写入缓存的读取通过 onPrimary 留在主库
+ * 事务开始时还不知道是否只读, 所以要包在 LazyConnectionDataSourceProxy 里, 第一条语句执行时才选择数据库
+ * 延迟由心跳测量: 定期把当前时间写入主库的 replication_heartbeat, 副本上读到的时间越旧, 副本落后越多
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements SmartLifecycle, AutoCloseable {
+
+    private static final String PRIMARY = "primary";
+
+    private static final String REPLICA = "replica-";
+
+    /**
+     * 当前web请求是否已经用过主库, 不在请求中时为 null
+     */
+    private static final ThreadLocal<boolean[]> REQUEST = new ThreadLocal<>();
+
+    /**
+     * 当前线程是否在 onPrimary 中
+     */
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+
+    private final List<HikariDataSource> replicas;
+
+    private final long maxLagMillis;
+
+    private final Duration heartbeatInterval;
+
+    /**
+     * 每个副本最近一次测得的延迟, 未测到或不可用时为 Long.MAX_VALUE
+     */
+    private final AtomicLongArray lagMillis;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final LongAdder replicaReads = new LongAdder();
+
+    private final LongAdder primaryFallbacks = new LongAdder();
+
+    private ScheduledExecutorService heartbeat;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Duration maxLag,
+                                    Duration heartbeatInterval) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagMillis = maxLag.toMillis();
+        this.heartbeatInterval = heartbeatInterval;
+        this.lagMillis = new AtomicLongArray(replicas.size());
+        for (int replica = 0; replica < replicas.size(); replica++) {
+            lagMillis.set(replica, Long.MAX_VALUE);
+        }
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int replica = 0; replica < replicas.size(); replica++) {
+            targets.put(REPLICA + replica, replicas.get(replica));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * 由 web 过滤器在请求开始和结束时调用
+     */
+    public static void beginRequest() {
+        REQUEST.set(new boolean[1]);
+    }
+
+    public static void endRequest() {
+        REQUEST.remove();
+    }
+
+    /**
+     * 在主库上执行只读查询, 未开启读写分离时没有影响
+     * 用于结果要写入缓存的读取: 副本最多落后 max-lag, 从副本读到刚删除的交易或刚创建前的"不存在"后,
+     * 缓存会把这个旧结果保留到过期, 远长于 max-lag
+     */
+    public static <T> T onPrimary(Supplier<T> query) {
+        if (PRIMARY_ONLY.get() != null) {
+            return query.get();
+        }
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean[] request = REQUEST.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (request != null) {
+                request[0] = true;
+            }
+            return PRIMARY;
+        }
+        if (request != null && request[0] || PRIMARY_ONLY.get() != null) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = (start + i) % replicas.size();
+            if (lagMillis.get(replica) <= maxLagMillis) {
+                replicaReads.increment();
+                return REPLICA + replica;
+            }
+        }
+        primaryFallbacks.increment();
+        return PRIMARY;
+    }
+
+    private void beat() {
+        try (Connection connection = primary.getConnection();
+             PreparedStatement statement = connection.prepareStatement("update replication_heartbeat set beat = ? where id = 1")) {
+            statement.setLong(1, System.currentTimeMillis());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.warn("Replication heartbeat on the primary failed: {}", e.getMessage());
+        }
+        for (int replica = 0; replica < replicas.size(); replica++) {
+            long lag = measureLag(replicas.get(replica));
+            long previous = lagMillis.getAndSet(replica, lag);
+            if ((previous <= maxLagMillis) != (lag <= maxLagMillis)) {
+                log.info("Replica {} is {}, lag {}", replica, lag <= maxLagMillis ? "in sync" : "behind",
+                    lag == Long.MAX_VALUE ? "unknown" : lag + " ms");
+            }
+        }
+    }
+
+    private static long measureLag(HikariDataSource replica) {
+        try (Connection connection = replica.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select beat from replication_heartbeat where id = 1");
+             ResultSet beat = statement.executeQuery()) {
+            return beat.next() ? Math.max(0, System.currentTimeMillis() - beat.getLong(1)) : Long.MAX_VALUE;
+        } catch (SQLException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public List<HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * @return 副本最近一次测得的延迟, 未知时为 Long.MAX_VALUE
+     */
+    public long getLagMillis(int replica) {
+        return lagMillis.get(replica);
+    }
+
+    /**
+     * 路由到副本的只读事务数
+     */
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    /**
+     * 因副本都落后而回到主库的只读事务数
+     */
+    public long getPrimaryFallbacks() {
+        return primaryFallbacks.sum();
+    }
+
+    /**
+     * 在Flyway迁移之后启动心跳, 之前只读事务都使用主库
+     */
+    @Override
+    public synchronized void start() {
+        if (heartbeat == null) {
+            heartbeat = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("replication-heartbeat").setDaemon(true).build());
+            long interval = heartbeatInterval.toMillis();
+            heartbeat.scheduleWithFixedDelay(this::beat, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            heartbeat = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return heartbeat != null;
+    }
+
+    @Override
+    public void close() {
+        stop();
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
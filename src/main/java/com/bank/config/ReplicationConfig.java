@@ -0,0 +1,65 @@
+package com.bank.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离, bank.replication.enabled=true 时开启; 主库和每个副本各有一个连接池, 分别按角色配置大小
+ * 不能和 bank.sharding 同时开启, 两者都定义名为 dataSource 的数据源, 启动时会报告冲突
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicationProperties.class)
+@ConditionalOnProperty(name = "bank.replication.enabled", havingValue = "true")
+public class ReplicationConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(ReplicationProperties properties,
+                                                             DataSourceProperties dataSourceProperties) {
+        HikariDataSource primary = pool(dataSourceProperties, dataSourceProperties.determineUrl(), "primary",
+            properties.getPrimaryPoolSize());
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : properties.getReplicaUrls()) {
+            replicas.add(pool(dataSourceProperties, url, "replica-" + replicas.size(), properties.getReplicaPoolSize()));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, properties.getMaxLag(), properties.getHeartbeatInterval());
+    }
+
+    /**
+     * JPA、Flyway和JdbcTemplate使用的数据源; 延迟到第一条语句才取连接, 这时已经知道事务是否只读
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(new ReadYourWritesFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    private static HikariDataSource pool(DataSourceProperties dataSourceProperties, String url, String name, int size) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .url(url)
+            .build();
+        dataSource.setPoolName(name);
+        dataSource.setMaximumPoolSize(size);
+        return dataSource;
+    }
+}
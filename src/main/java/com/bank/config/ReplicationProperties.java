@@ -0,0 +1,47 @@
+package com.bank.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离的配置, 对应 bank.replication.*
+ */
+@Data
+@ConfigurationProperties(prefix = "bank.replication")
+public class ReplicationProperties {
+
+    /**
+     * 关闭时读写都使用 spring.datasource 一个连接池
+     */
+    private boolean enabled = false;
+
+    /**
+     * 只读副本的JDBC URL; 主库是 spring.datasource.url, 用户名和密码都沿用 spring.datasource
+     */
+    private List<String> replicaUrls = new ArrayList<>(List.of("jdbc:h2:mem:bank-replica-0"));
+
+    /**
+     * 主库连接池大小, 承担全部写入和读写事务
+     */
+    private int primaryPoolSize = 10;
+
+    /**
+     * 每个副本的连接池大小, 报表类的只读查询在这里排队, 不占用主库的连接
+     */
+    private int replicaPoolSize = 10;
+
+    /**
+     * 副本落后超过该值时只读事务回到主库, 应大于 heartbeatInterval
+     */
+    private Duration maxLag = Duration.ofSeconds(1);
+
+    /**
+     * 在主库写入心跳并读取各副本心跳的间隔, 也是延迟测量的精度
+     */
+    private Duration heartbeatInterval = Duration.ofMillis(200);
+}
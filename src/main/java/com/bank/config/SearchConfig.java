@@ -0,0 +1,26 @@
+package com.bank.config;
+
+import com.bank.service.TransactionSearchService;
+
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SearchProperties.class)
+public class SearchConfig {
+
+    /**
+     * 启动时从数据库重建描述索引, ApplicationRunner执行完之前应用不会就绪
+     */
+    @Bean
+    public ApplicationRunner transactionSearchRebuilder(TransactionSearchService transactionSearchService,
+                                                        SearchProperties properties) {
+        return args -> {
+            if (properties.isRebuildOnStartup()) {
+                transactionSearchService.rebuild();
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.bank.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 交易描述全文搜索配置, 对应 bank.search.*
+ */
+@Data
+@ConfigurationProperties(prefix = "bank.search")
+public class SearchProperties {
+
+    /**
+     * 一次查询最多的词数
+     */
+    private int maxQueryWords = 8;
+
+    /**
+     * 日期范围不超过这么多天时用按天的倒排表过滤, 更长的范围只在复核时按created_at过滤
+     */
+    private int maxFilterDays = 400;
+
+    /**
+     * 启动时从数据库重建索引
+     */
+    private boolean rebuildOnStartup = true;
+}
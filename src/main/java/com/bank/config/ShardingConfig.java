@@ -0,0 +1,89 @@
+package com.bank.config;
+
+import com.bank.repository.ShardDirectory;
+import com.bank.repository.ShardRouter;
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    /**
+     * 未开启分片时也提供路由, 只有分片0, 调用方不必区分两种模式
+     */
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties, PlatformTransactionManager transactionManager) {
+        if (!properties.isEnabled()) {
+            return ShardRouter.single(transactionManager);
+        }
+        return new ShardRouter(properties.getShards(), new ShardDirectory(1 << 16), transactionManager);
+    }
+
+    /**
+     * 每个分片一个连接池, 由 ShardRoutingDataSource 作为唯一的 DataSource 交给 JPA;
+     * Flyway 逐个分片迁移, 再把分片 s 的主键序列移到 s << 48 之后, 分片号由此编码在 id 中
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "bank.sharding.enabled", havingValue = "true")
+    static class ShardedDataSourceConfig {
+
+        /**
+         * 序列值是一块50个id的上界 (见V1), 从 firstId + 50 开始, 第一块的下界正好落在分片内
+         */
+        private static final long SEQUENCE_BLOCK = 50;
+
+        @Bean
+        public ShardRoutingDataSource dataSource(ShardingProperties properties, DataSourceProperties dataSourceProperties) {
+            List<HikariDataSource> shards = new ArrayList<>();
+            for (int shard = 0; shard < properties.getShards(); shard++) {
+                HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(properties.getUrlPattern().replace("{shard}", Integer.toString(shard)))
+                    .build();
+                dataSource.setPoolName("shard-" + shard);
+                dataSource.setMaximumPoolSize(properties.getMaximumPoolSize());
+                shards.add(dataSource);
+            }
+            return new ShardRoutingDataSource(shards);
+        }
+
+        @Bean
+        public FlywayMigrationStrategy shardedFlywayMigrationStrategy(ShardRoutingDataSource dataSource) {
+            return flyway -> {
+                List<HikariDataSource> shards = dataSource.getShards();
+                for (int shard = 0; shard < shards.size(); shard++) {
+                    Flyway.configure().configuration(flyway.getConfiguration()).dataSource(shards.get(shard)).load().migrate();
+                    if (shard > 0) {
+                        offsetSequence(shard, new JdbcTemplate(shards.get(shard)));
+                    }
+                }
+                log.info("Migrated {} shards", shards.size());
+            };
+        }
+
+        private static void offsetSequence(int shard, JdbcTemplate jdbcTemplate) {
+            long start = ShardRouter.firstId(shard) + SEQUENCE_BLOCK;
+            Long current = jdbcTemplate.queryForObject(
+                "select base_value from information_schema.sequences where sequence_name = 'TRANSACTIONS_SEQ'", Long.class);
+            if (current != null && current < start) {
+                jdbcTemplate.execute("alter sequence transactions_seq restart with " + start);
+            }
+        }
+    }
+}
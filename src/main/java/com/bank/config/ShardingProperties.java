@@ -0,0 +1,33 @@
+package com.bank.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 按账户哈希分片存储的配置, 对应 bank.sharding.*
+ */
+@Data
+@ConfigurationProperties(prefix = "bank.sharding")
+public class ShardingProperties {
+
+    /**
+     * 关闭时只有 spring.datasource 一个数据库
+     */
+    private boolean enabled = false;
+
+    /**
+     * 分片数(1-32), 账户号哈希对其取模; 数据写入后不能再修改
+     */
+    private int shards = 4;
+
+    /**
+     * 分片数据源的JDBC URL, {shard} 替换为分片号; 用户名和密码沿用 spring.datasource
+     */
+    private String urlPattern = "jdbc:h2:mem:bank-shard-{shard}";
+
+    /**
+     * 每个分片的连接池大小
+     */
+    private int maximumPoolSize = 10;
+}
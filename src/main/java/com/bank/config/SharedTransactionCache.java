@@ -0,0 +1,46 @@
+package com.bank.config;
+
+import java.util.Collection;
+
+/**
+ * 多个节点共享的交易缓存(L2), 位于各节点的 transactionByReferenceCache(L1) 和数据库之间
+ * 值是 TransactionCacheCodec 的紧凑编码, 带版本号: 只有更新的版本才能替换, 慢的读取不会覆盖新写入的版本
+ * 删除留下失效标记, 标记存活期间不接受写入, 删除前开始的读取不能把交易写回来
+ * 接入Redis等外部存储时实现这个接口; 实现不应抛出异常, 存储不可用时当作未命中
+ */
+public interface SharedTransactionCache {
+
+    /**
+     * 不使用L2
+     */
+    SharedTransactionCache NONE = new SharedTransactionCache() {
+
+        @Override
+        public byte[] get(String reference) {
+            return null;
+        }
+
+        @Override
+        public void put(String reference, long version, byte[] value) {
+        }
+
+        @Override
+        public void invalidate(Collection<String> references) {
+        }
+    };
+
+    /**
+     * @return 编码后的交易, 不存在、已过期或已失效时返回null
+     */
+    byte[] get(String reference);
+
+    /**
+     * 版本比已有的值新且没有失效标记时写入
+     */
+    void put(String reference, long version, byte[] value);
+
+    /**
+     * 一次往返内把这些编号替换成失效标记
+     */
+    void invalidate(Collection<String> references);
+}
@@ -0,0 +1,26 @@
+package com.bank.config;
+
+import com.bank.service.TransactionStatsService;
+
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(StatsProperties.class)
+public class StatsConfig {
+
+    /**
+     * 启动时从数据库重建窗口统计, ApplicationRunner执行完之前应用不会就绪
+     */
+    @Bean
+    public ApplicationRunner transactionStatsRebuilder(TransactionStatsService transactionStatsService,
+                                                       StatsProperties properties) {
+        return args -> {
+            if (properties.isRebuildOnStartup()) {
+                transactionStatsService.rebuild();
+            }
+        };
+    }
+}
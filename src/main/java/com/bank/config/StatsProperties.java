@@ -0,0 +1,46 @@
+package com.bank.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 实时窗口统计配置, 对应 bank.stats.*
+ */
+@Data
+@ConfigurationProperties(prefix = "bank.stats")
+public class StatsProperties {
+
+    /**
+     * 时间桶宽度, 也是窗口边界的精度
+     */
+    private Duration bucketWidth = Duration.ofSeconds(10);
+
+    /**
+     * 保留多久的桶, 可查询的最大窗口
+     */
+    private Duration retention = Duration.ofHours(1);
+
+    /**
+     * GET /v1/stats 默认返回的窗口
+     */
+    private List<Duration> windows = List.of(Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofHours(1));
+
+    /**
+     * 每个窗口返回笔数最多的前几个账户
+     */
+    private int topAccounts = 10;
+
+    /**
+     * 每个桶最多单独统计的账户数, 超出后新出现的账户只计入类型汇总
+     */
+    private int accountsPerBucket = 1_000;
+
+    /**
+     * 启动时从数据库重建保留范围内的统计
+     */
+    private boolean rebuildOnStartup = true;
+}
@@ -0,0 +1,219 @@
+package com.bank.config;
+
+import com.bank.dto.TransactionView;
+import com.bank.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 交易缓存值的编解码, 所有读写 transactionByReferenceCache 的地方都经过这里
+ * OBJECT: 直接缓存不可变的 TransactionView
+ * COMPACT: 缓存一个byte[], 金额存为 unscaled long + scale, 时间存为UTC纪元微秒(与timestamp(6)精度一致),
+ * 类型存为序号; reference就是缓存的key, 不重复存储. 每次读取解码出一个新的视图
+ * 编码格式: flags(2) [id(8)] [type(1)] [amount] [account] [description] [createdAt(8)] [updatedAt(8)] [version(8)]
+ */
+public class TransactionCacheCodec {
+
+    private static final int ID = 1;
+
+    private static final int TYPE = 1 << 1;
+
+    private static final int AMOUNT_LONG = 1 << 2;
+
+    private static final int AMOUNT_BIG = 1 << 3;
+
+    private static final int ACCOUNT = 1 << 4;
+
+    private static final int DESCRIPTION = 1 << 5;
+
+    private static final int CREATED_AT = 1 << 6;
+
+    private static final int UPDATED_AT = 1 << 7;
+
+    private static final int VERSION = 1 << 8;
+
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final TransactionCacheProperties.Encoding encoding;
+
+    public TransactionCacheCodec(TransactionCacheProperties.Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * 转换成缓存值; 同一个交易每次编码得到不同的实例, 调用方用返回值做 remove(key, value)
+     */
+    public Object encode(TransactionView transaction) {
+        if (encoding == TransactionCacheProperties.Encoding.OBJECT) {
+            return transaction;
+        }
+        byte[] compact = encodeCompact(transaction);
+        // Values the format cannot hold are cached as objects, decode accepts both
+        return compact != null ? compact : transaction;
+    }
+
+    /**
+     * 缓存值对应的版本号, 没有缓存值或没有版本号(尚未提交的异步写入)时返回-1
+     */
+    public long version(String reference, Object value) {
+        TransactionView transaction = decode(reference, value);
+        return transaction == null || transaction.version() == null ? -1 : transaction.version();
+    }
+
+    /**
+     * 从缓存值还原交易, value为null时返回null
+     */
+    public TransactionView decode(String reference, Object value) {
+        if (value instanceof byte[] compact) {
+            return decodeCompact(reference, compact);
+        }
+        return (TransactionView) value;
+    }
+
+    /**
+     * 共享缓存(L2)的值, 不论 encoding 都用紧凑编码; 格式放不下的交易返回null
+     */
+    public byte[] toBytes(TransactionView transaction) {
+        return encodeCompact(transaction);
+    }
+
+    public TransactionView fromBytes(String reference, byte[] value) {
+        return decodeCompact(reference, value);
+    }
+
+    private static byte[] encodeCompact(TransactionView transaction) {
+        byte[] account = utf8(transaction.accountNumber());
+        byte[] description = utf8(transaction.description());
+        if ((account != null && account.length > MAX_STRING_BYTES)
+            || (description != null && description.length > MAX_STRING_BYTES)) {
+            return null;
+        }
+        BigDecimal amount = transaction.amount();
+        boolean longAmount = amount != null && amount.unscaledValue().bitLength() < Long.SIZE
+            && amount.scale() >= Byte.MIN_VALUE && amount.scale() <= Byte.MAX_VALUE;
+        byte[] bigAmount = amount != null && !longAmount ? amount.unscaledValue().toByteArray() : null;
+        if (bigAmount != null && bigAmount.length > Byte.MAX_VALUE) {
+            return null;
+        }
+
+        int flags = 0;
+        int size = Short.BYTES;
+        if (transaction.id() != null) {
+            flags |= ID;
+            size += Long.BYTES;
+        }
+        if (transaction.type() != null) {
+            flags |= TYPE;
+            size += 1;
+        }
+        if (longAmount) {
+            flags |= AMOUNT_LONG;
+            size += Long.BYTES + 1;
+        } else if (bigAmount != null) {
+            flags |= AMOUNT_BIG;
+            size += Integer.BYTES + 1 + bigAmount.length;
+        }
+        if (account != null) {
+            flags |= ACCOUNT;
+            size += Short.BYTES + account.length;
+        }
+        if (description != null) {
+            flags |= DESCRIPTION;
+            size += Short.BYTES + description.length;
+        }
+        if (transaction.createdAt() != null) {
+            flags |= CREATED_AT;
+            size += Long.BYTES;
+        }
+        if (transaction.updatedAt() != null) {
+            flags |= UPDATED_AT;
+            size += Long.BYTES;
+        }
+        if (transaction.version() != null) {
+            flags |= VERSION;
+            size += Long.BYTES;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putShort((short) flags);
+        if (transaction.id() != null) {
+            buffer.putLong(transaction.id());
+        }
+        if (transaction.type() != null) {
+            buffer.put((byte) transaction.type().ordinal());
+        }
+        if (longAmount) {
+            buffer.putLong(amount.unscaledValue().longValue()).put((byte) amount.scale());
+        } else if (bigAmount != null) {
+            buffer.putInt(amount.scale()).put((byte) bigAmount.length).put(bigAmount);
+        }
+        putString(buffer, account);
+        putString(buffer, description);
+        if (transaction.createdAt() != null) {
+            buffer.putLong(toEpochMicros(transaction.createdAt()));
+        }
+        if (transaction.updatedAt() != null) {
+            buffer.putLong(toEpochMicros(transaction.updatedAt()));
+        }
+        if (transaction.version() != null) {
+            buffer.putLong(transaction.version());
+        }
+        return buffer.array();
+    }
+
+    private static TransactionView decodeCompact(String reference, byte[] compact) {
+        ByteBuffer buffer = ByteBuffer.wrap(compact);
+        int flags = buffer.getShort() & 0xFFFF;
+        Long id = (flags & ID) != 0 ? buffer.getLong() : null;
+        TransactionType type = (flags & TYPE) != 0 ? TYPES[buffer.get()] : null;
+        BigDecimal amount = null;
+        if ((flags & AMOUNT_LONG) != 0) {
+            long unscaled = buffer.getLong();
+            amount = BigDecimal.valueOf(unscaled, buffer.get());
+        } else if ((flags & AMOUNT_BIG) != 0) {
+            int scale = buffer.getInt();
+            byte[] unscaled = new byte[buffer.get()];
+            buffer.get(unscaled);
+            amount = new BigDecimal(new BigInteger(unscaled), scale);
+        }
+        String accountNumber = (flags & ACCOUNT) != 0 ? getString(buffer) : null;
+        String description = (flags & DESCRIPTION) != 0 ? getString(buffer) : null;
+        LocalDateTime createdAt = (flags & CREATED_AT) != 0 ? fromEpochMicros(buffer.getLong()) : null;
+        LocalDateTime updatedAt = (flags & UPDATED_AT) != 0 ? fromEpochMicros(buffer.getLong()) : null;
+        Long version = (flags & VERSION) != 0 ? buffer.getLong() : null;
+        return new TransactionView(id, reference, accountNumber, amount, type, description, createdAt, updatedAt, version);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value != null) {
+            buffer.putShort((short) value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static long toEpochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+            (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
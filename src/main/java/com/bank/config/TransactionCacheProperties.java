@@ -0,0 +1,90 @@
+package com.bank.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 交易缓存配置, 对应 bank.cache.transaction.*
+ */
+@Data
+@ConfigurationProperties(prefix = "bank.cache.transaction")
+public class TransactionCacheProperties {
+
+    /**
+     * 最大条数, 配置了maximumWeight时不生效
+     */
+    private long maximumSize = 500;
+
+    /**
+     * 按估算的条目字节数限制缓存总大小, 为空时按条数限制
+     */
+    private DataSize maximumWeight;
+
+    /**
+     * 写入后过期时间
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(5);
+
+    /**
+     * 写入后多久在后台异步刷新, 为空时不刷新
+     */
+    private Duration refreshAfterWrite;
+
+    /**
+     * 缓存值的存储形式, OBJECT直接存交易对象, COMPACT存紧凑的二进制编码, 读取时解码
+     */
+    private Encoding encoding = Encoding.OBJECT;
+
+    /**
+     * "交易不存在"负缓存的最大条数
+     */
+    private long notFoundMaximumSize = 10_000;
+
+    /**
+     * "交易不存在"负缓存的过期时间
+     */
+    private Duration notFoundExpireAfterWrite = Duration.ofSeconds(5);
+
+    /**
+     * 启动预热, 对应 bank.cache.transaction.warmup.*
+     */
+    private final Warmup warmup = new Warmup();
+
+    public enum Encoding {
+        OBJECT,
+        COMPACT
+    }
+
+    @Data
+    public static class Warmup {
+
+        /**
+         * 是否在应用就绪前预热缓存
+         */
+        private boolean enabled = false;
+
+        /**
+         * 预热的条数, 取最近创建或更新的交易, 不超过缓存的maximumSize
+         */
+        private int size = 5_000;
+
+        /**
+         * 每次按id批量加载的条数
+         */
+        private int batchSize = 500;
+
+        /**
+         * 并行加载的线程数, 不应超过连接池大小
+         */
+        private int parallelism = 4;
+
+        /**
+         * 预热的时间上限, 超时后放弃未完成的批次, 应用照常就绪
+         */
+        private Duration timeout = Duration.ofSeconds(10);
+    }
+}
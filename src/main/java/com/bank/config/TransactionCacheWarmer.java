@@ -0,0 +1,137 @@
+package com.bank.config;
+
+import com.bank.dto.TransactionView;
+import com.bank.repository.ShardRouter;
+import com.bank.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 启动预热: 在应用就绪(readiness)之前, 把最近创建或更新的交易按id分批并行加载进 transactionByReferenceCache,
+ * 重启后的第一波请求不会全部打到数据库; 超过时间上限时放弃剩余批次, 不阻止应用就绪
+ * 分片时每个分片取最近的 size / 分片数 条, 账户哈希使各分片的写入大致均匀, 合起来近似全局最近的 size 条
+ * 就绪后记录启动耗时, 一分钟后记录这一分钟的缓存命中率
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionCacheWarmer implements ApplicationRunner {
+
+    private static final Duration HIT_RATE_WINDOW = Duration.ofMinutes(1);
+
+    private final TransactionRepository transactionRepository;
+
+    private final Cache<String, Object> transactionByReferenceCache;
+
+    private final TransactionCacheCodec transactionCacheCodec;
+
+    private final TransactionCacheProperties properties;
+
+    private final ShardRouter shardRouter;
+
+    /**
+     * ApplicationRunner全部执行完后应用才发布ReadinessState.ACCEPTING_TRAFFIC
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        TransactionCacheProperties.Warmup warmup = properties.getWarmup();
+        if (!warmup.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + warmup.getTimeout().toNanos();
+        int size = properties.getMaximumWeight() == null
+            ? (int) Math.min(warmup.getSize(), properties.getMaximumSize()) : warmup.getSize();
+        int shards = shardRouter.shards();
+        PageRequest recent = PageRequest.of(0, Math.max(1, (size + shards - 1) / shards));
+        List<List<List<Long>>> shardBatches = new ArrayList<>(shards);
+        int total = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            List<Long> ids = shardRouter.on(shard, () -> transactionRepository.findRecentlyUpdatedIds(recent));
+            shardBatches.add(Lists.partition(ids, warmup.getBatchSize()));
+            total += ids.size();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(warmup.getParallelism(),
+            new ThreadFactoryBuilder().setNameFormat("cache-warmup-%d").setDaemon(true).build());
+        int loaded = 0;
+        boolean timedOut = false;
+        try {
+            // Batches are submitted newest first, round robin over the shards, so a timeout drops the coldest ones
+            int batchCount = shardBatches.stream().mapToInt(List::size).sum();
+            List<Future<Integer>> batches = new ArrayList<>(batchCount);
+            for (int round = 0; batches.size() < batchCount; round++) {
+                for (int shard = 0; shard < shards; shard++) {
+                    if (round < shardBatches.get(shard).size()) {
+                        int current = shard;
+                        List<Long> batch = shardBatches.get(shard).get(round);
+                        batches.add(executor.submit(() -> shardRouter.on(current, () -> load(batch))));
+                    }
+                }
+            }
+            for (Future<Integer> batch : batches) {
+                try {
+                    loaded += batch.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    timedOut = true;
+                    break;
+                } catch (ExecutionException e) {
+                    log.warn("Cache warm-up batch failed: {}", e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Cache warm-up loaded {} of {} recently updated transactions in {} ms{}", loaded, total,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), timedOut ? " (time budget exceeded)" : "");
+    }
+
+    private int load(List<Long> ids) {
+        int loaded = 0;
+        List<TransactionView> transactions = ReplicaRoutingDataSource.onPrimary(() -> transactionRepository.findViewsByIdIn(ids));
+        for (TransactionView transaction : transactions) {
+            // A request served before readiness may already have cached a newer copy
+            Object cached = transactionCacheCodec.encode(transaction);
+            if (transactionByReferenceCache.asMap().putIfAbsent(transaction.reference(), cached) == null) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        log.info("Application ready in {} ms", event.getTimeTaken() == null ? -1 : event.getTimeTaken().toMillis());
+        CacheStats atReady = transactionByReferenceCache.stats();
+        CompletableFuture.delayedExecutor(HIT_RATE_WINDOW.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            CacheStats firstMinute = transactionByReferenceCache.stats().minus(atReady);
+            log.info("Transaction cache hit rate in the first minute after ready: {}% of {} lookups",
+                String.format("%.2f", firstMinute.hitRate() * 100), firstMinute.requestCount());
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.bank.config;
+
+import com.bank.dto.TransactionView;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+/**
+ * 估算缓存条目占用的堆内存字节数, 用于按容量而不是按条数限制缓存
+ * 按64位JVM开启压缩指针估算, 不追求精确
+ */
+public class TransactionWeigher implements Weigher<Object, Object> {
+
+    private static final int CACHE_ENTRY_OVERHEAD = 64;
+
+    private static final int TRANSACTION_SHALLOW_SIZE = 48;
+
+    private static final int LONG_SIZE = 16;
+
+    private static final int BIG_DECIMAL_SIZE = 40;
+
+    private static final int LOCAL_DATE_TIME_SIZE = 48;
+
+    private static final int BYTE_ARRAY_HEADER = 16;
+
+    private static final int UNKNOWN_VALUE_SIZE = 256;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        int valueSize;
+        if (value instanceof TransactionView transaction) {
+            valueSize = estimate(transaction);
+        } else if (value instanceof byte[] compact) {
+            valueSize = BYTE_ARRAY_HEADER + compact.length;
+        } else {
+            valueSize = UNKNOWN_VALUE_SIZE;
+        }
+        return CACHE_ENTRY_OVERHEAD + stringSize((String) key) + valueSize;
+    }
+
+    static int estimate(TransactionView transaction) {
+        return TRANSACTION_SHALLOW_SIZE
+            + 2 * LONG_SIZE
+            + stringSize(transaction.reference())
+            + stringSize(transaction.accountNumber())
+            + stringSize(transaction.description())
+            + BIG_DECIMAL_SIZE
+            + 2 * LOCAL_DATE_TIME_SIZE;
+    }
+
+    private static int stringSize(String value) {
+        // String header + byte[] header, Latin-1 compact strings use one byte per char
+        return value == null ? 0 : 40 + value.length();
+    }
+}
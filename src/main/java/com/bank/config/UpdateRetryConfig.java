@@ -0,0 +1,9 @@
+package com.bank.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(UpdateRetryProperties.class)
+public class UpdateRetryConfig {
+}
@@ -0,0 +1,30 @@
+package com.bank.config;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 更新交易遇到乐观锁冲突时的重试配置, 对应 bank.update.retry.*
+ */
+@Data
+@ConfigurationProperties(prefix = "bank.update.retry")
+public class UpdateRetryProperties {
+
+    /**
+     * 最多尝试次数(含第一次), 用完仍冲突返回409
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * 第一次重试前的最大等待, 之后每次翻倍, 实际等待在 [0, 上限) 内随机
+     */
+    private Duration initialBackoff = Duration.ofMillis(2);
+
+    /**
+     * 等待上限
+     */
+    private Duration maxBackoff = Duration.ofMillis(50);
+}
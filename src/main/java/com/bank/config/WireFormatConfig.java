@@ -0,0 +1,56 @@
+package com.bank.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * 二进制传输格式, 按Accept/Content-Type协商, 没有指定时仍然是JSON
+ * CBOR(application/cbor)和Smile(application/x-jackson-smile)的字段名、日期格式与JSON相同, 使用同一套Jackson配置;
+ * 金额编码为二进制的十进制数, Smile在一个响应内对重复的字段名和短字符串使用回引用
+ * 这两个转换器替换Spring MVC默认注册的同类转换器, 位置仍在JSON之后
+ */
+@Configuration
+public class WireFormatConfig {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    /**
+     * CBOR序列(RFC 8742), 多个CBOR值首尾相接, 用于导出
+     */
+    public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    public static final MediaType APPLICATION_CBOR_SEQ = MediaType.parseMediaType(APPLICATION_CBOR_SEQ_VALUE);
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(binary(builder.factory(new CBORFactory())));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(binary(builder.factory(new SmileFactory())));
+    }
+
+    /**
+     * 二进制格式没有兼容包袱, Page只保留内容、页码、页大小和总数, 去掉可以由它们推出的 pageable、sort 等字段
+     */
+    public static ObjectMapper binary(Jackson2ObjectMapperBuilder builder) {
+        return builder.mixIn(Page.class, CompactPage.class).build();
+    }
+
+    @JsonIgnoreProperties({"pageable", "sort", "first", "last", "empty", "numberOfElements", "totalPages"})
+    private abstract static class CompactPage {
+    }
+}
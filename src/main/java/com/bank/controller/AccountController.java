@@ -0,0 +1,74 @@
+package com.bank.controller;
+
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionView;
+import com.bank.model.AccountSummary;
+import com.bank.model.TransactionType;
+import com.bank.service.AccountSummaryService;
+import com.bank.service.TransactionService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/v1/accounts")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Accounts API", description = "API for per-account queries")
+public class AccountController {
+
+    private final TransactionService transactionService;
+
+    private final AccountSummaryService accountSummaryService;
+
+    @GetMapping("/{accountNumber}/summary")
+    @Operation(summary = "Get the running balance and per-type counts of an account")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Account summary",
+            content = {@Content(mediaType = "application/json",
+                schema = @Schema(implementation = AccountSummary.class))}),
+        @ApiResponse(responseCode = "404", description = "Account has no transactions",
+            content = @Content)
+    })
+    public ResponseEntity<AccountSummary> getAccountSummary(@PathVariable String accountNumber) {
+        AccountSummary summary = accountSummaryService.getAccountSummary(accountNumber);
+        return ResponseEntity.ok(summary);
+    }
+
+    @GetMapping("/{accountNumber}/transactions")
+    @Operation(summary = "Get the transaction history of an account",
+        description = "Newest first with cursor pagination; optionally filtered by type and "
+            + "by a created_at range [from, to)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page of the account's transactions",
+            content = {@Content(mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class))}),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor, size or filter",
+            content = @Content)
+    })
+    public ResponseEntity<CursorPage<TransactionView>> getAccountTransactions(
+        @PathVariable String accountNumber,
+        @RequestParam(required = false) TransactionType type,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") @Min(1) @Max(TransactionController.MAX_PAGE_SIZE) int size) {
+        CursorPage<TransactionView> transactions = transactionService.getAccountTransactions(
+            accountNumber, type, from, to, cursor, size);
+        return ResponseEntity.ok(transactions);
+    }
+}
@@ -0,0 +1,65 @@
+package com.bank.controller;
+
+import com.bank.dto.TransactionStats;
+import com.bank.exception.InvalidStatsWindowException;
+import com.bank.service.TransactionStatsService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1/stats")
+@RequiredArgsConstructor
+@Tag(name = "Stats API", description = "API for real-time windowed transaction aggregates")
+public class StatsController {
+
+    private final TransactionStatsService transactionStatsService;
+
+    @GetMapping
+    @Operation(summary = "Get transaction volume and amount by type over recent time windows",
+        description = "Aggregated in memory from fixed-width time buckets, the cost does not depend on the "
+            + "number of transactions; window edges are accurate to one bucket")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Totals by type and top accounts per window",
+            content = {@Content(mediaType = "application/json",
+                schema = @Schema(implementation = TransactionStats.class))}),
+        @ApiResponse(responseCode = "400", description = "Invalid window or window longer than the retention",
+            content = @Content)
+    })
+    public ResponseEntity<TransactionStats> getStats(
+        @Parameter(description = "Windows such as 1m, 5m, 1h or PT15M; defaults to bank.stats.windows")
+        @RequestParam(name = "window", required = false) List<String> windows) {
+        return ResponseEntity.ok(transactionStatsService.getStats(parse(windows)));
+    }
+
+    private static List<Duration> parse(List<String> windows) {
+        List<Duration> durations = new ArrayList<>();
+        if (windows != null) {
+            for (String window : windows) {
+                try {
+                    durations.add(DurationStyle.detectAndParse(window));
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidStatsWindowException("Invalid window: " + window);
+                }
+            }
+        }
+        return durations;
+    }
+}
@@ -1,7 +1,23 @@
 package com.bank.controller;
 
+import com.bank.config.WireFormatConfig;
+import com.bank.dto.BatchCreateResult;
+import com.bank.dto.BulkResult;
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.CursorPage;
+import com.bank.dto.IngestionStatus;
+import com.bank.dto.TransactionCriteria;
+import com.bank.dto.TransactionView;
 import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.service.TransactionBulkService;
+import com.bank.service.TransactionIngestionService;
+import com.bank.service.TransactionSearchService;
 import com.bank.service.TransactionService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,22 +26,89 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/v1/transactions")
 @RequiredArgsConstructor
+@Validated
 @Tag(name = "Transactions API", description = "API for transactions operations")
 public class TransactionController {
 
+    /**
+     * 单次批量创建的最大条数
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * 游标分页每页最大条数
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+    /**
+     * 导出支持的格式, 第一个为默认
+     */
+    private static final List<MediaType> EXPORT_FORMATS = List.of(APPLICATION_NDJSON,
+        WireFormatConfig.APPLICATION_CBOR_SEQ, WireFormatConfig.APPLICATION_SMILE);
+
+    /**
+     * 单笔交易支持的格式, 第一个为默认; 值为ETag中的编码名
+     */
+    private static final Map<MediaType, String> TRANSACTION_FORMATS = formats();
+
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     private final TransactionService transactionService;
 
+    private final TransactionIngestionService transactionIngestionService;
+
+    private final TransactionBulkService transactionBulkService;
+
+    private final TransactionSearchService transactionSearchService;
+
+    private final ObjectMapper objectMapper;
+
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
+
     @PostMapping()
     @Operation(summary = "Create a new transaction")
     @ApiResponses(value = {
@@ -37,23 +120,106 @@ public class TransactionController {
         @ApiResponse(responseCode = "409", description = "Transaction reference already exists",
             content = @Content)
     })
-    public ResponseEntity<Transaction> createTransaction(@Valid @RequestBody Transaction transaction) {
+    public ResponseEntity<Transaction> createTransaction(@Valid @RequestBody Transaction transaction,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         Transaction createdTransaction = transactionService.createTransaction(transaction);
-        return new ResponseEntity<>(createdTransaction, HttpStatus.CREATED);
+        return representation(ResponseEntity.status(HttpStatus.CREATED), accept, createdTransaction.getId(),
+            createdTransaction.getVersion(), createdTransaction);
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Create transactions in batch",
+        description = "Each item is validated and checked for duplicates on its own; "
+            + "one invalid or duplicate item does not fail the rest of the batch")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Per-item results of the batch",
+            content = {@Content(mediaType = "application/json",
+                schema = @Schema(implementation = BatchCreateResult.class))}),
+        @ApiResponse(responseCode = "400", description = "Empty batch or batch too large",
+            content = @Content)
+    })
+    public ResponseEntity<BatchCreateResult> createTransactions(
+        @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<Transaction> transactions) {
+        BatchCreateResult result = transactionService.createTransactions(transactions);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/async")
+    @Operation(summary = "Accept a transaction for asynchronous write",
+        description = "The transaction is queued and committed shortly after in a batch with others. "
+            + "It is readable by reference immediately (without an id); poll the Location for the final status")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Transaction accepted, not yet durable",
+            content = {@Content(mediaType = "application/json",
+                schema = @Schema(implementation = IngestionStatus.class))}),
+        @ApiResponse(responseCode = "400", description = "Invalid input",
+            content = @Content),
+        @ApiResponse(responseCode = "409", description = "Transaction reference already exists or is pending",
+            content = @Content),
+        @ApiResponse(responseCode = "429", description = "Ingestion queue is full, retry later",
+            content = @Content)
+    })
+    public ResponseEntity<IngestionStatus> submitTransaction(@Valid @RequestBody Transaction transaction) {
+        transactionIngestionService.submit(transaction);
+        return ResponseEntity.accepted()
+            .location(URI.create("/v1/transactions/async/" + UriUtils.encodePathSegment(transaction.getReference(), StandardCharsets.UTF_8)))
+            .body(IngestionStatus.pending(transaction.getReference()));
+    }
+
+    @GetMapping("/async/{reference}")
+    @Operation(summary = "Get the status of an asynchronous write")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "PENDING, COMMITTED, DUPLICATE, INVALID or FAILED",
+            content = {@Content(mediaType = "application/json",
+                schema = @Schema(implementation = IngestionStatus.class))}),
+        @ApiResponse(responseCode = "404", description = "No recent asynchronous write for this reference",
+            content = @Content)
+    })
+    public ResponseEntity<IngestionStatus> getIngestionStatus(@PathVariable String reference) {
+        return ResponseEntity.ok(transactionIngestionService.getStatus(reference));
     }
 
     @GetMapping("/reference/{reference}")
-    @Operation(summary = "Get a transaction by reference")
+    @Operation(summary = "Get a transaction by reference",
+        description = "Returns a strong ETag per format; with a matching If-None-Match the response is 304 without a body")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Found the transaction",
             content = {@Content(mediaType = "application/json",
-                schema = @Schema(implementation = Transaction.class))}),
+                schema = @Schema(implementation = TransactionView.class))}),
+        @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match",
+            content = @Content),
         @ApiResponse(responseCode = "404", description = "Transaction not found",
             content = @Content)
     })
-    public ResponseEntity<Transaction> getTransactionByReference(@PathVariable String reference) {
-        Transaction transaction = transactionService.getTransactionByReference(reference);
-        return ResponseEntity.ok(transaction);
+    public ResponseEntity<TransactionView> getTransactionByReference(@PathVariable String reference,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        TransactionView transaction = transactionService.getTransactionByReference(reference);
+        // Spring answers a matching If-None-Match with 304 and skips serializing the body
+        return representation(ResponseEntity.ok(), accept, transaction.id(), transaction.version(), transaction);
+    }
+
+    /**
+     * 在这里选定格式并写入Content-Type, Spring就按这个格式序列化, ETag与实际发送的字节对应
+     * 没有可接受的格式时返回406; 不能交给Spring判断, 它不把 q=0 当作拒绝
+     */
+    private static <T> ResponseEntity<T> representation(ResponseEntity.BodyBuilder response, String accept, Long id,
+                                                        Long version, T body) {
+        MediaType format = negotiate(accept, List.copyOf(TRANSACTION_FORMATS.keySet()));
+        if (format == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return response.contentType(format)
+            .eTag(TransactionView.etag(id, version, TRANSACTION_FORMATS.get(format)))
+            .varyBy(HttpHeaders.ACCEPT)
+            .body(body);
+    }
+
+    private static Map<MediaType, String> formats() {
+        Map<MediaType, String> formats = new LinkedHashMap<>();
+        formats.put(MediaType.APPLICATION_JSON, null);
+        formats.put(MediaType.APPLICATION_CBOR, "cbor");
+        formats.put(WireFormatConfig.APPLICATION_SMILE, "smile");
+        return Collections.unmodifiableMap(formats);
     }
 
     @GetMapping
@@ -61,13 +227,201 @@ public class TransactionController {
     @ApiResponse(responseCode = "200", description = "List of transactions",
         content = {@Content(mediaType = "application/json",
             schema = @Schema(implementation = Page.class))})
-    public ResponseEntity<Page<Transaction>> getAllTransactions(Pageable pageable) {
-        Page<Transaction> transactions = transactionService.getAllTransactions(pageable);
+    public ResponseEntity<Page<TransactionView>> getAllTransactions(Pageable pageable) {
+        Page<TransactionView> transactions = transactionService.getAllTransactions(pageable);
         return ResponseEntity.ok(transactions);
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "Get transactions with cursor pagination",
+        description = "Newest first. Pass next_cursor from the previous response to get the next page; "
+            + "no total count is computed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page of transactions",
+            content = {@Content(mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class))}),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or size",
+            content = @Content)
+    })
+    public ResponseEntity<CursorPage<TransactionView>> getTransactions(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE_SIZE) int size) {
+        CursorPage<TransactionView> transactions = transactionService.getTransactions(cursor, size);
+        return ResponseEntity.ok(transactions);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search transactions by words in the description",
+        description = "Case-insensitive, every word must occur in the description; newest first with cursor "
+            + "pagination, optionally filtered by account number, type and a created_at range [from, to). "
+            + "Served from an in-memory index, each hit is checked against the database")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page of matching transactions",
+            content = {@Content(mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class))}),
+        @ApiResponse(responseCode = "400", description = "Empty or too long query, invalid cursor, size or filter",
+            content = @Content)
+    })
+    public ResponseEntity<CursorPage<TransactionView>> searchTransactions(
+        @RequestParam("q") String query,
+        @RequestParam(name = "account_number", required = false) String accountNumber,
+        @RequestParam(required = false) TransactionType type,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE_SIZE) int size) {
+        CursorPage<TransactionView> transactions = transactionSearchService.search(query, accountNumber, type, from, to,
+            cursor, size);
+        return ResponseEntity.ok(transactions);
+    }
+
+    @GetMapping(value = "/export", produces = {APPLICATION_NDJSON_VALUE, WireFormatConfig.APPLICATION_CBOR_SEQ_VALUE,
+        WireFormatConfig.APPLICATION_SMILE_VALUE})
+    @Operation(summary = "Export all transactions as newline-delimited JSON, a CBOR sequence or a Smile stream",
+        description = "Streams every transaction ordered by id. NDJSON (one JSON object per line) unless Accept asks for "
+            + "application/cbor-seq or application/x-jackson-smile; "
+            + "the body is gzip-compressed when the client sends Accept-Encoding: gzip")
+    @ApiResponse(responseCode = "200", description = "Stream of transactions",
+        content = {@Content(mediaType = APPLICATION_NDJSON_VALUE,
+            schema = @Schema(implementation = TransactionView.class)),
+            @Content(mediaType = WireFormatConfig.APPLICATION_CBOR_SEQ_VALUE),
+            @Content(mediaType = WireFormatConfig.APPLICATION_SMILE_VALUE)})
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Unsupported Accept values were already rejected with 406 by the produces condition,
+        // which does not treat q=0 as a refusal
+        MediaType format = negotiate(accept, EXPORT_FORMATS);
+        if (format == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        ObjectMapper mapper = format.equals(WireFormatConfig.APPLICATION_CBOR_SEQ) ? cborConverter.getObjectMapper()
+            : format.equals(WireFormatConfig.APPLICATION_SMILE) ? smileConverter.getObjectMapper()
+            : objectMapper;
+        boolean newlineDelimited = format.equals(APPLICATION_NDJSON);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        // Flushing after every row would defeat the output buffer, the generator is flushed once at the end
+        ObjectWriter writer = mapper.writerFor(TransactionView.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = gzip
+                ? new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE)
+                : outputStream;
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                // Rows are separated by explicit newlines instead of Jackson's default root separator (a space);
+                // CBOR and Smile values are self-delimiting and written back to back
+                if (newlineDelimited) {
+                    generator.setRootValueSeparator(null);
+                }
+                transactionService.exportTransactions(transaction -> {
+                    try {
+                        writer.writeValue(generator, transaction);
+                        if (newlineDelimited) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(format)
+            .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Accept-Encoding中gzip(或未单独列出gzip时的*)的质量值大于0才压缩; q=0表示明确拒绝
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double any = -1;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzip = Math.max(gzip, quality);
+            } else if (coding.equals("*")) {
+                any = Math.max(any, quality);
+            }
+        }
+        return (gzip >= 0 ? gzip : any) > 0;
+    }
+
+    /**
+     * 按Accept中的质量值和具体程度从formats中选择格式, 没有Accept或接受任意类型时为第一个
+     * q=0 表示拒绝: 匹配某个格式的最具体的范围是 q=0 时, 即使通配符也匹配, 这个格式也不会被选中
+     *
+     * @return 没有可接受的格式或Accept无法解析时为 null
+     */
+    private static MediaType negotiate(String accept, List<MediaType> formats) {
+        if (accept == null || accept.isBlank()) {
+            return formats.get(0);
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType format : formats) {
+                if (mediaType.includes(format) && !refused(format, accepted)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 匹配format的最具体的范围是否为 q=0, 同样具体时以 q=0 为准
+     */
+    private static boolean refused(MediaType format, List<MediaType> accepted) {
+        MediaType closest = null;
+        for (MediaType mediaType : accepted) {
+            if (!mediaType.includes(format)) {
+                continue;
+            }
+            if (closest == null || specificity(mediaType) > specificity(closest)
+                || specificity(mediaType) == specificity(closest) && mediaType.getQualityValue() == 0) {
+                closest = mediaType;
+            }
+        }
+        return closest != null && closest.getQualityValue() == 0;
+    }
+
+    private static int specificity(MediaType mediaType) {
+        return mediaType.isWildcardType() ? 0 : mediaType.isWildcardSubtype() ? 1 : 2;
+    }
+
     @PutMapping("/reference/{reference}")
-    @Operation(summary = "Update a transaction")
+    @Operation(summary = "Update a transaction",
+        description = "With If-Match the update is applied only if the transaction still has one of the given ETags")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Transaction updated",
             content = {@Content(mediaType = "application/json",
@@ -76,11 +430,19 @@ public class TransactionController {
             content = @Content),
         @ApiResponse(responseCode = "404", description = "Transaction not found",
             content = @Content),
+        @ApiResponse(responseCode = "409", description = "Still modified concurrently after bank.update.retry.max-attempts attempts",
+            content = @Content),
+        @ApiResponse(responseCode = "412", description = "If-Match does not match the current ETag",
+            content = @Content)
     })
     public ResponseEntity<Transaction> updateTransaction(
-        @PathVariable String reference, @Valid @RequestBody Transaction transactionDetails) {
-        Transaction updatedTransaction = transactionService.updateTransaction(reference, transactionDetails);
-        return ResponseEntity.ok(updatedTransaction);
+        @PathVariable String reference, @Valid @RequestBody Transaction transactionDetails,
+        @RequestHeader HttpHeaders headers) {
+        // Whichever format the client read, If-Match compares only the id and version
+        List<String> ifMatch = headers.getIfMatch().stream().map(TransactionView::withoutFormat).toList();
+        Transaction updatedTransaction = transactionService.updateTransaction(reference, transactionDetails, ifMatch);
+        return representation(ResponseEntity.ok(), String.join(", ", headers.getOrEmpty(HttpHeaders.ACCEPT)),
+            updatedTransaction.getId(), updatedTransaction.getVersion(), updatedTransaction);
     }
 
     @DeleteMapping("/id/{id}")
@@ -88,10 +450,55 @@ public class TransactionController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Transaction deleted"),
         @ApiResponse(responseCode = "404", description = "Transaction not found",
+            content = @Content),
+        @ApiResponse(responseCode = "409", description = "Transaction was updated while being deleted",
             content = @Content)
     })
     public ResponseEntity<Void> deleteTransaction(@PathVariable Long id) {
         transactionService.deleteTransaction(id);
         return ResponseEntity.noContent().build();
     }
+
+    @PatchMapping
+    @Operation(summary = "Update description and/or type of all transactions matching the criteria",
+        description = "Runs as set-based UPDATE statements in chunks of bank.bulk.chunk-size rows, "
+            + "each chunk in its own database transaction; at least one criterion is required")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Number of updated transactions and time taken",
+            content = {@Content(mediaType = "application/json",
+                schema = @Schema(implementation = BulkResult.class))}),
+        @ApiResponse(responseCode = "400", description = "No criteria or nothing to update",
+            content = @Content)
+    })
+    public ResponseEntity<BulkResult> updateTransactions(
+        @RequestParam(name = "account_number", required = false) String accountNumber,
+        @RequestParam(name = "reference_prefix", required = false) String referencePrefix,
+        @RequestParam(required = false) TransactionType type,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestBody BulkUpdate update) {
+        TransactionCriteria criteria = new TransactionCriteria(accountNumber, referencePrefix, type, from, to);
+        return ResponseEntity.ok(transactionBulkService.updateTransactions(criteria, update));
+    }
+
+    @DeleteMapping
+    @Operation(summary = "Delete all transactions matching the criteria",
+        description = "Runs as set-based DELETE statements in chunks of bank.bulk.chunk-size rows, "
+            + "each chunk in its own database transaction; at least one criterion is required")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Number of deleted transactions and time taken",
+            content = {@Content(mediaType = "application/json",
+                schema = @Schema(implementation = BulkResult.class))}),
+        @ApiResponse(responseCode = "400", description = "No criteria",
+            content = @Content)
+    })
+    public ResponseEntity<BulkResult> deleteTransactions(
+        @RequestParam(name = "account_number", required = false) String accountNumber,
+        @RequestParam(name = "reference_prefix", required = false) String referencePrefix,
+        @RequestParam(required = false) TransactionType type,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        TransactionCriteria criteria = new TransactionCriteria(accountNumber, referencePrefix, type, from, to);
+        return ResponseEntity.ok(transactionBulkService.deleteTransactions(criteria));
+    }
 }
@@ -0,0 +1,31 @@
+package com.bank.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 批量创建交易的汇总结果, items与请求列表一一对应
+ */
+@Getter
+public class BatchCreateResult {
+
+    private final int created;
+
+    private final int duplicate;
+
+    private final int invalid;
+
+    private final List<BatchItemResult> items;
+
+    public BatchCreateResult(List<BatchItemResult> items) {
+        this.items = items;
+        this.created = count(items, BatchItemResult.Status.CREATED);
+        this.duplicate = count(items, BatchItemResult.Status.DUPLICATE);
+        this.invalid = count(items, BatchItemResult.Status.INVALID);
+    }
+
+    private static int count(List<BatchItemResult> items, BatchItemResult.Status status) {
+        return (int) items.stream().filter(item -> item.getStatus() == status).count();
+    }
+}
@@ -0,0 +1,45 @@
+package com.bank.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 批量创建中单条交易的处理结果
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    public enum Status {
+        CREATED, DUPLICATE, INVALID
+    }
+
+    /**
+     * 在请求列表中的下标
+     */
+    private final int index;
+
+    private final String reference;
+
+    private final Status status;
+
+    private final Long id;
+
+    private final String message;
+
+    public static BatchItemResult created(int index, String reference, Long id) {
+        return new BatchItemResult(index, reference, Status.CREATED, id, null);
+    }
+
+    public static BatchItemResult duplicate(int index, String reference) {
+        return new BatchItemResult(index, reference, Status.DUPLICATE, null,
+            "Transaction with reference " + reference + " already exists");
+    }
+
+    public static BatchItemResult invalid(int index, String reference, String message) {
+        return new BatchItemResult(index, reference, Status.INVALID, null, message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.bank.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 批量更新或删除的结果
+ *
+ * @param affected 受影响的行数
+ * @param chunks 执行的分块数, 每块一个数据库事务
+ * @param elapsedMs 总耗时(毫秒)
+ */
+public record BulkResult(
+    long affected,
+    int chunks,
+    @JsonProperty("elapsed_ms") long elapsedMs) {
+}
@@ -0,0 +1,13 @@
+package com.bank.dto;
+
+import com.bank.model.TransactionType;
+
+/**
+ * 批量更新要修改的字段, 为空的字段保持不变
+ */
+public record BulkUpdate(String description, TransactionType type) {
+
+    public boolean isEmpty() {
+        return description == null && type == null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bank.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 基于游标的分页结果, 不包含总数
+ * nextCursor为空表示已经是最后一页
+ */
+@Getter
+public class CursorPage<T> {
+
+    private final List<T> content;
+
+    private final int size;
+
+    @JsonProperty("next_cursor")
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+}
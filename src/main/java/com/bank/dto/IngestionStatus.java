@@ -0,0 +1,54 @@
+package com.bank.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 异步写入的交易状态, 客户端按编号轮询
+ * PENDING 表示已进入队列但还没有提交到数据库, 其余状态都是最终状态
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestionStatus {
+
+    public enum Status {
+        PENDING, COMMITTED, DUPLICATE, INVALID, FAILED
+    }
+
+    private final String reference;
+
+    private final Status status;
+
+    private final Long id;
+
+    private final String message;
+
+    @JsonIgnore
+    public boolean isDone() {
+        return status != Status.PENDING;
+    }
+
+    public static IngestionStatus pending(String reference) {
+        return new IngestionStatus(reference, Status.PENDING, null, null);
+    }
+
+    public static IngestionStatus committed(String reference, Long id) {
+        return new IngestionStatus(reference, Status.COMMITTED, id, null);
+    }
+
+    public static IngestionStatus failed(String reference, String message) {
+        return new IngestionStatus(reference, Status.FAILED, null, message);
+    }
+
+    public static IngestionStatus of(BatchItemResult result) {
+        return switch (result.getStatus()) {
+            case CREATED -> committed(result.getReference(), result.getId());
+            case DUPLICATE -> new IngestionStatus(result.getReference(), Status.DUPLICATE, null, result.getMessage());
+            case INVALID -> new IngestionStatus(result.getReference(), Status.INVALID, null, result.getMessage());
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package com.bank.dto;
+
+import com.bank.model.TransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批量操作的筛选条件, 各条件之间是"与"的关系, 为空的条件不参与筛选
+ * 空白的账号和编号前缀视为未指定
+ *
+ * @param referencePrefix 编号前缀, %和_按字面匹配
+ * @param from 创建时间下界(包含)
+ * @param to 创建时间上界(不包含)
+ */
+public record TransactionCriteria(
+    String accountNumber,
+    String referencePrefix,
+    TransactionType type,
+    LocalDateTime from,
+    LocalDateTime to) {
+
+    public TransactionCriteria {
+        accountNumber = accountNumber == null || accountNumber.isBlank() ? null : accountNumber;
+        referencePrefix = referencePrefix == null || referencePrefix.isBlank() ? null : referencePrefix;
+    }
+
+    /**
+     * 没有任何条件时会匹配全部交易
+     */
+    public boolean isEmpty() {
+        return accountNumber == null && referencePrefix == null && type == null && from == null && to == null;
+    }
+}
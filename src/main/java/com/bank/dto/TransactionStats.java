@@ -0,0 +1,33 @@
+package com.bank.dto;
+
+import com.bank.model.TransactionType;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 最近若干时间窗口内按类型和账户的交易笔数与金额, 由内存中的时间桶汇总得到
+ * 窗口精确到一个桶宽; 金额是各笔交易金额之和, 不区分收支方向
+ */
+public record TransactionStats(
+    @JsonProperty("generated_at") LocalDateTime generatedAt,
+    @JsonProperty("bucket_width_seconds") long bucketWidthSeconds,
+    List<Window> windows) {
+
+    public record Window(
+        String window,
+        long count,
+        BigDecimal amount,
+        @JsonProperty("by_type") Map<TransactionType, Totals> byType,
+        @JsonProperty("top_accounts") List<AccountTotals> topAccounts) {
+    }
+
+    public record Totals(long count, BigDecimal amount) {
+    }
+
+    public record AccountTotals(@JsonProperty("account_number") String accountNumber, long count, BigDecimal amount) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.bank.dto;
+
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 交易的只读视图, 供GET接口和交易缓存使用, JSON字段与Transaction一致
+ * 由JPQL构造器表达式直接查询得到, 不会成为托管实体, 也没有脏检查快照;
+ * 不可变, 缓存里的同一个实例可以在线程间安全共享
+ */
+public record TransactionView(
+    Long id,
+    String reference,
+    @JsonProperty("account_number") String accountNumber,
+    BigDecimal amount,
+    TransactionType type,
+    String description,
+    @JsonProperty("created_at") LocalDateTime createdAt,
+    @JsonProperty("updated_at") LocalDateTime updatedAt,
+    Long version) {
+
+    /**
+     * JPQL构造器表达式, 查询交易视图的公共部分, 别名为t
+     */
+    public static final String SELECT = "select new com.bank.dto.TransactionView(t.id, t.reference, t.accountNumber, "
+        + "t.amount, t.type, t.description, t.createdAt, t.updatedAt, t.version) from Transaction t ";
+
+    /**
+     * 强ETag, 由id和乐观锁版本号组成; 每次修改版本号加1, 删除后重建会得到新的id
+     */
+    public String etag() {
+        return etag(id, version);
+    }
+
+    public static String etag(Long id, Long version) {
+        return etag(id, version, null);
+    }
+
+    /**
+     * 某种编码的表示的强ETag: 字节不同的表示不能共用一个强ETag, 非JSON编码在引号内加上 "." 和编码名
+     *
+     * @param format 编码名, JSON为 null
+     */
+    public static String etag(Long id, Long version, String format) {
+        if (id == null || version == null) {
+            return null;
+        }
+        return "\"" + Long.toString(id, 36) + "-" + Long.toString(version, 36) + (format == null ? "" : "." + format) + "\"";
+    }
+
+    /**
+     * 去掉ETag中的编码名, 只剩id和版本号; If-Match 只比较这两项, 与客户端读到的是哪种编码无关
+     */
+    public static String withoutFormat(String etag) {
+        int dot = etag.lastIndexOf('.');
+        return dot < 0 || !etag.endsWith("\"") ? etag : etag.substring(0, dot) + "\"";
+    }
+
+    public static TransactionView of(Transaction transaction) {
+        return new TransactionView(transaction.getId(), transaction.getReference(), transaction.getAccountNumber(),
+            transaction.getAmount(), transaction.getType(), transaction.getDescription(),
+            transaction.getCreatedAt(), transaction.getUpdatedAt(), transaction.getVersion());
+    }
+}
@@ -0,0 +1,7 @@
+package com.bank.exception;
+
+public class CrossShardUpdateException extends RuntimeException {
+    public CrossShardUpdateException(String message) {
+        super(message);
+    }
+}
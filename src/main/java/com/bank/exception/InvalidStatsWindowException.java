@@ -0,0 +1,7 @@
+package com.bank.exception;
+
+public class InvalidStatsWindowException extends RuntimeException {
+    public InvalidStatsWindowException(String message) {
+        super(message);
+    }
+}
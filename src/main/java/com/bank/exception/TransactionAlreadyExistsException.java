@@ -1,7 +1,21 @@
 package com.bank.exception;
 
+import com.bank.model.Transaction;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
 public class TransactionAlreadyExistsException extends RuntimeException {
     public TransactionAlreadyExistsException(String message) {
         super(message);
     }
+
+    /**
+     * 是否是交易编号唯一索引冲突, 即同一编号已被其他请求写入
+     */
+    public static boolean isDuplicateReference(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violation
+            && violation.getConstraintName() != null
+            && violation.getConstraintName().toLowerCase().contains(Transaction.REFERENCE_UNIQUE_CONSTRAINT);
+    }
 }
@@ -0,0 +1,52 @@
+package com.bank.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 账户汇总, 随交易的创建、更新、删除增量维护
+ * balance = DEPOSIT总额 - WITHDRAWAL/PAYMENT/TRANSFER总额
+ */
+@Entity
+@Table(name = "account_summaries")
+@Data
+@NoArgsConstructor
+public class AccountSummary {
+
+    @Id
+    @Column(name = "account_number")
+    @JsonProperty("account_number")
+    private String accountNumber;
+
+    @Column(nullable = false)
+    private BigDecimal balance;
+
+    @Column(nullable = false, name = "deposit_count")
+    @JsonProperty("deposit_count")
+    private long depositCount;
+
+    @Column(nullable = false, name = "withdrawal_count")
+    @JsonProperty("withdrawal_count")
+    private long withdrawalCount;
+
+    @Column(nullable = false, name = "transfer_count")
+    @JsonProperty("transfer_count")
+    private long transferCount;
+
+    @Column(nullable = false, name = "payment_count")
+    @JsonProperty("payment_count")
+    private long paymentCount;
+
+    @Column(nullable = false, name = "updated_at")
+    @JsonProperty("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -1,5 +1,6 @@
 package com.bank.model;
 
+import com.bank.repository.ShardedSequenceGenerator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.*;
@@ -9,21 +10,48 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+    uniqueConstraints = @UniqueConstraint(name = Transaction.REFERENCE_UNIQUE_CONSTRAINT, columnNames = "reference"),
+    // 账户交易历史按 (account_number, created_at, id) 倒序做索引范围扫描; 启动预热按 updated_at 倒序读取最近的交易
+    // 表结构由 Flyway 管理 (db/migration), 这里的声明需与迁移脚本保持一致
+    indexes = {
+        @Index(name = "idx_transactions_account_created", columnList = "account_number, created_at desc, id desc"),
+        @Index(name = "idx_transactions_updated", columnList = "updated_at desc, id desc")
+    })
 @Data
 @NoArgsConstructor
 public class Transaction {
 
+    /**
+     * reference唯一约束名, 创建交易时依赖该约束判断编号重复
+     */
+    public static final String REFERENCE_UNIQUE_CONSTRAINT = "uk_transactions_reference";
+
+    /**
+     * 使用序列而不是IDENTITY生成主键,
+     * IDENTITY要求每条INSERT执行后立即取回主键, 会使Hibernate的JDBC批量插入失效;
+     * increment_size与hibernate.jdbc.batch_size保持一致, 每批只需一次序列调用;
+     * 分片时每个分片的序列各自从该分片的id区间开始, 见 ShardedSequenceGenerator
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "transactions_seq")
+    @GenericGenerator(name = "transactions_seq", type = ShardedSequenceGenerator.class, parameters = {
+        @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "transactions_seq"),
+        @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+    })
     private Long id;
 
     @NotBlank(message = "Reference cannot be blank")
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String reference;
 
     @NotBlank(message = "Account number cannot be blank")
@@ -49,6 +77,14 @@ public class Transaction {
     @JsonProperty("updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * 乐观锁版本号, 每次更新加1, 提交时版本不一致说明期间已被其他事务修改
+     */
+    @Version
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     public Transaction(Long id, String reference, String accountNumber, BigDecimal amount, TransactionType type, String description) {
         this.id = id;
         this.reference = reference;
@@ -58,13 +94,20 @@ public class Transaction {
         this.description = description;
     }
 
+    /**
+     * 当前时间, 截断到微秒与 timestamp(6) 一致, 保存后内存中的实体与数据库读出的值相同
+     */
+    public static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
     /**
      * 首次保存到数据库前自动执行
      */
     @PrePersist
     protected void onCreate() {
-        this.createdAt = LocalDateTime.now();
-        this.updatedAt = LocalDateTime.now();
+        this.createdAt = now();
+        this.updatedAt = now();
     }
 
     /**
@@ -72,6 +115,6 @@ public class Transaction {
      */
     @PreUpdate
     protected void onUpdate() {
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAt = now();
     }
 }
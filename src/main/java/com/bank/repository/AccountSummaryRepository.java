@@ -0,0 +1,41 @@
+package com.bank.repository;
+
+import com.bank.model.AccountSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface AccountSummaryRepository extends JpaRepository<AccountSummary, String> {
+
+    /**
+     * 在一条语句内把增量累加到账户汇总上, 账户汇总不存在时插入
+     * 调用方已经显式flush过, 这里关闭自动flush; 否则每条原生语句都会对持久化上下文里的全部实体做脏检查,
+     * 批量创建1000条时变成O(n²)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query(nativeQuery = true, value = "merge into account_summaries s "
+        + "using (select cast(:accountNumber as varchar(255)) as account_number) d "
+        + "on s.account_number = d.account_number "
+        + "when matched then update set balance = s.balance + :balance, "
+        + "deposit_count = s.deposit_count + :deposits, withdrawal_count = s.withdrawal_count + :withdrawals, "
+        + "transfer_count = s.transfer_count + :transfers, payment_count = s.payment_count + :payments, "
+        + "updated_at = current_timestamp "
+        + "when not matched then insert (account_number, balance, deposit_count, withdrawal_count, "
+        + "transfer_count, payment_count, updated_at) "
+        + "values (d.account_number, :balance, :deposits, :withdrawals, :transfers, :payments, current_timestamp)")
+    int applyDelta(@Param("accountNumber") String accountNumber,
+                   @Param("balance") BigDecimal balance,
+                   @Param("deposits") long deposits,
+                   @Param("withdrawals") long withdrawals,
+                   @Param("transfers") long transfers,
+                   @Param("payments") long payments);
+}
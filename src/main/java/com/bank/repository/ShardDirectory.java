@@ -0,0 +1,167 @@
+package com.bank.repository;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 交易编号到分片的紧凑目录: 开放寻址表, 每个槽位只存编号的64位指纹和1字节分片号, 不保存编号本身
+ * 目录只放宽不收窄: 删除交易不清理槽位; 同一指纹先后对应不同分片(指纹冲突, 或删除后在另一分片重建)时记为 AMBIGUOUS
+ * 所以目录里没有的编号一定不存在, 目录给出的分片只是候选, 由该分片上的查询确认
+ */
+public class ShardDirectory {
+
+    /**
+     * 目录中没有该编号
+     */
+    public static final int ABSENT = -1;
+
+    /**
+     * 编号可能在任一分片, 需要逐个分片查询
+     */
+    public static final int AMBIGUOUS = -2;
+
+    /**
+     * 分片号存成无符号字节, 0xFF 留给 AMBIGUOUS
+     */
+    public static final int MAX_SHARDS = 255;
+
+    private static final byte AMBIGUOUS_SLOT = (byte) 0xFF;
+
+    private static final double MAX_LOAD = 0.6;
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private static final VarHandle FINGERPRINTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final VarHandle SHARDS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    /**
+     * 扩容时整体换成新表, 读取方拿到的表在发布后不会再被移动
+     */
+    private volatile Table table;
+
+    private volatile int size;
+
+    public ShardDirectory(int expectedSize) {
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    /**
+     * 不加锁: 写入方先写分片号再以release语义写指纹, 读到指纹就一定能读到它的分片号
+     *
+     * @return 分片号, ABSENT 或 AMBIGUOUS
+     */
+    public int get(String reference) {
+        long fingerprint = fingerprint(reference);
+        Table current = table;
+        int mask = current.fingerprints.length - 1;
+        for (int slot = (int) fingerprint & mask; ; slot = (slot + 1) & mask) {
+            long stored = (long) FINGERPRINTS.getAcquire(current.fingerprints, slot);
+            if (stored == 0) {
+                return ABSENT;
+            }
+            if (stored == fingerprint) {
+                return decode((byte) SHARDS.getAcquire(current.shards, slot));
+            }
+        }
+    }
+
+    /**
+     * 记录编号在给定分片; 已对应其他分片时改为 AMBIGUOUS
+     * 写入方之间互斥, 不阻塞 get
+     *
+     * @return 之前的值: 分片号, ABSENT 或 AMBIGUOUS
+     */
+    public synchronized int add(String reference, int shard) {
+        if (shard < 0 || shard >= MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard out of range: " + shard);
+        }
+        long fingerprint = fingerprint(reference);
+        Table current = table;
+        long[] fingerprints = current.fingerprints;
+        int mask = fingerprints.length - 1;
+        int slot = (int) fingerprint & mask;
+        while (fingerprints[slot] != 0 && fingerprints[slot] != fingerprint) {
+            slot = (slot + 1) & mask;
+        }
+        if (fingerprints[slot] == fingerprint) {
+            int previous = decode(current.shards[slot]);
+            if (previous != shard) {
+                SHARDS.setRelease(current.shards, slot, AMBIGUOUS_SLOT);
+            }
+            return previous;
+        }
+        current.shards[slot] = (byte) shard;
+        FINGERPRINTS.setRelease(fingerprints, slot, fingerprint);
+        size++;
+        if (size > fingerprints.length * MAX_LOAD) {
+            table = current.resize(fingerprints.length * 2);
+        }
+        return ABSENT;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 两个数组占用的堆内存
+     */
+    public long memoryBytes() {
+        return (long) table.fingerprints.length * (Long.BYTES + Byte.BYTES);
+    }
+
+    private static final class Table {
+
+        private final long[] fingerprints;
+
+        private final byte[] shards;
+
+        private Table(int capacity) {
+            fingerprints = new long[capacity];
+            shards = new byte[capacity];
+        }
+
+        /**
+         * 新表填满后才由调用方发布, 旧表不再修改
+         */
+        private Table resize(int capacity) {
+            Table resized = new Table(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < fingerprints.length; i++) {
+                if (fingerprints[i] != 0) {
+                    int slot = (int) fingerprints[i] & mask;
+                    while (resized.fingerprints[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    resized.fingerprints[slot] = fingerprints[i];
+                    resized.shards[slot] = shards[i];
+                }
+            }
+            return resized;
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity * MAX_LOAD < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int decode(byte shard) {
+        return shard == AMBIGUOUS_SLOT ? AMBIGUOUS : shard & 0xFF;
+    }
+
+    /**
+     * 0 表示空槽位, 不作为指纹
+     */
+    private static long fingerprint(String reference) {
+        long fingerprint = HASH.hashUnencodedChars(reference).asLong();
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+}
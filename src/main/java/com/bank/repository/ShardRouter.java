@@ -0,0 +1,137 @@
+package com.bank.repository;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * 分片路由: 账户号的哈希决定分片, id 的高位是分片号, 交易编号经 ShardDirectory 查找分片
+ * 访问某个分片前用 on(shard, ...) 设置当前线程的分片, 再开始事务, ShardRoutingDataSource 按它选择连接池;
+ * 事务开始时就取得连接, 所以必须在事务之外切换分片
+ * 未开启分片时只有分片0, 没有目录, on(...) 直接执行
+ */
+public class ShardRouter {
+
+    /**
+     * 分片 s 的 id 从 s << ID_SHARD_SHIFT 开始, 每个分片有 2^48 个 id
+     */
+    public static final int ID_SHARD_SHIFT = 48;
+
+    /**
+     * id 不超过 2^53, 在JSON/JavaScript中是精确的整数
+     */
+    public static final int MAX_SHARDS = 32;
+
+    private static final int[] NO_SHARDS = {};
+
+    private static final int[] FIRST_SHARD = {0};
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private static final HashFunction HASH = Hashing.murmur3_32_fixed();
+
+    private final int shards;
+
+    private final ShardDirectory directory;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public ShardRouter(int shards, ShardDirectory directory, PlatformTransactionManager transactionManager) {
+        if (shards < 1 || shards > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS + ": " + shards);
+        }
+        this.shards = shards;
+        this.directory = directory;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 未分片: 一个数据库, 不做路由
+     */
+    public static ShardRouter single(PlatformTransactionManager transactionManager) {
+        return new ShardRouter(1, null, transactionManager);
+    }
+
+    public boolean isSharded() {
+        return directory != null;
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    public ShardDirectory directory() {
+        return directory;
+    }
+
+    public int shardOf(String accountNumber) {
+        return accountNumber == null || shards == 1 ? 0 : Math.floorMod(HASH.hashUnencodedChars(accountNumber).asInt(), shards);
+    }
+
+    /**
+     * @return id 所在的分片, 不属于任何分片时返回 -1
+     */
+    public int shardOfId(long id) {
+        long shard = id >>> ID_SHARD_SHIFT;
+        return id > 0 && shard < shards ? (int) shard : -1;
+    }
+
+    /**
+     * 编号可能所在的分片: 未分片时总是分片0; 目录中没有时为空; 目录有歧义时是全部分片, 需要逐个查询
+     */
+    public int[] shardsOfReference(String reference) {
+        if (directory == null) {
+            return FIRST_SHARD;
+        }
+        int shard = directory.get(reference);
+        if (shard == ShardDirectory.ABSENT) {
+            return NO_SHARDS;
+        }
+        return shard == ShardDirectory.AMBIGUOUS ? IntStream.range(0, shards).toArray() : new int[]{shard};
+    }
+
+    public static long firstId(int shard) {
+        return (long) shard << ID_SHARD_SHIFT;
+    }
+
+    /**
+     * 当前线程的分片, 未设置时为 null, 由数据源路由到分片0
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public <T> T on(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void on(int shard, Runnable action) {
+        on(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在分片上的只读事务中执行, 流式查询需要事务
+     */
+    public <T> T read(int shard, Supplier<T> action) {
+        return on(shard, () -> readOnlyTransactionTemplate.execute(status -> action.get()));
+    }
+}
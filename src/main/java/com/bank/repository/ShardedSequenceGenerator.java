@@ -0,0 +1,32 @@
+package com.bank.repository;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.PooledOptimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+/**
+ * 序列主键生成器, 每个分片一个 pooled 优化器
+ * 优化器在内存中分配一块id, 所有分片共用一个时, 从分片1取到的一块会被用在其他分片上, id 就不再编码分片号;
+ * 按当前线程的分片选择优化器, 每块都来自该分片自己的序列; 未分片时只用分片0的优化器, 与 SequenceStyleGenerator 相同
+ */
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+
+    private final Optimizer[] optimizers = new Optimizer[ShardRouter.MAX_SHARDS];
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Integer shard = ShardRouter.current();
+        if (shard == null || shard == 0) {
+            return super.generate(session, object);
+        }
+        return optimizer(shard).generate(getDatabaseStructure().buildCallback(session));
+    }
+
+    private synchronized Optimizer optimizer(int shard) {
+        if (optimizers[shard] == null) {
+            optimizers[shard] = new PooledOptimizer(getIdentifierType().getReturnedClass(), getOptimizer().getIncrementSize());
+        }
+        return optimizers[shard];
+    }
+}
@@ -0,0 +1,45 @@
+package com.bank.repository;
+
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.TransactionCriteria;
+import com.bank.dto.TransactionView;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 按条件批量更新/删除, 实现见 TransactionBulkRepositoryImpl
+ * 必须在调用方的事务中执行: 先取一块匹配的id, 再按id锁定这些行, 最后对它们执行一条集合式的UPDATE/DELETE,
+ * 锁一直持有到事务结束
+ */
+public interface TransactionBulkRepository {
+
+    /**
+     * 按id升序取afterId之后最多limit个匹配条件的id, 不加锁
+     * 只读id列, 按账号筛选时可以只扫描索引 idx_transactions_account_created
+     *
+     * @param afterId 上一块最后一个id, 为空表示第一块
+     */
+    List<Long> findMatchingIds(TransactionCriteria criteria, Long afterId, int limit);
+
+    /**
+     * 按主键锁定(SELECT ... FOR UPDATE)给定id中仍然匹配条件的交易, 返回它们修改前的视图
+     * 只锁这些行: H2对需要排序的 FOR UPDATE 查询会锁住排序前的全部匹配行, 所以锁定与分块查询分开
+     */
+    List<TransactionView> lockMatching(TransactionCriteria criteria, Collection<Long> ids);
+
+    /**
+     * 一条DELETE删除给定id的交易, 不加载实体
+     *
+     * @return 删除的行数
+     */
+    int deleteByIds(Collection<Long> ids);
+
+    /**
+     * 一条UPDATE修改给定id的交易, 只修改update中不为空的字段, 同时把updatedAt设为给定时间
+     *
+     * @return 更新的行数
+     */
+    int updateByIds(Collection<Long> ids, BulkUpdate update, LocalDateTime updatedAt);
+}
@@ -0,0 +1,122 @@
+package com.bank.repository;
+
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.TransactionCriteria;
+import com.bank.dto.TransactionView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 条件组合有限, 每种生成固定的JPQL字符串, 由Hibernate按字符串缓存解析结果
+ * 批量语句绕过持久化上下文、@PreUpdate和@Version, updatedAt由调用方显式传入, 版本号在语句中加1
+ */
+@Transactional(propagation = Propagation.MANDATORY)
+@RequiredArgsConstructor
+public class TransactionBulkRepositoryImpl implements TransactionBulkRepository {
+
+    private static final String DELETE_BY_IDS = "delete from Transaction t where t.id in :ids";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Long> findMatchingIds(TransactionCriteria criteria, Long afterId, int limit) {
+        Map<String, Object> parameters = new HashMap<>();
+        List<String> conditions = conditions(criteria, parameters);
+        if (afterId != null) {
+            conditions.add("t.id > :afterId");
+            parameters.put("afterId", afterId);
+        }
+        TypedQuery<Long> query = entityManager.createQuery("select t.id from Transaction t"
+            + where(conditions) + " order by t.id", Long.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<TransactionView> lockMatching(TransactionCriteria criteria, Collection<Long> ids) {
+        Map<String, Object> parameters = new HashMap<>();
+        List<String> conditions = conditions(criteria, parameters);
+        conditions.add("t.id in :ids");
+        parameters.put("ids", ids);
+        // Locking in id order keeps concurrent bulk operations from deadlocking each other
+        TypedQuery<TransactionView> query = entityManager.createQuery(TransactionView.SELECT
+            + where(conditions) + " order by t.id", TransactionView.class);
+        parameters.forEach(query::setParameter);
+        return query.setLockMode(LockModeType.PESSIMISTIC_WRITE).getResultList();
+    }
+
+    private static List<String> conditions(TransactionCriteria criteria, Map<String, Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        if (criteria.accountNumber() != null) {
+            conditions.add("t.accountNumber = :accountNumber");
+            parameters.put("accountNumber", criteria.accountNumber());
+        }
+        if (criteria.referencePrefix() != null) {
+            conditions.add("t.reference like :referencePrefix escape '\\'");
+            parameters.put("referencePrefix", escapeLike(criteria.referencePrefix()) + "%");
+        }
+        if (criteria.type() != null) {
+            conditions.add("t.type = :type");
+            parameters.put("type", criteria.type());
+        }
+        if (criteria.from() != null) {
+            conditions.add("t.createdAt >= :from");
+            parameters.put("from", criteria.from());
+        }
+        if (criteria.to() != null) {
+            conditions.add("t.createdAt < :to");
+            parameters.put("to", criteria.to());
+        }
+        return conditions;
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        return entityManager.createQuery(DELETE_BY_IDS)
+            .setParameter("ids", ids)
+            .executeUpdate();
+    }
+
+    @Override
+    public int updateByIds(Collection<Long> ids, BulkUpdate update, LocalDateTime updatedAt) {
+        StringBuilder jpql = new StringBuilder("update Transaction t set t.updatedAt = :updatedAt, t.version = t.version + 1");
+        if (update.description() != null) {
+            jpql.append(", t.description = :description");
+        }
+        if (update.type() != null) {
+            jpql.append(", t.type = :type");
+        }
+        jpql.append(" where t.id in :ids");
+
+        Query query = entityManager.createQuery(jpql.toString())
+            .setParameter("updatedAt", updatedAt)
+            .setParameter("ids", ids);
+        if (update.description() != null) {
+            query.setParameter("description", update.description());
+        }
+        if (update.type() != null) {
+            query.setParameter("type", update.type());
+        }
+        return query.executeUpdate();
+    }
+}
@@ -1,12 +1,84 @@
 package com.bank.repository;
 
+import com.bank.dto.TransactionView;
 import com.bank.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+/**
+ * 返回 TransactionView 的查询是只读路径: 构造器表达式不产生托管实体,
+ * 在只读事务中执行, 会话的flush模式为MANUAL, 不做脏检查; 固定形状的视图查询在 TransactionViewRepository
+ * 按条件分块批量更新/删除在 TransactionBulkRepository
+ */
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionViewRepository,
+    TransactionBulkRepository {
     Optional<Transaction> findByReference(String reference);
+
+    /**
+     * 一次查询返回给定编号中已存在的编号, 只取reference列, 不加载实体
+     */
+    @Query("select t.reference from Transaction t where t.reference in :references")
+    Set<String> findExistingReferences(@Param("references") Collection<String> references);
+
+    /**
+     * OFFSET分页查询只读视图, 查询和COUNT在同一个只读事务中
+     */
+    @Transactional(readOnly = true)
+    @Query(value = TransactionView.SELECT, countQuery = "select count(t) from Transaction t")
+    Page<TransactionView> findAllViews(Pageable pageable);
+
+    /**
+     * 按id升序流式读取全部交易, 底层是只进游标, 每次从数据库取fetchSize条
+     * 必须在事务内消费并关闭
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(TransactionView.SELECT + "order by t.id")
+    Stream<TransactionView> streamAllOrderById();
+
+    /**
+     * 流式读取全部编号, 分片模式启动时重建 ShardDirectory 使用, 必须在事务内消费并关闭
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select t.reference from Transaction t")
+    Stream<String> streamAllReferences();
+
+    /**
+     * 流式读取 [since, until) 内创建的交易, 启动时重建窗口统计使用, 必须在事务内消费并关闭
+     * created_at不会晚于updated_at, 先按updated_at过滤以走索引 idx_transactions_updated
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(TransactionView.SELECT + "where t.updatedAt >= :since and t.createdAt >= :since and t.createdAt < :until")
+    Stream<TransactionView> streamCreatedBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
+    /**
+     * 账户在 [from, to) 内创建、id小于before的交易id, 只用到索引 idx_transactions_account_created
+     * 按描述搜索并按账户过滤时与倒排表求交
+     */
+    @Query("select t.id from Transaction t where t.accountNumber = :accountNumber "
+        + "and t.createdAt >= :from and t.createdAt < :to and t.id < :before")
+    List<Long> findAccountIds(@Param("accountNumber") String accountNumber, @Param("from") LocalDateTime from,
+                              @Param("to") LocalDateTime to, @Param("before") long before);
+
+    /**
+     * 最近创建或更新的交易id, 按 (updatedAt, id) 倒序, 对应索引 idx_transactions_updated
+     * 启动预热缓存时使用, pageable只用来限制条数
+     */
+    @Query("select t.id from Transaction t order by t.updatedAt desc, t.id desc")
+    List<Long> findRecentlyUpdatedIds(Pageable pageable);
 }
@@ -0,0 +1,40 @@
+package com.bank.repository;
+
+import com.bank.dto.TransactionView;
+import com.bank.model.TransactionType;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 固定形状的交易视图查询, 实现见 TransactionViewRepositoryImpl
+ * 这些查询直接用EntityManager创建, 不经过Spring Data对@Query字符串的逐次解析
+ */
+public interface TransactionViewRepository {
+
+    /**
+     * 按编号查询只读视图, 缓存未命中和缓存刷新时使用
+     */
+    Optional<TransactionView> findViewByReference(String reference);
+
+    /**
+     * 按id批量查询只读视图, 启动预热缓存时使用
+     */
+    List<TransactionView> findViewsByIdIn(Collection<Long> ids);
+
+    /**
+     * 按主键倒序定位到游标之后的记录, 走主键索引范围扫描, 不做OFFSET也不做COUNT
+     * pageable只用来限制条数
+     */
+    List<TransactionView> findByIdBefore(long id, Pageable pageable);
+
+    /**
+     * 账户交易历史, 按 (createdAt, id) 倒序从游标位置之后开始取, 对应索引 idx_transactions_account_created
+     * 第一页的游标取时间上界和Long.MIN_VALUE; type为null时不过滤类型; pageable只用来限制条数
+     */
+    List<TransactionView> findAccountHistory(String accountNumber, TransactionType type, LocalDateTime from,
+                                             LocalDateTime beforeCreatedAt, long beforeId, Pageable pageable);
+}
@@ -0,0 +1,79 @@
+package com.bank.repository;
+
+import com.bank.dto.TransactionView;
+import com.bank.model.TransactionType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 在只读事务中执行, 会话的flush模式为MANUAL, 不做脏检查
+ * 用类型化查询而不是@Query: Spring Data 3.1 每次调用都会把@Query的JPQL重新解析一遍以便追加排序,
+ * 构造器表达式越长开销越大; 这里的查询没有动态排序, 交给Hibernate按查询字符串缓存解析结果
+ */
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class TransactionViewRepositoryImpl implements TransactionViewRepository {
+
+    private static final String BY_REFERENCE = TransactionView.SELECT + "where t.reference = :reference";
+
+    private static final String BY_IDS = TransactionView.SELECT + "where t.id in :ids";
+
+    private static final String BY_ID_BEFORE = TransactionView.SELECT + "where t.id < :id order by t.id desc";
+
+    private static final String ACCOUNT_HISTORY = TransactionView.SELECT + "where t.accountNumber = :accountNumber "
+        + "and t.createdAt >= :from "
+        + "and (t.createdAt < :beforeCreatedAt or (t.createdAt = :beforeCreatedAt and t.id < :beforeId)) "
+        + "and (:type is null or t.type = :type) "
+        + "order by t.createdAt desc, t.id desc";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<TransactionView> findViewByReference(String reference) {
+        List<TransactionView> views = query(BY_REFERENCE)
+            .setParameter("reference", reference)
+            .getResultList();
+        return views.isEmpty() ? Optional.empty() : Optional.of(views.get(0));
+    }
+
+    @Override
+    public List<TransactionView> findViewsByIdIn(Collection<Long> ids) {
+        return query(BY_IDS)
+            .setParameter("ids", ids)
+            .getResultList();
+    }
+
+    @Override
+    public List<TransactionView> findByIdBefore(long id, Pageable pageable) {
+        return limit(query(BY_ID_BEFORE).setParameter("id", id), pageable)
+            .getResultList();
+    }
+
+    @Override
+    public List<TransactionView> findAccountHistory(String accountNumber, TransactionType type, LocalDateTime from,
+                                                    LocalDateTime beforeCreatedAt, long beforeId, Pageable pageable) {
+        return limit(query(ACCOUNT_HISTORY)
+            .setParameter("accountNumber", accountNumber)
+            .setParameter("type", type)
+            .setParameter("from", from)
+            .setParameter("beforeCreatedAt", beforeCreatedAt)
+            .setParameter("beforeId", beforeId), pageable)
+            .getResultList();
+    }
+
+    private TypedQuery<TransactionView> query(String jpql) {
+        return entityManager.createQuery(jpql, TransactionView.class);
+    }
+
+    private static TypedQuery<TransactionView> limit(TypedQuery<TransactionView> query, Pageable pageable) {
+        return query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+    }
+}
@@ -0,0 +1,56 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * 一个账户汇总的增量, 可累加
+ */
+@Getter
+public class AccountDelta {
+
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    private final long[] counts = new long[TransactionType.values().length];
+
+    /**
+     * 新增交易产生的增量
+     */
+    public AccountDelta add(Transaction transaction) {
+        return apply(transaction.getType(), transaction.getAmount(), 1);
+    }
+
+    /**
+     * 删除交易产生的增量
+     */
+    public AccountDelta remove(Transaction transaction) {
+        return apply(transaction.getType(), transaction.getAmount(), -1);
+    }
+
+    public AccountDelta apply(TransactionType type, BigDecimal amount, int sign) {
+        BigDecimal signedAmount = type == TransactionType.DEPOSIT ? amount : amount.negate();
+        balance = sign > 0 ? balance.add(signedAmount) : balance.subtract(signedAmount);
+        counts[type.ordinal()] += sign;
+        return this;
+    }
+
+    public long count(TransactionType type) {
+        return counts[type.ordinal()];
+    }
+
+    public boolean isEmpty() {
+        if (balance.signum() != 0) {
+            return false;
+        }
+        for (long count : counts) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
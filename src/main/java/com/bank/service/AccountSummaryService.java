@@ -0,0 +1,23 @@
+package com.bank.service;
+
+import com.bank.model.AccountSummary;
+
+import java.util.Map;
+
+public interface AccountSummaryService {
+    /**
+     * 获取账户汇总
+     *
+     * @param accountNumber 账号
+     * @return 账户汇总
+     */
+    AccountSummary getAccountSummary(String accountNumber);
+
+    /**
+     * 在当前事务中累加账户汇总增量
+     * 同一账户的并发写入串行执行直到事务结束, 不同账户之间互不阻塞
+     *
+     * @param deltas key是账号, value是该账户的增量
+     */
+    void applyDeltas(Map<String, AccountDelta> deltas);
+}
@@ -0,0 +1,119 @@
+package com.bank.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongSupplier;
+
+/**
+ * 按延迟自适应的并发上限(AIMD)
+ * 请求完成时: 延迟超过目标或下游已经过载(5xx/429)则上限乘以backoffRatio, 每个目标延迟周期最多减一次;
+ * 否则在上限被用满一半以上时加 1/limit, 即每完成 limit 个请求约加一
+ * 上限以double的位模式存在AtomicLong里, 计数和上限的更新都是CAS, 不加锁
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long targetLatencyNanos;
+
+    private final double backoffRatio;
+
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong limitBits;
+
+    private final AtomicLong lastDecrease;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration targetLatency,
+                                      double backoffRatio, LongSupplier nanoClock) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.nanoClock = nanoClock;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+        this.lastDecrease = new AtomicLong(nanoClock.getAsLong() - targetLatencyNanos);
+    }
+
+    /**
+     * 未达到上限时占用一个并发名额, 占用成功后必须调用 release 或 releaseIgnored
+     */
+    public boolean tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放名额并按本次延迟调整上限
+     *
+     * @param latencyNanos 从占用名额到请求完成的时间
+     * @param overloaded 下游已经过载, 例如返回了5xx或429
+     */
+    public void release(long latencyNanos, boolean overloaded) {
+        int used = inFlight.getAndDecrement();
+        if (overloaded || latencyNanos > targetLatencyNanos) {
+            decrease();
+        } else {
+            increase(used);
+        }
+    }
+
+    /**
+     * 只释放名额, 不作为延迟样本, 例如长时间的流式导出
+     */
+    public void releaseIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    private void decrease() {
+        long now = nanoClock.getAsLong();
+        long last = lastDecrease.get();
+        // The requests that completed slowly in the same latency period reflect the same congestion
+        if (now - last < targetLatencyNanos || !lastDecrease.compareAndSet(last, now)) {
+            return;
+        }
+        update(limit -> Math.max(minLimit, limit * backoffRatio));
+    }
+
+    private void increase(int used) {
+        update(limit -> used * 2 >= limit ? Math.min(maxLimit, limit + 1 / limit) : limit);
+    }
+
+    private void update(DoubleUnaryOperator function) {
+        while (true) {
+            long bits = limitBits.get();
+            double next = function.applyAsDouble(Double.longBitsToDouble(bits));
+            if (Double.doubleToLongBits(next) == bits || limitBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
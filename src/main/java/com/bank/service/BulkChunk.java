@@ -0,0 +1,12 @@
+package com.bank.service;
+
+import com.bank.dto.TransactionCursor;
+
+/**
+ * 批量操作中一个分块的结果
+ *
+ * @param affected 本块受影响的行数
+ * @param next 本块最后一行的位置, 下一块从它之后开始; 为空表示之后没有匹配的交易了
+ */
+public record BulkChunk(int affected, TransactionCursor next) {
+}
@@ -0,0 +1,84 @@
+package com.bank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 按客户端的令牌桶限流, 读和写各一个桶
+ * 令牌桶用GCRA表示: 每个桶只保存一个"理论到达时间"(TAT), 一次CAS完成取令牌, 不加锁也不分配对象
+ * 客户端状态放在Caffeine里(ConcurrentHashMap, 命中时无锁); 空闲超过桶完全回满所需的时间后过期,
+ * 过期后重新创建的桶与保留下来的状态完全相同, 所以不影响限流结果
+ * 超过 maxClients 时按容量淘汰则不同: 被淘汰的客户端下次得到一个满桶, 正在被限流的客户端也会因此重置,
+ * 所以客户端标识不能由请求方随意构造(见 AdmissionControlFilter)
+ */
+public class ClientRateLimiter {
+
+    public static final int READ = 0;
+
+    public static final int WRITE = 1;
+
+    private final long[] intervalNanos;
+
+    private final long[] toleranceNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final long origin;
+
+    private final Cache<String, AtomicLongArray> clients;
+
+    /**
+     * @param rates 每秒令牌数, 下标为 READ / WRITE
+     * @param bursts 桶容量, 即空闲之后允许的突发请求数
+     */
+    public ClientRateLimiter(double[] rates, int[] bursts, long maxClients, LongSupplier nanoClock) {
+        this.intervalNanos = new long[2];
+        this.toleranceNanos = new long[2];
+        long idleNanos = 0;
+        for (int budget = READ; budget <= WRITE; budget++) {
+            if (rates[budget] <= 0 || bursts[budget] < 1) {
+                throw new IllegalArgumentException("Rate and burst must be positive");
+            }
+            intervalNanos[budget] = (long) (TimeUnit.SECONDS.toNanos(1) / rates[budget]);
+            toleranceNanos[budget] = intervalNanos[budget] * bursts[budget];
+            idleNanos = Math.max(idleNanos, toleranceNanos[budget]);
+        }
+        this.nanoClock = nanoClock;
+        // Times are kept relative to the limiter's creation so that a fresh bucket (TAT 0) is full
+        this.origin = nanoClock.getAsLong();
+        this.clients = Caffeine.newBuilder()
+            .maximumSize(maxClients)
+            .expireAfterAccess(Duration.ofNanos(idleNanos).plusSeconds(1))
+            .build();
+    }
+
+    /**
+     * 从客户端的读或写桶取一个令牌
+     *
+     * @return 0表示放行, 否则为需要等待的纳秒数
+     */
+    public long tryAcquire(String client, int budget) {
+        AtomicLongArray buckets = clients.get(client, k -> new AtomicLongArray(2));
+        long now = nanoClock.getAsLong() - origin;
+        while (true) {
+            long tat = buckets.get(budget);
+            long next = Math.max(tat, now) + intervalNanos[budget];
+            long excess = next - now - toleranceNanos[budget];
+            if (excess > 0) {
+                return excess;
+            }
+            if (buckets.compareAndSet(budget, tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long estimatedClients() {
+        return clients.estimatedSize();
+    }
+}
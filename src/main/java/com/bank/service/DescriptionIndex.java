@@ -0,0 +1,679 @@
+package com.bank.service;
+
+import com.bank.model.TransactionType;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 交易描述的倒排索引: 词 -> 描述中含有这个词的交易id; 另有类型和创建日期两类保留词, 用于按类型和日期过滤
+ * 倒排表按id升序分块, 每块最多 BLOCK_SIZE 个id, 块内存第一个id和之后各id与前一个的差(varint),
+ * 相邻的id差值小, 每个id通常占1-2字节
+ * 新交易的id比表中已有的都大, 追加到最后一块; 插入或删除较早的id时只重新编码它所在的一块
+ * 词典不保存词本身, 按词的64位哈希分段开放寻址, 只有一个id的词(发票号之类)直接存id, 不建倒排表;
+ * 哈希冲突的词共用一个倒排表, 多出的结果和索引滞后一样由复核去掉
+ * 修改在分段的锁内进行, 查询时游标每次在倒排表的锁内解码一块;
+ * 查询不是快照, 结果可能包含刚被修改或删除的交易, 调用方按数据库中的行复核
+ */
+public class DescriptionIndex {
+
+    /**
+     * 没有更多匹配的id; 交易id都是正数
+     */
+    public static final long NONE = -1;
+
+    /**
+     * 超过这个长度的词只保留前面部分, 索引和查询一致地截断
+     */
+    public static final int MAX_TOKEN_LENGTH = 64;
+
+    static final int BLOCK_SIZE = 128;
+
+    private static final String TYPE_PREFIX = "\u0000type:";
+
+    private static final String DAY_PREFIX = "\u0000day:";
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final byte[] EMPTY = {};
+
+    private static final int SEGMENT_BITS = 6;
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private static final long[] TYPE_KEYS = Arrays.stream(TransactionType.values())
+        .mapToLong(type -> key(typeTerm(type))).toArray();
+
+    /**
+     * 内存估算用的对象大小(压缩指针): 对象头和数组头, 倒排表对象的字段
+     */
+    private static final int OBJECT_HEADER = 16;
+
+    private static final int POSTING_LIST = 48;
+
+    private static final Cursor EXHAUSTED = ceiling -> NONE;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    public DescriptionIndex() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * 描述中的词: 连续的字母和数字, 转为小写; 汉字等表意文字各自成词. 按首次出现的顺序去重
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            if (Character.isIdeographic(codePoint)) {
+                tokens.add(new String(Character.toChars(codePoint)));
+                i += Character.charCount(codePoint);
+                continue;
+            }
+            if (!Character.isLetterOrDigit(codePoint)) {
+                i += Character.charCount(codePoint);
+                continue;
+            }
+            int start = i;
+            while (i < text.length()) {
+                codePoint = text.codePointAt(i);
+                if (!Character.isLetterOrDigit(codePoint) || Character.isIdeographic(codePoint)) {
+                    break;
+                }
+                i += Character.charCount(codePoint);
+            }
+            String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+            tokens.add(token.length() > MAX_TOKEN_LENGTH ? token.substring(0, MAX_TOKEN_LENGTH) : token);
+        }
+        return tokens;
+    }
+
+    /**
+     * 一笔交易在索引中的全部词: 描述中的词、类型和创建日期
+     */
+    public static Set<String> terms(String description, TransactionType type, LocalDate createdOn) {
+        Set<String> terms = tokenize(description);
+        if (type != null) {
+            terms.add(typeTerm(type));
+        }
+        if (createdOn != null) {
+            terms.add(dayTerm(createdOn));
+        }
+        return terms;
+    }
+
+    public static String typeTerm(TransactionType type) {
+        return TYPE_PREFIX + type.name();
+    }
+
+    public static String dayTerm(LocalDate day) {
+        return DAY_PREFIX + DAY.format(day);
+    }
+
+    /**
+     * 把交易的词从 previous 改为 current: 只增删两者的差, 新增交易时 previous 为空, 删除时 current 为空
+     */
+    public void update(long id, Collection<String> previous, Collection<String> current) {
+        for (String term : previous) {
+            if (!current.contains(term)) {
+                remove(term, id);
+            }
+        }
+        for (String term : current) {
+            if (!previous.contains(term)) {
+                add(term, id);
+            }
+        }
+    }
+
+    private void add(String term, long id) {
+        long key = key(term);
+        segment(key).add(key, id);
+    }
+
+    private void remove(String term, long id) {
+        long key = key(term);
+        segment(key).remove(key, id);
+    }
+
+    /**
+     * 含有这个词的交易数, 词不存在时为0; 用于把最少的词放在求交的最前面
+     */
+    public int size(String term) {
+        long key = key(term);
+        return segment(key).size(key);
+    }
+
+    /**
+     * 按id从大到小遍历含有这个词的交易, 词不存在时返回null
+     */
+    public Cursor cursor(String term) {
+        long key = key(term);
+        return segment(key).cursor(key);
+    }
+
+    /**
+     * 词的64位哈希, 0表示空槽, 不作为键
+     */
+    private static long key(String term) {
+        long key = HASH.hashUnencodedChars(term).asLong();
+        return key == 0 ? 1 : key;
+    }
+
+    private Segment segment(long key) {
+        return segments[(int) (key >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    /**
+     * 同时出现在所有游标中的id, 从大到小; 每个游标跳到上一个候选之下, 直到所有游标停在同一个id
+     */
+    public static Cursor and(List<Cursor> cursors) {
+        if (cursors.size() == 1) {
+            return cursors.get(0);
+        }
+        Cursor[] all = cursors.toArray(Cursor[]::new);
+        return ceiling -> {
+            long candidate = ceiling;
+            int agreed = 0;
+            int i = 0;
+            while (agreed < all.length) {
+                long id = all[i].advance(candidate);
+                if (id == NONE) {
+                    return NONE;
+                }
+                if (id == candidate) {
+                    agreed++;
+                } else {
+                    candidate = id;
+                    agreed = 1;
+                }
+                i = (i + 1) % all.length;
+            }
+            return candidate;
+        };
+    }
+
+    /**
+     * 出现在任一游标中的id, 从大到小; 没有游标时为空
+     */
+    public static Cursor or(List<Cursor> cursors) {
+        if (cursors.isEmpty()) {
+            return EXHAUSTED;
+        }
+        if (cursors.size() == 1) {
+            return cursors.get(0);
+        }
+        Cursor[] all = cursors.toArray(Cursor[]::new);
+        return ceiling -> {
+            long best = NONE;
+            for (Cursor cursor : all) {
+                best = Math.max(best, cursor.advance(ceiling));
+            }
+            return best;
+        };
+    }
+
+    /**
+     * 遍历升序排列的id数组, 用于和数据库查出的id求交
+     */
+    public static Cursor of(long[] ascending) {
+        return new ArrayCursor(ascending, ascending.length);
+    }
+
+    /**
+     * 词数、倒排表中的id总数、交易数(每笔交易恰有一个类型词)和估算的堆内存
+     */
+    public Stats stats() {
+        long terms = 0;
+        long postings = 0;
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                terms += segment.count;
+                bytes += 3 * OBJECT_HEADER + (8L + 8 + 4) * segment.keys.length;
+                for (int slot = 0; slot < segment.keys.length; slot++) {
+                    PostingList list = segment.lists[slot];
+                    if (list != null) {
+                        postings += list.size();
+                        bytes += list.bytes();
+                    } else if (segment.keys[slot] != 0) {
+                        postings++;
+                    }
+                }
+            }
+        }
+        long documents = 0;
+        for (long key : TYPE_KEYS) {
+            documents += segment(key).size(key);
+        }
+        return new Stats(terms, postings, documents, bytes);
+    }
+
+    public record Stats(long terms, long postings, long documents, long bytes) {
+    }
+
+    /**
+     * 从大到小的id游标
+     */
+    @FunctionalInterface
+    public interface Cursor {
+
+        /**
+         * @return 不大于 ceiling 的最大id, 没有时返回 NONE; ceiling 应当逐次减小
+         */
+        long advance(long ceiling);
+    }
+
+    /**
+     * 在 ids[0, end) 中找不大于 ceiling 的最大值的下标, 没有时返回-1
+     */
+    private static int floor(long[] ids, int end, long ceiling) {
+        int low = 0;
+        int high = end - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ids[mid] <= ceiling) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 词典的一段: 线性探测的开放寻址表, 删除时把后面的项前移, 不留墓碑
+     * 一个槽里要么是只有一个id的词(singles), 要么是倒排表(lists)
+     */
+    private static final class Segment {
+
+        private long[] keys = new long[16];
+
+        private long[] singles = new long[16];
+
+        private PostingList[] lists = new PostingList[16];
+
+        private int count;
+
+        synchronized void add(long key, long id) {
+            int slot = slot(key);
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                singles[slot] = id;
+                if (++count * 10 > keys.length * 6) {
+                    resize();
+                }
+                return;
+            }
+            PostingList list = lists[slot];
+            if (list == null) {
+                if (singles[slot] == id) {
+                    return;
+                }
+                list = new PostingList();
+                list.add(Math.min(singles[slot], id));
+                list.add(Math.max(singles[slot], id));
+                lists[slot] = list;
+                singles[slot] = 0;
+            } else {
+                list.add(id);
+            }
+        }
+
+        synchronized void remove(long key, long id) {
+            int slot = slot(key);
+            if (keys[slot] == 0) {
+                return;
+            }
+            PostingList list = lists[slot];
+            if (list == null) {
+                if (singles[slot] == id) {
+                    delete(slot);
+                }
+                return;
+            }
+            list.remove(id);
+            if (list.size() == 1) {
+                singles[slot] = list.first();
+                lists[slot] = null;
+            }
+        }
+
+        synchronized int size(long key) {
+            int slot = slot(key);
+            if (keys[slot] == 0) {
+                return 0;
+            }
+            return lists[slot] != null ? lists[slot].size() : 1;
+        }
+
+        synchronized Cursor cursor(long key) {
+            int slot = slot(key);
+            if (keys[slot] == 0) {
+                return null;
+            }
+            return lists[slot] != null ? new ListCursor(lists[slot]) : of(new long[]{singles[slot]});
+        }
+
+        /**
+         * 键所在的槽, 不存在时是探测到的第一个空槽
+         */
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void delete(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            for (int i = (slot + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+                // An entry may fill the hole if the hole lies between its home slot and where it is now
+                int home = (int) keys[i] & mask;
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    keys[hole] = keys[i];
+                    singles[hole] = singles[i];
+                    lists[hole] = lists[i];
+                    hole = i;
+                }
+            }
+            keys[hole] = 0;
+            singles[hole] = 0;
+            lists[hole] = null;
+            count--;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldSingles = singles;
+            PostingList[] oldLists = lists;
+            keys = new long[oldKeys.length * 2];
+            singles = new long[oldKeys.length * 2];
+            lists = new PostingList[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    singles[slot] = oldSingles[i];
+                    lists[slot] = oldLists[i];
+                }
+            }
+        }
+    }
+
+    private static final class ArrayCursor implements Cursor {
+
+        private final long[] ids;
+
+        private int end;
+
+        private ArrayCursor(long[] ids, int end) {
+            this.ids = ids;
+            this.end = end;
+        }
+
+        @Override
+        public long advance(long ceiling) {
+            int i = floor(ids, end, ceiling);
+            end = i + 1;
+            return i < 0 ? NONE : ids[i];
+        }
+    }
+
+    /**
+     * 缓冲区中是倒排表里一段连续的id; 上一次返回的id之后的部分已经丢弃
+     */
+    private static final class ListCursor implements Cursor {
+
+        private final PostingList postings;
+
+        private final long[] buffer = new long[BLOCK_SIZE];
+
+        private int count;
+
+        private ListCursor(PostingList postings) {
+            this.postings = postings;
+        }
+
+        @Override
+        public long advance(long ceiling) {
+            if (count == 0 || buffer[0] > ceiling) {
+                count = postings.load(ceiling, buffer);
+            }
+            int i = floor(buffer, count, ceiling);
+            if (i < 0) {
+                count = 0;
+                return NONE;
+            }
+            count = i + 1;
+            return buffer[i];
+        }
+    }
+
+    /**
+     * 一个词的倒排表; 最后一块的数组留有余量, 供追加使用, 写满 BLOCK_SIZE 个id时截到实际长度
+     */
+    static final class PostingList {
+
+        private long[] firsts = new long[1];
+
+        private byte[][] blocks = new byte[1][];
+
+        private int blockCount;
+
+        private int size;
+
+        private long lastId;
+
+        private int lastCount;
+
+        private int lastLength;
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * 最小的id
+         */
+        synchronized long first() {
+            return firsts[0];
+        }
+
+        synchronized void add(long id) {
+            if (blockCount == 0 || id > lastId) {
+                append(id);
+                return;
+            }
+            int block = Math.max(blockOf(id), 0);
+            long[] ids = new long[BLOCK_SIZE + 1];
+            int count = decode(block, ids);
+            int i = floor(ids, count, id);
+            if (i >= 0 && ids[i] == id) {
+                return;
+            }
+            System.arraycopy(ids, i + 1, ids, i + 2, count - i - 1);
+            ids[i + 1] = id;
+            count++;
+            size++;
+            int changed = block;
+            if (count > BLOCK_SIZE) {
+                int half = count / 2;
+                replace(block, ids, 0, half);
+                insertBlock(++changed);
+                replace(changed, ids, half, count);
+            } else {
+                replace(block, ids, 0, count);
+            }
+            if (changed >= blockCount - 1) {
+                refreshLast();
+            }
+        }
+
+        synchronized void remove(long id) {
+            int block = blockOf(id);
+            if (block < 0) {
+                return;
+            }
+            long[] ids = new long[BLOCK_SIZE];
+            int count = decode(block, ids);
+            int i = floor(ids, count, id);
+            if (i < 0 || ids[i] != id) {
+                return;
+            }
+            System.arraycopy(ids, i + 1, ids, i, count - i - 1);
+            count--;
+            size--;
+            if (count == 0) {
+                System.arraycopy(firsts, block + 1, firsts, block, blockCount - block - 1);
+                System.arraycopy(blocks, block + 1, blocks, block, blockCount - block - 1);
+                blocks[--blockCount] = null;
+            } else {
+                replace(block, ids, 0, count);
+            }
+            if (block >= blockCount - 1) {
+                refreshLast();
+            }
+        }
+
+        /**
+         * 把不大于 ceiling 的最大id所在的块解码到 buffer, 返回块中的id数; 没有这样的块时返回0
+         */
+        synchronized int load(long ceiling, long[] buffer) {
+            int block = blockOf(ceiling);
+            return block < 0 ? 0 : decode(block, buffer);
+        }
+
+        synchronized long bytes() {
+            long bytes = POSTING_LIST + OBJECT_HEADER + 8L * firsts.length + OBJECT_HEADER + 4L * blocks.length;
+            for (int b = 0; b < blockCount; b++) {
+                if (blocks[b].length > 0) {
+                    bytes += OBJECT_HEADER + (blocks[b].length + 7 & ~7);
+                }
+            }
+            return bytes;
+        }
+
+        private void append(long id) {
+            if (blockCount == 0 || lastCount == BLOCK_SIZE) {
+                insertBlock(blockCount);
+                firsts[blockCount - 1] = id;
+                blocks[blockCount - 1] = EMPTY;
+                lastCount = 1;
+                lastLength = 0;
+            } else {
+                int last = blockCount - 1;
+                byte[] block = blocks[last];
+                if (lastLength + 10 > block.length) {
+                    block = Arrays.copyOf(block, Math.max(16, block.length * 2));
+                    blocks[last] = block;
+                }
+                lastLength = writeVarint(block, lastLength, id - lastId);
+                if (++lastCount == BLOCK_SIZE) {
+                    blocks[last] = Arrays.copyOf(block, lastLength);
+                }
+            }
+            lastId = id;
+            size++;
+        }
+
+        /**
+         * 最后一个第一个id不大于 id 的块, 都大于 id 时返回-1
+         */
+        private int blockOf(long id) {
+            return floor(firsts, blockCount, id);
+        }
+
+        private int decode(int block, long[] ids) {
+            byte[] bytes = blocks[block];
+            int length = block == blockCount - 1 ? lastLength : bytes.length;
+            long id = firsts[block];
+            ids[0] = id;
+            int count = 1;
+            int position = 0;
+            while (position < length) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += delta;
+                ids[count++] = id;
+            }
+            return count;
+        }
+
+        private void replace(int block, long[] ids, int from, int to) {
+            firsts[block] = ids[from];
+            if (to - from == 1) {
+                blocks[block] = EMPTY;
+                return;
+            }
+            byte[] bytes = new byte[(to - from - 1) * 10];
+            int length = 0;
+            for (int i = from + 1; i < to; i++) {
+                length = writeVarint(bytes, length, ids[i] - ids[i - 1]);
+            }
+            blocks[block] = Arrays.copyOf(bytes, length);
+        }
+
+        private void insertBlock(int block) {
+            if (blockCount == firsts.length) {
+                firsts = Arrays.copyOf(firsts, blockCount * 2);
+                blocks = Arrays.copyOf(blocks, blockCount * 2);
+            }
+            System.arraycopy(firsts, block, firsts, block + 1, blockCount - block);
+            System.arraycopy(blocks, block, blocks, block + 1, blockCount - block);
+            blockCount++;
+        }
+
+        /**
+         * 最后一块被重新编码或删除之后重新取它的状态; 重新编码的块没有余量
+         */
+        private void refreshLast() {
+            if (blockCount == 0) {
+                lastCount = 0;
+                lastLength = 0;
+                lastId = 0;
+                return;
+            }
+            int last = blockCount - 1;
+            lastLength = blocks[last].length;
+            long[] ids = new long[BLOCK_SIZE];
+            lastCount = decode(last, ids);
+            lastId = ids[lastCount - 1];
+        }
+
+        private static int writeVarint(byte[] bytes, int position, long value) {
+            while ((value & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+            return position;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.bank.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * 把k个各自有序的序列合并成一个有序序列: 堆里放每个序列的当前元素, 每取出一个元素 O(log k),
+ * 只向来源多读一个元素, 流式来源不需要整体放进内存; 相等的元素按来源顺序输出
+ */
+public final class KWayMerge {
+
+    private KWayMerge() {
+    }
+
+    public static <T> Iterator<T> merge(List<? extends Iterator<? extends T>> sources, Comparator<? super T> order) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+            Comparator.<Head<T>, T>comparing(head -> head.value, order).thenComparingInt(head -> head.source));
+        for (int source = 0; source < sources.size(); source++) {
+            Iterator<? extends T> iterator = sources.get(source);
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), source));
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head<T> head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                Iterator<? extends T> iterator = sources.get(head.source);
+                if (iterator.hasNext()) {
+                    heads.add(new Head<>(iterator.next(), head.source));
+                }
+                return head.value;
+            }
+        };
+    }
+
+    /**
+     * 合并后跳过前 skip 个, 最多取 limit 个
+     */
+    public static <T> List<T> merge(List<? extends List<? extends T>> sources, Comparator<? super T> order, long skip, int limit) {
+        Iterator<T> merged = merge(sources.stream().map(List::iterator).toList(), order);
+        for (long i = 0; i < skip && merged.hasNext(); i++) {
+            merged.next();
+        }
+        List<T> result = new ArrayList<>(limit);
+        while (result.size() < limit && merged.hasNext()) {
+            result.add(merged.next());
+        }
+        return result;
+    }
+
+    private record Head<T>(T value, int source) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.bank.service;
+
+import com.bank.dto.TransactionView;
+import com.bank.exception.IngestionQueueFullException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 已进入异步写入、尚未完成的交易, key是交易编号
+ * 按编号读取和重复提交检查以这里为准; 不像缓存那样会被淘汰或过期, 条目数不超过写入队列的容量,
+ * 写入完成(提交、重复或失败)后才移除
+ */
+public class PendingTransactions {
+
+    public static final PendingTransactions NONE = new PendingTransactions(0);
+
+    private final ConcurrentMap<String, TransactionView> transactions = new ConcurrentHashMap<>();
+
+    private final Semaphore capacity;
+
+    public PendingTransactions(int capacity) {
+        this.capacity = new Semaphore(capacity);
+    }
+
+    /**
+     * 登记一笔等待写入的交易
+     * 已满时抛出 IngestionQueueFullException
+     *
+     * @return false 表示同一编号已经在等待写入
+     */
+    public boolean add(TransactionView transaction) {
+        if (!capacity.tryAcquire()) {
+            throw new IngestionQueueFullException("Transaction ingestion queue is full, retry later");
+        }
+        if (transactions.putIfAbsent(transaction.reference(), transaction) != null) {
+            capacity.release();
+            return false;
+        }
+        return true;
+    }
+
+    public TransactionView get(String reference) {
+        return transactions.get(reference);
+    }
+
+    /**
+     * 只移除自己登记的那一条
+     */
+    public void remove(TransactionView transaction) {
+        if (transactions.remove(transaction.reference(), transaction)) {
+            capacity.release();
+        }
+    }
+}
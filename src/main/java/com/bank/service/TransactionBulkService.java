@@ -0,0 +1,27 @@
+package com.bank.service;
+
+import com.bank.dto.BulkResult;
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.TransactionCriteria;
+
+public interface TransactionBulkService {
+
+    /**
+     * 删除所有匹配条件的交易, 按id升序分块执行, 每块 bank.bulk.chunk-size 行、一个数据库事务
+     * 已提交的块不会因为后面的块失败而回滚; 没有任何条件时抛出 InvalidBulkRequestException
+     *
+     * @param criteria 筛选条件
+     * @return 受影响的行数和耗时
+     */
+    BulkResult deleteTransactions(TransactionCriteria criteria);
+
+    /**
+     * 修改所有匹配条件的交易的描述和/或类型, 分块方式同 deleteTransactions
+     * 没有任何条件或没有要修改的字段时抛出 InvalidBulkRequestException
+     *
+     * @param criteria 筛选条件
+     * @param update 要修改的字段
+     * @return 受影响的行数和耗时
+     */
+    BulkResult updateTransactions(TransactionCriteria criteria, BulkUpdate update);
+}
@@ -0,0 +1,23 @@
+package com.bank.service;
+
+import com.bank.dto.IngestionStatus;
+import com.bank.model.Transaction;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface TransactionIngestionService {
+
+    /**
+     * 把交易放入异步写入队列后立即返回, 后台按批提交, 每批一个数据库事务
+     * 提交前 getTransactionByReference 已经可以读到这条交易(id为空), 写入完成前不会因缓存淘汰而消失
+     * 队列已满时抛出 IngestionQueueFullException, 同编号交易正在等待写入或已在缓存中时抛出 TransactionAlreadyExistsException
+     *
+     * @return 提交完成(或失败)时完成的future
+     */
+    CompletableFuture<IngestionStatus> submit(Transaction transaction);
+
+    /**
+     * 查询异步写入的状态, 没有进行中或最近完成的异步写入时抛出 TransactionNotFoundException
+     */
+    IngestionStatus getStatus(String reference);
+}
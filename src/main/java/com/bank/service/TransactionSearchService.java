@@ -0,0 +1,45 @@
+package com.bank.service;
+
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionView;
+import com.bank.model.TransactionType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TransactionSearchService {
+    /**
+     * 更新描述索引: 新增交易的词, 撤销删除的交易的词, 更新时只改动前后不同的词
+     * 在当前事务提交后生效, 回滚时不生效; 没有事务时立即生效
+     *
+     * @param added   新增的交易, 以及更新后的值
+     * @param removed 删除的交易, 以及更新前的值
+     */
+    void record(List<TransactionView> added, List<TransactionView> removed);
+
+    /**
+     * 描述中含有查询的全部词的交易, 按id倒序, 游标分页
+     *
+     * @param query         要搜索的词, 不区分大小写
+     * @param accountNumber 只返回这个账户的交易, 为null时不过滤
+     * @param type          只返回这个类型的交易, 为null时不过滤
+     * @param from          created_at 下界(含), 为null时不限
+     * @param to            created_at 上界(不含), 为null时不限
+     * @param cursor        上一页返回的 next_cursor, 第一页为null
+     * @param size          每页条数
+     */
+    CursorPage<TransactionView> search(String query, String accountNumber, TransactionType type,
+                                       LocalDateTime from, LocalDateTime to, String cursor, int size);
+
+    /**
+     * 从数据库读取全部交易建立新的索引, 建好后替换正在使用的索引; 期间的写入在替换前补到新索引
+     *
+     * @return 读取的交易条数
+     */
+    long rebuild();
+
+    /**
+     * 当前索引的词数、id数和估算的内存
+     */
+    DescriptionIndex.Stats getIndexStats();
+}
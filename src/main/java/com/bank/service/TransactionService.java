@@ -1,10 +1,21 @@
 package com.bank.service;
 
+import com.bank.dto.BatchCreateResult;
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionCriteria;
+import com.bank.dto.TransactionCursor;
+import com.bank.dto.TransactionView;
 import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface TransactionService {
     /**
      * 创建交易
@@ -14,21 +25,62 @@ public interface TransactionService {
      */
     Transaction createTransaction(Transaction transaction);
 
+    /**
+     * 批量创建交易
+     * 一次查询检查所有编号是否重复, 合法且不重复的交易以JDBC批量方式插入,
+     * 单条非法或重复不影响其余交易
+     *
+     * @param transactions 交易对象列表
+     * @return 每条交易的处理结果
+     */
+    BatchCreateResult createTransactions(List<Transaction> transactions);
+
     /**
      * 根据编号获取交易信息
      *
      * @param reference 编号
-     * @return 交易对象信息
+     * @return 交易的只读视图, 可能来自缓存
      */
-    Transaction getTransactionByReference(String reference);
+    TransactionView getTransactionByReference(String reference);
 
     /**
      * 获取交易信息
      *
      * @param pageable 分页参数
-     * @return 交易信息
+     * @return 交易的只读视图
+     */
+    Page<TransactionView> getAllTransactions(Pageable pageable);
+
+    /**
+     * 基于游标获取交易信息, 按id倒序, 不统计总数
+     *
+     * @param cursor 上一页返回的游标, 为空表示第一页
+     * @param size 每页条数
+     * @return 交易信息及下一页游标
+     */
+    CursorPage<TransactionView> getTransactions(String cursor, int size);
+
+    /**
+     * 获取账户的交易历史, 按创建时间倒序, 基于游标分页
+     *
+     * @param accountNumber 账号
+     * @param type 交易类型, 为空表示不过滤
+     * @param from 创建时间下界(包含), 为空表示不限
+     * @param to 创建时间上界(不包含), 为空表示不限
+     * @param cursor 上一页返回的游标, 为空表示第一页
+     * @param size 每页条数
+     * @return 交易信息及下一页游标
+     */
+    CursorPage<TransactionView> getAccountTransactions(String accountNumber, TransactionType type,
+                                                       LocalDateTime from, LocalDateTime to, String cursor, int size);
+
+    /**
+     * 流式导出全部交易, 按id升序逐条交给consumer处理
+     * 逐行读取只读视图, 不进入持久化上下文, 内存占用与数据量无关
+     *
+     * @param consumer 交易处理逻辑
      */
-    Page<Transaction> getAllTransactions(Pageable pageable);
+    void exportTransactions(Consumer<TransactionView> consumer);
 
     /**
      * 更新交易信息
@@ -39,9 +91,43 @@ public interface TransactionService {
      */
     Transaction updateTransaction(String reference, Transaction transactionDetails);
 
+    /**
+     * 条件更新交易信息, ifMatch非空时交易当前的ETag必须是其中之一("*"匹配任意已存在的交易),
+     * 写入时按版本号检查期间是否被并发修改, 冲突时在新事务中重新读取并重试, 重试用尽抛出 ConcurrentUpdateException
+     *
+     * @param reference 编号
+     * @param transactionDetails 要更新的交易信息
+     * @param ifMatch If-Match 请求头中的ETag, 为空表示不做检查
+     * @return 更新后交易信息
+     */
+    Transaction updateTransaction(String reference, Transaction transactionDetails, List<String> ifMatch);
+
     /**
      * 删除交易信息
      * @param id key
      */
     void deleteTransaction(Long id);
+
+    /**
+     * 在一个事务中删除after之后匹配条件的前limit条交易
+     * 一条DELETE语句执行, 同步更新账户汇总和窗口统计, 并从缓存中移除这些编号
+     * 由 TransactionBulkService 循环调用, 每块单独提交以缩短持锁时间
+     *
+     * @param criteria 筛选条件
+     * @param after 上一块返回的位置, 为空表示第一块
+     * @param limit 每块最多条数
+     * @return 本块的结果
+     */
+    BulkChunk deleteTransactions(TransactionCriteria criteria, TransactionCursor after, int limit);
+
+    /**
+     * 在一个事务中修改after之后匹配条件的前limit条交易的描述和/或类型, 其余同 deleteTransactions
+     *
+     * @param criteria 筛选条件
+     * @param update 要修改的字段
+     * @param after 上一块返回的位置, 为空表示第一块
+     * @param limit 每块最多条数
+     * @return 本块的结果
+     */
+    BulkChunk updateTransactions(TransactionCriteria criteria, BulkUpdate update, TransactionCursor after, int limit);
 }
@@ -0,0 +1,33 @@
+package com.bank.service;
+
+import com.bank.dto.TransactionStats;
+import com.bank.dto.TransactionView;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface TransactionStatsService {
+    /**
+     * 计入交易的新增或撤销, 按交易的created_at分桶
+     * 在当前事务提交后生效, 回滚时不计入; 没有事务时立即生效
+     *
+     * @param added   新增的交易, 以及更新后的值
+     * @param removed 删除的交易, 以及更新前的值
+     */
+    void record(List<TransactionView> added, List<TransactionView> removed);
+
+    /**
+     * 汇总最近的时间窗口
+     *
+     * @param windows 要汇总的窗口, 为空时使用 bank.stats.windows
+     * @return 每个窗口按类型的笔数和金额, 以及笔数最多的账户
+     */
+    TransactionStats getStats(List<Duration> windows);
+
+    /**
+     * 清空内存中的统计, 从数据库读取保留范围内创建的交易重新计入
+     *
+     * @return 读取的交易条数
+     */
+    long rebuild();
+}
@@ -0,0 +1,187 @@
+package com.bank.service;
+
+import com.bank.model.TransactionType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按时间分桶的交易笔数和金额, 环形数组保存最近 retention 内的桶, 桶宽固定
+ * 每个桶里按类型各有一组LongAdder, 按账户另有一张上限为 accountsPerBucket 的表, 超出上限的新账户只计入类型汇总
+ * 写入不加锁: 桶过期时用CAS换成新桶; 查询只遍历窗口覆盖的桶, 耗时与交易量无关
+ * 金额以分(scale 2, 与 amount numeric(38, 2) 一致)累加
+ */
+public class WindowedAggregates {
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final long bucketMillis;
+
+    private final int accountsPerBucket;
+
+    private final AtomicReferenceArray<Bucket> ring;
+
+    public WindowedAggregates(Duration bucketWidth, Duration retention, int accountsPerBucket) {
+        if (bucketWidth.toMillis() <= 0 || retention.compareTo(bucketWidth) < 0) {
+            throw new IllegalArgumentException("Retention " + retention + " must cover at least one bucket of " + bucketWidth);
+        }
+        this.bucketMillis = bucketWidth.toMillis();
+        this.accountsPerBucket = accountsPerBucket;
+        // One extra slot for the bucket that is still being filled
+        this.ring = new AtomicReferenceArray<>((int) ((retention.toMillis() + bucketMillis - 1) / bucketMillis) + 1);
+    }
+
+    public Duration getBucketWidth() {
+        return Duration.ofMillis(bucketMillis);
+    }
+
+    public Duration getRetention() {
+        return Duration.ofMillis(bucketMillis * (ring.length() - 1));
+    }
+
+    /**
+     * 把一笔交易计入它发生时间所在的桶, sign为-1时撤销; 时间早于保留范围的直接忽略
+     */
+    public void add(long epochMillis, String accountNumber, TransactionType type, long amountCents, int sign) {
+        Bucket bucket = bucketFor(Math.floorDiv(epochMillis, bucketMillis));
+        if (bucket == null) {
+            return;
+        }
+        int ordinal = type.ordinal();
+        bucket.counts[ordinal].add(sign);
+        bucket.amounts[ordinal].add(sign * amountCents);
+        if (accountNumber != null) {
+            Totals account = bucket.accounts.get(accountNumber);
+            if (account == null && bucket.accounts.size() < accountsPerBucket) {
+                Totals created = new Totals();
+                account = bucket.accounts.putIfAbsent(accountNumber, created);
+                if (account == null) {
+                    account = created;
+                }
+            }
+            if (account != null) {
+                account.count.add(sign);
+                account.amount.add(sign * amountCents);
+            }
+        }
+    }
+
+    private Bucket bucketFor(long index) {
+        int slot = (int) Math.floorMod(index, (long) ring.length());
+        while (true) {
+            Bucket current = ring.get(slot);
+            if (current != null && current.index == index) {
+                return current;
+            }
+            if (current != null && current.index > index) {
+                // The slot already holds a newer bucket, this one has expired
+                return null;
+            }
+            Bucket fresh = new Bucket(index);
+            if (ring.compareAndSet(slot, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    /**
+     * 汇总截至nowMillis的最近window, 精确到一个桶宽: 覆盖 window/桶宽 个桶, 最新的桶包含到当前时刻为止的数据
+     *
+     * @param topAccounts 按笔数返回前几个账户, 0表示不统计账户
+     */
+    public Snapshot sum(long nowMillis, Duration window, int topAccounts) {
+        long current = Math.floorDiv(nowMillis, bucketMillis);
+        long buckets = Math.min((window.toMillis() + bucketMillis - 1) / bucketMillis, ring.length() - 1);
+        long[] counts = new long[TYPES.length];
+        long[] amounts = new long[TYPES.length];
+        Map<String, long[]> accounts = new HashMap<>();
+        for (long index = current - buckets + 1; index <= current; index++) {
+            Bucket bucket = ring.get((int) Math.floorMod(index, (long) ring.length()));
+            if (bucket == null || bucket.index != index) {
+                continue;
+            }
+            for (int i = 0; i < TYPES.length; i++) {
+                counts[i] += bucket.counts[i].sum();
+                amounts[i] += bucket.amounts[i].sum();
+            }
+            if (topAccounts > 0) {
+                bucket.accounts.forEach((accountNumber, totals) -> {
+                    long[] sum = accounts.computeIfAbsent(accountNumber, k -> new long[2]);
+                    sum[0] += totals.count.sum();
+                    sum[1] += totals.amount.sum();
+                });
+            }
+        }
+
+        List<AccountTotals> top = new ArrayList<>();
+        accounts.forEach((accountNumber, sum) -> {
+            if (sum[0] > 0) {
+                top.add(new AccountTotals(accountNumber, sum[0], sum[1]));
+            }
+        });
+        top.sort(Comparator.comparingLong(AccountTotals::count).reversed()
+            .thenComparing(Comparator.comparingLong(AccountTotals::amountCents).reversed())
+            .thenComparing(AccountTotals::accountNumber));
+        return new Snapshot(counts, amounts, top.size() > topAccounts ? top.subList(0, topAccounts) : top);
+    }
+
+    public void clear() {
+        for (int i = 0; i < ring.length(); i++) {
+            ring.set(i, null);
+        }
+    }
+
+    /**
+     * 一个窗口的汇总, 数组按TransactionType序号排列
+     */
+    public record Snapshot(long[] counts, long[] amountCents, List<AccountTotals> topAccounts) {
+
+        public long count(TransactionType type) {
+            return counts[type.ordinal()];
+        }
+
+        public long amountCents(TransactionType type) {
+            return amountCents[type.ordinal()];
+        }
+    }
+
+    public record AccountTotals(String accountNumber, long count, long amountCents) {
+    }
+
+    private static final class Bucket {
+
+        private final long index;
+
+        private final LongAdder[] counts = adders();
+
+        private final LongAdder[] amounts = adders();
+
+        private final ConcurrentHashMap<String, Totals> accounts = new ConcurrentHashMap<>();
+
+        private Bucket(long index) {
+            this.index = index;
+        }
+
+        private static LongAdder[] adders() {
+            LongAdder[] adders = new LongAdder[TYPES.length];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+    }
+
+    private static final class Totals {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder amount = new LongAdder();
+    }
+}
@@ -0,0 +1,86 @@
+package com.bank.service.impl;
+
+import com.bank.exception.AccountNotFoundException;
+import com.bank.model.AccountSummary;
+import com.bank.model.TransactionType;
+import com.bank.repository.AccountSummaryRepository;
+import com.bank.repository.ShardRouter;
+import com.bank.service.AccountDelta;
+import com.bank.service.AccountSummaryService;
+import com.google.common.util.concurrent.Striped;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+
+@Service
+@RequiredArgsConstructor
+public class AccountSummaryServiceImpl implements AccountSummaryService {
+
+    /**
+     * 账户锁分段数, 不同账户落在同一分段的概率为 1/STRIPES
+     */
+    private static final int STRIPES = 1024;
+
+    private final AccountSummaryRepository accountSummaryRepository;
+
+    private final EntityManager entityManager;
+
+    private final ShardRouter shardRouter;
+
+    private final Striped<Lock> accountLocks = Striped.lock(STRIPES);
+
+    @Override
+    public AccountSummary getAccountSummary(String accountNumber) {
+        // The summary lives on the same shard as the account's transactions
+        return shardRouter.on(shardRouter.shardOf(accountNumber), () -> accountSummaryRepository.findById(accountNumber))
+            .orElseThrow(() -> new AccountNotFoundException("Account " + accountNumber + " has no transactions"));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDeltas(Map<String, AccountDelta> deltas) {
+        Map<String, AccountDelta> changes = new TreeMap<>();
+        deltas.forEach((accountNumber, delta) -> {
+            if (!delta.isEmpty()) {
+                changes.put(accountNumber, delta);
+            }
+        });
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        // Write pending transaction rows before taking account locks, so that a thread holding
+        // account locks never waits on another transaction's row locks
+        entityManager.flush();
+
+        // bulkGet returns locks in stripe order, every thread acquires them in the same order
+        List<Lock> locks = new ArrayList<>();
+        accountLocks.bulkGet(changes.keySet()).forEach(locks::add);
+        locks.forEach(Lock::lock);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                locks.forEach(Lock::unlock);
+            }
+        });
+
+        changes.forEach((accountNumber, delta) -> accountSummaryRepository.applyDelta(accountNumber,
+            delta.getBalance(),
+            delta.count(TransactionType.DEPOSIT),
+            delta.count(TransactionType.WITHDRAWAL),
+            delta.count(TransactionType.TRANSFER),
+            delta.count(TransactionType.PAYMENT)));
+    }
+}
@@ -0,0 +1,394 @@
+package com.bank.service.impl;
+
+import com.bank.dto.BatchCreateResult;
+import com.bank.dto.BatchItemResult;
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionCriteria;
+import com.bank.dto.TransactionCursor;
+import com.bank.dto.TransactionView;
+import com.bank.exception.CrossShardUpdateException;
+import com.bank.exception.TransactionAlreadyExistsException;
+import com.bank.exception.TransactionNotFoundException;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.repository.ShardDirectory;
+import com.bank.repository.ShardRouter;
+import com.bank.repository.TransactionRepository;
+import com.bank.service.BulkChunk;
+import com.bank.service.KWayMerge;
+import com.bank.service.PendingTransactions;
+import com.bank.service.TransactionService;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 分片模式 (bank.sharding.enabled=true) 下的交易服务: 按分片路由到 TransactionServiceImpl, 每次调用只在一个分片上开事务
+ * - 创建: 账户号决定分片; 编号的唯一索引只覆盖一个分片, 全局唯一由 ShardDirectory 和进行中的创建保证
+ * - 按编号: 经目录找到分片, 目录里没有的编号直接返回不存在; 按id: id的高位就是分片号
+ * - 账户历史和账户汇总: 一个账户的交易都在同一分片
+ * - 全表分页: 各分片按同样的排序取前 offset + size 条, k路归并后截取
+ * - 游标列表、导出和按条件批量操作: 分片的id区间互不重叠, 按id排序时逐个分片顺序处理
+ * 批量创建按分片拆成多个事务, 一个分片失败不会回滚其他分片已创建的交易
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnProperty(name = "bank.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardedTransactionService implements TransactionService, SmartInitializingSingleton {
+
+    private final TransactionServiceImpl delegate;
+
+    private final TransactionRepository transactionRepository;
+
+    private final ShardRouter shardRouter;
+
+    private final Validator validator;
+
+    private final PendingTransactions pendingTransactions;
+
+    /**
+     * 正在创建的编号及其分片: 写入提交之前, 另一分片上的同一编号由它拒绝; 同一分片上的由唯一索引拒绝
+     */
+    private final ConcurrentMap<String, Claim> pendingCreates = new ConcurrentHashMap<>();
+
+    /**
+     * 在web服务启动之前, 从每个分片读取全部编号重建目录
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        ShardDirectory directory = shardRouter.directory();
+        for (int shard = 0; shard < shardRouter.shards(); shard++) {
+            int current = shard;
+            shardRouter.read(shard, () -> {
+                try (Stream<String> references = transactionRepository.streamAllReferences()) {
+                    references.forEach(reference -> directory.add(reference, current));
+                }
+                return null;
+            });
+        }
+        log.info("Rebuilt shard directory with {} references from {} shards in {} ms ({} KB)", directory.size(),
+            shardRouter.shards(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), directory.memoryBytes() / 1024);
+    }
+
+    @Override
+    public Transaction createTransaction(Transaction transaction) {
+        int shard = shardRouter.shardOf(transaction.getAccountNumber());
+        String reference = transaction.getReference();
+        if (reference == null) {
+            // Let the delegate report the validation error
+            return shardRouter.on(shard, () -> delegate.createTransaction(transaction));
+        }
+        claim(reference, shard);
+        try {
+            return shardRouter.on(shard, () -> delegate.createTransaction(transaction));
+        } finally {
+            release(reference);
+        }
+    }
+
+    @Override
+    public BatchCreateResult createTransactions(List<Transaction> transactions) {
+        BatchItemResult[] results = new BatchItemResult[transactions.size()];
+        Map<Integer, List<Integer>> indexesByShard = new TreeMap<>();
+        List<String> claimed = new ArrayList<>();
+        try {
+            for (int i = 0; i < transactions.size(); i++) {
+                Transaction transaction = transactions.get(i);
+                if (transaction == null) {
+                    results[i] = BatchItemResult.invalid(i, null, "Transaction cannot be null");
+                    continue;
+                }
+                // Invalid items have no usable reference or account, reject them before claiming
+                Set<ConstraintViolation<Transaction>> violations = validator.validate(transaction);
+                if (!violations.isEmpty()) {
+                    results[i] = BatchItemResult.invalid(i, transaction.getReference(),
+                        TransactionServiceImpl.describe(violations));
+                    continue;
+                }
+                int shard = shardRouter.shardOf(transaction.getAccountNumber());
+                try {
+                    claim(transaction.getReference(), shard);
+                } catch (TransactionAlreadyExistsException e) {
+                    results[i] = BatchItemResult.duplicate(i, transaction.getReference());
+                    continue;
+                }
+                claimed.add(transaction.getReference());
+                indexesByShard.computeIfAbsent(shard, k -> new ArrayList<>()).add(i);
+            }
+
+            indexesByShard.forEach((shard, indexes) -> {
+                List<Transaction> batch = indexes.stream().map(transactions::get).toList();
+                BatchCreateResult result = shardRouter.on(shard, () -> delegate.createTransactions(batch));
+                for (BatchItemResult item : result.getItems()) {
+                    int index = indexes.get(item.getIndex());
+                    results[index] = new BatchItemResult(index, item.getReference(), item.getStatus(), item.getId(),
+                        item.getMessage());
+                }
+            });
+        } finally {
+            claimed.forEach(this::release);
+        }
+        return new BatchCreateResult(Arrays.asList(results));
+    }
+
+    /**
+     * 占用编号: 目录里该编号已对应其他分片(或有歧义)时到那些分片确认是否已存在
+     */
+    private void claim(String reference, int shard) {
+        pendingCreates.compute(reference, (k, claim) -> {
+            if (claim == null) {
+                return new Claim(shard, 1);
+            }
+            if (claim.shard() != shard) {
+                throw alreadyExists(reference);
+            }
+            return new Claim(shard, claim.count() + 1);
+        });
+        int previous = shardRouter.directory().add(reference, shard);
+        if (previous != ShardDirectory.ABSENT && previous != shard && existsOnOtherShard(reference, previous, shard)) {
+            release(reference);
+            throw alreadyExists(reference);
+        }
+    }
+
+    private void release(String reference) {
+        pendingCreates.computeIfPresent(reference, (k, claim) ->
+            claim.count() == 1 ? null : new Claim(claim.shard(), claim.count() - 1));
+    }
+
+    private boolean existsOnOtherShard(String reference, int previous, int shard) {
+        for (int candidate = 0; candidate < shardRouter.shards(); candidate++) {
+            if (candidate != shard && (previous == ShardDirectory.AMBIGUOUS || candidate == previous)
+                && existsOn(candidate, reference)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean existsOn(int shard, String reference) {
+        return !shardRouter.on(shard, () -> transactionRepository.findExistingReferences(Set.of(reference))).isEmpty();
+    }
+
+    private static TransactionAlreadyExistsException alreadyExists(String reference) {
+        return new TransactionAlreadyExistsException("Transaction with reference " + reference + " already exists");
+    }
+
+    /**
+     * 编号所在的分片, 不存在时返回 -1; 目录有歧义时逐个分片查询, 不会在错误的分片上缓存"不存在"
+     */
+    private int locate(String reference) {
+        int[] candidates = shardRouter.shardsOfReference(reference);
+        if (candidates.length == 1) {
+            return candidates[0];
+        }
+        for (int shard : candidates) {
+            if (existsOn(shard, reference)) {
+                return shard;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public TransactionView getTransactionByReference(String reference) {
+        // Not in the directory until the asynchronous write commits
+        TransactionView pending = pendingTransactions.get(reference);
+        if (pending != null) {
+            return pending;
+        }
+        int shard = locate(reference);
+        if (shard < 0) {
+            throw TransactionServiceImpl.notFound(reference);
+        }
+        return shardRouter.on(shard, () -> delegate.getTransactionByReference(reference));
+    }
+
+    /**
+     * 每个分片都要取前 offset + size 条, 深分页的代价随分片数增长, 应使用游标接口
+     */
+    @Override
+    public Page<TransactionView> getAllTransactions(Pageable pageable) {
+        Pageable perShard = pageable.isPaged()
+            ? PageRequest.of(0, (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize()),
+                pageable.getSort())
+            : pageable;
+        List<List<TransactionView>> pages = new ArrayList<>(shardRouter.shards());
+        long total = 0;
+        for (int shard = 0; shard < shardRouter.shards(); shard++) {
+            Page<TransactionView> page = shardRouter.on(shard, () -> delegate.getAllTransactions(perShard));
+            pages.add(page.getContent());
+            total += page.getTotalElements();
+        }
+        List<TransactionView> content = pageable.isPaged()
+            ? KWayMerge.merge(pages, order(pageable.getSort()), pageable.getOffset(), pageable.getPageSize())
+            : KWayMerge.merge(pages, order(pageable.getSort()), 0, Math.toIntExact(total));
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * 与数据库相同的排序: 枚举按名称, 空值在升序时最前; 最后按id, 各分片的顺序才是确定的
+     */
+    @SuppressWarnings("unchecked")
+    static Comparator<TransactionView> order(Sort sort) {
+        Comparator<TransactionView> byId = Comparator.comparing(TransactionView::id);
+        List<Comparator<TransactionView>> keys = new ArrayList<>();
+        for (Sort.Order property : sort) {
+            Comparator<TransactionView> key = Comparator.comparing(sortKey(property.getProperty()),
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+            keys.add(property.isAscending() ? key : key.reversed());
+        }
+        return keys.stream().reduce(Comparator::thenComparing).map(key -> key.thenComparing(byId)).orElse(byId);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<TransactionView, Comparable> sortKey(String property) {
+        return switch (property) {
+            case "id" -> TransactionView::id;
+            case "reference" -> TransactionView::reference;
+            case "accountNumber" -> TransactionView::accountNumber;
+            case "amount" -> TransactionView::amount;
+            case "type" -> view -> view.type() == null ? null : view.type().name();
+            case "description" -> TransactionView::description;
+            case "createdAt" -> TransactionView::createdAt;
+            case "updatedAt" -> TransactionView::updatedAt;
+            case "version" -> TransactionView::version;
+            default -> throw new IllegalArgumentException("Unsupported sort property: " + property);
+        };
+    }
+
+    /**
+     * 分片s的id都小于分片s+1的id, 从游标所在的分片往下逐个读取, 凑够一页即停止, 通常只查询一个分片
+     */
+    @Override
+    public CursorPage<TransactionView> getTransactions(String cursor, int size) {
+        long before = cursor == null ? Long.MAX_VALUE : TransactionCursor.decode(cursor).id();
+        List<TransactionView> transactions = new ArrayList<>(size + 1);
+        int first = before <= 1 ? -1 : (int) Math.min(shardRouter.shards() - 1, (before - 1) >>> ShardRouter.ID_SHARD_SHIFT);
+        for (int shard = first; shard >= 0 && transactions.size() <= size; shard--) {
+            PageRequest remaining = PageRequest.of(0, size + 1 - transactions.size());
+            transactions.addAll(shardRouter.on(shard, () -> transactionRepository.findByIdBefore(before, remaining)));
+        }
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            nextCursor = TransactionCursor.ofId(transactions.get(size - 1).id()).encode();
+        }
+        return new CursorPage<>(transactions, size, nextCursor);
+    }
+
+    @Override
+    public CursorPage<TransactionView> getAccountTransactions(String accountNumber, TransactionType type,
+                                                              LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        return shardRouter.on(shardRouter.shardOf(accountNumber),
+            () -> delegate.getAccountTransactions(accountNumber, type, from, to, cursor, size));
+    }
+
+    /**
+     * 按分片顺序逐个流式导出, 即id升序; 同一时间只占用一个分片的一个连接
+     */
+    @Override
+    public void exportTransactions(Consumer<TransactionView> consumer) {
+        for (int shard = 0; shard < shardRouter.shards(); shard++) {
+            shardRouter.on(shard, () -> delegate.exportTransactions(consumer));
+        }
+    }
+
+    @Override
+    public Transaction updateTransaction(String reference, Transaction transactionDetails) {
+        return updateTransaction(reference, transactionDetails, List.of());
+    }
+
+    /**
+     * 修改后的账户号必须落在同一分片, 否则交易要在两个库之间搬迁, 拒绝并返回409
+     */
+    @Override
+    public Transaction updateTransaction(String reference, Transaction transactionDetails, List<String> ifMatch) {
+        int shard = locate(reference);
+        if (shard < 0) {
+            throw new TransactionNotFoundException("Transaction with reference: " + reference + " not found");
+        }
+        if (transactionDetails.getAccountNumber() != null
+            && shardRouter.shardOf(transactionDetails.getAccountNumber()) != shard) {
+            throw new CrossShardUpdateException("Transaction with reference: " + reference
+                + " cannot move to account " + transactionDetails.getAccountNumber() + " stored on another shard");
+        }
+        return shardRouter.on(shard, () -> delegate.updateTransaction(reference, transactionDetails, ifMatch));
+    }
+
+    @Override
+    public void deleteTransaction(Long id) {
+        int shard = shardRouter.shardOfId(id);
+        if (shard < 0) {
+            throw new TransactionNotFoundException("Transaction not found with id: " + id);
+        }
+        shardRouter.on(shard, () -> delegate.deleteTransaction(id));
+    }
+
+    @Override
+    public BulkChunk deleteTransactions(TransactionCriteria criteria, TransactionCursor after, int limit) {
+        return chunk(criteria, after, position -> delegate.deleteTransactions(criteria, position, limit));
+    }
+
+    @Override
+    public BulkChunk updateTransactions(TransactionCriteria criteria, BulkUpdate update, TransactionCursor after, int limit) {
+        return chunk(criteria, after, position -> delegate.updateTransactions(criteria, update, position, limit));
+    }
+
+    /**
+     * 指定账户时只在该账户的分片上执行; 否则按id逐个分片分块, 一个分片处理完后,
+     * 返回下一分片第一个id之前的位置, 调用方的下一块就从下一分片开始
+     */
+    private BulkChunk chunk(TransactionCriteria criteria, TransactionCursor after,
+                            Function<TransactionCursor, BulkChunk> operation) {
+        if (criteria.accountNumber() != null) {
+            return shardRouter.on(shardRouter.shardOf(criteria.accountNumber()), () -> operation.apply(after));
+        }
+        int shard = after == null ? 0 : shardRouter.shardOfId(after.id() + 1);
+        if (shard < 0) {
+            return new BulkChunk(0, null);
+        }
+        BulkChunk chunk = shardRouter.on(shard, () -> operation.apply(after));
+        if (chunk.next() == null && shard + 1 < shardRouter.shards()) {
+            return new BulkChunk(chunk.affected(), TransactionCursor.ofId(ShardRouter.firstId(shard + 1) - 1));
+        }
+        return chunk;
+    }
+
+    /**
+     * @param count 同一分片上同时创建该编号的请求数, 由唯一索引决定谁成功
+     */
+    private record Claim(int shard, int count) {
+    }
+}
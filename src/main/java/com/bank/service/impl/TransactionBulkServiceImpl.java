@@ -0,0 +1,75 @@
+package com.bank.service.impl;
+
+import com.bank.config.BulkProperties;
+import com.bank.dto.BulkResult;
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.TransactionCriteria;
+import com.bank.dto.TransactionCursor;
+import com.bank.exception.InvalidBulkRequestException;
+import com.bank.service.BulkChunk;
+import com.bank.service.TransactionBulkService;
+import com.bank.service.TransactionService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分块循环在事务之外, 每块调用一次 TransactionService 的事务方法:
+ * 锁只在一块内持有, 下一块从上一块最后一行之后继续, 已处理和不匹配的行不会重复扫描
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionBulkServiceImpl implements TransactionBulkService {
+
+    private final TransactionService transactionService;
+
+    private final BulkProperties properties;
+
+    @Override
+    public BulkResult deleteTransactions(TransactionCriteria criteria) {
+        requireCriteria(criteria);
+        return run("delete", criteria, (after, limit) -> transactionService.deleteTransactions(criteria, after, limit));
+    }
+
+    @Override
+    public BulkResult updateTransactions(TransactionCriteria criteria, BulkUpdate update) {
+        requireCriteria(criteria);
+        if (update == null || update.isEmpty()) {
+            throw new InvalidBulkRequestException("Nothing to update, set description and/or type");
+        }
+        return run("update", criteria, (after, limit) -> transactionService.updateTransactions(criteria, update, after, limit));
+    }
+
+    private static void requireCriteria(TransactionCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) {
+            throw new InvalidBulkRequestException("At least one of account_number, reference_prefix, type, from or to is required");
+        }
+    }
+
+    private BulkResult run(String operation, TransactionCriteria criteria, ChunkOperation chunkOperation) {
+        long start = System.nanoTime();
+        long affected = 0;
+        int chunks = 0;
+        TransactionCursor after = null;
+        do {
+            BulkChunk chunk = chunkOperation.apply(after, properties.getChunkSize());
+            affected += chunk.affected();
+            chunks++;
+            after = chunk.next();
+        } while (after != null);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Bulk {} of transactions matching {} affected {} rows in {} chunks, {} ms",
+            operation, criteria, affected, chunks, elapsedMs);
+        return new BulkResult(affected, chunks, elapsedMs);
+    }
+
+    @FunctionalInterface
+    private interface ChunkOperation {
+        BulkChunk apply(TransactionCursor after, int limit);
+    }
+}
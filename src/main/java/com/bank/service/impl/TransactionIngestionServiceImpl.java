@@ -0,0 +1,229 @@
+package com.bank.service.impl;
+
+import com.bank.config.IngestionProperties;
+import com.bank.dto.BatchCreateResult;
+import com.bank.dto.BatchItemResult;
+import com.bank.dto.IngestionStatus;
+import com.bank.dto.TransactionView;
+import com.bank.exception.IngestionQueueFullException;
+import com.bank.exception.TransactionAlreadyExistsException;
+import com.bank.exception.TransactionNotFoundException;
+import com.bank.model.Transaction;
+import com.bank.service.PendingTransactions;
+import com.bank.service.TransactionIngestionService;
+import com.bank.service.TransactionService;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步写入(write-behind): 请求进入有界队列, 单个写线程按批取出, 每批调用一次 createTransactions,
+ * 即一个数据库事务(group commit), 然后逐条完成future和状态
+ * 生命周期晚于Web服务器停止, 关闭时先拒绝新请求, 再把队列里剩余的交易写完
+ */
+@Slf4j
+@Service
+public class TransactionIngestionServiceImpl implements TransactionIngestionService, SmartLifecycle {
+
+    private final TransactionService transactionService;
+
+    private final Cache<String, Object> transactionByReferenceCache;
+
+    private final Cache<String, Boolean> transactionNotFoundCache;
+
+    private final Cache<String, IngestionStatus> ingestionStatusCache;
+
+    private final PendingTransactions pendingTransactions;
+
+    private final IngestionProperties properties;
+
+    private final BlockingQueue<PendingTransaction> queue;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    public TransactionIngestionServiceImpl(TransactionService transactionService,
+                                           Cache<String, Object> transactionByReferenceCache,
+                                           Cache<String, Boolean> transactionNotFoundCache,
+                                           Cache<String, IngestionStatus> ingestionStatusCache,
+                                           PendingTransactions pendingTransactions,
+                                           IngestionProperties properties) {
+        this.transactionService = transactionService;
+        this.transactionByReferenceCache = transactionByReferenceCache;
+        this.transactionNotFoundCache = transactionNotFoundCache;
+        this.ingestionStatusCache = ingestionStatusCache;
+        this.pendingTransactions = pendingTransactions;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    @Override
+    public CompletableFuture<IngestionStatus> submit(Transaction transaction) {
+        if (!running) {
+            throw new IngestionQueueFullException("Transaction ingestion is not accepting requests");
+        }
+        String reference = transaction.getReference();
+        // Readers see the pending copy until the writer has committed it;
+        // a committed transaction still in the cache is rejected here, any other duplicate by the database
+        Transaction pending = copyOf(transaction);
+        TransactionView view = TransactionView.of(pending);
+        if (transactionByReferenceCache.asMap().containsKey(reference) || !pendingTransactions.add(view)) {
+            throw new TransactionAlreadyExistsException("Transaction with reference " + reference + " already exists");
+        }
+        transactionNotFoundCache.invalidate(reference);
+
+        PendingTransaction entry = new PendingTransaction(pending, view, new CompletableFuture<>());
+        // The status is recorded before enqueueing so the writer's final status cannot be overwritten
+        ingestionStatusCache.put(reference, IngestionStatus.pending(reference));
+        if (!queue.offer(entry)) {
+            ingestionStatusCache.invalidate(reference);
+            pendingTransactions.remove(view);
+            throw new IngestionQueueFullException("Transaction ingestion queue is full, retry later");
+        }
+        return entry.future();
+    }
+
+    @Override
+    public IngestionStatus getStatus(String reference) {
+        IngestionStatus status = ingestionStatusCache.getIfPresent(reference);
+        if (status == null) {
+            throw new TransactionNotFoundException("No asynchronous ingestion found for reference " + reference);
+        }
+        return status;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::drain, "transaction-writer");
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // A submit that passed the running check while the writer was exiting
+        drain();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stop after the web server so requests accepted during graceful shutdown are still written
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+        List<PendingTransaction> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTransaction first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in transaction writer", e);
+                batch.forEach(entry -> complete(entry, IngestionStatus.failed(entry.reference(), e.getMessage())));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 第一条取到后最多再等待 maxBatchDelay, 批次满了立即提交
+     */
+    private void fillBatch(List<PendingTransaction> batch) throws InterruptedException {
+        int maxBatchSize = properties.getMaxBatchSize();
+        long deadline = System.nanoTime() + properties.getMaxBatchDelay().toNanos();
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                return;
+            }
+            PendingTransaction next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<PendingTransaction> batch) {
+        List<Transaction> transactions = batch.stream().map(entry -> copyOf(entry.pending())).toList();
+        BatchCreateResult result;
+        try {
+            result = transactionService.createTransactions(transactions);
+        } catch (RuntimeException e) {
+            // e.g. a synchronous create won the unique index after the duplicate check, retry one by one
+            log.warn("Batch of {} failed, writing transactions individually: {}", batch.size(), e.getMessage());
+            batch.forEach(this::writeIndividually);
+            return;
+        }
+        for (BatchItemResult item : result.getItems()) {
+            complete(batch.get(item.getIndex()), IngestionStatus.of(item));
+        }
+    }
+
+    private void writeIndividually(PendingTransaction entry) {
+        IngestionStatus status;
+        try {
+            Transaction saved = transactionService.createTransaction(copyOf(entry.pending()));
+            status = IngestionStatus.committed(saved.getReference(), saved.getId());
+        } catch (TransactionAlreadyExistsException e) {
+            status = IngestionStatus.of(BatchItemResult.duplicate(0, entry.reference()));
+        } catch (RuntimeException e) {
+            status = IngestionStatus.failed(entry.reference(), e.getMessage());
+        }
+        complete(entry, status);
+    }
+
+    private void complete(PendingTransaction entry, IngestionStatus status) {
+        // A committed transaction is read from the cache or the database from now on
+        pendingTransactions.remove(entry.view());
+        ingestionStatusCache.put(entry.reference(), status);
+        entry.future().complete(status);
+    }
+
+    private static Transaction copyOf(Transaction transaction) {
+        return new Transaction(null, transaction.getReference(), transaction.getAccountNumber(),
+            transaction.getAmount(), transaction.getType(), transaction.getDescription());
+    }
+
+    /**
+     * view是登记在 PendingTransactions 中的读取副本, 用于只移除自己登记的条目
+     */
+    private record PendingTransaction(Transaction pending, TransactionView view, CompletableFuture<IngestionStatus> future) {
+
+        String reference() {
+            return pending.getReference();
+        }
+    }
+}
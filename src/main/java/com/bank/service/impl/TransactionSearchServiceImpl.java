@@ -0,0 +1,309 @@
+package com.bank.service.impl;
+
+import com.bank.config.SearchProperties;
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionCursor;
+import com.bank.dto.TransactionView;
+import com.bank.exception.InvalidSearchQueryException;
+import com.bank.model.TransactionType;
+import com.bank.repository.ShardRouter;
+import com.bank.repository.TransactionRepository;
+import com.bank.service.DescriptionIndex;
+import com.bank.service.TransactionSearchService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 交易描述的全文搜索: 内存中的倒排索引给出候选id, 再按id从数据库读取交易逐条复核
+ * 索引由本节点的创建、修改和删除在提交后增量更新, 其他节点的写入要等下一次重建才可见
+ * 按账户过滤时先从账户索引查出账户的交易id, 与倒排表求交
+ */
+@Slf4j
+@Service
+public class TransactionSearchServiceImpl implements TransactionSearchService {
+
+    private final TransactionRepository transactionRepository;
+
+    private final ShardRouter shardRouter;
+
+    private final SearchProperties properties;
+
+    private volatile DescriptionIndex index = new DescriptionIndex();
+
+    /**
+     * 增量更新持读锁, 重建结束时替换索引持写锁
+     */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    /**
+     * 重建期间的增量更新, 替换前在新索引上重放; 不重建时为null
+     */
+    private Queue<Change> rebuilding;
+
+    public TransactionSearchServiceImpl(TransactionRepository transactionRepository, ShardRouter shardRouter,
+                                        SearchProperties properties) {
+        this.transactionRepository = transactionRepository;
+        this.shardRouter = shardRouter;
+        this.properties = properties;
+    }
+
+    @Override
+    public void record(List<TransactionView> added, List<TransactionView> removed) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(added, removed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(added, removed);
+            }
+        });
+    }
+
+    private void apply(List<TransactionView> added, List<TransactionView> removed) {
+        // An update arrives as the previous value in removed and the new value in added, only the difference is applied
+        Map<Long, Change> changes = new LinkedHashMap<>();
+        for (TransactionView transaction : removed) {
+            changes.computeIfAbsent(transaction.id(), Change::new).previous = terms(transaction);
+        }
+        for (TransactionView transaction : added) {
+            changes.computeIfAbsent(transaction.id(), Change::new).current = terms(transaction);
+        }
+        swapLock.readLock().lock();
+        try {
+            for (Change change : changes.values()) {
+                change.applyTo(index);
+            }
+            if (rebuilding != null) {
+                rebuilding.addAll(changes.values());
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static Set<String> terms(TransactionView transaction) {
+        return DescriptionIndex.terms(transaction.description(), transaction.type(),
+            transaction.createdAt() != null ? transaction.createdAt().toLocalDate() : null);
+    }
+
+    @Override
+    public CursorPage<TransactionView> search(String query, String accountNumber, TransactionType type,
+                                              LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        Set<String> words = DescriptionIndex.tokenize(query);
+        if (words.isEmpty()) {
+            throw new InvalidSearchQueryException("Query must contain at least one word");
+        }
+        if (words.size() > properties.getMaxQueryWords()) {
+            throw new InvalidSearchQueryException("Query has " + words.size() + " words, at most "
+                + properties.getMaxQueryWords() + " are allowed");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidSearchQueryException("from must be before to");
+        }
+        long before = cursor == null ? Long.MAX_VALUE : TransactionCursor.decode(cursor).id();
+
+        DescriptionIndex.Cursor matches = candidates(index, words, accountNumber, type, from, to, before);
+        List<TransactionView> transactions = new ArrayList<>(size + 1);
+        long ceiling = before - 1;
+        // Fetch one extra row to know whether there is a next page; rows that no longer match are skipped
+        while (transactions.size() <= size && ceiling > 0) {
+            List<Long> ids = new ArrayList<>();
+            while (ids.size() < size + 1 - transactions.size()) {
+                long id = matches.advance(ceiling);
+                if (id == DescriptionIndex.NONE) {
+                    ceiling = 0;
+                    break;
+                }
+                ids.add(id);
+                ceiling = id - 1;
+            }
+            for (TransactionView transaction : load(ids)) {
+                if (matches(transaction, words, accountNumber, type, from, to)) {
+                    transactions.add(transaction);
+                }
+            }
+        }
+
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            nextCursor = TransactionCursor.ofId(transactions.get(size - 1).id()).encode();
+        }
+        return new CursorPage<>(transactions, size, nextCursor);
+    }
+
+    /**
+     * 所有词、类型和日期的倒排表求交, 最短的倒排表放在最前面; 有词不在索引中时没有结果
+     */
+    private DescriptionIndex.Cursor candidates(DescriptionIndex index, Set<String> words, String accountNumber,
+                                               TransactionType type, LocalDateTime from, LocalDateTime to, long before) {
+        List<String> terms = new ArrayList<>(words);
+        if (type != null) {
+            terms.add(DescriptionIndex.typeTerm(type));
+        }
+        terms.sort(Comparator.comparingInt(index::size));
+        List<DescriptionIndex.Cursor> cursors = new ArrayList<>();
+        for (String term : terms) {
+            DescriptionIndex.Cursor cursor = index.cursor(term);
+            if (cursor == null) {
+                return DescriptionIndex.or(List.of());
+            }
+            cursors.add(cursor);
+        }
+        LocalDate firstDay = from != null ? from.toLocalDate() : null;
+        LocalDate lastDay = to != null ? to.minusNanos(1).toLocalDate() : from != null ? LocalDate.now().plusDays(1) : null;
+        if (firstDay != null && ChronoUnit.DAYS.between(firstDay, lastDay) < properties.getMaxFilterDays()) {
+            List<DescriptionIndex.Cursor> days = new ArrayList<>();
+            for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+                DescriptionIndex.Cursor cursor = index.cursor(DescriptionIndex.dayTerm(day));
+                if (cursor != null) {
+                    days.add(cursor);
+                }
+            }
+            cursors.add(DescriptionIndex.or(days));
+        }
+        if (accountNumber != null) {
+            List<Long> ids = shardRouter.read(shardRouter.shardOf(accountNumber), () -> transactionRepository.findAccountIds(
+                accountNumber, from != null ? from : TransactionServiceImpl.EARLIEST,
+                to != null ? to : TransactionServiceImpl.LATEST, before));
+            cursors.add(DescriptionIndex.of(ids.stream().mapToLong(Long::longValue).sorted().toArray()));
+        }
+        return DescriptionIndex.and(cursors);
+    }
+
+    /**
+     * 按id读取交易, 分片时按id所在的分片分组; 按id倒序返回, 已删除的不返回
+     */
+    private List<TransactionView> load(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, List<Long>> byShard = new HashMap<>();
+        for (Long id : ids) {
+            int shard = shardRouter.shardOfId(id);
+            if (shard >= 0) {
+                byShard.computeIfAbsent(shard, k -> new ArrayList<>()).add(id);
+            }
+        }
+        Map<Long, TransactionView> found = new TreeMap<>(Comparator.reverseOrder());
+        byShard.forEach((shard, shardIds) -> shardRouter.read(shard, () -> transactionRepository.findViewsByIdIn(shardIds))
+            .forEach(transaction -> found.put(transaction.id(), transaction)));
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * 复核数据库中的当前值: 索引可能还没反映刚提交的修改, 日期只按天过滤过
+     */
+    private static boolean matches(TransactionView transaction, Set<String> words, String accountNumber,
+                                   TransactionType type, LocalDateTime from, LocalDateTime to) {
+        return DescriptionIndex.tokenize(transaction.description()).containsAll(words)
+            && (accountNumber == null || accountNumber.equals(transaction.accountNumber()))
+            && (type == null || type == transaction.type())
+            && (from == null || !transaction.createdAt().isBefore(from))
+            && (to == null || transaction.createdAt().isBefore(to));
+    }
+
+    /**
+     * 新索引建好之前旧索引继续服务查询和增量更新, 内存中同时有两份索引
+     * 分片时逐个分片在只读事务中按id流式读取
+     */
+    @Override
+    public synchronized long rebuild() {
+        long start = System.nanoTime();
+        DescriptionIndex rebuilt = new DescriptionIndex();
+        Queue<Change> changes = new ConcurrentLinkedQueue<>();
+        swapLock.writeLock().lock();
+        try {
+            rebuilding = changes;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        long rows = 0;
+        try {
+            for (int shard = 0; shard < shardRouter.shards(); shard++) {
+                rows += shardRouter.read(shard, () -> {
+                    long count = 0;
+                    try (Stream<TransactionView> transactions = transactionRepository.streamAllOrderById()) {
+                        for (TransactionView transaction : (Iterable<TransactionView>) transactions::iterator) {
+                            rebuilt.update(transaction.id(), Set.of(), terms(transaction));
+                            count++;
+                        }
+                    }
+                    return count;
+                });
+            }
+        } catch (RuntimeException e) {
+            swapLock.writeLock().lock();
+            try {
+                rebuilding = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        swapLock.writeLock().lock();
+        try {
+            // Writes committed while streaming may or may not be in the rows read, replaying them is idempotent
+            changes.forEach(change -> change.applyTo(rebuilt));
+            index = rebuilt;
+            rebuilding = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        DescriptionIndex.Stats stats = rebuilt.stats();
+        log.info("Rebuilt description index from {} transactions in {} ms: {} terms, {} postings, ~{} KB", rows,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), stats.terms(), stats.postings(), stats.bytes() / 1024);
+        return rows;
+    }
+
+    @Override
+    public DescriptionIndex.Stats getIndexStats() {
+        return index.stats();
+    }
+
+    /**
+     * 一笔交易的词从 previous 变为 current
+     */
+    private static final class Change {
+
+        private final long id;
+
+        private Set<String> previous = Set.of();
+
+        private Set<String> current = Set.of();
+
+        private Change(long id) {
+            this.id = id;
+        }
+
+        private void applyTo(DescriptionIndex index) {
+            index.update(id, previous, current);
+        }
+    }
+}
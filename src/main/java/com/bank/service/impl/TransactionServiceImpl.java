@@ -1,85 +1,599 @@
 package com.bank.service.impl;
 
+import com.bank.config.CacheInvalidationBroadcaster;
+import com.bank.config.ReplicaRoutingDataSource;
+import com.bank.config.SharedTransactionCache;
+import com.bank.config.TransactionCacheCodec;
+import com.bank.config.UpdateRetryProperties;
+import com.bank.dto.BatchCreateResult;
+import com.bank.dto.BatchItemResult;
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionCriteria;
+import com.bank.dto.TransactionCursor;
+import com.bank.dto.TransactionView;
+import com.bank.exception.ConcurrentUpdateException;
+import com.bank.exception.InvalidCursorException;
+import com.bank.exception.PreconditionFailedException;
 import com.bank.exception.TransactionAlreadyExistsException;
 import com.bank.exception.TransactionNotFoundException;
 import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
 import com.bank.repository.TransactionRepository;
+import com.bank.service.AccountDelta;
+import com.bank.service.AccountSummaryService;
+import com.bank.service.BulkChunk;
+import com.bank.service.PendingTransactions;
+import com.bank.service.TransactionSearchService;
 import com.bank.service.TransactionService;
-import com.google.common.cache.Cache;
+import com.bank.service.TransactionStatsService;
+import com.github.benmanes.caffeine.cache.Cache;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
 
+    /**
+     * 未指定时间范围时使用的边界, 取数据库TIMESTAMP能表示的范围内
+     */
+    static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final TransactionRepository transactionRepository;
 
     private final Cache<String, Object> transactionByReferenceCache;
 
+    private final Cache<String, Boolean> transactionNotFoundCache;
+
+    private final PendingTransactions pendingTransactions;
+
+    private final Validator validator;
+
+    private final AccountSummaryService accountSummaryService;
+
+    private final TransactionCacheCodec transactionCacheCodec;
+
+    private final TransactionStatsService transactionStatsService;
+
+    private final TransactionSearchService transactionSearchService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final UpdateRetryProperties updateRetryProperties;
+
+    private final SharedTransactionCache sharedTransactionCache;
+
+    private final CacheInvalidationBroadcaster cacheInvalidationBroadcaster;
+
+    /**
+     * 正在从数据库加载的编号, 同一编号的并发未命中只加载一次
+     * 加载在缓存的compute锁(synchronized)之外进行, 虚拟线程等待JDBC时不会钉住载体线程
+     */
+    private final ConcurrentMap<String, CompletableFuture<TransactionView>> inFlightLoads = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void listenForRemoteInvalidations() {
+        cacheInvalidationBroadcaster.listen(this::evictRemote);
+    }
+
     @Override
     @Transactional
     public Transaction createTransaction(Transaction transaction) {
-        // Check if transaction already exists
-        transactionRepository.findByReference(transaction.getReference())
-            .ifPresent(existingTransaction -> {
+        // Insert directly and let the unique index on reference detect duplicates,
+        // a select before the insert costs a round-trip and still races with concurrent creates
+        transaction.setId(null);
+        Transaction savedTransaction;
+        try {
+            savedTransaction = transactionRepository.saveAndFlush(transaction);
+        } catch (DataIntegrityViolationException e) {
+            if (TransactionAlreadyExistsException.isDuplicateReference(e)) {
                 throw new TransactionAlreadyExistsException(
                     "Transaction with reference " + transaction.getReference() + " already exists");
-            });
-
-        Transaction savedTransaction = transactionRepository.save(transaction);
+            }
+            throw e;
+        }
+        accountSummaryService.applyDeltas(Map.of(savedTransaction.getAccountNumber(), new AccountDelta().add(savedTransaction)));
 
-        transactionByReferenceCache.put(savedTransaction.getReference(), savedTransaction);
+        TransactionView view = TransactionView.of(savedTransaction);
+        transactionStatsService.record(List.of(view), List.of());
+        transactionSearchService.record(List.of(view), List.of());
+        // Cache only once the row is committed, a rolled back insert must not stay readable,
+        // other nodes may hold a cached "not found" for the new reference
+        afterCommit(() -> cacheCreated(List.of(view)));
         return savedTransaction;
     }
 
+    /**
+     * 先逐条校验并去掉批内重复, 再用一次查询排除数据库里已存在的编号, 其余一次写入
+     * 查询和写入之间并发创建了同一编号时唯一索引拒绝整批写入: 事务回滚后重新查询已存在的编号再写一次,
+     * 这些编号标记为重复, 一条冲突的交易不会让整批失败; 每次重试至少少写一个编号
+     * 保存的是调用方交易的副本, 调用方的对象不会被修改
+     */
+    @Override
+    public BatchCreateResult createTransactions(List<Transaction> transactions) {
+        BatchItemResult[] validated = new BatchItemResult[transactions.size()];
+
+        // Validate each item and drop duplicates inside the batch itself
+        Map<String, Integer> candidates = new HashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            if (transaction == null) {
+                validated[i] = BatchItemResult.invalid(i, null, "Transaction cannot be null");
+                continue;
+            }
+            Set<ConstraintViolation<Transaction>> violations = validator.validate(transaction);
+            if (!violations.isEmpty()) {
+                validated[i] = BatchItemResult.invalid(i, transaction.getReference(), describe(violations));
+                continue;
+            }
+            if (candidates.putIfAbsent(transaction.getReference(), i) != null) {
+                validated[i] = BatchItemResult.duplicate(i, transaction.getReference());
+            }
+        }
+
+        // Inside an outer transaction a failed insert has already doomed it, there is nothing to retry in
+        boolean retry = !TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> insertBatch(transactions, validated.clone(), candidates));
+            } catch (DataIntegrityViolationException e) {
+                if (!retry || !TransactionAlreadyExistsException.isDuplicateReference(e)
+                    || attempt > candidates.size()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private BatchCreateResult insertBatch(List<Transaction> transactions, BatchItemResult[] results,
+                                          Map<String, Integer> candidates) {
+        // Check all remaining references against the database in one query
+        Set<String> existingReferences = candidates.isEmpty()
+            ? Set.of() : transactionRepository.findExistingReferences(candidates.keySet());
+
+        List<Integer> indexes = new ArrayList<>();
+        List<Transaction> toSave = new ArrayList<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            Transaction transaction = transactions.get(i);
+            if (existingReferences.contains(transaction.getReference())) {
+                results[i] = BatchItemResult.duplicate(i, transaction.getReference());
+                continue;
+            }
+            // A fresh copy without id: a client supplied id would turn persist into merge (extra select per row),
+            // and a rolled back attempt must not leave ids or timestamps on the objects of the next one
+            indexes.add(i);
+            toSave.add(new Transaction(null, transaction.getReference(), transaction.getAccountNumber(),
+                transaction.getAmount(), transaction.getType(), transaction.getDescription()));
+        }
+
+        // Flush so that a unique index violation surfaces here and not at commit
+        List<Transaction> savedTransactions = transactionRepository.saveAllAndFlush(toSave);
+        Map<String, AccountDelta> deltas = new HashMap<>();
+        savedTransactions.forEach(saved -> deltas.computeIfAbsent(saved.getAccountNumber(), k -> new AccountDelta()).add(saved));
+        accountSummaryService.applyDeltas(deltas);
+
+        List<TransactionView> views = new ArrayList<>(savedTransactions.size());
+        for (int i = 0; i < savedTransactions.size(); i++) {
+            Transaction savedTransaction = savedTransactions.get(i);
+            int index = indexes.get(i);
+            results[index] = BatchItemResult.created(index, savedTransaction.getReference(), savedTransaction.getId());
+            views.add(TransactionView.of(savedTransaction));
+        }
+        transactionStatsService.record(views, List.of());
+        transactionSearchService.record(views, List.of());
+        afterCommit(() -> cacheCreated(views));
+        return new BatchCreateResult(Arrays.asList(results));
+    }
+
+    /**
+     * 新建的交易提交后写入缓存: 丢弃"不存在"和提交前开始的加载(可能已读到不存在), 再通知其他节点
+     */
+    private void cacheCreated(List<TransactionView> views) {
+        List<String> references = views.stream().map(TransactionView::reference).toList();
+        references.forEach(inFlightLoads::remove);
+        transactionNotFoundCache.invalidateAll(references);
+        views.forEach(this::cache);
+        cacheInvalidationBroadcaster.broadcast(references);
+    }
+
+    static String describe(Set<ConstraintViolation<Transaction>> violations) {
+        return violations.stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+
     @Override
-    public Transaction getTransactionByReference(String reference) {
-        Transaction cachedData = (Transaction) transactionByReferenceCache.getIfPresent(reference);
+    public TransactionView getTransactionByReference(String reference) {
+        TransactionView cachedData = transactionCacheCodec.decode(reference, transactionByReferenceCache.getIfPresent(reference));
         if (cachedData != null) {
             return cachedData;
         }
+        // Submitted for asynchronous ingestion but not committed yet, a cached "not found" may predate the submit
+        TransactionView pending = pendingTransactions.get(reference);
+        if (pending != null) {
+            return pending;
+        }
+        if (transactionNotFoundCache.getIfPresent(reference) != null) {
+            throw notFound(reference);
+        }
 
-        Transaction transaction = transactionRepository.findByReference(reference)
-            .orElseThrow(() -> new TransactionNotFoundException("Transaction with reference " + reference + " not found"));
-        transactionByReferenceCache.put(reference, transaction);
-        return transaction;
+        // Concurrent misses on the same reference wait for a single database load
+        CompletableFuture<TransactionView> load = new CompletableFuture<>();
+        CompletableFuture<TransactionView> inFlight = inFlightLoads.putIfAbsent(reference, load);
+        if (inFlight != null) {
+            return awaitLoad(inFlight);
+        }
+        try {
+            TransactionView transaction = loadTransaction(reference, load);
+            load.complete(transaction);
+            return transaction;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(reference, load);
+        }
+    }
+
+    private TransactionView loadTransaction(String reference, CompletableFuture<TransactionView> load) {
+        // A load that finished just before this one was registered has already cached its answer,
+        // asMap().get does not record stats so the miss is not counted twice
+        TransactionView cachedData = transactionCacheCodec.decode(reference, transactionByReferenceCache.asMap().get(reference));
+        if (cachedData != null) {
+            return cachedData;
+        }
+        if (transactionNotFoundCache.getIfPresent(reference) != null) {
+            throw notFound(reference);
+        }
+        byte[] shared = sharedTransactionCache.get(reference);
+        // The result is cached, so it must not come from a lagging replica
+        Optional<TransactionView> transaction = shared != null
+            ? Optional.of(transactionCacheCodec.fromBytes(reference, shared))
+            : ReplicaRoutingDataSource.onPrimary(() -> transactionRepository.findViewByReference(reference));
+
+        // An update or delete that evicted the reference while the query ran, here or on another node,
+        // drops this load from inFlightLoads, the possibly stale result is then returned to the callers but not cached
+        inFlightLoads.computeIfPresent(reference, (k, current) -> {
+            if (current == load) {
+                if (transaction.isPresent()) {
+                    cache(transaction.get());
+                } else {
+                    transactionNotFoundCache.put(reference, Boolean.TRUE);
+                }
+            }
+            return current;
+        });
+        if (shared == null && transaction.isPresent() && inFlightLoads.get(reference) == load) {
+            share(transaction.get());
+        }
+        return transaction.orElseThrow(() -> notFound(reference));
+    }
+
+    private static TransactionView awaitLoad(CompletableFuture<TransactionView> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void evict(String reference) {
+        inFlightLoads.remove(reference);
+        transactionByReferenceCache.invalidate(reference);
+    }
+
+    /**
+     * 按版本号写入缓存: 只有比缓存中更新的版本才会替换, 慢的读取不会用旧版本覆盖更新后写入的新版本
+     */
+    private void cache(TransactionView transaction) {
+        long version = transaction.version() == null ? -1 : transaction.version();
+        transactionByReferenceCache.asMap().compute(transaction.reference(), (reference, current) ->
+            current == null || transactionCacheCodec.version(reference, current) < version
+                ? transactionCacheCodec.encode(transaction)
+                : current);
+    }
+
+    /**
+     * 写入共享缓存, 版本不比L2中的新时L2保持不变; 编码放不下的交易从L2失效
+     */
+    private void share(TransactionView transaction) {
+        byte[] value = transactionCacheCodec.toBytes(transaction);
+        if (value != null) {
+            sharedTransactionCache.put(transaction.reference(), transaction.version() == null ? -1 : transaction.version(), value);
+        } else {
+            sharedTransactionCache.invalidate(List.of(transaction.reference()));
+        }
+    }
+
+    /**
+     * 其他节点提交了这些编号的创建、修改或删除: 丢弃本节点缓存的值和"不存在", 进行中的加载不再写入缓存
+     */
+    private void evictRemote(List<String> references) {
+        references.forEach(inFlightLoads::remove);
+        transactionByReferenceCache.invalidateAll(references);
+        transactionNotFoundCache.invalidateAll(references);
+    }
+
+    /**
+     * 在当前事务提交后执行, 回滚时不执行; 没有事务时立即执行
+     * 提交前失效缓存不够: 提交前开始的读取仍会读到旧版本, 提交后再失效一次并移除进行中的加载
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    static TransactionNotFoundException notFound(String reference) {
+        return new TransactionNotFoundException("Transaction with reference " + reference + " not found");
     }
 
     @Override
-    public Page<Transaction> getAllTransactions(Pageable pageable) {
-        return transactionRepository.findAll(pageable);
+    public Page<TransactionView> getAllTransactions(Pageable pageable) {
+        return transactionRepository.findAllViews(pageable);
+    }
+
+    @Override
+    public CursorPage<TransactionView> getTransactions(String cursor, int size) {
+        long before = cursor == null ? Long.MAX_VALUE : TransactionCursor.decode(cursor).id();
+
+        // Fetch one extra row to know whether there is a next page without counting
+        List<TransactionView> transactions = transactionRepository.findByIdBefore(before, PageRequest.of(0, size + 1));
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            nextCursor = TransactionCursor.ofId(transactions.get(size - 1).id()).encode();
+        }
+        return new CursorPage<>(transactions, size, nextCursor);
+    }
+
+    @Override
+    public CursorPage<TransactionView> getAccountTransactions(String accountNumber, TransactionType type,
+                                                              LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        TransactionCursor position = cursor != null
+            ? TransactionCursor.decode(cursor)
+            : new TransactionCursor(to != null ? to : LATEST, Long.MIN_VALUE);
+        if (position.createdAt() == null) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+
+        List<TransactionView> transactions = transactionRepository.findAccountHistory(accountNumber, type,
+            from != null ? from : EARLIEST, position.createdAt(), position.id(), PageRequest.of(0, size + 1));
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            TransactionView last = transactions.get(size - 1);
+            nextCursor = new TransactionCursor(last.createdAt(), last.id()).encode();
+        }
+        return new CursorPage<>(transactions, size, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTransactions(Consumer<TransactionView> consumer) {
+        try (Stream<TransactionView> transactions = transactionRepository.streamAllOrderById()) {
+            transactions.forEach(consumer);
+        }
     }
 
     @Override
-    @Transactional
     public Transaction updateTransaction(String reference, Transaction transactionDetails) {
+        return updateTransaction(reference, transactionDetails, List.of());
+    }
+
+    /**
+     * 每次尝试是一个独立的事务: 读取交易, 比较If-Match, 写入时由版本号检查期间是否被其他事务修改;
+     * 冲突时事务回滚, 账户汇总、统计和缓存都在提交后才生效, 重新读取最新版本再试一次
+     * 在外层事务中调用时会加入外层事务, 冲突直接抛出, 不会重试
+     */
+    @Override
+    public Transaction updateTransaction(String reference, Transaction transactionDetails, List<String> ifMatch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> applyUpdate(reference, transactionDetails, ifMatch));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= updateRetryProperties.getMaxAttempts()) {
+                    throw new ConcurrentUpdateException("Transaction with reference: " + reference
+                        + " was modified concurrently " + attempt + " times in a row, retry later");
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private Transaction applyUpdate(String reference, Transaction transactionDetails, List<String> ifMatch) {
         Transaction existingTransaction = transactionRepository.findByReference(reference)
             .orElseThrow(() -> new TransactionNotFoundException("Transaction with reference: " + reference + " not found"));
+        String etag = TransactionView.etag(existingTransaction.getId(), existingTransaction.getVersion());
+        if (!ifMatch.isEmpty() && !ifMatch.contains("*") && !ifMatch.contains(etag)) {
+            throw new PreconditionFailedException("Transaction with reference: " + reference
+                + " has been modified, current ETag is " + etag);
+        }
+
+        // Take back the old amount/type from the old account before applying the new values
+        Map<String, AccountDelta> deltas = new HashMap<>();
+        deltas.computeIfAbsent(existingTransaction.getAccountNumber(), k -> new AccountDelta()).remove(existingTransaction);
+        TransactionView previous = TransactionView.of(existingTransaction);
 
         existingTransaction.setAccountNumber(transactionDetails.getAccountNumber());
         existingTransaction.setAmount(transactionDetails.getAmount());
         existingTransaction.setType(transactionDetails.getType());
         existingTransaction.setDescription(transactionDetails.getDescription());
 
-        transactionByReferenceCache.invalidate(reference);
+        evict(reference);
 
-        Transaction savedTransaction = transactionRepository.save(existingTransaction);
+        // Flush now so that a version conflict surfaces before any other side effect
+        Transaction savedTransaction = transactionRepository.saveAndFlush(existingTransaction);
+        deltas.computeIfAbsent(savedTransaction.getAccountNumber(), k -> new AccountDelta()).add(savedTransaction);
+        accountSummaryService.applyDeltas(deltas);
+        TransactionView updated = TransactionView.of(savedTransaction);
+        transactionStatsService.record(List.of(updated), List.of(previous));
+        transactionSearchService.record(List.of(updated), List.of(previous));
 
-        transactionByReferenceCache.invalidate(reference);
+        afterCommit(() -> {
+            inFlightLoads.remove(reference);
+            cache(updated);
+            share(updated);
+            cacheInvalidationBroadcaster.broadcast(List.of(reference));
+        });
         return savedTransaction;
     }
 
+    /**
+     * 指数退避加随机抖动, 避免冲突的请求同时重试再次冲突
+     */
+    private void backoff(int attempt) {
+        long ceiling = Math.min(updateRetryProperties.getMaxBackoff().toNanos(),
+            updateRetryProperties.getInitialBackoff().toNanos() << Math.min(attempt - 1, 20));
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Interrupted while retrying the update, retry later");
+        }
+    }
+
     @Override
+    @Transactional
     public void deleteTransaction(Long id) {
         Transaction transaction = transactionRepository.findById(id)
             .orElseThrow(() -> new TransactionNotFoundException("Transaction not found with id: " + id));
         transactionRepository.deleteById(id);
-        transactionByReferenceCache.invalidate(transaction.getReference());
+        accountSummaryService.applyDeltas(Map.of(transaction.getAccountNumber(), new AccountDelta().remove(transaction)));
+        TransactionView deleted = TransactionView.of(transaction);
+        transactionStatsService.record(List.of(), List.of(deleted));
+        transactionSearchService.record(List.of(), List.of(deleted));
+        evict(transaction.getReference());
+        afterCommit(() -> {
+            evict(transaction.getReference());
+            sharedTransactionCache.invalidate(List.of(transaction.getReference()));
+            cacheInvalidationBroadcaster.broadcast(List.of(transaction.getReference()));
+        });
+    }
+
+    @Override
+    @Transactional
+    public BulkChunk deleteTransactions(TransactionCriteria criteria, TransactionCursor after, int limit) {
+        List<Long> ids = transactionRepository.findMatchingIds(criteria, after == null ? null : after.id(), limit);
+        List<TransactionView> transactions = ids.isEmpty() ? List.of() : transactionRepository.lockMatching(criteria, ids);
+        if (transactions.isEmpty()) {
+            return new BulkChunk(0, next(ids, limit));
+        }
+        int affected = transactionRepository.deleteByIds(transactions.stream().map(TransactionView::id).toList());
+
+        Map<String, AccountDelta> deltas = new HashMap<>();
+        transactions.forEach(transaction -> deltas.computeIfAbsent(transaction.accountNumber(), k -> new AccountDelta())
+            .apply(transaction.type(), transaction.amount(), -1));
+        accountSummaryService.applyDeltas(deltas);
+        transactionStatsService.record(List.of(), transactions);
+        transactionSearchService.record(List.of(), transactions);
+        evictAll(transactions);
+        return new BulkChunk(affected, next(ids, limit));
+    }
+
+    @Override
+    @Transactional
+    public BulkChunk updateTransactions(TransactionCriteria criteria, BulkUpdate update, TransactionCursor after, int limit) {
+        List<Long> ids = transactionRepository.findMatchingIds(criteria, after == null ? null : after.id(), limit);
+        List<TransactionView> transactions = ids.isEmpty() ? List.of() : transactionRepository.lockMatching(criteria, ids);
+        if (transactions.isEmpty()) {
+            return new BulkChunk(0, next(ids, limit));
+        }
+        LocalDateTime updatedAt = Transaction.now();
+        int affected = transactionRepository.updateByIds(transactions.stream().map(TransactionView::id).toList(),
+            update, updatedAt);
+
+        List<TransactionView> updated = new ArrayList<>(transactions.size());
+        for (TransactionView transaction : transactions) {
+            updated.add(new TransactionView(transaction.id(), transaction.reference(), transaction.accountNumber(),
+                transaction.amount(), update.type() != null ? update.type() : transaction.type(),
+                update.description() != null ? update.description() : transaction.description(),
+                transaction.createdAt(), updatedAt, transaction.version() + 1));
+        }
+        // Only the type feeds the account summaries and the stats, the amount and account never change here
+        if (update.type() != null) {
+            Map<String, AccountDelta> deltas = new HashMap<>();
+            for (TransactionView transaction : transactions) {
+                deltas.computeIfAbsent(transaction.accountNumber(), k -> new AccountDelta())
+                    .apply(transaction.type(), transaction.amount(), -1)
+                    .apply(update.type(), transaction.amount(), 1);
+            }
+            accountSummaryService.applyDeltas(deltas);
+            transactionStatsService.record(updated, transactions);
+        }
+        transactionSearchService.record(updated, transactions);
+        evictAll(transactions);
+        return new BulkChunk(affected, next(ids, limit));
+    }
+
+    /**
+     * 下一块从本块取到的最后一个id之后开始, 不满一块说明没有更多匹配的交易
+     * 取到但锁定时已不再匹配的行同样跳过
+     */
+    private static TransactionCursor next(List<Long> ids, int limit) {
+        return ids.size() < limit ? null : TransactionCursor.ofId(ids.get(ids.size() - 1));
+    }
+
+    private void evictAll(List<TransactionView> transactions) {
+        List<String> references = transactions.stream().map(TransactionView::reference).toList();
+        Runnable evict = () -> {
+            references.forEach(inFlightLoads::remove);
+            transactionByReferenceCache.invalidateAll(references);
+        };
+        evict.run();
+        afterCommit(() -> {
+            evict.run();
+            sharedTransactionCache.invalidate(references);
+            cacheInvalidationBroadcaster.broadcast(references);
+        });
     }
 }
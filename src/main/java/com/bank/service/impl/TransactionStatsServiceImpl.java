@@ -0,0 +1,171 @@
+package com.bank.service.impl;
+
+import com.bank.config.StatsProperties;
+import com.bank.dto.TransactionStats;
+import com.bank.dto.TransactionView;
+import com.bank.exception.InvalidStatsWindowException;
+import com.bank.model.TransactionType;
+import com.bank.repository.ShardRouter;
+import com.bank.repository.TransactionRepository;
+import com.bank.service.TransactionStatsService;
+import com.bank.service.WindowedAggregates;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class TransactionStatsServiceImpl implements TransactionStatsService {
+
+    private final TransactionRepository transactionRepository;
+
+    private final StatsProperties properties;
+
+    private final ShardRouter shardRouter;
+
+    private final Clock clock;
+
+    private final WindowedAggregates aggregates;
+
+    @Autowired
+    public TransactionStatsServiceImpl(TransactionRepository transactionRepository, StatsProperties properties,
+                                       ShardRouter shardRouter) {
+        this(transactionRepository, properties, shardRouter, Clock.systemDefaultZone());
+    }
+
+    public TransactionStatsServiceImpl(TransactionRepository transactionRepository, StatsProperties properties,
+                                       ShardRouter shardRouter, Clock clock) {
+        this.transactionRepository = transactionRepository;
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+        this.clock = clock;
+        this.aggregates = new WindowedAggregates(properties.getBucketWidth(), properties.getRetention(),
+            properties.getAccountsPerBucket());
+    }
+
+    @Override
+    public void record(List<TransactionView> added, List<TransactionView> removed) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(added, removed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(added, removed);
+            }
+        });
+    }
+
+    private void apply(List<TransactionView> added, List<TransactionView> removed) {
+        removed.forEach(transaction -> add(transaction, -1));
+        added.forEach(transaction -> add(transaction, 1));
+    }
+
+    private void add(TransactionView transaction, int sign) {
+        LocalDateTime createdAt = transaction.createdAt() != null ? transaction.createdAt() : LocalDateTime.now(clock);
+        aggregates.add(createdAt.atZone(clock.getZone()).toInstant().toEpochMilli(), transaction.accountNumber(),
+            transaction.type(), toCents(transaction.amount()), sign);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    @Override
+    public TransactionStats getStats(List<Duration> windows) {
+        List<Duration> requested = windows == null || windows.isEmpty() ? properties.getWindows() : windows;
+        for (Duration window : requested) {
+            if (window.isNegative() || window.isZero() || window.compareTo(aggregates.getRetention()) > 0) {
+                throw new InvalidStatsWindowException("Window " + label(window) + " must be positive and at most "
+                    + label(aggregates.getRetention()));
+            }
+        }
+
+        long now = clock.millis();
+        List<TransactionStats.Window> results = new ArrayList<>(requested.size());
+        for (Duration window : requested) {
+            WindowedAggregates.Snapshot snapshot = aggregates.sum(now, window, properties.getTopAccounts());
+            Map<TransactionType, TransactionStats.Totals> byType = new EnumMap<>(TransactionType.class);
+            long count = 0;
+            long amountCents = 0;
+            for (TransactionType type : TransactionType.values()) {
+                byType.put(type, new TransactionStats.Totals(snapshot.count(type), toAmount(snapshot.amountCents(type))));
+                count += snapshot.count(type);
+                amountCents += snapshot.amountCents(type);
+            }
+            List<TransactionStats.AccountTotals> topAccounts = snapshot.topAccounts().stream()
+                .map(account -> new TransactionStats.AccountTotals(account.accountNumber(), account.count(),
+                    toAmount(account.amountCents())))
+                .toList();
+            results.add(new TransactionStats.Window(label(window), count, toAmount(amountCents), byType, topAccounts));
+        }
+        return new TransactionStats(LocalDateTime.now(clock), aggregates.getBucketWidth().toSeconds(), results);
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * 1m / 5m / 1h 这样的短格式, 不能整除时用ISO-8601
+     */
+    private static String label(Duration duration) {
+        long seconds = duration.toSeconds();
+        if (duration.toMillis() % 1000 != 0 || seconds == 0) {
+            return duration.toString();
+        }
+        if (seconds % 3600 == 0) {
+            return seconds / 3600 + "h";
+        }
+        if (seconds % 60 == 0) {
+            return seconds / 60 + "m";
+        }
+        return seconds + "s";
+    }
+
+    /**
+     * 只在启动时(就绪之前)执行: 重建过程中提交的写入可能被重复计入
+     * created_at <= updated_at, 按 updated_at 过滤可以走索引 idx_transactions_updated
+     * 分片时逐个分片在只读事务中流式读取
+     */
+    @Override
+    public long rebuild() {
+        long start = System.nanoTime();
+        LocalDateTime until = LocalDateTime.now(clock);
+        LocalDateTime since = until.minus(aggregates.getRetention());
+        aggregates.clear();
+        AtomicLong rows = new AtomicLong();
+        for (int shard = 0; shard < shardRouter.shards(); shard++) {
+            shardRouter.read(shard, () -> {
+                try (Stream<TransactionView> transactions = transactionRepository.streamCreatedBetween(since, until)) {
+                    transactions.forEach(transaction -> {
+                        add(transaction, 1);
+                        rows.incrementAndGet();
+                    });
+                }
+                return null;
+            });
+        }
+        log.info("Rebuilt transaction stats from {} transactions created since {} in {} ms", rows.get(), since,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return rows.get();
+    }
+}
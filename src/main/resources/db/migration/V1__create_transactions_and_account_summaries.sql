@@ -0,0 +1,32 @@
+-- Increment matches the allocationSize of Transaction so one sequence call covers a JDBC batch
+create sequence transactions_seq start with 1 increment by 50;
+
+create table transactions (
+    id             bigint         not null,
+    reference      varchar(255)   not null,
+    account_number varchar(255)   not null,
+    amount         numeric(38, 2) not null,
+    type           varchar(255)   not null check (type in ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER', 'PAYMENT')),
+    description    varchar(255),
+    created_at     timestamp(6)   not null,
+    updated_at     timestamp(6)   not null,
+    primary key (id),
+    constraint uk_transactions_reference unique (reference)
+);
+
+-- Account history: range scan newest first within one account
+create index idx_transactions_account_created on transactions (account_number, created_at desc, id desc);
+
+-- Cache warm-up on startup reads the most recently updated transactions
+create index idx_transactions_updated on transactions (updated_at desc, id desc);
+
+create table account_summaries (
+    account_number   varchar(255)   not null,
+    balance          numeric(38, 2) not null,
+    deposit_count    bigint         not null,
+    withdrawal_count bigint         not null,
+    transfer_count   bigint         not null,
+    payment_count    bigint         not null,
+    updated_at       timestamp(6)   not null,
+    primary key (account_number)
+);
@@ -0,0 +1,2 @@
+-- Optimistic locking: every update checks and increments the version of the row it read
+alter table transactions add column version bigint default 0 not null;
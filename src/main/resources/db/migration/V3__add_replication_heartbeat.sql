@@ -0,0 +1,7 @@
+-- Replication lag probe: the primary stores the current time here, replicas show how old their copy of the row is
+create table replication_heartbeat (
+    id   int    not null primary key,
+    beat bigint not null
+);
+
+insert into replication_heartbeat (id, beat) values (1, 0);
@@ -0,0 +1,129 @@
+package com.bank.benchmark;
+
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionView;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.service.TransactionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 账户交易历史查询在有无组合索引 (account_number, created_at, id) 时的耗时对比
+ * mvn test -Pbenchmark -Dtest=AccountHistoryBenchmarkTest [-Dbench.rows=2000000 -Dbench.accounts=20000]
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:accounthistorybench",
+    "spring.jpa.show-sql=false",
+    "logging.level.com.bank=INFO"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+public class AccountHistoryBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 2_000_000);
+
+    private static final int ACCOUNTS = Integer.getInteger("bench.accounts", 20_000);
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int INDEXED_QUERIES = 2_000;
+
+    private static final int UNINDEXED_QUERIES = 20;
+
+    private static final LocalDateTime START = LocalDateTime.now().minusYears(1);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(7);
+
+    @BeforeAll
+    void seed() {
+        String sql = "insert into transactions (id, reference, account_number, amount, type, description, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+        TransactionType[] types = TransactionType.values();
+        long yearSeconds = 365L * 24 * 3600;
+        List<Object[]> rows = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        for (long id = 1; id <= ROWS; id++) {
+            Timestamp createdAt = Timestamp.valueOf(START.plusSeconds(id * yearSeconds / ROWS));
+            rows.add(new Object[]{id, "HIST-BENCH-" + id, account(random.nextInt(ACCOUNTS)), 100,
+                types[(int) (id % types.length)].name(), "seed", createdAt, createdAt});
+            if (rows.size() == 10_000) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+        log.info("Seeded {} rows across {} accounts in {} ms", ROWS, ACCOUNTS, System.currentTimeMillis() - start);
+    }
+
+    @Test
+    void compareAccountHistoryWithAndWithoutIndex() {
+        log.info("Plan: {}", jdbcTemplate.queryForObject("explain select * from transactions where account_number = 'ACC-1' "
+            + "and created_at >= timestamp '1970-01-01 00:00:00' order by created_at desc, id desc limit 21", String.class).replaceAll("\\s+", " "));
+
+        double firstPage = measure(INDEXED_QUERIES, null, null);
+        double filtered = measure(INDEXED_QUERIES, TransactionType.PAYMENT, START.plusMonths(6));
+        double nextPage = measureSecondPage(INDEXED_QUERIES);
+
+        jdbcTemplate.execute("drop index idx_transactions_account_created");
+        double firstPageNoIndex = measure(UNINDEXED_QUERIES, null, null);
+
+        log.info("=== Account History Benchmark ({} rows, {} accounts, page size {}) ===", ROWS, ACCOUNTS, PAGE_SIZE);
+        log.info("first page:                       {} ms", String.format("%.3f", firstPage));
+        log.info("first page, type + date filters:  {} ms", String.format("%.3f", filtered));
+        log.info("second page (cursor):             {} ms", String.format("%.3f", nextPage));
+        log.info("first page without the index:     {} ms", String.format("%.3f", firstPageNoIndex));
+        log.info("==========================================");
+    }
+
+    private double measure(int queries, TransactionType type, LocalDateTime from) {
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            CursorPage<TransactionView> page = transactionService.getAccountTransactions(
+                account(random.nextInt(ACCOUNTS)), type, from, null, null, PAGE_SIZE);
+            if (type == null && from == null) {
+                assertFalse(page.getContent().isEmpty());
+            }
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / queries;
+    }
+
+    private double measureSecondPage(int queries) {
+        long total = 0;
+        for (int i = 0; i < queries; i++) {
+            String account = account(random.nextInt(ACCOUNTS));
+            String cursor = transactionService.getAccountTransactions(account, null, null, null, null, PAGE_SIZE).getNextCursor();
+            long start = System.nanoTime();
+            transactionService.getAccountTransactions(account, null, null, null, cursor, PAGE_SIZE);
+            total += System.nanoTime() - start;
+        }
+        return total / 1_000_000.0 / queries;
+    }
+
+    private static String account(int index) {
+        return "ACC-" + index;
+    }
+}
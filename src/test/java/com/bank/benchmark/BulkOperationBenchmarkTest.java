@@ -0,0 +1,131 @@
+package com.bank.benchmark;
+
+import com.bank.config.BulkProperties;
+import com.bank.dto.BulkResult;
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.TransactionCriteria;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.service.TransactionBulkService;
+import com.bank.service.TransactionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 逐条调用删除/更新接口与按条件分块批量执行的耗时对比, 以及分块大小的影响
+ * mvn test -Pbenchmark -Dtest=BulkOperationBenchmarkTest [-Dbench.rowsPerAccount=20000]
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:bulkbench",
+    "spring.jpa.show-sql=false",
+    "bank.stats.rebuild-on-startup=false",
+    "logging.level.com.bank=INFO"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+public class BulkOperationBenchmarkTest {
+
+    private static final int ROWS_PER_ACCOUNT = Integer.getInteger("bench.rowsPerAccount", 20_000);
+
+    private static final int ACCOUNTS = 8;
+
+    private static final int[] CHUNK_SIZES = {100, 1_000, 10_000};
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionBulkService transactionBulkService;
+
+    @Autowired
+    private BulkProperties bulkProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        String sql = "insert into transactions (id, reference, account_number, amount, type, description, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now().minusDays(1));
+        List<Object[]> rows = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        for (long id = 1; id <= (long) ROWS_PER_ACCOUNT * ACCOUNTS; id++) {
+            rows.add(new Object[]{id, reference(id), account(id), 100, TransactionType.PAYMENT.name(), "seed",
+                createdAt, createdAt});
+            if (rows.size() == 10_000) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+        log.info("Seeded {} rows across {} accounts in {} ms", ROWS_PER_ACCOUNT * ACCOUNTS, ACCOUNTS,
+            System.currentTimeMillis() - start);
+    }
+
+    @Test
+    void compareRowByRowAndBulk() {
+        long rowDelete = perRow(0, id -> transactionService.deleteTransaction(id));
+        long rowUpdate = perRow(1, id -> transactionService.updateTransaction(reference(id),
+            new Transaction(null, reference(id), account(id), new BigDecimal("100"), TransactionType.TRANSFER, "corrected")));
+
+        List<String> lines = new ArrayList<>();
+        int account = 2;
+        for (int chunkSize : CHUNK_SIZES) {
+            bulkProperties.setChunkSize(chunkSize);
+            lines.add(line("bulk update, chunk " + chunkSize, transactionBulkService.updateTransactions(
+                criteria(account++), new BulkUpdate("corrected", TransactionType.TRANSFER))));
+            lines.add(line("bulk delete, chunk " + chunkSize, transactionBulkService.deleteTransactions(criteria(account++))));
+        }
+
+        log.info("=== Bulk Operation Benchmark ({} rows per operation) ===", ROWS_PER_ACCOUNT);
+        log.info("row by row update (PUT per reference): {} ms", rowUpdate);
+        log.info("row by row delete (DELETE per id):     {} ms", rowDelete);
+        lines.forEach(log::info);
+        log.info("==========================================");
+    }
+
+    private long perRow(int account, LongConsumer operation) {
+        long start = System.nanoTime();
+        for (long id = account + 1; id <= (long) ROWS_PER_ACCOUNT * ACCOUNTS; id += ACCOUNTS) {
+            operation.accept(id);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static String line(String name, BulkResult result) {
+        assertEquals(ROWS_PER_ACCOUNT, result.affected());
+        return String.format("%-38s %d ms in %d chunks (%.1f ms per chunk)", name + ":", result.elapsedMs(),
+            result.chunks(), (double) result.elapsedMs() / result.chunks());
+    }
+
+    private static TransactionCriteria criteria(int account) {
+        return new TransactionCriteria("BULK-ACC-" + account, null, null, null, null);
+    }
+
+    private static String account(long id) {
+        return "BULK-ACC-" + (id - 1) % ACCOUNTS;
+    }
+
+    private static String reference(long id) {
+        return "BULK-BENCH-" + id;
+    }
+}
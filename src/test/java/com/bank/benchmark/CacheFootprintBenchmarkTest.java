@@ -0,0 +1,139 @@
+package com.bank.benchmark;
+
+import com.bank.config.CacheConfig;
+import com.bank.config.TransactionCacheCodec;
+import com.bank.config.TransactionCacheProperties;
+import com.bank.dto.TransactionView;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.repository.ShardRouter;
+import com.bank.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 同样条数的交易分别以对象和紧凑编码放进缓存, 对比每条占用的堆内存、每GB可容纳的条数,
+ * 以及缓存常驻时的Full GC停顿和业务流量下的Young GC停顿
+ * mvn test -Pbenchmark -Dtest=CacheFootprintBenchmarkTest [-Dbench.entries=1000000]
+ */
+@Tag("benchmark")
+@Slf4j
+public class CacheFootprintBenchmarkTest {
+
+    private static final int ENTRIES = Integer.getInteger("bench.entries", 1_000_000);
+
+    private static final int LOOKUPS = 5_000_000;
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void compareObjectAndCompactCache() {
+        Footprint object = measure(TransactionCacheProperties.Encoding.OBJECT);
+        Footprint compact = measure(TransactionCacheProperties.Encoding.COMPACT);
+
+        log.info("=== Cache Footprint Benchmark ({} entries, key + value + cache node) ===", ENTRIES);
+        log.info("OBJECT:  {} bytes/entry, {} entries/GB, full GC {} ms, young GC {} pauses / {} ms, lookups {} ms",
+            object.bytesPerEntry, object.entriesPerGb(), object.fullGcMillis, object.youngGcCount, object.youngGcMillis,
+            object.lookupMillis);
+        log.info("COMPACT: {} bytes/entry, {} entries/GB, full GC {} ms, young GC {} pauses / {} ms, lookups {} ms",
+            compact.bytesPerEntry, compact.entriesPerGb(), compact.fullGcMillis, compact.youngGcCount, compact.youngGcMillis,
+            compact.lookupMillis);
+        log.info("==========================================");
+        assertTrue(compact.bytesPerEntry < object.bytesPerEntry);
+    }
+
+    private Footprint measure(TransactionCacheProperties.Encoding encoding) {
+        TransactionCacheProperties properties = new TransactionCacheProperties();
+        properties.setMaximumSize(ENTRIES);
+        properties.setEncoding(encoding);
+        CacheConfig cacheConfig = new CacheConfig();
+        TransactionCacheCodec codec = cacheConfig.transactionCacheCodec(properties);
+        long before = usedHeapAfterGc();
+        Cache<String, Object> cache = cacheConfig.transactionByReferenceCache(properties, mock(TransactionRepository.class), ShardRouter.single(null));
+        for (int i = 0; i < ENTRIES; i++) {
+            Transaction transaction = transaction(i);
+            cache.put(transaction.getReference(), codec.encode(TransactionView.of(transaction)));
+        }
+        cache.cleanUp();
+        long bytesPerEntry = (usedHeapAfterGc() - before) / ENTRIES;
+
+        // Full GC has to trace every cached object
+        long fullGcStart = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        long fullGcMillis = (System.nanoTime() - fullGcStart) / 3_000_000;
+
+        // Read traffic: each hit decodes (COMPACT) or returns the shared object (OBJECT)
+        long[] youngBefore = youngGc();
+        Random random = new Random(42);
+        long checksum = 0;
+        long lookupStart = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            String reference = reference(random.nextInt(ENTRIES));
+            checksum += codec.decode(reference, cache.getIfPresent(reference)).amount().scale();
+        }
+        long lookupMillis = (System.nanoTime() - lookupStart) / 1_000_000;
+        long[] youngAfter = youngGc();
+        assertTrue(checksum > 0);
+        assertTrue(cache.estimatedSize() == ENTRIES);
+
+        return new Footprint(bytesPerEntry, fullGcMillis, youngAfter[0] - youngBefore[0],
+            youngAfter[1] - youngBefore[1], lookupMillis);
+    }
+
+    private static Transaction transaction(int i) {
+        Transaction transaction = new Transaction((long) i, reference(i), String.format("ACC-%08d", i % 100_000),
+            BigDecimal.valueOf(100 + i % 1_000_000, 2), TransactionType.values()[i % 4], "Card payment " + i);
+        transaction.setCreatedAt(START.plusSeconds(i).plusNanos(i % 1_000 * 1_000L));
+        transaction.setUpdatedAt(transaction.getCreatedAt());
+        return transaction;
+    }
+
+    private static String reference(int i) {
+        return "TXN-" + (1_000_000_000L + i);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 年轻代收集器的次数和累计耗时
+     */
+    private static long[] youngGc() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc.getName().contains("Young") || gc.getName().contains("Scavenge") || gc.getName().contains("Copy")) {
+                count += gc.getCollectionCount();
+                millis += gc.getCollectionTime();
+            }
+        }
+        return new long[]{count, millis};
+    }
+
+    private record Footprint(long bytesPerEntry, long fullGcMillis, long youngGcCount, long youngGcMillis,
+                             long lookupMillis) {
+
+        long entriesPerGb() {
+            return (1L << 30) / bytesPerEntry;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.bank.benchmark;
+
+import com.bank.config.CacheConfig;
+import com.bank.config.TransactionCacheProperties;
+import com.bank.repository.ShardRouter;
+import com.bank.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 回放"热点倾斜 + 周期性全量扫描"的访问序列, 对比原Guava LRU缓存和Caffeine W-TinyLFU缓存的命中率
+ * mvn test -Pbenchmark -Dtest=CacheHitRateBenchmarkTest
+ */
+@Tag("benchmark")
+@Slf4j
+public class CacheHitRateBenchmarkTest {
+
+    private static final int CACHE_SIZE = 500;
+
+    private static final int HOT_KEYS = 50_000;
+
+    private static final int ACCESSES = 1_000_000;
+
+    /**
+     * 每隔多少次热点访问插入一次报表扫描
+     */
+    private static final int SCAN_INTERVAL = 50_000;
+
+    private static final int SCAN_LENGTH = 5_000;
+
+    @Test
+    void compareHitRateOnSkewedTraceWithScans() {
+        com.google.common.cache.Cache<String, Object> guava = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build();
+        TransactionCacheProperties properties = new TransactionCacheProperties();
+        properties.setMaximumSize(CACHE_SIZE);
+        Cache<String, Object> caffeine = new CacheConfig()
+            .transactionByReferenceCache(properties, mock(TransactionRepository.class), ShardRouter.single(null));
+
+        HitRate guavaRate = replay(key -> guava.getIfPresent(key), key -> guava.put(key, key));
+        HitRate caffeineRate = replay(caffeine::getIfPresent, key -> caffeine.put(key, key));
+
+        log.info("=== Cache Hit Rate Benchmark (size {}, {} hot keys zipf 0.99, scan of {} every {}) ===",
+            CACHE_SIZE, HOT_KEYS, SCAN_LENGTH, SCAN_INTERVAL);
+        log.info("Guava LRU:           overall {}  hot keys {}", guavaRate.overall(), guavaRate.hot());
+        log.info("Caffeine W-TinyLFU:  overall {}  hot keys {}", caffeineRate.overall(), caffeineRate.hot());
+        log.info("==========================================");
+        assertTrue(caffeineRate.hotHits > guavaRate.hotHits);
+    }
+
+    private HitRate replay(Function<String, Object> get, Consumer<String> put) {
+        ZipfDistribution zipf = new ZipfDistribution(HOT_KEYS, 0.99, 42);
+        HitRate rate = new HitRate();
+        int scanId = 0;
+        for (int i = 1; i <= ACCESSES; i++) {
+            String key = "REF-" + zipf.next();
+            boolean hit = access(key, get, put);
+            rate.hotAccesses++;
+            rate.hotHits += hit ? 1 : 0;
+            if (i % SCAN_INTERVAL == 0) {
+                for (int j = 0; j < SCAN_LENGTH; j++) {
+                    rate.scanAccesses++;
+                    rate.scanHits += access("SCAN-" + scanId++, get, put) ? 1 : 0;
+                }
+            }
+        }
+        return rate;
+    }
+
+    private static boolean access(String key, Function<String, Object> get, Consumer<String> put) {
+        if (get.apply(key) != null) {
+            return true;
+        }
+        put.accept(key);
+        return false;
+    }
+
+    private static class HitRate {
+        long hotAccesses;
+        long hotHits;
+        long scanAccesses;
+        long scanHits;
+
+        String hot() {
+            return String.format("%.2f%%", 100.0 * hotHits / hotAccesses);
+        }
+
+        String overall() {
+            return String.format("%.2f%%", 100.0 * (hotHits + scanHits) / (hotAccesses + scanAccesses));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.bank.benchmark;
+
+import com.bank.BankApplication;
+import com.bank.config.CacheInvalidationBroadcaster;
+import com.bank.config.EmbeddedSharedTransactionCache;
+import com.bank.config.SharedTransactionCache;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.service.TransactionService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 两个节点(同一JVM里的两个应用上下文)共用数据库、内嵌L2和失效总线
+ * 失效窗口: 节点a逐条修改交易, 从修改返回到节点b读到新值的时间; 另由8个线程在a上突发修改, 统计合并后的消息数
+ * L2往返: 节点b按Zipf分布查询, 节点a同时以不同速率修改, 统计b的L1命中省下的L2往返和L2省下的查库
+ * mvn test -Pbenchmark -Dtest=CacheInvalidationBenchmarkTest
+ */
+@Tag("benchmark")
+@Slf4j
+public class CacheInvalidationBenchmarkTest {
+
+    private static final int HOT_REFERENCES = 200;
+
+    private static final int BURST_UPDATES = 4_000;
+
+    private static final int BURST_THREADS = 8;
+
+    private static final int[] BATCH_WINDOWS_MILLIS = {0, 5, 20, 50};
+
+    private static final int REFERENCES = 2_000;
+
+    private static final int LOOKUPS = 50_000;
+
+    private static final int[] UPDATE_RATES = {0, 50, 500};
+
+    private static final AtomicInteger RUNS = new AtomicInteger();
+
+    @Test
+    void measureStalenessAndSharedCacheRoundTrips() throws Exception {
+        List<String> staleness = new ArrayList<>();
+        for (int window : BATCH_WINDOWS_MILLIS) {
+            staleness.add(staleness(window));
+        }
+        List<String> roundTrips = new ArrayList<>();
+        for (int rate : UPDATE_RATES) {
+            roundTrips.add(roundTrips(rate));
+        }
+        roundTrips.add(coldNode());
+
+        log.info("=== Cache Invalidation Benchmark ({} CPUs) ===", Runtime.getRuntime().availableProcessors());
+        log.info("Staleness of node b after {} sequential updates on node a, then {} updates by {} threads over {} references:",
+            HOT_REFERENCES, BURST_UPDATES, BURST_THREADS, HOT_REFERENCES);
+        log.info("| Batch window | Stale p50 | Stale p99 | Stale max | Burst updates/s | References | Messages | Published |");
+        staleness.forEach(log::info);
+        log.info("{} Zipf lookups over {} references while node a updates them:", LOOKUPS, REFERENCES);
+        log.info("| Reader | Updates/s on a | L1 hits | L2 gets | L2 hits | Database loads | L2 round trips saved by L1 |");
+        roundTrips.forEach(log::info);
+        log.info("==========================================");
+    }
+
+    private String staleness(int windowMillis) throws Exception {
+        String cluster = "invalidation-bench-" + RUNS.incrementAndGet();
+        try (ConfigurableApplicationContext a = start(cluster, "a", windowMillis);
+             ConfigurableApplicationContext b = start(cluster, "b", windowMillis)) {
+            TransactionService writer = a.getBean(TransactionService.class);
+            TransactionService reader = b.getBean(TransactionService.class);
+            List<String> references = create(a, "IB-" + cluster + "-", HOT_REFERENCES, windowMillis);
+            references.forEach(reader::getTransactionByReference);
+
+            Histogram stale = new Histogram(TimeUnit.SECONDS.toNanos(10), 3);
+            for (int i = 0; i < references.size(); i++) {
+                String reference = references.get(i);
+                BigDecimal amount = BigDecimal.valueOf(100_000 + i, 2);
+                writer.updateTransaction(reference, transaction(reference, amount));
+                long updated = System.nanoTime();
+                while (reader.getTransactionByReference(reference).amount().compareTo(amount) != 0) {
+                    assertTrue(System.nanoTime() - updated < TimeUnit.SECONDS.toNanos(10), "node b never saw " + reference);
+                    LockSupport.parkNanos(20_000);
+                }
+                stale.recordValue(System.nanoTime() - updated);
+            }
+
+            CacheInvalidationBroadcaster broadcaster = a.getBean(CacheInvalidationBroadcaster.class);
+            long requested = broadcaster.getRequestedReferences();
+            long messages = broadcaster.getMessages();
+            long published = broadcaster.getPublishedReferences();
+            double seconds = burst(writer, references);
+            broadcaster.flush();
+            return String.format("| %d ms | %.2f ms | %.2f ms | %.2f ms | %.0f | %d | %d | %d |", windowMillis,
+                stale.getValueAtPercentile(50) / 1e6, stale.getValueAtPercentile(99) / 1e6, stale.getMaxValue() / 1e6,
+                BURST_UPDATES / seconds, broadcaster.getRequestedReferences() - requested,
+                broadcaster.getMessages() - messages, broadcaster.getPublishedReferences() - published);
+        }
+    }
+
+    private static double burst(TransactionService writer, List<String> references) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(BURST_THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < BURST_THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    while (next.getAndIncrement() < BURST_UPDATES) {
+                        String reference = references.get(ThreadLocalRandom.current().nextInt(references.size()));
+                        writer.updateTransaction(reference,
+                            transaction(reference, BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 100_000), 2)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            return (System.nanoTime() - start) / 1e9;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String roundTrips(int updatesPerSecond) throws Exception {
+        String cluster = "invalidation-bench-" + RUNS.incrementAndGet();
+        try (ConfigurableApplicationContext a = start(cluster, "a", 20);
+             ConfigurableApplicationContext b = start(cluster, "b", 20)) {
+            List<String> references = create(a, "IB-" + cluster + "-", REFERENCES, 20);
+            return "| b | " + lookups(a, b, references, updatesPerSecond);
+        }
+    }
+
+    /**
+     * 节点b查询过一遍之后新启动的节点c: L1是空的, L2里已有b加载的交易
+     */
+    private String coldNode() throws Exception {
+        String cluster = "invalidation-bench-" + RUNS.incrementAndGet();
+        try (ConfigurableApplicationContext a = start(cluster, "a", 20);
+             ConfigurableApplicationContext b = start(cluster, "b", 20)) {
+            List<String> references = create(a, "IB-" + cluster + "-", REFERENCES, 20);
+            lookups(a, b, references, 0);
+            try (ConfigurableApplicationContext c = start(cluster, "c", 20)) {
+                return "| c, started after b | " + lookups(a, c, references, 0);
+            }
+        }
+    }
+
+    private static String lookups(ConfigurableApplicationContext a, ConfigurableApplicationContext b, List<String> references,
+                                  int updatesPerSecond) throws Exception {
+        TransactionService writer = a.getBean(TransactionService.class);
+        TransactionService reader = b.getBean(TransactionService.class);
+        @SuppressWarnings("unchecked")
+        Cache<String, Object> l1 = (Cache<String, Object>) b.getBean("transactionByReferenceCache");
+        EmbeddedSharedTransactionCache l2 = (EmbeddedSharedTransactionCache) b.getBean(SharedTransactionCache.class);
+
+        AtomicBoolean reading = new AtomicBoolean(true);
+        ExecutorService updater = Executors.newSingleThreadExecutor();
+        try {
+            CacheStats l1Before = l1.stats();
+            long l2Hits = l2.getHits();
+            long l2Misses = l2.getMisses();
+            Future<?> updates = updater.submit(() -> {
+                ZipfDistribution hot = new ZipfDistribution(REFERENCES, 1.0, 7);
+                Random random = new Random(11);
+                long interval = updatesPerSecond == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / updatesPerSecond;
+                long next = System.nanoTime();
+                while (reading.get() && interval > 0) {
+                    String reference = references.get(hot.next(random));
+                    writer.updateTransaction(reference,
+                        transaction(reference, BigDecimal.valueOf(random.nextInt(1, 100_000), 2)));
+                    next += interval;
+                    LockSupport.parkNanos(next - System.nanoTime());
+                }
+                return null;
+            });
+            ZipfDistribution zipf = new ZipfDistribution(REFERENCES, 1.0, 3);
+            Random random = new Random(5);
+            for (int i = 0; i < LOOKUPS; i++) {
+                reader.getTransactionByReference(references.get(zipf.next(random)));
+            }
+            reading.set(false);
+            updates.get();
+
+            CacheStats l1Stats = l1.stats().minus(l1Before);
+            long hits = l2.getHits() - l2Hits;
+            long misses = l2.getMisses() - l2Misses;
+            return String.format("%d | %.1f%% | %d | %d | %d | %d of %d |", updatesPerSecond,
+                100.0 * l1Stats.hitCount() / LOOKUPS, hits + misses, hits, misses, l1Stats.hitCount(), LOOKUPS);
+        } finally {
+            updater.shutdownNow();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String cluster, String node, int windowMillis) {
+        return new SpringApplicationBuilder(BankApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:" + cluster + ";DB_CLOSE_DELAY=-1",
+                "--bank.stats.rebuild-on-startup=false",
+                "--bank.cache.cluster.node-id=" + node,
+                "--bank.cache.cluster.l2.enabled=true",
+                "--bank.cache.cluster.l2.name=" + cluster,
+                "--bank.cache.cluster.invalidation.enabled=true",
+                "--bank.cache.cluster.invalidation.channel=" + cluster,
+                "--bank.cache.cluster.invalidation.batch-window=" + windowMillis + "ms",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.bank=WARN",
+                "--logging.level.com.bank.benchmark=INFO");
+    }
+
+    /**
+     * 创建交易并等到创建的失效消息送达, 之后其他节点缓存的条目不会再被这条消息清掉
+     */
+    private static List<String> create(ConfigurableApplicationContext a, String prefix, int count, int windowMillis)
+        throws InterruptedException {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            transactions.add(transaction(prefix + i, BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 100_000), 2)));
+        }
+        a.getBean(TransactionService.class).createTransactions(transactions);
+        Thread.sleep(windowMillis + 200);
+        return transactions.stream().map(Transaction::getReference).toList();
+    }
+
+    private static Transaction transaction(String reference, BigDecimal amount) {
+        return new Transaction(null, reference, "IB-ACC", amount, TransactionType.DEPOSIT, "invalidation benchmark");
+    }
+}
@@ -0,0 +1,156 @@
+package com.bank.benchmark;
+
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.service.TransactionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * 轮询负载下普通GET与带 If-None-Match 的条件GET对比: 每次响应的字节数(状态行+头+正文)和服务端CPU时间
+ * 客户端反复轮询同一批交易, 每次轮询前有 bench.changeRate 的概率先修改这条交易
+ * MockMvc在调用线程上执行整个请求(过滤器、控制器、序列化), 用线程CPU时间计量服务端开销, 不含网络和Tomcat
+ * mvn test -Pbenchmark -Dtest=ConditionalGetBenchmarkTest [-Dbench.changeRate=0.01]
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:etagbench",
+    "spring.jpa.show-sql=false",
+    "bank.stats.rebuild-on-startup=false",
+    "logging.level.com.bank=INFO"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+public class ConditionalGetBenchmarkTest {
+
+    private static final int ROWS = 1_000;
+
+    private static final int POLLS = 50_000;
+
+    private static final double CHANGE_RATE = Double.parseDouble(System.getProperty("bench.changeRate", "0.01"));
+
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        String sql = "insert into transactions (id, reference, account_number, amount, type, description, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= ROWS; id++) {
+            rows.add(new Object[]{id, reference(id), "ACC" + (id % 100), 100, "DEPOSIT",
+                "Quarterly settlement for merchant account " + id, now, now});
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+
+    @Test
+    void comparePlainAndConditionalPolling() throws Exception {
+        // Warm-up pass of each mode for the JIT, then the measured pass
+        poll(false, new Random(1));
+        poll(true, new Random(2));
+        Result plain = poll(false, new Random(3));
+        Result conditional = poll(true, new Random(4));
+
+        log.info("=== Conditional GET Benchmark ({} references, {} polls, change rate {}) ===", ROWS, POLLS, CHANGE_RATE);
+        log.info("plain GET:        {}", plain);
+        log.info("If-None-Match:    {}", conditional);
+        log.info("==========================================");
+        assertTrue(conditional.bytesPerPoll() < plain.bytesPerPoll());
+    }
+
+    private Result poll(boolean conditional, Random random) throws Exception {
+        String[] etags = new String[ROWS + 1];
+        long bytes = 0;
+        long cpuNanos = 0;
+        long allocated = 0;
+        int notModified = 0;
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < POLLS; i++) {
+            long id = 1 + random.nextInt(ROWS);
+            if (random.nextDouble() < CHANGE_RATE) {
+                transactionService.updateTransaction(reference(id), new Transaction(null, reference(id), "ACC" + (id % 100),
+                    BigDecimal.valueOf(100 + random.nextInt(1000)), TransactionType.DEPOSIT, "Quarterly settlement, corrected"));
+            }
+            MockHttpServletRequestBuilder request = get("/v1/transactions/reference/" + reference(id));
+            if (conditional && etags[(int) id] != null) {
+                request.header(HttpHeaders.IF_NONE_MATCH, etags[(int) id]);
+            }
+
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long cpuBefore = threads.getCurrentThreadCpuTime();
+            MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+            cpuNanos += threads.getCurrentThreadCpuTime() - cpuBefore;
+            allocated += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            bytes += responseBytes(response);
+            if (response.getStatus() == 304) {
+                notModified++;
+            }
+            etags[(int) id] = response.getHeader(HttpHeaders.ETAG);
+        }
+        return new Result(bytes / POLLS, cpuNanos / POLLS, allocated / POLLS, (double) notModified / POLLS);
+    }
+
+    /**
+     * HTTP/1.1 下实际传输的字节数: 状态行、响应头和正文
+     */
+    private static long responseBytes(MockHttpServletResponse response) {
+        long bytes = ("HTTP/1.1 " + response.getStatus() + " \r\n").length() + 2;
+        for (String name : response.getHeaderNames()) {
+            for (String value : response.getHeaders(name)) {
+                bytes += (name + ": " + value + "\r\n").getBytes(StandardCharsets.ISO_8859_1).length;
+            }
+        }
+        return bytes + response.getContentAsByteArray().length;
+    }
+
+    private static String reference(long id) {
+        return "ETAG-BENCH-" + id;
+    }
+
+    private record Result(long bytesPerPoll, long cpuNanosPerPoll, long allocatedPerPoll, double notModifiedRatio) {
+
+        @Override
+        public String toString() {
+            return String.format("%d bytes/poll, %.1f us CPU/poll, %d bytes allocated/poll, %.1f%% 304",
+                bytesPerPoll, cpuNanosPerPoll / 1_000.0, allocatedPerPoll, notModifiedRatio * 100);
+        }
+    }
+}
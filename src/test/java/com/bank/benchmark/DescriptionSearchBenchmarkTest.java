@@ -0,0 +1,203 @@
+package com.bank.benchmark;
+
+import com.bank.dto.TransactionView;
+import com.bank.model.TransactionType;
+import com.bank.service.DescriptionIndex;
+import com.bank.service.TransactionSearchService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 按描述中的词搜索: 内存倒排索引(加上按id复核)对比 lower(description) LIKE '%词%' 全表扫描
+ * 描述由Zipf分布的词表加一个近乎唯一的发票号组成; 另外报告重建耗时、索引内存和每笔交易的增量维护开销
+ * mvn test -Pbenchmark -Dtest=DescriptionSearchBenchmarkTest [-Dbench.rows=5000000]
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:searchbench",
+    "spring.jpa.show-sql=false",
+    "logging.level.com.bank=INFO"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+public class DescriptionSearchBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 1_000_000);
+
+    private static final int ACCOUNTS = 20_000;
+
+    private static final int VOCABULARY = 20_000;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int INDEX_QUERIES = 2_000;
+
+    private static final int LIKE_QUERIES = 5;
+
+    private static final int MAINTENANCE_UPDATES = 200_000;
+
+    private static final LocalDateTime START = LocalDateTime.now().minusYears(1);
+
+    private static final long YEAR_SECONDS = 365L * 24 * 3600;
+
+    private static final String LIKE = "select id from transactions where lower(description) like ? order by id desc limit "
+        + (PAGE_SIZE + 1);
+
+    private static final String LIKE_FILTERED = "select id from transactions where lower(description) like ? "
+        + "and account_number = ? order by id desc limit " + (PAGE_SIZE + 1);
+
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(7);
+
+    @BeforeAll
+    void seed() {
+        String sql = "insert into transactions (id, reference, account_number, amount, type, description, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+        TransactionType[] types = TransactionType.values();
+        ZipfDistribution words = new ZipfDistribution(VOCABULARY, 1.0, 3);
+        List<Object[]> rows = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        for (long id = 1; id <= ROWS; id++) {
+            Timestamp createdAt = Timestamp.valueOf(START.plusSeconds(id * YEAR_SECONDS / ROWS));
+            StringBuilder description = new StringBuilder();
+            for (int w = 2 + random.nextInt(4); w > 0; w--) {
+                description.append(word(words.next(random))).append(' ');
+            }
+            description.append("INV-").append(random.nextInt(10_000_000));
+            rows.add(new Object[]{id, "SEARCH-BENCH-" + id, account(random.nextInt(ACCOUNTS)), 100,
+                types[(int) (id % types.length)].name(), description.toString(), createdAt, createdAt});
+            if (rows.size() == 10_000) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+        log.info("Seeded {} rows in {} ms", ROWS, System.currentTimeMillis() - start);
+    }
+
+    @Test
+    void compareIndexWithLike() {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        assertEquals(ROWS, transactionSearchService.rebuild());
+        long rebuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long heapAfter = usedHeap();
+        DescriptionIndex.Stats stats = transactionSearchService.getIndexStats();
+
+        List<String> results = new ArrayList<>();
+        results.add(compare("common word (rank 1)", i -> word(0), null, null, null));
+        results.add(compare("medium word (rank 100)", i -> word(100 + i % 10), null, null, null));
+        results.add(compare("rare word (rank 10000)", i -> word(10_000 + i % 100), null, null, null));
+        results.add(compare("two common words", i -> word(i % 5) + " " + word(5 + i % 5), null, null, null));
+        results.add(compare("medium word + account", i -> word(100 + i % 10), i -> account(i % ACCOUNTS), null, null));
+        results.add(compare("common word + type + 30 days", i -> word(i % 5), null, TransactionType.PAYMENT,
+            START.plusMonths(6)));
+        results.add(compare("word in no description", i -> "absent" + i, null, null, null));
+
+        double maintenanceMicros = maintenance();
+
+        log.info("=== Description Search Benchmark ({} rows, {} words + an invoice number each, page size {}) ===",
+            ROWS, VOCABULARY, PAGE_SIZE);
+        log.info("Rebuild from the database: {} ms; {} terms, {} postings; estimated {} MB ({} bytes per transaction), "
+                + "heap grew by {} MB", rebuildMillis, stats.terms(), stats.postings(), stats.bytes() >> 20,
+            String.format("%.1f", (double) stats.bytes() / ROWS), (heapAfter - heapBefore) >> 20);
+        log.info("Index maintenance per updated transaction (4 changed terms): {} us", String.format("%.2f", maintenanceMicros));
+        log.info("| Query | Hits on page 1 | Index p50 | Index p99 | Index mean | LIKE mean | Speed-up |");
+        results.forEach(log::info);
+        log.info("==========================================");
+    }
+
+    private String compare(String name, IntFunction<String> query, IntFunction<String> account, TransactionType type,
+                           LocalDateTime from) {
+        LocalDateTime to = from == null ? null : from.plusDays(30);
+        Histogram index = new Histogram(TimeUnit.SECONDS.toNanos(10), 3);
+        long hits = 0;
+        for (int i = 0; i < INDEX_QUERIES; i++) {
+            String q = query.apply(i);
+            String accountNumber = account == null ? null : account.apply(i);
+            long start = System.nanoTime();
+            List<TransactionView> page = transactionSearchService.search(q, accountNumber, type, from, to, null, PAGE_SIZE)
+                .getContent();
+            index.recordValue(System.nanoTime() - start);
+            hits += page.size();
+        }
+
+        long like = 0;
+        for (int i = 0; i < LIKE_QUERIES; i++) {
+            String accountNumber = account == null ? null : account.apply(i);
+            String pattern = "%" + query.apply(i).split(" ")[0] + "%";
+            long start = System.nanoTime();
+            if (accountNumber == null) {
+                jdbcTemplate.queryForList(LIKE, Long.class, pattern);
+            } else {
+                jdbcTemplate.queryForList(LIKE_FILTERED, Long.class, pattern, accountNumber);
+            }
+            like += System.nanoTime() - start;
+        }
+        double likeMean = like / 1e6 / LIKE_QUERIES;
+        return String.format("| %s | %.1f | %.3f ms | %.3f ms | %.3f ms | %.1f ms | %.0fx |", name,
+            (double) hits / INDEX_QUERIES, index.getValueAtPercentile(50) / 1e6, index.getValueAtPercentile(99) / 1e6,
+            index.getMean() / 1e6, likeMean, likeMean / (index.getMean() / 1e6));
+    }
+
+    /**
+     * 不经过数据库, 直接计时 record: 每笔交易把描述中的两个词换掉
+     */
+    private double maintenance() {
+        LocalDateTime createdAt = START.plusMonths(11);
+        long start = System.nanoTime();
+        for (int i = 0; i < MAINTENANCE_UPDATES; i++) {
+            long id = 1 + random.nextInt(ROWS);
+            TransactionView previous = view(id, word(i % 50) + " " + word(200 + i % 50), createdAt);
+            TransactionView updated = view(id, word(1 + i % 50) + " " + word(201 + i % 50), createdAt);
+            transactionSearchService.record(List.of(updated), List.of(previous));
+        }
+        return (System.nanoTime() - start) / 1e3 / MAINTENANCE_UPDATES;
+    }
+
+    private static TransactionView view(long id, String description, LocalDateTime createdAt) {
+        return new TransactionView(id, "SEARCH-BENCH-" + id, account(0), BigDecimal.ONE, TransactionType.DEPOSIT,
+            description, createdAt, createdAt, 0L);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String word(int rank) {
+        return "w" + Integer.toString(rank, 36) + "x";
+    }
+
+    private static String account(int index) {
+        return "ACC-" + index;
+    }
+}
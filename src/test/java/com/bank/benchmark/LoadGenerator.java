@@ -0,0 +1,243 @@
+package com.bank.benchmark;
+
+import com.bank.benchmark.LoadProfile.Operation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 通过HTTP驱动 TransactionController 的混合负载生成器
+ * 按目标速率开环发送: 第i个请求的计划发送时间固定为 start + i/rate, 延迟从计划时间算起,
+ * 服务端变慢导致请求排队的时间也计入延迟, 避免协调遗漏(coordinated omission)
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private static final String TRANSACTIONS_PATH = "/v1/transactions";
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private static final int ACCOUNTS = 1000;
+
+    // Matches the default bank.admission.client-header, each connection is one client
+    // when the load comes from one of bank.admission.trusted-proxies
+    private static final String CLIENT_HEADER = "X-Client-Id";
+
+    private final LoadProfile profile;
+
+    private final URI baseUri;
+
+    private final HttpClient httpClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ZipfDistribution keyDistribution;
+
+    private final Operation[] operations = Operation.values();
+
+    private final int[] cumulativeWeights;
+
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong createSequence = new AtomicLong();
+
+    // Deletes only remove transactions created during the run, so seeded keys stay readable
+    private final Queue<Long> deletableIds = new ConcurrentLinkedQueue<>();
+
+    public LoadGenerator(LoadProfile profile, URI baseUri) {
+        this.profile = profile;
+        this.baseUri = baseUri;
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        this.keyDistribution = new ZipfDistribution(profile.getKeys(), profile.getZipfExponent(), 42);
+        this.cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (Operation operation : operations) {
+            sum += profile.getMix().getOrDefault(operation, 0);
+            cumulativeWeights[operation.ordinal()] = sum;
+        }
+    }
+
+    /**
+     * 通过批量接口预置 keys 条交易, 供 get/update 按Zipf分布访问
+     */
+    public void seed() throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        List<String> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int key = 0; key < profile.getKeys(); key++) {
+            batch.add(transactionJson(seededReference(key), account(key), amount(key)));
+            if (batch.size() == SEED_BATCH_SIZE || key == profile.getKeys() - 1) {
+                HttpResponse<String> response = send("load-seed", HttpRequest.newBuilder(uri(TRANSACTIONS_PATH + "/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("[" + String.join(",", batch) + "]")));
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Seeding failed with HTTP " + response.statusCode() + ": " + response.body());
+                }
+                batch.clear();
+            }
+        }
+        log.info("Seeded {} transactions in {} ms", profile.getKeys(), System.currentTimeMillis() - start);
+    }
+
+    public LoadReport run() throws InterruptedException {
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / (double) profile.getRate();
+        long warmupRequests = (long) (profile.getWarmup().toNanos() / intervalNanos);
+        long totalRequests = warmupRequests + (long) (profile.getDuration().toNanos() / intervalNanos);
+        LoadReport report = new LoadReport();
+        AtomicLong nextRequest = new AtomicLong();
+
+        log.info("Running {} req/s for {} (+{} warm-up) over {} connections, mix {}",
+            profile.getRate(), profile.getDuration(), profile.getWarmup(), profile.getConnections(), profile.getMix());
+
+        // One virtual thread per client connection, thousands of clients cost no more than a few platform threads
+        ExecutorService workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("load-client-", 0).factory());
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        for (int worker = 0; worker < profile.getConnections(); worker++) {
+            String client = "load-" + runId + "-" + worker;
+            workers.execute(() -> {
+                Random random = ThreadLocalRandom.current();
+                long request;
+                while ((request = nextRequest.getAndIncrement()) < totalRequests) {
+                    long intended = start + (long) (request * intervalNanos);
+                    long wait;
+                    while ((wait = intended - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    Operation operation = pick(random);
+                    long sent = System.nanoTime();
+                    // Nothing created yet to delete, keep the request rate by creating instead
+                    Operation performed = operation == Operation.DELETE && deletableIds.isEmpty()
+                        ? Operation.CREATE
+                        : operation;
+                    int status = execute(client, performed, random);
+                    long done = System.nanoTime();
+                    if (request >= warmupRequests) {
+                        report.record(performed, status, done - intended, done - sent);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        long timeoutSeconds = profile.getWarmup().plus(profile.getDuration()).toSeconds() + 300;
+        if (!workers.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+            throw new IllegalStateException("Load run did not finish within " + timeoutSeconds + "s");
+        }
+        long measuredStart = start + (long) (warmupRequests * intervalNanos);
+        report.setElapsedNanos(System.nanoTime() - measuredStart);
+        return report;
+    }
+
+    private Operation pick(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (Operation operation : operations) {
+            if (value < cumulativeWeights[operation.ordinal()]) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    /**
+     * 执行一次操作, 返回HTTP状态码, 网络错误返回 {@link LoadReport#IO_ERROR}
+     */
+    private int execute(String client, Operation operation, Random random) {
+        try {
+            switch (operation) {
+                case CREATE -> {
+                    long sequence = createSequence.incrementAndGet();
+                    HttpResponse<String> response = send(client, HttpRequest.newBuilder(uri(TRANSACTIONS_PATH))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(transactionJson(
+                            "LOAD-" + runId + "-NEW-" + sequence, account((int) sequence), amount(random.nextInt(100_000))))));
+                    if (response.statusCode() == 201) {
+                        JsonNode id = objectMapper.readTree(response.body()).path("id");
+                        if (id.isNumber()) {
+                            deletableIds.add(id.asLong());
+                        }
+                    }
+                    return response.statusCode();
+                }
+                case GET -> {
+                    int key = keyDistribution.next(random);
+                    return send(client, HttpRequest.newBuilder(uri(TRANSACTIONS_PATH + "/reference/" + seededReference(key))).GET())
+                        .statusCode();
+                }
+                case UPDATE -> {
+                    int key = keyDistribution.next(random);
+                    String reference = seededReference(key);
+                    return send(client, HttpRequest.newBuilder(uri(TRANSACTIONS_PATH + "/reference/" + reference))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(transactionJson(reference, account(key), amount(random.nextInt(100_000))))))
+                        .statusCode();
+                }
+                case DELETE -> {
+                    Long id = deletableIds.poll();
+                    if (id == null) {
+                        return execute(client, Operation.CREATE, random);
+                    }
+                    return send(client, HttpRequest.newBuilder(uri(TRANSACTIONS_PATH + "/id/" + id)).DELETE()).statusCode();
+                }
+                case LIST -> {
+                    return send(client, HttpRequest.newBuilder(uri(TRANSACTIONS_PATH + "/cursor?size=" + profile.getListPageSize())).GET())
+                        .statusCode();
+                }
+                default -> throw new IllegalArgumentException("Unknown operation " + operation);
+            }
+        } catch (IOException e) {
+            return LoadReport.IO_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return LoadReport.IO_ERROR;
+        }
+    }
+
+    private HttpResponse<String> send(String client, HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.header(CLIENT_HEADER, client).timeout(Duration.ofSeconds(30)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return baseUri.resolve(path);
+    }
+
+    private String seededReference(int key) {
+        return "LOAD-" + runId + "-" + key;
+    }
+
+    private static String account(int key) {
+        return "LOAD-ACC-" + (key % ACCOUNTS);
+    }
+
+    private static BigDecimal amount(int seed) {
+        return BigDecimal.valueOf(seed % 100_000 + 1, 2).setScale(2, RoundingMode.UNNECESSARY);
+    }
+
+    private static String transactionJson(String reference, String accountNumber, BigDecimal amount) {
+        return "{\"reference\":\"" + reference + "\",\"account_number\":\"" + accountNumber
+            + "\",\"amount\":" + amount.toPlainString() + ",\"type\":\"DEPOSIT\",\"description\":\"load test\"}";
+    }
+}
@@ -0,0 +1,86 @@
+package com.bank.benchmark;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 负载测试参数, 可以通过 -Dload.* 系统属性覆盖
+ * <ul>
+ *     <li>load.mix: 各操作的权重, 例如 create:10,get:70,update:10,delete:2,list:8</li>
+ *     <li>load.rate: 目标速率(请求/秒), 开环发送, 不受响应快慢影响</li>
+ *     <li>load.duration: 持续时间, 例如 30s</li>
+ *     <li>load.warmup: 预热时间, 期间的结果不计入报告</li>
+ *     <li>load.connections: 并发连接(发送线程)数</li>
+ *     <li>load.keys / load.zipf: 预置交易数量和Zipf偏斜系数</li>
+ * </ul>
+ */
+@Data
+public class LoadProfile {
+
+    public enum Operation {
+        CREATE, GET, UPDATE, DELETE, LIST
+    }
+
+    private Map<Operation, Integer> mix = parseMix("create:10,get:70,update:10,delete:2,list:8");
+
+    private int rate = 500;
+
+    private Duration duration = Duration.ofSeconds(30);
+
+    private Duration warmup = Duration.ofSeconds(5);
+
+    private int connections = 64;
+
+    private int keys = 10_000;
+
+    private double zipfExponent = 0.99;
+
+    private int listPageSize = 20;
+
+    public static LoadProfile fromSystemProperties() {
+        LoadProfile profile = new LoadProfile();
+        String mix = System.getProperty("load.mix");
+        if (mix != null) {
+            profile.setMix(parseMix(mix));
+        }
+        profile.setRate(Integer.getInteger("load.rate", profile.getRate()));
+        profile.setDuration(parseDuration(System.getProperty("load.duration"), profile.getDuration()));
+        profile.setWarmup(parseDuration(System.getProperty("load.warmup"), profile.getWarmup()));
+        profile.setConnections(Integer.getInteger("load.connections", profile.getConnections()));
+        profile.setKeys(Integer.getInteger("load.keys", profile.getKeys()));
+        String zipf = System.getProperty("load.zipf");
+        if (zipf != null) {
+            profile.setZipfExponent(Double.parseDouble(zipf));
+        }
+        return profile;
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in mix entry: " + entry);
+            }
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mix has no operations: " + mix);
+        }
+        return weights;
+    }
+
+    private static Duration parseDuration(String value, Duration defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        return Duration.parse("PT" + value.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,140 @@
+package com.bank.benchmark;
+
+import com.bank.benchmark.LoadProfile.Operation;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 负载测试结果: 每种操作两份延迟直方图(微秒)和按HTTP状态码的计数
+ * latency 从计划发送时间算起(已修正协调遗漏), serviceTime 从实际发送时间算起, 两者差距就是排队时间
+ * 开启准入控制时被拒绝的请求很快返回, 会拉低整体延迟, 所以另外单独统计2xx请求的延迟
+ */
+public class LoadReport {
+
+    /**
+     * 连接失败或超时等没有拿到HTTP响应的请求
+     */
+    public static final int IO_ERROR = -1;
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<Operation, Histogram> latency = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, Histogram> serviceTime = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, Map<Integer, LongAdder>> statuses = new EnumMap<>(Operation.class);
+
+    private final Histogram succeededLatency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+
+    private final Histogram succeededServiceTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+
+    @Getter
+    @Setter
+    private long elapsedNanos;
+
+    public LoadReport() {
+        for (Operation operation : Operation.values()) {
+            latency.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            serviceTime.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            statuses.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    void record(Operation operation, int status, long latencyNanos, long serviceTimeNanos) {
+        latency.get(operation).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+        serviceTime.get(operation).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(serviceTimeNanos), HIGHEST_TRACKABLE_MICROS));
+        statuses.get(operation).computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status >= 200 && status < 300) {
+            succeededLatency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+            succeededServiceTime.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(serviceTimeNanos), HIGHEST_TRACKABLE_MICROS));
+        }
+    }
+
+    public Histogram latency() {
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        latency.values().forEach(total::add);
+        return total;
+    }
+
+    public Histogram latency(Operation operation) {
+        return latency.get(operation);
+    }
+
+    public Histogram succeededLatency() {
+        return succeededLatency;
+    }
+
+    public long totalCount() {
+        return latency().getTotalCount();
+    }
+
+    /**
+     * 状态码 >= 400 或没有响应的请求, 按状态码汇总
+     */
+    public Map<Integer, Long> errorsByStatus() {
+        Map<Integer, Long> errors = new TreeMap<>();
+        statuses.values().forEach(byStatus -> byStatus.forEach((status, count) -> {
+            if (status == IO_ERROR || status >= 400) {
+                errors.merge(status, count.sum(), Long::sum);
+            }
+        }));
+        return errors;
+    }
+
+    public String format() {
+        StringBuilder report = new StringBuilder();
+        double seconds = elapsedNanos / 1e9;
+        report.append(String.format("%d requests in %.1fs, %.1f req/s%n", totalCount(), seconds, totalCount() / seconds));
+        report.append(String.format("%-8s %8s | %9s %9s %9s %9s | %9s %9s%n",
+            "op", "count", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p50", "svc p99"));
+        for (Operation operation : Operation.values()) {
+            appendRow(report, operation.name().toLowerCase(), latency.get(operation), serviceTime.get(operation));
+        }
+        Histogram allServiceTime = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        serviceTime.values().forEach(allServiceTime::add);
+        appendRow(report, "all", latency(), allServiceTime);
+        appendRow(report, "all 2xx", succeededLatency, succeededServiceTime);
+        Map<Integer, Long> errors = errorsByStatus();
+        report.append("errors by status: ").append(errors.isEmpty() ? "none" : errors).append(System.lineSeparator());
+        return report.toString();
+    }
+
+    /**
+     * 以HdrHistogram标准百分位格式(.hgrm)写出整体延迟分布, 可以用HdrHistogram的绘图工具对比多次运行
+     */
+    public void writePercentileDistribution(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            latency().outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static void appendRow(StringBuilder report, String name, Histogram latency, Histogram serviceTime) {
+        if (latency.getTotalCount() == 0) {
+            return;
+        }
+        report.append(String.format("%-8s %8d | %9.2f %9.2f %9.2f %9.2f | %9.2f %9.2f%n",
+            name, latency.getTotalCount(),
+            millis(latency, 50), millis(latency, 99), millis(latency, 99.9), latency.getMaxValue() / 1000.0,
+            millis(serviceTime, 50), millis(serviceTime, 99)));
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.bank.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 通过HTTP对交易接口施加混合负载, 输出修正协调遗漏后的 p50/p99/p99.9 和按状态码的错误数
+ * mvn test -Pbenchmark -Dtest=MixedWorkloadLoadTest [-Dload.rate=500 -Dload.duration=30s
+ *     -Dload.mix=create:10,get:70,update:10,delete:2,list:8 -Dload.keys=10000 -Dload.zipf=0.99]
+ * 指定 -Dload.url=http://host:8080 时压测外部实例, 而不是测试内启动的应用
+ * 加 -Dbank.admission.enabled=true 时开启准入控制, 过载时的503是主动拒绝, 不算服务端错误;
+ * 再加 -Dbank.admission.trusted-proxies=127.0.0.1 时每个连接按 X-Client-Id 单独限流
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:loadtest",
+    "spring.jpa.show-sql=false",
+    "logging.level.com.bank=WARN",
+    "logging.level.com.bank.benchmark=INFO"
+})
+@Slf4j
+public class MixedWorkloadLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void mixedWorkload() throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        URI baseUri = URI.create(System.getProperty("load.url", "http://localhost:" + port));
+        LoadGenerator generator = new LoadGenerator(profile, baseUri);
+
+        generator.seed();
+        LoadReport report = generator.run();
+
+        log.info("Load test against {}:{}{}", baseUri, System.lineSeparator(), report.format());
+        Path hgrm = Path.of("target", "load-test.hgrm");
+        report.writePercentileDistribution(hgrm);
+        log.info("Latency distribution written to {}", hgrm.toAbsolutePath());
+
+        assertTrue(report.totalCount() > 0, "No requests were measured");
+        Map<Integer, Long> errors = report.errorsByStatus();
+        assertTrue(errors.keySet().stream().noneMatch(status -> status == LoadReport.IO_ERROR
+                || status >= 500 && status != HttpStatus.SERVICE_UNAVAILABLE.value()),
+            "Server errors during load test: " + errors);
+    }
+}
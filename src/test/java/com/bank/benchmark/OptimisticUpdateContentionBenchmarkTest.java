@@ -0,0 +1,190 @@
+package com.bank.benchmark;
+
+import com.bank.exception.ConcurrentUpdateException;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.service.TransactionService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 多个线程集中更新少数几笔交易: 乐观锁(版本号检查 + 有限次重试)与先 SELECT ... FOR UPDATE 再更新的悲观锁对比
+ * 报告吞吐、每次成功更新的平均尝试次数、重试用尽返回409的次数和延迟
+ * mvn test -Pbenchmark -Dtest=OptimisticUpdateContentionBenchmarkTest [-Dbench.threads=16 -Dbench.updatesPerThread=200]
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:occbench",
+    "spring.jpa.show-sql=false",
+    "bank.stats.rebuild-on-startup=false",
+    "logging.level.com.bank=INFO",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "logging.level.org.hibernate.orm.jdbc.batch=OFF",
+    "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@Slf4j
+public class OptimisticUpdateContentionBenchmarkTest {
+
+    private static final int THREADS = Integer.getInteger("bench.threads", 16);
+
+    private static final int UPDATES_PER_THREAD = Integer.getInteger("bench.updatesPerThread", 200);
+
+    private static final int[] HOT_REFERENCES = {1, 4, 64};
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void compareOptimisticAndPessimisticUnderContention() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int references : HOT_REFERENCES) {
+            lines.add(run("optimistic", references, this::updateOptimistic).line());
+            lines.add(run("pessimistic", references, this::updatePessimistic).line());
+        }
+
+        log.info("=== Update Contention Benchmark ({} threads x {} updates, {} CPUs) ===", THREADS, UPDATES_PER_THREAD,
+            Runtime.getRuntime().availableProcessors());
+        log.info(String.format("%-12s %5s %10s %14s %6s %9s %9s", "mode", "refs", "updates/s", "attempts/upd",
+            "409s", "p50 ms", "p99 ms"));
+        lines.forEach(log::info);
+        log.info("==========================================");
+    }
+
+    private void updateOptimistic(Transaction target, BigDecimal amount) {
+        transactionService.updateTransaction(target.getReference(), details(target, amount));
+    }
+
+    /**
+     * 先锁住行再走同一个更新方法: 更新加入外层事务, 不会再发生版本冲突
+     */
+    private void updatePessimistic(Transaction target, BigDecimal amount) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.find(Transaction.class, target.getId(), LockModeType.PESSIMISTIC_WRITE);
+            transactionService.updateTransaction(target.getReference(), details(target, amount));
+        });
+    }
+
+    private Result run(String mode, int references, Update update) throws Exception {
+        List<Transaction> targets = new ArrayList<>();
+        String prefix = "OCC-" + mode + "-" + references + "-";
+        for (int i = 0; i < references; i++) {
+            targets.add(transactionService.createTransaction(new Transaction(null, prefix + i, prefix + "ACC",
+                new BigDecimal("1.00"), TransactionType.DEPOSIT, "contention")));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Result result = new Result(mode, references);
+        AtomicLong amounts = new AtomicLong(1);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    Transaction target = targets.get(random.nextInt(targets.size()));
+                    long begin = System.nanoTime();
+                    try {
+                        // Unchanged values are not dirty and would not bump the version
+                        update.apply(target, BigDecimal.valueOf(amounts.incrementAndGet()));
+                        result.succeeded.incrementAndGet();
+                    } catch (ConcurrentUpdateException | PessimisticLockingFailureException e) {
+                        result.conflicts.incrementAndGet();
+                    }
+                    result.latency.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (System.nanoTime() - begin) / 1_000));
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.MINUTES);
+        }
+        result.elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        // Every failed attempt rolled its transaction back, the successful one committed
+        result.attempts = result.succeeded.get()
+            + statistics.getTransactionCount() - statistics.getSuccessfulTransactionCount();
+        assertEquals((long) THREADS * UPDATES_PER_THREAD, result.succeeded.get() + result.conflicts.get());
+        // Every committed update bumped the version exactly once
+        long versions = targets.stream()
+            .mapToLong(target -> transactionService.getTransactionByReference(target.getReference()).version())
+            .sum();
+        assertEquals(result.succeeded.get(), versions);
+        return result;
+    }
+
+    private static Transaction details(Transaction target, BigDecimal amount) {
+        return new Transaction(null, target.getReference(), target.getAccountNumber(), amount,
+            TransactionType.DEPOSIT, "contention");
+    }
+
+    @FunctionalInterface
+    private interface Update {
+        void apply(Transaction target, BigDecimal amount);
+    }
+
+    private static class Result {
+        final String mode;
+        final int references;
+        final AtomicLong succeeded = new AtomicLong();
+        final AtomicLong conflicts = new AtomicLong();
+        final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long attempts;
+        long elapsedNanos;
+
+        Result(String mode, int references) {
+            this.mode = mode;
+            this.references = references;
+        }
+
+        String line() {
+            return String.format("%-12s %5d %10.0f %14.2f %6d %9.2f %9.2f", mode, references,
+                succeeded.get() * 1e9 / elapsedNanos, (double) attempts / Math.max(1, succeeded.get()), conflicts.get(),
+                latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.bank.benchmark;
+
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionCursor;
+import com.bank.dto.TransactionView;
+import com.bank.service.TransactionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * OFFSET分页与游标分页在第1页和第10000页的耗时对比
+ * mvn test -Pbenchmark -Dtest=PaginationBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:paginationbench",
+    "spring.jpa.show-sql=false",
+    "logging.level.com.bank=INFO"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+public class PaginationBenchmarkTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int DEEP_PAGE = 10_000;
+
+    private static final int ROWS = PAGE_SIZE * DEEP_PAGE + PAGE_SIZE;
+
+    private static final int WARMUP = 200;
+
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        String sql = "insert into transactions (id, reference, account_number, amount, type, description, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= ROWS; id++) {
+            rows.add(new Object[]{id, "PAGE-BENCH-" + id, "ACC" + (id % 1000), 100, "DEPOSIT", "seed", now, now});
+            if (rows.size() == 5000) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+
+    @Test
+    void compareOffsetAndCursorPagination() {
+        Sort newestFirst = Sort.by(Sort.Direction.DESC, "id");
+        // 第N页的游标就是上一页最后一条的id, 种子数据id连续, 可以直接算出来
+        String deepCursor = TransactionCursor.ofId(ROWS - (long) PAGE_SIZE * (DEEP_PAGE - 1) + 1).encode();
+
+        double offsetFirst = measure(() -> transactionService.getAllTransactions(PageRequest.of(0, PAGE_SIZE, newestFirst)));
+        double offsetDeep = measure(() -> transactionService.getAllTransactions(PageRequest.of(DEEP_PAGE - 1, PAGE_SIZE, newestFirst)));
+        double cursorFirst = measure(() -> transactionService.getTransactions(null, PAGE_SIZE));
+        double cursorDeep = measure(() -> transactionService.getTransactions(deepCursor, PAGE_SIZE));
+
+        Page<TransactionView> offsetPage = transactionService.getAllTransactions(PageRequest.of(DEEP_PAGE - 1, PAGE_SIZE, newestFirst));
+        CursorPage<TransactionView> cursorPage = transactionService.getTransactions(deepCursor, PAGE_SIZE);
+        assertEquals(offsetPage.getContent().get(0).id(), cursorPage.getContent().get(0).id());
+
+        log.info("=== Pagination Benchmark ({} rows, page size {}) ===", ROWS, PAGE_SIZE);
+        log.info("offset page 1:      {} ms", String.format("%.3f", offsetFirst));
+        log.info("offset page {}: {} ms", DEEP_PAGE, String.format("%.3f", offsetDeep));
+        log.info("cursor page 1:      {} ms", String.format("%.3f", cursorFirst));
+        log.info("cursor page {}: {} ms", DEEP_PAGE, String.format("%.3f", cursorDeep));
+        log.info("==========================================");
+    }
+
+    private double measure(Supplier<?> query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+}
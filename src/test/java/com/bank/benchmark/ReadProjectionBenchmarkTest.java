@@ -0,0 +1,131 @@
+package com.bank.benchmark;
+
+import com.bank.repository.TransactionRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 托管实体与只读视图两条读路径的对比: 每次读取分配的字节数和平均耗时
+ * 单条按编号查询, 以及按id一次取20条
+ * mvn test -Pbenchmark -Dtest=ReadProjectionBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:projectionbench",
+    "spring.jpa.show-sql=false",
+    "logging.level.com.bank=INFO"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Slf4j
+public class ReadProjectionBenchmarkTest {
+
+    private static final int ROWS = 100_000;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int ITERATIONS = 20_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        String sql = "insert into transactions (id, reference, account_number, amount, type, description, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= ROWS; id++) {
+            rows.add(new Object[]{id, reference(id), "ACC" + (id % 1000), 100, "DEPOSIT", "seed", now, now});
+            if (rows.size() == 5000) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+
+    @Test
+    void compareEntityAndViewReads() {
+        Random random = new Random(42);
+        Result entityLookup = measure(() -> transactionRepository.findByReference(randomReference(random))
+            .map(transaction -> transaction.getAmount().scale()).orElse(0));
+        Result viewLookup = measure(() -> transactionRepository.findViewByReference(randomReference(random))
+            .map(transaction -> transaction.amount().scale()).orElse(0));
+        Result entityPage = measure(() -> transactionRepository.findAllById(randomIds(random)).size());
+        Result viewPage = measure(() -> transactionRepository.findViewsByIdIn(randomIds(random)).size());
+
+        log.info("=== Read Projection Benchmark ({} rows, {} iterations) ===", ROWS, ITERATIONS);
+        log.info("lookup by reference, entity: {} bytes/op, {} us/op", entityLookup.bytesPerOp, entityLookup.microsPerOp());
+        log.info("lookup by reference, view:   {} bytes/op, {} us/op", viewLookup.bytesPerOp, viewLookup.microsPerOp());
+        log.info("{} rows by id, entity:       {} bytes/op, {} us/op", PAGE_SIZE, entityPage.bytesPerOp, entityPage.microsPerOp());
+        log.info("{} rows by id, view:         {} bytes/op, {} us/op", PAGE_SIZE, viewPage.bytesPerOp, viewPage.microsPerOp());
+        log.info("==========================================");
+        assertTrue(viewLookup.bytesPerOp < entityLookup.bytesPerOp);
+        assertTrue(viewPage.bytesPerOp < entityPage.bytesPerOp);
+    }
+
+    private Result measure(IntSupplier read) {
+        long checksum = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += read.getAsInt();
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += read.getAsInt();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        assertTrue(checksum > 0);
+        return new Result(allocated / ITERATIONS, nanos / ITERATIONS);
+    }
+
+    private static List<Long> randomIds(Random random) {
+        long first = 1 + random.nextInt(ROWS - PAGE_SIZE);
+        List<Long> ids = new ArrayList<>(PAGE_SIZE);
+        for (long id = first; id < first + PAGE_SIZE; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static String randomReference(Random random) {
+        return reference(1 + random.nextInt(ROWS));
+    }
+
+    private static String reference(long id) {
+        return "VIEW-BENCH-" + id;
+    }
+
+    private record Result(long bytesPerOp, long nanosPerOp) {
+
+        String microsPerOp() {
+            return String.format("%.1f", nanosPerOp / 1_000.0);
+        }
+    }
+}
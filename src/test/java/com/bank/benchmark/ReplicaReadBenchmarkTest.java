@@ -0,0 +1,183 @@
+package com.bank.benchmark;
+
+import com.bank.BankApplication;
+import com.bank.config.ReplicaRoutingDataSource;
+import com.bank.config.ReplicationStandIn;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.service.TransactionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 报表类读取对创建的影响: 写线程逐条创建交易, 同时读线程不停地按金额排序读取全部交易的第一页(全表扫描加排序)
+ * 对比一个数据库(读写共用连接池)和主库加一个副本(只读事务走副本, 由 ReplicationStandIn 复制)
+ * mvn test -Pbenchmark -Dtest=ReplicaReadBenchmarkTest [-Dbench.rows=20000 -Dbench.writes=3000]
+ */
+@Tag("benchmark")
+@Slf4j
+public class ReplicaReadBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 20_000);
+
+    private static final int WRITES = Integer.getInteger("bench.writes", 3_000);
+
+    private static final int WRITERS = 8;
+
+    private static final int READERS = 8;
+
+    private static final int POOL_SIZE = 10;
+
+    private static final AtomicInteger RUNS = new AtomicInteger();
+
+    @Test
+    void compareCreateLatencyUnderReportingReads() throws Exception {
+        List<String> rows = new ArrayList<>();
+        rows.add(run("one database, no reports", false, 0));
+        rows.add(run("one database", false, READERS));
+        rows.add(run("primary + replica", true, READERS));
+
+        log.info("=== Replica Read Benchmark ({} seeded rows, {} creates by {} writers, {} report readers, {} CPUs) ===",
+            ROWS, WRITES, WRITERS, READERS, Runtime.getRuntime().availableProcessors());
+        log.info("| Setup | Creates/s | Create mean | Create p50 | Create p99 | Reports/s | Reports on replica |");
+        rows.forEach(log::info);
+        log.info("==========================================");
+    }
+
+    private String run(String setup, boolean replica, int readers) throws Exception {
+        int run = RUNS.incrementAndGet();
+        List<String> args = new ArrayList<>(List.of(
+            "--spring.datasource.url=jdbc:h2:mem:replica-bench-primary-" + run,
+            "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+            "--bank.stats.rebuild-on-startup=false",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.com.bank=WARN",
+            "--logging.level.com.bank.benchmark=INFO"));
+        if (replica) {
+            args.addAll(List.of("--bank.replication.enabled=true",
+                "--bank.replication.replica-urls=jdbc:h2:mem:replica-bench-replica-" + run + ";DB_CLOSE_DELAY=-1",
+                "--bank.replication.primary-pool-size=" + POOL_SIZE,
+                "--bank.replication.replica-pool-size=" + POOL_SIZE));
+        }
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BankApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(args.toArray(String[]::new))) {
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            ReplicaRoutingDataSource routing = replica ? context.getBean(ReplicaRoutingDataSource.class) : null;
+            seed(new JdbcTemplate(routing != null ? routing.getPrimary() : context.getBean(DataSource.class)));
+            try (ReplicationStandIn standIn = routing == null ? null
+                : new ReplicationStandIn(routing.getPrimary(), routing.getReplicas().get(0)).start(Duration.ofMillis(50))) {
+                if (routing != null) {
+                    awaitInSync(routing);
+                }
+                long replicaReads = routing == null ? 0 : routing.getReplicaReads();
+                Result result = measure(transactionService, readers, run);
+                double onReplica = routing == null || result.reports == 0 ? 0
+                    : 100.0 * (routing.getReplicaReads() - replicaReads) / result.reports;
+                return String.format("| %s | %.0f | %.1f ms | %.1f ms | %.1f ms | %.1f | %.0f%% |", setup,
+                    result.createsPerSecond, result.latency.getMean() / 1e6,
+                    result.latency.getValueAtPercentile(50) / 1e6, result.latency.getValueAtPercentile(99) / 1e6,
+                    result.reportsPerSecond, onReplica);
+            }
+        }
+    }
+
+    private static Result measure(TransactionService transactionService, int readers, int run) throws Exception {
+        Histogram latency = new ConcurrentHistogram(TimeUnit.SECONDS.toNanos(60), 3);
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong reports = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + readers);
+        try {
+            List<Future<?>> readerTasks = new ArrayList<>();
+            for (int r = 0; r < readers; r++) {
+                readerTasks.add(executor.submit(() -> {
+                    while (writing.get()) {
+                        transactionService.getAllTransactions(PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "amount")));
+                        reports.incrementAndGet();
+                    }
+                }));
+            }
+            long start = System.nanoTime();
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                writers.add(executor.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < WRITES; i = next.getAndIncrement()) {
+                        long begin = System.nanoTime();
+                        transactionService.createTransaction(new Transaction(null, "RB-" + run + "-" + i,
+                            "RB-ACC-" + ThreadLocalRandom.current().nextInt(1_000),
+                            BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 100_000), 2), TransactionType.DEPOSIT,
+                            "replica benchmark"));
+                        latency.recordValue(System.nanoTime() - begin);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            writing.set(false);
+            for (Future<?> reader : readerTasks) {
+                reader.get();
+            }
+            return new Result(WRITES / seconds, latency, reports.get() / seconds, reports.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        String sql = "insert into transactions (id, reference, account_number, amount, type, description, created_at, "
+            + "updated_at) values (?, ?, ?, ?, ?, ?, ?, ?)";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 1; id <= ROWS; id++) {
+            // Ids far above the sequence, so created transactions never collide with seeded ones
+            rows.add(new Object[]{(1L << 40) + id, "RB-SEED-" + id, "RB-ACC-" + id % 1_000,
+                BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 100_000), 2), TransactionType.DEPOSIT.name(),
+                "seed", now, now});
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+
+    private static void awaitInSync(ReplicaRoutingDataSource routing) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (routing.getLagMillis(0) > 1_000) {
+            assertTrue(System.nanoTime() < deadline, "replica did not catch up");
+            Thread.sleep(50);
+        }
+    }
+
+    private record Result(double createsPerSecond, Histogram latency, double reportsPerSecond, long reports) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.bank.benchmark;
+
+import com.bank.BankApplication;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.repository.ShardRouter;
+import com.bank.service.TransactionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 1、2、4、8个分片的写入吞吐: 并发线程经 TransactionService 逐条创建交易, 账户随机分布在10,000个账户上
+ * 分别在内存H2和每次提交都写文件的H2 (WRITE_DELAY=0) 上运行, 每个分片一个10个连接的连接池;
+ * 另有一个分片加80个连接的对照, 区分分片本身和连接总数的作用
+ * mvn test -Pbenchmark -Dtest=ShardedWriteBenchmarkTest [-Dbench.writes=20000 -Dbench.threads=32]
+ */
+@Tag("benchmark")
+@Slf4j
+public class ShardedWriteBenchmarkTest {
+
+    private static final int WRITES = Integer.getInteger("bench.writes", 20_000);
+
+    private static final int THREADS = Integer.getInteger("bench.threads", 32);
+
+    private static final int WARMUP_WRITES = 2_000;
+
+    private static final int ACCOUNTS = 10_000;
+
+    private static final int[] SHARD_COUNTS = {1, 2, 4, 8};
+
+    private static final int POOL_SIZE = 10;
+
+    @TempDir
+    Path storageDir;
+
+    @Test
+    void compareWriteThroughputByShardCount() throws Exception {
+        List<String> rows = new ArrayList<>();
+        for (boolean file : new boolean[]{false, true}) {
+            for (int shards : SHARD_COUNTS) {
+                rows.add(row(file, shards, POOL_SIZE));
+            }
+            rows.add(row(file, 1, POOL_SIZE * SHARD_COUNTS[SHARD_COUNTS.length - 1]));
+        }
+
+        log.info("=== Sharded Write Benchmark ({} writes, {} threads, {} accounts, {} CPUs) ===",
+            WRITES, THREADS, ACCOUNTS, Runtime.getRuntime().availableProcessors());
+        log.info("| Storage | Shards | Connections | Writes/s | Avg latency | Rows per shard |");
+        rows.forEach(log::info);
+        log.info("==========================================");
+    }
+
+    private String row(boolean file, int shards, int poolSize) throws Exception {
+        Result result = run(file, shards, poolSize);
+        return String.format("| %s | %d | %d | %.0f | %.2f ms | %s |", file ? "file" : "memory", shards, shards * poolSize,
+            result.writesPerSecond(), result.avgLatencyMillis(), result.perShard());
+    }
+
+    private Result run(boolean file, int shards, int poolSize) throws Exception {
+        String name = "s" + shards + "-p" + poolSize + "-{shard}";
+        String url = file
+            ? "jdbc:h2:file:" + storageDir.toAbsolutePath() + "/" + name + ";WRITE_DELAY=0"
+            : "jdbc:h2:mem:sharded-write-" + name;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BankApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--bank.sharding.enabled=true",
+                "--bank.sharding.shards=" + shards,
+                "--bank.sharding.url-pattern=" + url,
+                "--bank.sharding.maximum-pool-size=" + poolSize,
+                "--bank.stats.rebuild-on-startup=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.bank=WARN",
+                "--logging.level.com.bank.benchmark=INFO")) {
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            ShardRouter shardRouter = context.getBean(ShardRouter.class);
+
+            write(transactionService, "SW-WARM-", WARMUP_WRITES);
+            long start = System.nanoTime();
+            long latencyNanos = write(transactionService, "SW-", WRITES);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            int[] perShard = new int[shards];
+            transactionService.exportTransactions(view -> perShard[shardRouter.shardOfId(view.id())]++);
+            assertEquals(WARMUP_WRITES + WRITES, Arrays.stream(perShard).sum());
+            return new Result(WRITES / seconds, latencyNanos / 1e6 / WRITES, Arrays.toString(perShard));
+        }
+    }
+
+    /**
+     * @return 所有写入的耗时之和
+     */
+    private static long write(TransactionService transactionService, String prefix, int writes) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Long>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    long nanos = 0;
+                    for (int i = next.getAndIncrement(); i < writes; i = next.getAndIncrement()) {
+                        String account = "SW-ACC-" + ThreadLocalRandom.current().nextInt(ACCOUNTS);
+                        long start = System.nanoTime();
+                        transactionService.createTransaction(new Transaction(null, prefix + i, account,
+                            BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 10_000), 2), TransactionType.DEPOSIT,
+                            "sharded write benchmark"));
+                        nanos += System.nanoTime() - start;
+                    }
+                    return nanos;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> worker : workers) {
+                total += worker.get();
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Result(double writesPerSecond, double avgLatencyMillis, String perShard) {
+    }
+}
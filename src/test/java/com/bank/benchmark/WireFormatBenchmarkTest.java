@@ -0,0 +1,209 @@
+package com.bank.benchmark;
+
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionCursor;
+import com.bank.dto.TransactionView;
+import com.bank.model.TransactionType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JSON、CBOR和Smile三种格式的响应大小和序列化/解析CPU: 单笔交易、Page(20/100条)、游标分页(100条)和导出流
+ * 使用应用中实际注册的ObjectMapper, 序列化到byte[]; 解析为树, 相当于一个不绑定类型的客户端
+ * mvn test -Pbenchmark -Dtest=WireFormatBenchmarkTest [-Dbench.iterations=20000]
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "logging.level.com.bank=INFO"
+})
+@Slf4j
+public class WireFormatBenchmarkTest {
+
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 20_000);
+
+    private static final int EXPORT_ROWS = 10_000;
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    private static final String[] DESCRIPTIONS = {"Salary March ACME Corp", "Card payment Coffee House downtown",
+        "Transfer to savings", "ATM withdrawal Main St", "Rent payment flat 12B", "Refund order"};
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    private final Random random = new Random(11);
+
+    @Test
+    void compareFormats() throws IOException {
+        Map<String, ObjectMapper> formats = new LinkedHashMap<>();
+        formats.put("JSON", objectMapper);
+        formats.put("CBOR", cborConverter.getObjectMapper());
+        formats.put("Smile", smileConverter.getObjectMapper());
+
+        List<TransactionView> rows = new ArrayList<>();
+        for (int i = 0; i < EXPORT_ROWS; i++) {
+            rows.add(view(1_000_000L + i));
+        }
+        Map<String, Object> payloads = new LinkedHashMap<>();
+        payloads.put("transaction", rows.get(0));
+        payloads.put("page of 20", new PageImpl<>(rows.subList(0, 20), PageRequest.of(5, 20), 1_000_000));
+        payloads.put("page of 100", new PageImpl<>(rows.subList(0, 100), PageRequest.of(5, 100), 1_000_000));
+        payloads.put("cursor page of 100", new CursorPage<>(rows.subList(0, 100), 100,
+            TransactionCursor.ofId(rows.get(99).id()).encode()));
+
+        List<String> results = new ArrayList<>();
+        for (Map.Entry<String, Object> payload : payloads.entrySet()) {
+            int count = payload.getValue() instanceof TransactionView ? 1 : payload.getKey().endsWith("20") ? 20 : 100;
+            long jsonBytes = 0;
+            for (Map.Entry<String, ObjectMapper> format : formats.entrySet()) {
+                Measurement measurement = measure(format.getValue(), payload.getValue());
+                if (jsonBytes == 0) {
+                    jsonBytes = measurement.bytes;
+                }
+                assertTrue(measurement.bytes <= jsonBytes, format.getKey() + " " + payload.getKey());
+                results.add(row(payload.getKey(), format.getKey(), measurement, count, jsonBytes));
+            }
+        }
+        long jsonBytes = 0;
+        for (Map.Entry<String, ObjectMapper> format : formats.entrySet()) {
+            Measurement measurement = export(format.getValue(), rows, format.getKey().equals("JSON"));
+            if (jsonBytes == 0) {
+                jsonBytes = measurement.bytes;
+            }
+            results.add(row("export of " + EXPORT_ROWS, format.getKey(), measurement, EXPORT_ROWS, jsonBytes));
+        }
+
+        log.info("=== Wire Format Benchmark ({} iterations, serialize to byte[], parse to a tree) ===", ITERATIONS);
+        log.info("| Payload | Format | Bytes | vs JSON | gzip bytes | Bytes/transaction | Serialize | Serialize/transaction "
+            + "| Parse | Parse/transaction |");
+        results.forEach(log::info);
+        log.info("==========================================");
+    }
+
+    private Measurement measure(ObjectMapper mapper, Object payload) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(payload);
+        // Warm up, then time
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writeValueAsBytes(payload);
+            mapper.readTree(bytes);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writeValueAsBytes(payload);
+        }
+        long serialize = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.readTree(bytes);
+        }
+        long parse = System.nanoTime() - start;
+        return new Measurement(bytes.length, gzipSize(bytes), (double) serialize / ITERATIONS,
+            (double) parse / ITERATIONS);
+    }
+
+    /**
+     * 与导出接口相同的写法: 一个生成器连续写所有行, JSON每行后加换行
+     */
+    private Measurement export(ObjectMapper mapper, List<TransactionView> rows, boolean newlineDelimited)
+        throws IOException {
+        ObjectWriter writer = mapper.writerFor(TransactionView.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        int rounds = Math.max(1, ITERATIONS / 1_000);
+        byte[] bytes = null;
+        long serialize = 0;
+        for (int round = 0; round < 2 * rounds; round++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+            long start = System.nanoTime();
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                if (newlineDelimited) {
+                    generator.setRootValueSeparator(null);
+                }
+                for (TransactionView row : rows) {
+                    writer.writeValue(generator, row);
+                    if (newlineDelimited) {
+                        generator.writeRaw('\n');
+                    }
+                }
+            }
+            // The first half of the rounds is warm-up
+            if (round >= rounds) {
+                serialize += System.nanoTime() - start;
+            }
+            bytes = out.toByteArray();
+        }
+
+        long parse = 0;
+        for (int round = 0; round < 2 * rounds; round++) {
+            long start = System.nanoTime();
+            try (MappingIterator<JsonNode> values = mapper.readerFor(JsonNode.class).readValues(bytes)) {
+                while (values.hasNext()) {
+                    values.next();
+                }
+            }
+            if (round >= rounds) {
+                parse += System.nanoTime() - start;
+            }
+        }
+        return new Measurement(bytes.length, gzipSize(bytes), (double) serialize / rounds, (double) parse / rounds);
+    }
+
+    private static String row(String payload, String format, Measurement measurement, int count, long jsonBytes) {
+        return String.format("| %s | %s | %d | %.0f%% | %d | %.1f | %.2f us | %.2f us | %.2f us | %.2f us |", payload,
+            format, measurement.bytes, 100.0 * measurement.bytes / jsonBytes, measurement.gzipBytes,
+            (double) measurement.bytes / count, measurement.serializeNanos / 1e3, measurement.serializeNanos / 1e3 / count,
+            measurement.parseNanos / 1e3, measurement.parseNanos / 1e3 / count);
+    }
+
+    private static int gzipSize(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+
+    private TransactionView view(long id) {
+        LocalDateTime createdAt = START.plusSeconds(id * 37).plusNanos(random.nextInt(1_000_000) * 1_000L);
+        return new TransactionView(id, "TXN-" + id, "ACC-" + (10_000_000 + random.nextInt(90_000)),
+            BigDecimal.valueOf(random.nextInt(1_000_000), 2), TransactionType.values()[random.nextInt(4)],
+            DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)] + " INV-" + random.nextInt(10_000_000), createdAt,
+            createdAt, (long) random.nextInt(3));
+    }
+
+    private record Measurement(long bytes, long gzipBytes, double serializeNanos, double parseNanos) {
+    }
+}
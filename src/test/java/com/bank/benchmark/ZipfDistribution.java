@@ -0,0 +1,40 @@
+package com.bank.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf分布采样, 返回 [0, size) 之间的排名, 0 最热门
+ * 预先计算累积分布再二分查找, 适合百万以内的键空间
+ */
+public class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    private final Random random;
+
+    public ZipfDistribution(int size, double exponent, long seed) {
+        this.cumulative = new double[size];
+        this.random = new Random(seed);
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    public int next() {
+        return next(random);
+    }
+
+    /**
+     * 使用调用方的随机源采样, 多线程时每个线程传入自己的随机源避免竞争
+     */
+    public int next(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+}
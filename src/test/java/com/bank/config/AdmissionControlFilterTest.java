@@ -0,0 +1,132 @@
+package com.bank.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 开启准入控制后: 按客户端限流返回429, 读写预算分开, 并发名额用完返回503, 请求结束后归还名额
+ * 客户端标识请求头只在来自可信代理时采用
+ */
+@SpringBootTest(properties = {
+    "bank.admission.enabled=true",
+    "bank.admission.read.rate=0.5",
+    "bank.admission.read.burst=2",
+    "bank.admission.write.initial-limit=1",
+    "bank.admission.write.min-limit=1",
+    "bank.admission.write.max-limit=1",
+    "bank.admission.write.target-latency=1s",
+    "bank.admission.trusted-proxies=127.0.0.1, 10.1.0.0/16"
+})
+@AutoConfigureMockMvc
+public class AdmissionControlFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AdmissionProperties admissionProperties;
+
+    @Autowired
+    private FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter;
+
+    @Test
+    void properties_ShouldBindIntoTheDefaultBudgets() {
+        assertEquals(0.5, admissionProperties.getRead().getRate());
+        assertEquals(2, admissionProperties.getRead().getBurst());
+        // Not overridden, kept from application.properties
+        assertEquals(256, admissionProperties.getRead().getMaxLimit());
+        assertEquals(Duration.ofSeconds(1), admissionProperties.getWrite().getTargetLatency());
+        assertEquals(List.of("127.0.0.1", "10.1.0.0/16"), admissionProperties.getTrustedProxies());
+    }
+
+    @Test
+    void clientHeaderFromUntrustedAddress_ShouldNotGetAFreshBucket() throws Exception {
+        AdmissionControlFilter filter = admissionControlFilter.getFilter();
+
+        // A new id on every request still shares the caller's bucket
+        int[] statuses = new int[3];
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(read("203.0.113.7", "rotating-" + i), response, new MockFilterChain());
+            statuses[i] = response.getStatus();
+        }
+        assertArrayEquals(new int[]{200, 200, 429}, statuses);
+
+        // Behind a trusted proxy every id has its own bucket
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(read("10.1.200.3", "proxied-" + System.nanoTime()), response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    @Test
+    void readsAboveTheClientRate_ShouldGet429WithRetryAfter() throws Exception {
+        String client = "reader-" + System.nanoTime();
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/v1/transactions/reference/ADMISSION-MISSING").header("X-Client-Id", client))
+                .andExpect(status().isNotFound());
+        }
+
+        mockMvc.perform(get("/v1/transactions/reference/ADMISSION-MISSING").header("X-Client-Id", client))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+            .andExpect(jsonPath("$.status").value(429));
+
+        // Other clients and this client's writes have their own buckets
+        mockMvc.perform(get("/v1/transactions/reference/ADMISSION-MISSING").header("X-Client-Id", client + "-other"))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(post("/v1/transactions").header("X-Client-Id", client)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"reference\":\"" + client + "\",\"account_number\":\"ADM001\",\"amount\":1.00,\"type\":\"DEPOSIT\"}"))
+            .andExpect(status().isCreated());
+    }
+
+    @Test
+    void writesAboveTheConcurrencyLimit_ShouldGet503UntilThePermitIsReleased() throws Exception {
+        AdmissionControlFilter filter = admissionControlFilter.getFilter();
+        MockHttpServletResponse nested = new MockHttpServletResponse();
+
+        // The write limit is 1, a second write while the first is inside the chain is shed
+        filter.doFilter(write("outer"), new MockHttpServletResponse(),
+            (request, response) -> filter.doFilter(write("nested"), nested, new MockFilterChain()));
+
+        assertEquals(503, nested.getStatus());
+        assertEquals("1", nested.getHeader(HttpHeaders.RETRY_AFTER));
+
+        MockHttpServletResponse after = new MockHttpServletResponse();
+        filter.doFilter(write("after"), after, new MockFilterChain());
+        assertEquals(200, after.getStatus());
+    }
+
+    private static MockHttpServletRequest read(String remoteAddress, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/transactions/reference/ADMISSION-MISSING");
+        request.setRemoteAddr(remoteAddress);
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+
+    private static MockHttpServletRequest write(String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/v1/transactions/1");
+        request.addHeader("X-Client-Id", client + "-" + System.nanoTime());
+        return request;
+    }
+}
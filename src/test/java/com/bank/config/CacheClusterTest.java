@@ -0,0 +1,113 @@
+package com.bank.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 失效广播的合并与去重、节点只接收其他节点的消息; L2只接受更新的版本, 删除留下的标记挡住旧值写回
+ */
+public class CacheClusterTest {
+
+    @Test
+    void broadcast_ShouldCoalesceABurstIntoOneMessagePerWindow() throws Exception {
+        CacheInvalidationBus bus = new EmbeddedCacheInvalidationBus("coalesce", Duration.ZERO);
+        List<List<String>> received = new CopyOnWriteArrayList<>();
+        try (CacheInvalidationBroadcaster a = new CacheInvalidationBroadcaster(bus, "a", Duration.ofHours(1), 1_000);
+             CacheInvalidationBroadcaster b = new CacheInvalidationBroadcaster(bus, "b", Duration.ofHours(1), 1_000)) {
+            a.listen(received::add);
+            b.listen(received::add);
+
+            for (int i = 0; i < 100; i++) {
+                a.broadcast(List.of("REF-" + i % 10));
+            }
+            a.flush();
+            await(() -> received.size() == 1);
+
+            assertEquals(List.of("REF-0", "REF-1", "REF-2", "REF-3", "REF-4", "REF-5", "REF-6", "REF-7", "REF-8", "REF-9"),
+                received.get(0));
+            assertEquals(100, a.getRequestedReferences());
+            assertEquals(10, a.getPublishedReferences());
+            assertEquals(1, a.getMessages());
+            assertEquals(0, a.getReceivedMessages());
+            assertEquals(1, b.getReceivedMessages());
+        }
+    }
+
+    @Test
+    void broadcast_ShouldPublishWhenTheWindowEndsOrTheBatchIsFull() throws Exception {
+        CacheInvalidationBus bus = new EmbeddedCacheInvalidationBus("batch", Duration.ZERO);
+        List<List<String>> received = new CopyOnWriteArrayList<>();
+        try (CacheInvalidationBroadcaster full = new CacheInvalidationBroadcaster(bus, "full", Duration.ofHours(1), 3);
+             CacheInvalidationBroadcaster window = new CacheInvalidationBroadcaster(bus, "window", Duration.ofMillis(20), 1_000);
+             CacheInvalidationBroadcaster receiver = new CacheInvalidationBroadcaster(bus, "receiver", Duration.ZERO, 1)) {
+            receiver.listen(received::add);
+
+            full.broadcast(List.of("A", "B"));
+            full.broadcast(List.of("B"));
+            Thread.sleep(50);
+            assertTrue(received.isEmpty());
+            full.broadcast(List.of("C"));
+            await(() -> received.size() == 1);
+            assertEquals(List.of("A", "B", "C"), received.get(0));
+
+            window.broadcast(List.of("D"));
+            window.broadcast(List.of("E"));
+            await(() -> received.size() == 2);
+            assertEquals(List.of("D", "E"), received.get(1));
+        }
+    }
+
+    @Test
+    void sharedCache_ShouldOnlyAcceptNewerVersionsAndNothingAfterAnInvalidation() {
+        CacheClusterProperties.L2 properties = new CacheClusterProperties.L2();
+        SharedTransactionCache cache = new EmbeddedSharedTransactionCache(properties);
+
+        cache.put("REF-1", 2, bytes("v2"));
+        cache.put("REF-1", 1, bytes("v1"));
+        assertArrayEquals(bytes("v2"), cache.get("REF-1"));
+        cache.put("REF-1", 3, bytes("v3"));
+        assertArrayEquals(bytes("v3"), cache.get("REF-1"));
+
+        // A read that started before the delete must not bring the transaction back
+        cache.invalidate(List.of("REF-1"));
+        assertNull(cache.get("REF-1"));
+        cache.put("REF-1", 3, bytes("v3"));
+        assertNull(cache.get("REF-1"));
+    }
+
+    @Test
+    void sharedCache_TombstonesShouldExpire() throws Exception {
+        CacheClusterProperties.L2 properties = new CacheClusterProperties.L2();
+        properties.setTombstoneTtl(Duration.ofMillis(20));
+        EmbeddedSharedTransactionCache cache = new EmbeddedSharedTransactionCache(properties);
+
+        cache.invalidate(List.of("REF-2"));
+        Thread.sleep(50);
+        cache.put("REF-2", 0, bytes("v0"));
+        assertArrayEquals(bytes("v0"), cache.get("REF-2"));
+        assertEquals(3, cache.getRoundTrips());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.bank.config;
+
+import com.bank.BankApplication;
+import com.bank.dto.TransactionView;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.service.TransactionService;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * prod profile: 数据写入文件库, 重启后仍在; 启动时由Flyway建表, 就绪前把最近更新的交易预热进缓存
+ */
+public class ProdProfileRestartTest {
+
+    @TempDir
+    Path storageDir;
+
+    @Test
+    void restart_ShouldKeepDataAndWarmRecentlyUpdatedTransactions() {
+        try (ConfigurableApplicationContext context = start()) {
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            for (int i = 0; i < 30; i++) {
+                transactionService.createTransaction(transaction("PROD-" + i, "10.00"));
+            }
+            // Updating the oldest transaction makes it one of the most recent ones
+            transactionService.updateTransaction("PROD-0", transaction("PROD-0", "99.00"));
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            assertEquals(ReadinessState.ACCEPTING_TRAFFIC, context.getBean(ApplicationAvailability.class).getReadinessState());
+
+            @SuppressWarnings("unchecked")
+            Cache<String, Object> cache = (Cache<String, Object>) context.getBean("transactionByReferenceCache");
+            assertEquals(10, cache.estimatedSize());
+            assertNotNull(cache.getIfPresent("PROD-0"));
+            assertNotNull(cache.getIfPresent("PROD-29"));
+            assertNotNull(cache.getIfPresent("PROD-21"));
+            assertNull(cache.getIfPresent("PROD-20"));
+
+            TransactionView updated = (TransactionView) cache.getIfPresent("PROD-0");
+            assertEquals(0, new BigDecimal("99.00").compareTo(updated.amount()));
+            assertEquals("PROD-1", context.getBean(TransactionService.class).getTransactionByReference("PROD-1").reference());
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(BankApplication.class)
+            .profiles("prod")
+            .run("--server.port=0",
+                "--bank.storage.dir=" + storageDir.toAbsolutePath(),
+                "--bank.cache.transaction.warmup.size=10",
+                "--bank.cache.transaction.warmup.batch-size=3");
+    }
+
+    private static Transaction transaction(String reference, String amount) {
+        return new Transaction(null, reference, "PROD-ACC", new BigDecimal(amount), TransactionType.DEPOSIT, "prod");
+    }
+}
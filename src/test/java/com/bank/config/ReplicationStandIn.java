@@ -0,0 +1,222 @@
+package com.bank.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.flywaydb.core.Flyway;
+import org.h2.api.Trigger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试用的复制替身, 把一个H2主库的变更异步复制到另一个H2副本
+ * 主库上的行级触发器把变更行的主键写入 replication_log, 与业务写入在同一事务中提交或回滚;
+ * 后台线程定期读取日志, 从主库读出这些行的当前值写入副本(已不存在则从副本删除), 再删除已复制的日志
+ * delay 模拟复制延迟: 只复制记录时间早于 now - delay 的日志
+ */
+public class ReplicationStandIn implements AutoCloseable {
+
+    /**
+     * 复制的表及其主键
+     */
+    private static final Map<String, String> TABLES = Map.of(
+        "TRANSACTIONS", "ID",
+        "ACCOUNT_SUMMARIES", "ACCOUNT_NUMBER",
+        "REPLICATION_HEARTBEAT", "ID");
+
+    private static final int BATCH = 1_000;
+
+    private final DataSource primary;
+
+    private final DataSource replica;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("replication-stand-in").setDaemon(true).build());
+
+    private volatile long delayMillis;
+
+    public ReplicationStandIn(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    /**
+     * 建表和触发器, 迁移副本的表结构并复制现有数据, 然后按间隔复制
+     */
+    public ReplicationStandIn start(Duration interval) throws SQLException {
+        Flyway.configure().dataSource(replica).load().migrate();
+        try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists replication_log (seq bigint generated by default as identity "
+                + "primary key, table_name varchar(64) not null, row_key varchar(255) not null, logged_at bigint not null)");
+            for (String table : TABLES.keySet()) {
+                statement.execute("create trigger if not exists replicate_" + table + " after insert, update, delete on "
+                    + table + " for each row call '" + LogTrigger.class.getName() + "'");
+            }
+        }
+        for (Map.Entry<String, String> table : TABLES.entrySet()) {
+            copyAll(table.getKey(), table.getValue());
+        }
+        executor.scheduleWithFixedDelay(this::replicateQuietly, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    public void setDelay(Duration delay) {
+        this.delayMillis = delay.toMillis();
+    }
+
+    /**
+     * 不考虑 delay, 立即复制日志中的全部变更
+     */
+    public void flush() throws Exception {
+        executor.submit(() -> {
+            while (replicate(Long.MAX_VALUE) > 0) {
+                // Drain the log
+            }
+            return null;
+        }).get();
+    }
+
+    private void replicateQuietly() {
+        try {
+            replicate(System.currentTimeMillis() - delayMillis);
+        } catch (SQLException e) {
+            // The next run retries, the log entries are only deleted after they were applied
+        }
+    }
+
+    /**
+     * @return 本次复制的日志条数
+     */
+    private int replicate(long loggedBefore) throws SQLException {
+        List<Long> applied = new ArrayList<>();
+        Set<List<String>> rows = new LinkedHashSet<>();
+        try (Connection connection = primary.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select seq, table_name, row_key from replication_log "
+                 + "where logged_at <= ? order by seq limit " + BATCH)) {
+            statement.setLong(1, loggedBefore);
+            try (ResultSet log = statement.executeQuery()) {
+                while (log.next()) {
+                    applied.add(log.getLong(1));
+                    rows.add(List.of(log.getString(2), log.getString(3)));
+                }
+            }
+        }
+        if (applied.isEmpty()) {
+            return 0;
+        }
+        for (List<String> row : rows) {
+            copy(row.get(0), TABLES.get(row.get(0)), row.get(1));
+        }
+        // Delete exactly what was read, an entry committed later may carry a smaller seq
+        try (Connection connection = primary.getConnection();
+             PreparedStatement statement = connection.prepareStatement("delete from replication_log where seq = ?")) {
+            for (long seq : applied) {
+                statement.setLong(1, seq);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        return applied.size();
+    }
+
+    private void copyAll(String table, String key) throws SQLException {
+        List<String> keys = new ArrayList<>();
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select " + key + " from " + table)) {
+            while (rows.next()) {
+                keys.add(rows.getString(1));
+            }
+        }
+        for (String row : keys) {
+            copy(table, key, row);
+        }
+    }
+
+    /**
+     * 从主库读出行的当前值写入副本, 主库中已不存在时从副本删除
+     */
+    private void copy(String table, String key, String rowKey) throws SQLException {
+        try (Connection source = primary.getConnection();
+             PreparedStatement select = source.prepareStatement("select * from " + table + " where " + key + " = ?");
+             Connection target = replica.getConnection()) {
+            select.setString(1, rowKey);
+            try (ResultSet row = select.executeQuery()) {
+                if (!row.next()) {
+                    try (PreparedStatement delete = target.prepareStatement("delete from " + table + " where " + key + " = ?")) {
+                        delete.setString(1, rowKey);
+                        delete.executeUpdate();
+                    }
+                    return;
+                }
+                ResultSetMetaData columns = row.getMetaData();
+                StringBuilder names = new StringBuilder();
+                StringBuilder values = new StringBuilder();
+                for (int column = 1; column <= columns.getColumnCount(); column++) {
+                    names.append(column > 1 ? ", " : "").append(columns.getColumnName(column));
+                    values.append(column > 1 ? ", ?" : "?");
+                }
+                try (PreparedStatement merge = target.prepareStatement(
+                    "merge into " + table + " (" + names + ") key (" + key + ") values (" + values + ")")) {
+                    for (int column = 1; column <= columns.getColumnCount(); column++) {
+                        merge.setObject(column, row.getObject(column));
+                    }
+                    merge.executeUpdate();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 主库上的行级触发器, 在触发语句的事务中记录变更行的主键
+     */
+    public static class LogTrigger implements Trigger {
+
+        private String table;
+
+        private int keyColumn;
+
+        @Override
+        public void init(Connection connection, String schemaName, String triggerName, String tableName, boolean before,
+                         int type) throws SQLException {
+            this.table = tableName;
+            try (ResultSet column = connection.getMetaData().getColumns(null, schemaName, tableName, TABLES.get(tableName))) {
+                if (!column.next()) {
+                    throw new SQLException("No key column " + TABLES.get(tableName) + " in " + tableName);
+                }
+                this.keyColumn = column.getInt("ORDINAL_POSITION") - 1;
+            }
+        }
+
+        @Override
+        public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
+            Object[] row = newRow != null ? newRow : oldRow;
+            try (PreparedStatement statement = connection.prepareStatement(
+                "insert into replication_log (table_name, row_key, logged_at) values (?, ?, ?)")) {
+                statement.setString(1, table);
+                statement.setString(2, String.valueOf(row[keyColumn]));
+                statement.setLong(3, System.currentTimeMillis());
+                statement.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.bank.config;
+
+import com.bank.dto.TransactionView;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.repository.ShardRouter;
+import com.bank.repository.TransactionRepository;
+import com.bank.service.AccountSummaryService;
+import com.bank.service.PendingTransactions;
+import com.bank.service.TransactionSearchService;
+import com.bank.service.TransactionStatsService;
+import com.bank.service.impl.TransactionServiceImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 紧凑编码: 各字段往返无损, 缺失字段保持为null, 服务层读写缓存时存的是byte[]
+ */
+public class TransactionCacheCodecTest {
+
+    private final TransactionCacheCodec codec = new TransactionCacheCodec(TransactionCacheProperties.Encoding.COMPACT);
+
+    @Test
+    void compact_ShouldRoundTripAllFields() {
+        Transaction transaction = new Transaction(42L, "REF-1", "ACC-中文-001", new BigDecimal("12345.67"),
+            TransactionType.TRANSFER, "Payment for order #123");
+        transaction.setCreatedAt(LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_456_000));
+        transaction.setUpdatedAt(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000));
+        transaction.setVersion(1L << 40);
+
+        TransactionView view = TransactionView.of(transaction);
+
+        Object encoded = codec.encode(view);
+
+        assertInstanceOf(byte[].class, encoded);
+        assertEquals(view, codec.decode("REF-1", encoded));
+        assertEquals(1L << 40, codec.version("REF-1", encoded));
+    }
+
+    @Test
+    void compact_ShouldKeepMissingFieldsAndLargeAmounts() {
+        // A pending asynchronous transaction has no id or timestamps yet
+        TransactionView pending = TransactionView.of(new Transaction(null, "REF-2", "ACC-2",
+            new BigDecimal("123456789012345678901234567890.12"), TransactionType.DEPOSIT, null));
+
+        TransactionView decoded = codec.decode("REF-2", codec.encode(pending));
+
+        assertEquals(pending, decoded);
+        assertNull(decoded.id());
+        assertNull(decoded.createdAt());
+        assertEquals(-1, codec.version("REF-2", codec.encode(pending)));
+        assertNull(codec.decode("REF-3", null));
+    }
+
+    @Test
+    void compactCache_ShouldStoreBytesAndReturnEqualTransaction() {
+        TransactionCacheProperties properties = new TransactionCacheProperties();
+        properties.setEncoding(TransactionCacheProperties.Encoding.COMPACT);
+        CacheConfig cacheConfig = new CacheConfig();
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        Cache<String, Object> cache = cacheConfig.transactionByReferenceCache(properties, transactionRepository, ShardRouter.single(null));
+        TransactionServiceImpl transactionService = new TransactionServiceImpl(transactionRepository, cache,
+            cacheConfig.transactionNotFoundCache(properties), PendingTransactions.NONE, null, mock(AccountSummaryService.class),
+            cacheConfig.transactionCacheCodec(properties), mock(TransactionStatsService.class),
+            mock(TransactionSearchService.class), null, null, SharedTransactionCache.NONE, CacheInvalidationBroadcaster.local());
+        Transaction transaction = new Transaction(7L, "REF-4", "ACC-4", new BigDecimal("10.00"), TransactionType.PAYMENT, "rent");
+        transaction.setCreatedAt(LocalDateTime.of(2024, 1, 1, 8, 0));
+        transaction.setUpdatedAt(LocalDateTime.of(2024, 1, 2, 8, 0));
+        TransactionView view = TransactionView.of(transaction);
+        when(transactionRepository.findViewByReference("REF-4")).thenReturn(Optional.of(view));
+
+        assertEquals(view, transactionService.getTransactionByReference("REF-4"));
+        assertInstanceOf(byte[].class, cache.getIfPresent("REF-4"));
+        assertEquals(view, transactionService.getTransactionByReference("REF-4"));
+        verify(transactionRepository, times(1)).findViewByReference("REF-4");
+    }
+}
@@ -0,0 +1,137 @@
+package com.bank.config;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 开启虚拟线程后通过HTTP并发调用各个接口, 用JFR记录 jdk.VirtualThreadPinned 事件,
+ * 验证事务、缓存未命中合并加载、账户汇总加锁这些阻塞路径都不会钉住载体线程
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "bank.threads.virtual.enabled=true",
+    "spring.datasource.url=jdbc:h2:mem:virtualthreads",
+    "spring.jpa.show-sql=false"
+})
+public class VirtualThreadConfigTest {
+
+    private static final int CLIENTS = 200;
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        // 200 simultaneous connects on a single-CPU runner can queue in the accept backlog for several seconds
+        .connectTimeout(Duration.ofSeconds(30))
+        .build();
+
+    @Test
+    void blockingPaths_ShouldRunOnVirtualThreadsWithoutPinning() throws Exception {
+        List<String> pinned = new CopyOnWriteArrayList<>();
+        AtomicInteger handlerThreads = new AtomicInteger();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.enable("jdk.VirtualThreadStart");
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.add(describe(event)));
+            recording.onEvent("jdk.VirtualThreadStart", event -> {
+                if (event.getThread("eventThread") != null
+                    && String.valueOf(event.getThread("eventThread").getJavaName()).startsWith("tomcat-handler-")) {
+                    handlerThreads.incrementAndGet();
+                }
+            });
+            recording.startAsync();
+
+            runClients();
+
+            recording.stop();
+        }
+
+        assertTrue(handlerThreads.get() >= CLIENTS, "Requests were not handled on virtual threads");
+        assertTrue(pinned.isEmpty(), "Virtual threads were pinned:\n" + String.join("\n\n", pinned));
+    }
+
+    private void runClients() throws Exception {
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new CopyOnWriteArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                int id = client;
+                futures.add(clients.submit(() -> {
+                    String reference = "VT-" + id;
+                    // Four accounts so that summary updates contend on the same stripe locks
+                    String account = "VT-ACC-" + (id % 4);
+                    HttpResponse<String> created = send(HttpRequest.newBuilder(uri("/v1/transactions"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json(reference, account, "10.00"))));
+                    assertEquals(201, created.statusCode(), created.body());
+
+                    // Concurrent misses on the same unknown references share one load each
+                    assertEquals(404, send(HttpRequest.newBuilder(uri("/v1/transactions/reference/VT-MISSING-" + (id % 5))).GET())
+                        .statusCode());
+                    assertEquals(200, send(HttpRequest.newBuilder(uri("/v1/transactions/cursor?size=20")).GET()).statusCode());
+                    assertEquals(200, send(HttpRequest.newBuilder(uri("/v1/transactions/reference/" + reference))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(json(reference, account, "20.00")))).statusCode());
+                    assertEquals(200, send(HttpRequest.newBuilder(uri("/v1/accounts/" + account + "/summary")).GET()).statusCode());
+
+                    Matcher matcher = ID.matcher(created.body());
+                    assertTrue(matcher.find(), created.body());
+                    assertEquals(204, send(HttpRequest.newBuilder(uri("/v1/transactions/id/" + matcher.group(1))).DELETE())
+                        .statusCode());
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return httpClient.send(request.timeout(Duration.ofSeconds(60)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String json(String reference, String account, String amount) {
+        return "{\"reference\":\"" + reference + "\",\"account_number\":\"" + account
+            + "\",\"amount\":" + amount + ",\"type\":\"DEPOSIT\",\"description\":\"virtual threads\"}";
+    }
+
+    private static String describe(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return event.toString();
+        }
+        return event.getStackTrace().getFrames().stream()
+            .limit(30)
+            .map(RecordedFrame::getMethod)
+            .map(method -> method.getType().getName() + "." + method.getName())
+            .collect(Collectors.joining("\n    at ", "pinned in ", ""));
+    }
+}
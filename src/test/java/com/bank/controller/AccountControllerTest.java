@@ -0,0 +1,92 @@
+package com.bank.controller;
+
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionView;
+import com.bank.exception.AccountNotFoundException;
+import com.bank.model.AccountSummary;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.service.AccountSummaryService;
+import com.bank.service.TransactionService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AccountController.class)
+public class AccountControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TransactionService transactionService;
+
+    @MockBean
+    private AccountSummaryService accountSummaryService;
+
+    @Test
+    void getAccountSummary_ShouldReturnSummary() throws Exception {
+        AccountSummary summary = new AccountSummary();
+        summary.setAccountNumber("LYQ001");
+        summary.setBalance(new BigDecimal("70.00"));
+        summary.setDepositCount(1);
+        summary.setWithdrawalCount(1);
+        when(accountSummaryService.getAccountSummary("LYQ001")).thenReturn(summary);
+
+        mockMvc.perform(get("/v1/accounts/LYQ001/summary"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.account_number").value("LYQ001"))
+            .andExpect(jsonPath("$.balance").value(70.00))
+            .andExpect(jsonPath("$.deposit_count").value(1))
+            .andExpect(jsonPath("$.withdrawal_count").value(1));
+    }
+
+    @Test
+    void getAccountSummary_UnknownAccount_ShouldReturnNotFound() throws Exception {
+        when(accountSummaryService.getAccountSummary("NOPE")).thenThrow(new AccountNotFoundException("none"));
+
+        mockMvc.perform(get("/v1/accounts/NOPE/summary"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getAccountTransactions_ShouldPassFiltersAndReturnCursorPage() throws Exception {
+        Transaction transaction = new Transaction(1L, "TEST123", "LYQ001",
+            new BigDecimal("100.00"), TransactionType.DEPOSIT, "Test deposit");
+        when(transactionService.getAccountTransactions(eq("LYQ001"), eq(TransactionType.DEPOSIT),
+            eq(LocalDateTime.of(2024, 1, 1, 0, 0)), isNull(), isNull(), eq(10)))
+            .thenReturn(new CursorPage<>(List.of(TransactionView.of(transaction)), 10, null));
+
+        mockMvc.perform(get("/v1/accounts/LYQ001/transactions")
+                .param("type", "DEPOSIT")
+                .param("from", "2024-01-01T00:00:00")
+                .param("size", "10"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content[0].reference").value("TEST123"))
+            .andExpect(jsonPath("$.next_cursor").doesNotExist());
+    }
+
+    @Test
+    void getAccountTransactions_UnknownType_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/v1/accounts/LYQ001/transactions")
+                .param("type", "REFUND"))
+            .andExpect(status().isBadRequest());
+
+        verify(transactionService, never()).getAccountTransactions(any(), any(), any(), any(), any(), anyInt());
+    }
+}
@@ -0,0 +1,73 @@
+package com.bank.controller;
+
+import com.bank.dto.TransactionStats;
+import com.bank.exception.InvalidStatsWindowException;
+import com.bank.model.TransactionType;
+import com.bank.service.TransactionStatsService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StatsController.class)
+public class StatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TransactionStatsService transactionStatsService;
+
+    @Test
+    void getStats_ShouldParseWindowsAndReturnTotals() throws Exception {
+        Map<TransactionType, TransactionStats.Totals> byType = new EnumMap<>(TransactionType.class);
+        byType.put(TransactionType.DEPOSIT, new TransactionStats.Totals(2, new BigDecimal("150.00")));
+        TransactionStats stats = new TransactionStats(LocalDateTime.of(2024, 1, 1, 12, 0), 10, List.of(
+            new TransactionStats.Window("5m", 2, new BigDecimal("150.00"), byType,
+                List.of(new TransactionStats.AccountTotals("LYQ001", 2, new BigDecimal("150.00"))))));
+        when(transactionStatsService.getStats(List.of(Duration.ofMinutes(5), Duration.ofMinutes(15)))).thenReturn(stats);
+
+        mockMvc.perform(get("/v1/stats").param("window", "5m", "PT15M"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.bucket_width_seconds").value(10))
+            .andExpect(jsonPath("$.windows[0].window").value("5m"))
+            .andExpect(jsonPath("$.windows[0].by_type.DEPOSIT.count").value(2))
+            .andExpect(jsonPath("$.windows[0].top_accounts[0].account_number").value("LYQ001"));
+    }
+
+    @Test
+    void getStats_WithoutWindow_ShouldUseDefaults() throws Exception {
+        when(transactionStatsService.getStats(List.of()))
+            .thenReturn(new TransactionStats(LocalDateTime.now(), 10, List.of()));
+
+        mockMvc.perform(get("/v1/stats"))
+            .andExpect(status().isOk());
+
+        verify(transactionStatsService).getStats(List.of());
+    }
+
+    @Test
+    void getStats_InvalidWindow_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/v1/stats").param("window", "soon"))
+            .andExpect(status().isBadRequest());
+
+        when(transactionStatsService.getStats(any())).thenThrow(new InvalidStatsWindowException("too long"));
+        mockMvc.perform(get("/v1/stats").param("window", "2h"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("too long"));
+    }
+}
@@ -1,32 +1,70 @@
 package com.bank.controller;
 
+import com.bank.config.WireFormatConfig;
+import com.bank.dto.BatchCreateResult;
+import com.bank.dto.BatchItemResult;
+import com.bank.dto.BulkResult;
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.CursorPage;
+import com.bank.dto.IngestionStatus;
+import com.bank.dto.TransactionCriteria;
+import com.bank.dto.TransactionView;
+import com.bank.exception.IngestionQueueFullException;
+import com.bank.exception.InvalidBulkRequestException;
+import com.bank.exception.InvalidSearchQueryException;
+import com.bank.exception.PreconditionFailedException;
 import com.bank.model.Transaction;
 import com.bank.model.TransactionType;
+import com.bank.service.TransactionBulkService;
+import com.bank.service.TransactionIngestionService;
+import com.bank.service.TransactionSearchService;
 import com.bank.service.TransactionService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(TransactionController.class)
+@Import(WireFormatConfig.class)
 public class TransactionControllerTest {
 
     @Autowired
@@ -35,9 +73,24 @@ public class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionIngestionService transactionIngestionService;
+
+    @MockBean
+    private TransactionBulkService transactionBulkService;
+
+    @MockBean
+    private TransactionSearchService transactionSearchService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
     private Transaction transaction;
 
     @Test
@@ -58,11 +111,72 @@ public class TransactionControllerTest {
             .andExpect(jsonPath("$.amount").value(100.00));
     }
 
+    @Test
+    void createTransactions_ShouldReturnPerItemResults() throws Exception {
+        List<Transaction> batch = Arrays.asList(
+            new Transaction(null, "BATCH-1", "LYQ001", new BigDecimal("10.00"), TransactionType.DEPOSIT, "ok"),
+            new Transaction(null, "BATCH-1", "LYQ001", new BigDecimal("10.00"), TransactionType.DEPOSIT, "dup"));
+
+        when(transactionService.createTransactions(anyList())).thenReturn(new BatchCreateResult(Arrays.asList(
+            BatchItemResult.created(0, "BATCH-1", 1L),
+            BatchItemResult.duplicate(1, "BATCH-1"))));
+
+        mockMvc.perform(post("/v1/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(1))
+            .andExpect(jsonPath("$.duplicate").value(1))
+            .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+            .andExpect(jsonPath("$.items[1].status").value("DUPLICATE"));
+    }
+
+    @Test
+    void createTransactions_EmptyBatch_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/v1/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+            .andExpect(status().isBadRequest());
+
+        verify(transactionService, never()).createTransactions(anyList());
+    }
+
+    @Test
+    void createTransactions_DuplicateReferenceAtInsert_ShouldReturnConflict() throws Exception {
+        when(transactionService.createTransactions(anyList())).thenThrow(new DataIntegrityViolationException("duplicate",
+            new ConstraintViolationException("Unique index violation: PUBLIC.UK_TRANSACTIONS_REFERENCE_INDEX_F; SQL statement: insert",
+                null, "PUBLIC.UK_TRANSACTIONS_REFERENCE_INDEX_F")));
+
+        mockMvc.perform(post("/v1/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(new Transaction(null, "BATCH-1", "LYQ001",
+                    new BigDecimal("10.00"), TransactionType.DEPOSIT, "ok")))))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value("Transaction reference already exists"));
+    }
+
+    @Test
+    void createTransactions_OtherIntegrityViolation_ShouldNotExposeDatabaseMessage() throws Exception {
+        when(transactionService.createTransactions(anyList())).thenThrow(new DataIntegrityViolationException("not null",
+            new ConstraintViolationException("NULL not allowed for column \"AMOUNT\"; SQL statement: insert",
+                null, "PUBLIC.CONSTRAINT_OTHER")));
+
+        mockMvc.perform(post("/v1/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(new Transaction(null, "BATCH-1", "LYQ001",
+                    new BigDecimal("10.00"), TransactionType.DEPOSIT, "ok")))))
+            .andExpect(status().isInternalServerError())
+            .andExpect(jsonPath("$.message").value("Internal error occurred"));
+    }
+
     @Test
     void getAllTransactions_ShouldReturnPageOfTransactions() throws Exception {
-        List<Transaction> transactions = Arrays.asList(transaction, new Transaction(2L, "TEST124", "LYQ001",
-            new BigDecimal("200.00"), TransactionType.WITHDRAWAL, "Test withdrawal"));
-        Page<Transaction> transactionPage = new PageImpl<>(transactions);
+        List<TransactionView> transactions = Arrays.asList(
+            TransactionView.of(new Transaction(1L, "TEST123", "LYQ001",
+                new BigDecimal("100.00"), TransactionType.DEPOSIT, "Test deposit")),
+            TransactionView.of(new Transaction(2L, "TEST124", "LYQ001",
+                new BigDecimal("200.00"), TransactionType.WITHDRAWAL, "Test withdrawal")));
+        Page<TransactionView> transactionPage = new PageImpl<>(transactions);
 
         when(transactionService.getAllTransactions(any(Pageable.class))).thenReturn(transactionPage);
 
@@ -76,12 +190,224 @@ public class TransactionControllerTest {
             .andExpect(jsonPath("$.totalElements").value(2));
     }
 
+    @Test
+    void getTransactions_ShouldReturnCursorPage() throws Exception {
+        TransactionView latest = TransactionView.of(new Transaction(2L, "TEST124", "LYQ001",
+            new BigDecimal("200.00"), TransactionType.WITHDRAWAL, "Test withdrawal"));
+
+        when(transactionService.getTransactions(eq("abc"), eq(1)))
+            .thenReturn(new CursorPage<>(List.of(latest), 1, "next"));
+
+        mockMvc.perform(get("/v1/transactions/cursor")
+                .param("cursor", "abc")
+                .param("size", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(1))
+            .andExpect(jsonPath("$.next_cursor").value("next"));
+    }
+
+    @Test
+    void getTransactions_SizeTooLarge_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/v1/transactions/cursor")
+                .param("size", "100000"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchTransactions_ShouldPassQueryAndFilters() throws Exception {
+        TransactionView view = new TransactionView(7L, "SEARCH-1", "LYQ001", new BigDecimal("12.00"),
+            TransactionType.PAYMENT, "Coffee at the airport", null, null, 0L);
+        when(transactionSearchService.search("coffee airport", "LYQ001", TransactionType.PAYMENT,
+            LocalDateTime.of(2024, 1, 1, 0, 0), null, null, 5))
+            .thenReturn(new CursorPage<>(List.of(view), 5, null));
+
+        mockMvc.perform(get("/v1/transactions/search")
+                .param("q", "coffee airport")
+                .param("account_number", "LYQ001")
+                .param("type", "PAYMENT")
+                .param("from", "2024-01-01T00:00:00")
+                .param("size", "5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content[0].reference").value("SEARCH-1"))
+            .andExpect(jsonPath("$.next_cursor").doesNotExist());
+    }
+
+    @Test
+    void searchTransactions_InvalidQuery_ShouldReturnBadRequest() throws Exception {
+        when(transactionSearchService.search(eq("!!"), any(), any(), any(), any(), any(), eq(20)))
+            .thenThrow(new InvalidSearchQueryException("Query must contain at least one word"));
+
+        mockMvc.perform(get("/v1/transactions/search").param("q", "!!"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Query must contain at least one word"));
+    }
+
+    @Test
+    void exportTransactions_ShouldStreamNewlineDelimitedJson() throws Exception {
+        stubExport();
+
+        MvcResult result = mockMvc.perform(get("/v1/transactions/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("{"));
+        assertEquals("EXPORT-1", objectMapper.readTree(lines[0]).get("reference").asText());
+        assertEquals("EXPORT-2", objectMapper.readTree(lines[1]).get("reference").asText());
+    }
+
+    @Test
+    void exportTransactions_AcceptGzip_ShouldCompressBody() throws Exception {
+        stubExport();
+
+        MvcResult result = mockMvc.perform(get("/v1/transactions/export")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        byte[] compressed = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        String body = new String(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes(),
+            StandardCharsets.UTF_8);
+        assertEquals(2, body.split("\n").length);
+    }
+
+    @Test
+    void exportTransactions_GzipRefusedOrOnlySubstring_ShouldNotCompress() throws Exception {
+        for (String acceptEncoding : List.of("gzip;q=0, deflate", "x-gzip-foo", "*;q=0.5, gzip;q=0")) {
+            stubExport();
+
+            MvcResult result = mockMvc.perform(get("/v1/transactions/export")
+                    .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsString();
+            assertEquals(2, body.split("\n").length, acceptEncoding);
+        }
+    }
+
+    @Test
+    void acceptsGzip_ShouldHonourQualityValues() {
+        assertTrue(TransactionController.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(TransactionController.acceptsGzip("br, *"));
+        assertFalse(TransactionController.acceptsGzip("gzip;q=0.000"));
+        assertFalse(TransactionController.acceptsGzip("*;q=1, gzip;q=0"));
+        assertFalse(TransactionController.acceptsGzip("gzipx, x-gzip-foo"));
+        assertFalse(TransactionController.acceptsGzip(null));
+    }
+
+    @Test
+    void exportTransactions_AcceptCborSeq_ShouldStreamCborValuesBackToBack() throws Exception {
+        stubExport();
+
+        MvcResult result = mockMvc.perform(get("/v1/transactions/export")
+                .header(HttpHeaders.ACCEPT, "application/x-ndjson;q=0.5, application/cbor-seq"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(WireFormatConfig.APPLICATION_CBOR_SEQ_VALUE))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        List<TransactionView> rows = cborConverter.getObjectMapper().readerFor(TransactionView.class)
+            .<TransactionView>readValues(body).readAll();
+        assertEquals(List.of("EXPORT-1", "EXPORT-2"), rows.stream().map(TransactionView::reference).toList());
+        assertEquals(new BigDecimal("20.00"), rows.get(1).amount());
+    }
+
+    @Test
+    void exportTransactions_AcceptSmile_ShouldStreamSmileValues() throws Exception {
+        stubExport();
+
+        MvcResult result = mockMvc.perform(get("/v1/transactions/export")
+                .header(HttpHeaders.ACCEPT, WireFormatConfig.APPLICATION_SMILE_VALUE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(WireFormatConfig.APPLICATION_SMILE_VALUE))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        List<TransactionView> rows = smileConverter.getObjectMapper().readerFor(TransactionView.class)
+            .<TransactionView>readValues(body).readAll();
+        assertEquals(2, rows.size());
+        assertEquals("second", rows.get(1).description());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubExport() {
+        doAnswer(invocation -> {
+            Consumer<TransactionView> consumer = invocation.getArgument(0);
+            consumer.accept(TransactionView.of(new Transaction(1L, "EXPORT-1", "LYQ001",
+                new BigDecimal("10.00"), TransactionType.DEPOSIT, "first")));
+            consumer.accept(TransactionView.of(new Transaction(2L, "EXPORT-2", "LYQ001",
+                new BigDecimal("20.00"), TransactionType.PAYMENT, "second")));
+            return null;
+        }).when(transactionService).exportTransactions(any(Consumer.class));
+    }
+
+    @Test
+    void submitTransaction_ShouldReturnAcceptedWithStatusLocation() throws Exception {
+        Transaction pending = new Transaction(null, "ASYNC-1", "LYQ001",
+            new BigDecimal("10.00"), TransactionType.DEPOSIT, "async");
+        when(transactionIngestionService.submit(any(Transaction.class)))
+            .thenReturn(new CompletableFuture<>());
+
+        mockMvc.perform(post("/v1/transactions/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(pending)))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string(HttpHeaders.LOCATION, "/v1/transactions/async/ASYNC-1"))
+            .andExpect(jsonPath("$.reference").value("ASYNC-1"))
+            .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    void submitTransaction_QueueFull_ShouldReturnTooManyRequests() throws Exception {
+        Transaction pending = new Transaction(null, "ASYNC-2", "LYQ001",
+            new BigDecimal("10.00"), TransactionType.DEPOSIT, "async");
+        when(transactionIngestionService.submit(any(Transaction.class)))
+            .thenThrow(new IngestionQueueFullException("Transaction ingestion queue is full, retry later"));
+
+        mockMvc.perform(post("/v1/transactions/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(pending)))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    void getIngestionStatus_ShouldReturnStatus() throws Exception {
+        when(transactionIngestionService.getStatus("ASYNC-1")).thenReturn(IngestionStatus.committed("ASYNC-1", 42L));
+
+        mockMvc.perform(get("/v1/transactions/async/ASYNC-1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("COMMITTED"))
+            .andExpect(jsonPath("$.id").value(42L))
+            .andExpect(jsonPath("$.message").doesNotExist());
+    }
+
     @Test
     void updateTransaction_ExistingId_ShouldReturnUpdatedTransaction() throws Exception {
         Transaction updatedTransaction = new Transaction(1L, "Test123-UPDATED", "LYQ001",
             new BigDecimal("150.00"), TransactionType.DEPOSIT, "Updated deposit");
 
-        when(transactionService.updateTransaction(eq("Test123-UPDATED"), any(Transaction.class)))
+        when(transactionService.updateTransaction(eq("Test123-UPDATED"), any(Transaction.class), eq(List.of())))
             .thenReturn(updatedTransaction);
 
         mockMvc.perform(put("/v1/transactions/reference/Test123-UPDATED")
@@ -93,6 +419,160 @@ public class TransactionControllerTest {
             .andExpect(jsonPath("$.amount").value(150.00));
     }
 
+    @Test
+    void getTransactionByReference_FormatRefusedWithZeroQuality_ShouldNotBeSent() throws Exception {
+        TransactionView view = new TransactionView(8L, "Q0-1", "LYQ001", new BigDecimal("10.00"),
+            TransactionType.DEPOSIT, "q0", LocalDateTime.of(2024, 1, 1, 12, 0), LocalDateTime.of(2024, 1, 2, 12, 0), 1L);
+        when(transactionService.getTransactionByReference("Q0-1")).thenReturn(view);
+
+        mockMvc.perform(get("/v1/transactions/reference/Q0-1").header(HttpHeaders.ACCEPT, "application/cbor;q=0"))
+            .andExpect(status().isNotAcceptable());
+
+        // The wildcard does not bring back a format refused by a more specific range
+        mockMvc.perform(get("/v1/transactions/reference/Q0-1")
+                .header(HttpHeaders.ACCEPT, "application/cbor, application/json;q=0, */*;q=0.5"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        mockMvc.perform(get("/v1/transactions/reference/Q0-1")
+                .header(HttpHeaders.ACCEPT, "*/*, application/json;q=0, application/cbor;q=0"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(WireFormatConfig.APPLICATION_SMILE))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"8-1.smile\""));
+
+        mockMvc.perform(get("/v1/transactions/export").header(HttpHeaders.ACCEPT, "application/x-ndjson;q=0"))
+            .andExpect(status().isNotAcceptable());
+        verify(transactionService, never()).exportTransactions(any());
+    }
+
+    @Test
+    void getTransactionByReference_AcceptCbor_ShouldReturnSameViewAsJson() throws Exception {
+        TransactionView view = new TransactionView(7L, "CBOR-1", "LYQ001", new BigDecimal("1234.56"),
+            TransactionType.PAYMENT, "cbor", LocalDateTime.of(2024, 1, 1, 12, 0), LocalDateTime.of(2024, 1, 2, 12, 0), 3L);
+        when(transactionService.getTransactionByReference("CBOR-1")).thenReturn(view);
+
+        byte[] body = mockMvc.perform(get("/v1/transactions/reference/CBOR-1").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"7-3.cbor\""))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(view, cborConverter.getObjectMapper().readValue(body, TransactionView.class));
+        assertTrue(body.length < objectMapper.writeValueAsBytes(view).length);
+
+        // Without Accept the response is still JSON
+        mockMvc.perform(get("/v1/transactions/reference/CBOR-1"))
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.account_number").value("LYQ001"));
+    }
+
+    @Test
+    void getAllTransactions_AcceptSmile_ShouldDropDerivablePageFields() throws Exception {
+        Page<TransactionView> transactionPage = new PageImpl<>(List.of(
+            TransactionView.of(new Transaction(1L, "SMILE-1", "LYQ001",
+                new BigDecimal("100.00"), TransactionType.DEPOSIT, "Test deposit"))), PageRequest.of(2, 1), 10);
+        when(transactionService.getAllTransactions(any(Pageable.class))).thenReturn(transactionPage);
+
+        byte[] body = mockMvc.perform(get("/v1/transactions").accept(WireFormatConfig.APPLICATION_SMILE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(WireFormatConfig.APPLICATION_SMILE))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = smileConverter.getObjectMapper().readTree(body);
+        assertEquals(List.of("content", "totalElements", "size", "number"),
+            ImmutableList.copyOf(page.fieldNames()));
+        assertEquals("SMILE-1", page.get("content").get(0).get("reference").asText());
+        assertEquals(10, page.get("totalElements").asLong());
+    }
+
+    @Test
+    void createTransaction_CborRequestBody_ShouldBeAccepted() throws Exception {
+        Transaction transaction = new Transaction(null, "CBOR-2", "LYQ001",
+            new BigDecimal("100.00"), TransactionType.DEPOSIT, "cbor deposit");
+        when(transactionService.createTransaction(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction created = invocation.getArgument(0);
+            created.setId(1L);
+            return created;
+        });
+
+        byte[] body = mockMvc.perform(post("/v1/transactions")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cborConverter.getObjectMapper().writeValueAsBytes(transaction)))
+            .andExpect(status().isCreated())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode created = cborConverter.getObjectMapper().readTree(body);
+        assertEquals(transaction.getReference(), created.get("reference").asText());
+        assertEquals(0, transaction.getAmount().compareTo(created.get("amount").decimalValue()));
+    }
+
+    @Test
+    void getTransactionByReference_MatchingIfNoneMatch_ShouldReturnNotModifiedWithoutBody() throws Exception {
+        TransactionView view = new TransactionView(7L, "ETAG-1", "LYQ001", new BigDecimal("10.00"),
+            TransactionType.DEPOSIT, "etag", LocalDateTime.of(2024, 1, 1, 12, 0), LocalDateTime.of(2024, 1, 2, 12, 0), 3L);
+        when(transactionService.getTransactionByReference("ETAG-1")).thenReturn(view);
+
+        String etag = mockMvc.perform(get("/v1/transactions/reference/ETAG-1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.reference").value("ETAG-1"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(view.etag(), etag);
+
+        mockMvc.perform(get("/v1/transactions/reference/ETAG-1").header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().string(""));
+
+        mockMvc.perform(get("/v1/transactions/reference/ETAG-1").header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void getTransactionByReference_EachFormat_ShouldHaveItsOwnETag() throws Exception {
+        TransactionView view = new TransactionView(7L, "ETAG-3", "LYQ001", new BigDecimal("10.00"),
+            TransactionType.DEPOSIT, "etag", LocalDateTime.of(2024, 1, 1, 12, 0), LocalDateTime.of(2024, 1, 2, 12, 0), 3L);
+        when(transactionService.getTransactionByReference("ETAG-3")).thenReturn(view);
+
+        String json = mockMvc.perform(get("/v1/transactions/reference/ETAG-3").accept(MediaType.APPLICATION_JSON))
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String smile = mockMvc.perform(get("/v1/transactions/reference/ETAG-3")
+                .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-jackson-smile"))
+            .andExpect(content().contentType(WireFormatConfig.APPLICATION_SMILE))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(view.etag(), json);
+        assertEquals("\"7-3.smile\"", smile);
+
+        // A validator of one representation does not validate another
+        mockMvc.perform(get("/v1/transactions/reference/ETAG-3").accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, json))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        mockMvc.perform(get("/v1/transactions/reference/ETAG-3").accept(WireFormatConfig.APPLICATION_SMILE)
+                .header(HttpHeaders.IF_NONE_MATCH, smile))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/v1/transactions/reference/ETAG-3").accept(MediaType.TEXT_PLAIN))
+            .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void updateTransaction_IfMatch_ShouldPassETagsAndMapMismatchToPreconditionFailed() throws Exception {
+        Transaction details = new Transaction(null, "ETAG-2", "LYQ001",
+            new BigDecimal("150.00"), TransactionType.DEPOSIT, "Updated deposit");
+        when(transactionService.updateTransaction(eq("ETAG-2"), any(Transaction.class), eq(List.of("\"a-1\"", "\"a-2\""))))
+            .thenThrow(new PreconditionFailedException("Transaction with reference: ETAG-2 has been modified"));
+
+        // The format a client read the transaction in does not matter to If-Match
+        mockMvc.perform(put("/v1/transactions/reference/ETAG-2")
+                .header(HttpHeaders.IF_MATCH, "\"a-1.cbor\", \"a-2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(details)))
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.status").value(412));
+    }
+
     @Test
     void deleteTransaction_ExistingId_ShouldReturnNoContent() throws Exception {
         // Arrange
@@ -105,4 +585,45 @@ public class TransactionControllerTest {
 
         verify(transactionService, times(1)).deleteTransaction(1L);
     }
+
+    @Test
+    void deleteTransactions_ShouldPassCriteriaAndReturnAffectedRows() throws Exception {
+        TransactionCriteria criteria = new TransactionCriteria("LYQ001", "TEST-", TransactionType.PAYMENT,
+            LocalDateTime.of(2024, 1, 1, 0, 0), null);
+        when(transactionBulkService.deleteTransactions(criteria)).thenReturn(new BulkResult(1500, 2, 35));
+
+        mockMvc.perform(delete("/v1/transactions")
+                .param("account_number", "LYQ001")
+                .param("reference_prefix", "TEST-")
+                .param("type", "PAYMENT")
+                .param("from", "2024-01-01T00:00:00"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.affected").value(1500))
+            .andExpect(jsonPath("$.chunks").value(2))
+            .andExpect(jsonPath("$.elapsed_ms").value(35));
+    }
+
+    @Test
+    void deleteTransactions_WithoutCriteria_ShouldReturnBadRequest() throws Exception {
+        when(transactionBulkService.deleteTransactions(any()))
+            .thenThrow(new InvalidBulkRequestException("At least one criterion is required"));
+
+        mockMvc.perform(delete("/v1/transactions"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("At least one criterion is required"));
+    }
+
+    @Test
+    void updateTransactions_ShouldPassCriteriaAndChanges() throws Exception {
+        TransactionCriteria criteria = new TransactionCriteria("LYQ001", null, null, null, null);
+        BulkUpdate update = new BulkUpdate("corrected", TransactionType.TRANSFER);
+        when(transactionBulkService.updateTransactions(criteria, update)).thenReturn(new BulkResult(3, 1, 4));
+
+        mockMvc.perform(patch("/v1/transactions")
+                .param("account_number", "LYQ001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\": \"corrected\", \"type\": \"TRANSFER\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.affected").value(3));
+    }
 }
@@ -0,0 +1,101 @@
+package com.bank.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 编号目录: 查找、扩容、同一编号落在不同分片时的歧义, 每个编号的内存占用, 以及写入和扩容期间的无锁读取
+ */
+public class ShardDirectoryTest {
+
+    @Test
+    void get_ShouldReturnTheShardOfEveryAddedReferenceAcrossResizes() {
+        ShardDirectory directory = new ShardDirectory(16);
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(ShardDirectory.ABSENT, directory.add("REF-" + i, i % 8));
+        }
+
+        assertEquals(100_000, directory.size());
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i % 8, directory.get("REF-" + i));
+        }
+        assertEquals(ShardDirectory.ABSENT, directory.get("REF-100000"));
+        // 9 bytes per slot at a load factor of at most 0.6, and never below 0.3 after doubling
+        assertTrue(directory.memoryBytes() <= 100_000 * 9 / 0.3, "memory " + directory.memoryBytes());
+    }
+
+    @Test
+    void add_SameShardAgain_ShouldKeepTheShard() {
+        ShardDirectory directory = new ShardDirectory(16);
+        directory.add("REF-1", 3);
+
+        assertEquals(3, directory.add("REF-1", 3));
+        assertEquals(3, directory.get("REF-1"));
+        assertEquals(1, directory.size());
+    }
+
+    @Test
+    void add_OtherShard_ShouldBecomeAmbiguousForGood() {
+        ShardDirectory directory = new ShardDirectory(16);
+        directory.add("REF-1", 3);
+
+        assertEquals(3, directory.add("REF-1", 5));
+        assertEquals(ShardDirectory.AMBIGUOUS, directory.get("REF-1"));
+        assertEquals(ShardDirectory.AMBIGUOUS, directory.add("REF-1", 3));
+        assertEquals(ShardDirectory.AMBIGUOUS, directory.get("REF-1"));
+    }
+
+    @Test
+    void add_ShardOutOfRange_ShouldThrow() {
+        ShardDirectory directory = new ShardDirectory(16);
+
+        assertThrows(IllegalArgumentException.class, () -> directory.add("REF-1", ShardDirectory.MAX_SHARDS));
+        assertThrows(IllegalArgumentException.class, () -> directory.add("REF-1", -1));
+    }
+
+    @Test
+    void get_DuringConcurrentAddsAndResizes_ShouldSeeEveryPublishedReference() throws Exception {
+        ShardDirectory directory = new ShardDirectory(16);
+        int references = 200_000;
+        AtomicInteger published = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    while (published.get() < references) {
+                        int added = published.get();
+                        // Everything published before the read must be found, later ones are absent or correct
+                        for (int i = Math.max(0, added - 1_000); i < added; i++) {
+                            assertEquals(i % 8, directory.get("REF-" + i));
+                        }
+                        int later = directory.get("REF-" + (added + 1));
+                        assertTrue(later == ShardDirectory.ABSENT || later == (added + 1) % 8, "shard " + later);
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < references; i++) {
+                directory.add("REF-" + i, i % 8);
+                published.set(i + 1);
+            }
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(references, directory.size());
+    }
+}
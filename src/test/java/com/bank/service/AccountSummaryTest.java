@@ -0,0 +1,142 @@
+package com.bank.service;
+
+import com.bank.exception.ConcurrentUpdateException;
+import com.bank.model.AccountSummary;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.repository.TransactionRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 在真实数据库上验证账户汇总随交易的创建、更新、删除正确增量维护
+ */
+@SpringBootTest
+public class AccountSummaryTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void summary_ShouldFollowCreateUpdateAndDelete() {
+        String account = "SUM-" + System.nanoTime();
+        String otherAccount = "SUM-OTHER-" + System.nanoTime();
+        transactionService.createTransaction(transaction(account + "-1", account, "100.00", TransactionType.DEPOSIT));
+        Transaction payment = transactionService.createTransaction(transaction(account + "-2", account, "30.00", TransactionType.PAYMENT));
+        assertSummary(account, "70.00", 1, 0, 0, 1);
+
+        // Amount and type change on the same account
+        transactionService.updateTransaction(payment.getReference(), transaction(payment.getReference(), account, "40.00", TransactionType.WITHDRAWAL));
+        assertSummary(account, "60.00", 1, 1, 0, 0);
+
+        // Moving the transaction to another account
+        transactionService.updateTransaction(payment.getReference(), transaction(payment.getReference(), otherAccount, "40.00", TransactionType.TRANSFER));
+        assertSummary(account, "100.00", 1, 0, 0, 0);
+        assertSummary(otherAccount, "-40.00", 0, 0, 1, 0);
+
+        transactionService.deleteTransaction(payment.getId());
+        assertSummary(otherAccount, "0.00", 0, 0, 0, 0);
+    }
+
+    @Test
+    void summary_ShouldStayConsistentUnderConcurrentWrites() throws Exception {
+        String prefix = "SUM-CONC-" + System.nanoTime();
+        int threads = 8;
+        int perThread = 24;
+        int accounts = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    String account = prefix + "-" + (i % accounts);
+                    transactionService.createTransaction(transaction(prefix + "-" + thread + "-" + i, account, "1.00", TransactionType.DEPOSIT));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int perAccount = threads * perThread / accounts;
+        for (int a = 0; a < accounts; a++) {
+            assertSummary(prefix + "-" + a, perAccount + ".00", perAccount, 0, 0, 0);
+        }
+    }
+
+    @Test
+    void summary_ShouldStayConsistentUnderConcurrentUpdatesOfOneTransaction() throws Exception {
+        String account = "SUM-UPD-" + System.nanoTime();
+        Transaction created = transactionService.createTransaction(transaction(account + "-1", account, "1.00", TransactionType.DEPOSIT));
+        int threads = 8;
+        int perThread = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    String amount = (thread + 1) + "." + String.format("%02d", i);
+                    try {
+                        transactionService.updateTransaction(created.getReference(),
+                            transaction(created.getReference(), account, amount, TransactionType.DEPOSIT));
+                    } catch (ConcurrentUpdateException e) {
+                        // Retries ran out, the update was rolled back as a whole
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Each update takes back exactly the amount the previous one wrote, so the balance is the last amount
+        BigDecimal last = transactionRepository.findByReference(created.getReference()).orElseThrow().getAmount();
+        assertSummary(account, last.toPlainString(), 1, 0, 0, 0);
+    }
+
+    @Test
+    void summary_ShouldIncludeBatchCreates() {
+        String account = "SUM-BATCH-" + System.nanoTime();
+        transactionService.createTransactions(List.of(
+            transaction(account + "-1", account, "10.00", TransactionType.DEPOSIT),
+            transaction(account + "-2", account, "2.50", TransactionType.PAYMENT),
+            transaction(account + "-2", account, "999.00", TransactionType.PAYMENT)));
+
+        assertSummary(account, "7.50", 1, 0, 0, 1);
+    }
+
+    private void assertSummary(String account, String balance, long deposits, long withdrawals, long transfers, long payments) {
+        AccountSummary summary = accountSummaryService.getAccountSummary(account);
+        assertEquals(0, new BigDecimal(balance).compareTo(summary.getBalance()), "balance of " + account);
+        assertEquals(deposits, summary.getDepositCount());
+        assertEquals(withdrawals, summary.getWithdrawalCount());
+        assertEquals(transfers, summary.getTransferCount());
+        assertEquals(payments, summary.getPaymentCount());
+    }
+
+    private static Transaction transaction(String reference, String account, String amount, TransactionType type) {
+        return new Transaction(null, reference, account, new BigDecimal(amount), type, "summary test");
+    }
+}
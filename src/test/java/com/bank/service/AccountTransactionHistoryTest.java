@@ -0,0 +1,88 @@
+package com.bank.service;
+
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionView;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 在真实数据库上验证账户交易历史的游标分页和过滤条件
+ */
+@SpringBootTest
+public class AccountTransactionHistoryTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Test
+    void accountHistory_ShouldPageNewestFirstWithoutGapsOrDuplicates() {
+        String account = "HIST-" + System.nanoTime();
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            TransactionType type = i % 5 == 0 ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT;
+            batch.add(new Transaction(null, account + "-" + i, account, new BigDecimal("1.00"), type, "history"));
+        }
+        batch.add(new Transaction(null, account + "-other", "OTHER-" + account,
+            new BigDecimal("1.00"), TransactionType.DEPOSIT, "other account"));
+        // 批量插入的交易创建时间几乎相同, 正好覆盖 created_at 相同时按 id 续页的情况
+        transactionService.createTransactions(batch);
+
+        Set<Long> seen = new HashSet<>();
+        TransactionView previous = null;
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<TransactionView> page = transactionService.getAccountTransactions(account, null, null, null, cursor, 10);
+            for (TransactionView transaction : page.getContent()) {
+                assertEquals(account, transaction.accountNumber());
+                assertTrue(seen.add(transaction.id()));
+                if (previous != null) {
+                    assertTrue(previous.createdAt().isAfter(transaction.createdAt())
+                        || (previous.createdAt().isEqual(transaction.createdAt())
+                        && previous.id() > transaction.id()));
+                }
+                previous = transaction;
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(25, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void accountHistory_ShouldFilterByTypeAndDateRange() {
+        String account = "FILTER-" + System.nanoTime();
+        transactionService.createTransaction(new Transaction(null, account + "-1", account,
+            new BigDecimal("1.00"), TransactionType.PAYMENT, "payment"));
+        transactionService.createTransaction(new Transaction(null, account + "-2", account,
+            new BigDecimal("1.00"), TransactionType.DEPOSIT, "deposit"));
+
+        CursorPage<TransactionView> payments = transactionService.getAccountTransactions(
+            account, TransactionType.PAYMENT, null, null, null, 10);
+        assertEquals(1, payments.getContent().size());
+        assertEquals(account + "-1", payments.getContent().get(0).reference());
+
+        CursorPage<TransactionView> future = transactionService.getAccountTransactions(
+            account, null, LocalDateTime.now().plusDays(1), null, null, 10);
+        assertTrue(future.getContent().isEmpty());
+
+        CursorPage<TransactionView> past = transactionService.getAccountTransactions(
+            account, null, null, LocalDateTime.now().minusDays(1), null, 10);
+        assertTrue(past.getContent().isEmpty());
+    }
+}
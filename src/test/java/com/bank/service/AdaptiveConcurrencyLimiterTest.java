@@ -0,0 +1,103 @@
+package com.bank.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AIMD并发上限: 上限内放行, 慢请求或下游过载时乘性减小(每个目标延迟周期一次), 用满时加性增大
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    private final AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(10, 2, 20, Duration.ofMillis(100), 0.5, now::get);
+
+    @Test
+    void tryAcquire_ShouldRejectAboveTheLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        limiter.releaseIgnored();
+        assertEquals(10, limiter.getLimit());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void release_SlowOrOverloaded_ShouldDecreaseOncePerLatencyPeriod() {
+        acquire(3);
+        limiter.release(SLOW, false);
+        assertEquals(5, limiter.getLimit());
+
+        // Same congestion episode
+        limiter.release(SLOW, false);
+        assertEquals(5, limiter.getLimit());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        limiter.release(FAST, true);
+        assertEquals(2, limiter.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            acquire(1);
+            limiter.release(SLOW, false);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void release_FastWhileBusy_ShouldIncreaseAdditivelyUpToMax() {
+        // Fill the limit every round: each fast completion adds 1/limit
+        for (int round = 0; round < 5; round++) {
+            int permits = fill();
+            for (int j = 0; j < permits; j++) {
+                limiter.release(FAST, false);
+            }
+        }
+        assertTrue(limiter.getLimit() > 10, "limit " + limiter.getLimit());
+
+        for (int round = 0; round < 100; round++) {
+            int permits = fill();
+            for (int j = 0; j < permits; j++) {
+                limiter.release(FAST, false);
+            }
+        }
+        assertEquals(20, limiter.getLimit());
+
+        // A mostly idle limiter does not grow
+        AdaptiveConcurrencyLimiter idle = new AdaptiveConcurrencyLimiter(10, 2, 20, Duration.ofMillis(100), 0.5, now::get);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(idle.tryAcquire());
+            idle.release(FAST, false);
+        }
+        assertEquals(10, idle.getLimit());
+        assertEquals(0, idle.getInFlight());
+    }
+
+    private int fill() {
+        int permits = 0;
+        while (limiter.tryAcquire()) {
+            permits++;
+        }
+        return permits;
+    }
+
+    private void acquire(int permits) {
+        for (int i = 0; i < permits; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.bank.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GCRA令牌桶: 突发、回填、读写分开、客户端之间互不影响、并发取令牌不超发
+ */
+public class ClientRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(5));
+
+    // 10 reads/s with a burst of 5, 2 writes/s with a burst of 1
+    private final ClientRateLimiter limiter = new ClientRateLimiter(new double[]{10, 2}, new int[]{5, 1}, 1_000, now::get);
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenAskToWaitForOneInterval() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("a", ClientRateLimiter.READ));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.tryAcquire("a", ClientRateLimiter.READ));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, limiter.tryAcquire("a", ClientRateLimiter.READ));
+        assertTrue(limiter.tryAcquire("a", ClientRateLimiter.READ) > 0);
+
+        // Idle for longer than the bucket takes to refill, the full burst is available again
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("a", ClientRateLimiter.READ));
+        }
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepReadsWritesAndClientsApart() {
+        assertEquals(0, limiter.tryAcquire("a", ClientRateLimiter.WRITE));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), limiter.tryAcquire("a", ClientRateLimiter.WRITE));
+
+        assertEquals(0, limiter.tryAcquire("a", ClientRateLimiter.READ));
+        assertEquals(0, limiter.tryAcquire("b", ClientRateLimiter.WRITE));
+    }
+
+    @Test
+    void tryAcquire_ConcurrentCallers_ShouldNotAdmitMoreThanTheBurst() throws Exception {
+        int threads = 8;
+        // Fewer clients than maxClients, size eviction would hand out fresh buckets
+        int clients = 500;
+        LongAdder admitted = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < clients * 10; i++) {
+                    if (limiter.tryAcquire("client-" + (i % clients), ClientRateLimiter.READ) == 0) {
+                        admitted.increment();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // The clock does not move, every client gets exactly its burst
+        assertEquals(clients * 5L, admitted.sum());
+    }
+}
@@ -0,0 +1,153 @@
+package com.bank.service;
+
+import com.bank.model.TransactionType;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分词、倒排表的追加/乱序插入/删除与按块跳转、求交和求并, 以及压缩后的大小
+ */
+public class DescriptionIndexTest {
+
+    private final DescriptionIndex index = new DescriptionIndex();
+
+    @Test
+    void tokenize_ShouldSplitOnNonAlphanumericsAndLowercase() {
+        assertEquals(List.of("salary", "2024", "03", "acme", "co"),
+            List.copyOf(DescriptionIndex.tokenize("Salary 2024-03, ACME Co. / salary")));
+        assertEquals(List.of("rent", "房", "租"), List.copyOf(DescriptionIndex.tokenize("Rent 房租")));
+        assertTrue(DescriptionIndex.tokenize(" -- ").isEmpty());
+        assertEquals(DescriptionIndex.MAX_TOKEN_LENGTH, DescriptionIndex.tokenize("x".repeat(100)).iterator().next().length());
+    }
+
+    @Test
+    void update_ShouldOnlyChangeTheDifferenceBetweenOldAndNewTerms() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        Set<String> before = DescriptionIndex.terms("coffee shop", TransactionType.PAYMENT, day);
+        Set<String> after = DescriptionIndex.terms("coffee beans", TransactionType.PAYMENT, day);
+        index.update(1, Set.of(), before);
+        index.update(1, before, after);
+
+        assertNull(index.cursor("shop"));
+        assertEquals(List.of(1L), all(index.cursor("beans")));
+        assertEquals(List.of(1L), all(index.cursor("coffee")));
+        assertEquals(1, index.stats().documents());
+
+        index.update(1, after, Set.of());
+        assertEquals(0, index.stats().terms());
+    }
+
+    @Test
+    void postingList_ShouldMatchASortedSetUnderRandomInsertsAndRemoves() {
+        NavigableSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+        // Mostly increasing ids like new transactions, with older ids re-added and removed in between
+        long next = 1;
+        for (int i = 0; i < 20_000; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 6) {
+                next += 1 + random.nextInt(3);
+                add(next, expected);
+            } else if (operation < 8) {
+                add(1 + (long) random.nextInt((int) next), expected);
+            } else {
+                long id = 1 + random.nextInt((int) next);
+                index.update(id, Set.of("word"), Set.of());
+                expected.remove(id);
+            }
+        }
+        assertEquals(new ArrayList<>(expected.descendingSet()), all(index.cursor("word")));
+        assertEquals(expected.size(), index.size("word"));
+
+        // Skipping to a ceiling lands on the largest id not above it
+        DescriptionIndex.Cursor cursor = index.cursor("word");
+        for (long ceiling = next; ceiling > 0; ceiling -= 1 + random.nextInt(500)) {
+            Long floor = expected.floor(ceiling);
+            assertEquals(floor == null ? DescriptionIndex.NONE : floor, cursor.advance(ceiling));
+        }
+    }
+
+    @Test
+    void dictionary_ShouldKeepTermsFindableAcrossResizesAndDeletes() {
+        // Unique tokens such as invoice numbers, each stored inline until a second transaction uses it
+        for (long id = 1; id <= 20_000; id++) {
+            index.update(id, Set.of(), Set.of("inv" + id));
+        }
+        index.update(20_001, Set.of(), Set.of("inv7"));
+        for (long id = 2; id <= 20_000; id += 2) {
+            index.update(id, Set.of("inv" + id), Set.of());
+        }
+
+        assertEquals(10_000, index.stats().terms());
+        for (long id = 1; id <= 20_000; id++) {
+            assertEquals(id == 7 ? 2 : id % 2 == 1 ? 1 : 0, index.size("inv" + id), "inv" + id);
+        }
+        assertEquals(List.of(20_001L, 7L), all(index.cursor("inv7")));
+        index.update(7, Set.of("inv7"), Set.of());
+        assertEquals(List.of(20_001L), all(index.cursor("inv7")));
+    }
+
+    @Test
+    void andOr_ShouldIntersectAndUnionInDescendingOrder() {
+        for (long id = 1; id <= 1_000; id++) {
+            Set<String> terms = new TreeSet<>();
+            if (id % 2 == 0) {
+                terms.add("even");
+            }
+            if (id % 3 == 0) {
+                terms.add("three");
+            }
+            if (id % 5 == 0) {
+                terms.add("five");
+            }
+            index.update(id, Set.of(), terms);
+        }
+
+        List<Long> both = all(DescriptionIndex.and(List.of(index.cursor("even"), index.cursor("three"))));
+        assertEquals(166, both.size());
+        assertEquals(996L, both.get(0));
+        assertTrue(both.stream().allMatch(id -> id % 6 == 0));
+
+        DescriptionIndex.Cursor threeOrFive = DescriptionIndex.or(List.of(index.cursor("three"), index.cursor("five")));
+        List<Long> either = all(DescriptionIndex.and(List.of(index.cursor("even"), threeOrFive,
+            DescriptionIndex.of(new long[]{10, 12, 14, 30, 31, 990}))));
+        assertEquals(List.of(990L, 30L, 12L, 10L), either);
+    }
+
+    @Test
+    void stats_DenseIdsShouldTakeAboutOneBytePerPosting() {
+        for (long id = 1; id <= 100_000; id++) {
+            index.update(id, Set.of(), Set.of("common", DescriptionIndex.typeTerm(TransactionType.DEPOSIT)));
+        }
+        DescriptionIndex.Stats stats = index.stats();
+        assertEquals(200_000, stats.postings());
+        assertEquals(100_000, stats.documents());
+        assertTrue(stats.bytes() < 2 * 200_000, "bytes: " + stats.bytes());
+    }
+
+    private void add(long id, Set<Long> expected) {
+        if (expected.add(id)) {
+            index.update(id, Set.of(), Set.of("word"));
+        }
+    }
+
+    private static List<Long> all(DescriptionIndex.Cursor cursor) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = cursor.advance(Long.MAX_VALUE); id != DescriptionIndex.NONE; id = cursor.advance(id - 1)) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
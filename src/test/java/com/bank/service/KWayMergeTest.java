@@ -0,0 +1,50 @@
+package com.bank.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * k路归并: 结果有序、相等元素按来源顺序、跳过和截取、空来源
+ */
+public class KWayMergeTest {
+
+    @Test
+    void merge_ShouldInterleaveSortedSources() {
+        Iterator<Integer> merged = KWayMerge.merge(
+            List.of(List.of(1, 4, 7).iterator(), List.<Integer>of().iterator(), List.of(2, 3, 9).iterator(), List.of(5).iterator()),
+            Comparator.naturalOrder());
+
+        List<Integer> result = new ArrayList<>();
+        merged.forEachRemaining(result::add);
+        assertEquals(List.of(1, 2, 3, 4, 5, 7, 9), result);
+        assertFalse(merged.hasNext());
+    }
+
+    @Test
+    void merge_EqualKeys_ShouldKeepSourceOrder() {
+        List<List<Map.Entry<Integer, String>>> sources = List.of(
+            List.of(Map.entry(1, "a0"), Map.entry(2, "a1")),
+            List.of(Map.entry(1, "b0"), Map.entry(2, "b1")));
+
+        List<Map.Entry<Integer, String>> result = KWayMerge.merge(sources, Map.Entry.comparingByKey(), 0, 10);
+
+        assertEquals(List.of("a0", "b0", "a1", "b1"), result.stream().map(Map.Entry::getValue).toList());
+    }
+
+    @Test
+    void merge_ShouldSkipAndLimit() {
+        List<List<Integer>> sources = List.of(List.of(9, 6, 3), List.of(8, 5, 2), List.of(7, 4, 1));
+
+        assertEquals(List.of(7, 6, 5), KWayMerge.merge(sources, Comparator.<Integer>reverseOrder(), 2, 3));
+        assertEquals(List.of(1), KWayMerge.merge(sources, Comparator.<Integer>reverseOrder(), 8, 3));
+        assertEquals(List.of(), KWayMerge.merge(sources, Comparator.<Integer>reverseOrder(), 9, 3));
+    }
+}
@@ -0,0 +1,202 @@
+package com.bank.service;
+
+import com.bank.config.ShardRoutingDataSource;
+import com.bank.dto.BatchCreateResult;
+import com.bank.dto.BatchItemResult;
+import com.bank.dto.BulkResult;
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionCriteria;
+import com.bank.dto.TransactionView;
+import com.bank.exception.CrossShardUpdateException;
+import com.bank.exception.TransactionAlreadyExistsException;
+import com.bank.exception.TransactionNotFoundException;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.repository.ShardRouter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 四个分片上验证路由: 交易和账户汇总落在账户的分片, 编号跨分片唯一, 跨分片的列表、导出和批量操作
+ */
+@SpringBootTest(properties = {
+    "bank.sharding.enabled=true",
+    "bank.sharding.shards=4",
+    "bank.sharding.url-pattern=jdbc:h2:mem:shardtest-{shard};DB_CLOSE_DELAY=-1",
+    "bank.bulk.chunk-size=2"
+})
+public class ShardedTransactionTest {
+
+    private static final int SHARDS = 4;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionBulkService transactionBulkService;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRoutingDataSource dataSource;
+
+    @Test
+    void createTransaction_ShouldStoreOnTheAccountShard() {
+        String prefix = "SHARD-PUT-" + System.nanoTime();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            String account = accountOn(shard, prefix);
+            Transaction created = transactionService.createTransaction(
+                transaction(prefix + "-" + shard, account, "10.00", TransactionType.DEPOSIT));
+
+            assertEquals(shard, shardRouter.shardOfId(created.getId()));
+            for (int other = 0; other < SHARDS; other++) {
+                assertEquals(other == shard ? 1 : 0, count(other, "select count(*) from transactions where reference = ?",
+                    prefix + "-" + shard));
+            }
+            assertEquals(account, transactionService.getTransactionByReference(prefix + "-" + shard).accountNumber());
+            assertEquals(0, new BigDecimal("10.00").compareTo(accountSummaryService.getAccountSummary(account).getBalance()));
+        }
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionByReference(prefix + "-X"));
+    }
+
+    @Test
+    void createTransaction_SameReferenceOnAnotherShard_ShouldBeRejected() {
+        String prefix = "SHARD-DUP-" + System.nanoTime();
+        transactionService.createTransaction(transaction(prefix, accountOn(0, prefix), "1.00", TransactionType.DEPOSIT));
+
+        assertThrows(TransactionAlreadyExistsException.class, () -> transactionService.createTransaction(
+            transaction(prefix, accountOn(1, prefix), "1.00", TransactionType.DEPOSIT)));
+
+        BatchCreateResult result = transactionService.createTransactions(List.of(
+            transaction(prefix, accountOn(2, prefix), "1.00", TransactionType.DEPOSIT),
+            transaction(prefix + "-B", accountOn(3, prefix), "1.00", TransactionType.DEPOSIT),
+            transaction(prefix + "-B", accountOn(1, prefix), "1.00", TransactionType.DEPOSIT),
+            transaction(prefix + "-C", accountOn(1, prefix), "1.00", TransactionType.DEPOSIT)));
+
+        assertEquals(List.of(BatchItemResult.Status.DUPLICATE, BatchItemResult.Status.CREATED,
+            BatchItemResult.Status.DUPLICATE, BatchItemResult.Status.CREATED),
+            result.getItems().stream().map(BatchItemResult::getStatus).toList());
+        assertEquals(List.of(0, 1, 2, 3), result.getItems().stream().map(BatchItemResult::getIndex).toList());
+        assertEquals(3, shardRouter.shardOfId(result.getItems().get(1).getId()));
+        assertEquals(1, shardRouter.shardOfId(result.getItems().get(3).getId()));
+    }
+
+    @Test
+    void listingAndExport_ShouldMergeAllShardsInOrder() {
+        String prefix = "SHARD-LIST-" + System.nanoTime();
+        for (int i = 0; i < 12; i++) {
+            transactionService.createTransaction(transaction(prefix + "-" + i, accountOn(i % SHARDS, prefix),
+                Integer.toString(100 - i), TransactionType.PAYMENT));
+        }
+
+        Page<TransactionView> byAmount = transactionService.getAllTransactions(
+            PageRequest.of(1, 5, Sort.by(Sort.Order.desc("amount"), Sort.Order.asc("reference"))));
+        Page<TransactionView> all = transactionService.getAllTransactions(
+            PageRequest.of(0, (int) byAmount.getTotalElements(), Sort.by(Sort.Order.desc("amount"), Sort.Order.asc("reference"))));
+        assertEquals(all.getContent().subList(5, 10), byAmount.getContent());
+        assertTrue(all.getTotalElements() >= 12);
+        assertSorted(all.getContent(), Comparator.comparing(TransactionView::amount).reversed()
+            .thenComparing(TransactionView::reference));
+
+        List<Long> cursorIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<TransactionView> page = transactionService.getTransactions(cursor, 5);
+            page.getContent().forEach(view -> cursorIds.add(view.id()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        List<Long> exportedIds = new ArrayList<>();
+        transactionService.exportTransactions(view -> exportedIds.add(view.id()));
+
+        List<Long> expected = all.getContent().stream().map(TransactionView::id).sorted().toList();
+        assertEquals(expected, exportedIds);
+        assertEquals(expected.reversed(), cursorIds);
+        assertTrue(exportedIds.stream().map(shardRouter::shardOfId).distinct().count() == SHARDS);
+    }
+
+    @Test
+    void deleteAndBulk_ShouldReachEveryShard() {
+        String prefix = "SHARD-BULK-" + System.nanoTime() + "_";
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ids.add(transactionService.createTransaction(transaction(prefix + i, accountOn(i % SHARDS, prefix),
+                "5.00", TransactionType.DEPOSIT)).getId());
+        }
+
+        transactionService.deleteTransaction(ids.get(2));
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionByReference(prefix + 2));
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.deleteTransaction(ids.get(2)));
+        assertThrows(TransactionNotFoundException.class,
+            () -> transactionService.deleteTransaction(ShardRouter.firstId(SHARDS) + 1));
+
+        BulkResult result = transactionBulkService.deleteTransactions(new TransactionCriteria(null, prefix, null, null, null));
+
+        assertEquals(7, result.affected());
+        for (int i = 0; i < 8; i++) {
+            String reference = prefix + i;
+            assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionByReference(reference));
+        }
+        assertEquals(0, accountSummaryService.getAccountSummary(accountOn(3, prefix)).getBalance().signum());
+    }
+
+    @Test
+    void updateTransaction_ToAccountOnAnotherShard_ShouldBeRejected() {
+        String prefix = "SHARD-UPD-" + System.nanoTime();
+        String account = accountOn(1, prefix);
+        transactionService.createTransaction(transaction(prefix, account, "7.00", TransactionType.DEPOSIT));
+
+        assertThrows(CrossShardUpdateException.class, () -> transactionService.updateTransaction(prefix,
+            transaction(prefix, accountOn(2, prefix), "7.00", TransactionType.DEPOSIT)));
+
+        String sameShard = accountOn(1, prefix + "-2");
+        Transaction updated = transactionService.updateTransaction(prefix,
+            transaction(prefix, sameShard, "9.00", TransactionType.DEPOSIT));
+        assertEquals(sameShard, updated.getAccountNumber());
+        assertEquals(0, new BigDecimal("9.00").compareTo(accountSummaryService.getAccountSummary(sameShard).getBalance()));
+        assertEquals(0, accountSummaryService.getAccountSummary(account).getBalance().signum());
+    }
+
+    private String accountOn(int shard, String prefix) {
+        for (int i = 0; ; i++) {
+            String account = prefix + "-ACC-" + i;
+            if (shardRouter.shardOf(account) == shard) {
+                return account;
+            }
+        }
+    }
+
+    private int count(int shard, String sql, Object... args) {
+        return new JdbcTemplate(dataSource.getShards().get(shard)).queryForObject(sql, Integer.class, args);
+    }
+
+    private static void assertSorted(List<TransactionView> transactions, Comparator<TransactionView> order) {
+        for (int i = 1; i < transactions.size(); i++) {
+            assertTrue(order.compare(transactions.get(i - 1), transactions.get(i)) <= 0,
+                "out of order at " + i + ": " + Arrays.asList(transactions.get(i - 1), transactions.get(i)));
+        }
+    }
+
+    private static Transaction transaction(String reference, String account, String amount, TransactionType type) {
+        return new Transaction(null, reference, account, new BigDecimal(amount), type, "shard test");
+    }
+}
@@ -0,0 +1,54 @@
+package com.bank.service;
+
+import com.bank.dto.BatchCreateResult;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证批量创建真正走了JDBC批量插入, 而不是逐条INSERT
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class TransactionBatchInsertTest {
+
+    private static final int BATCH_SIZE = 200;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void createTransactions_ShouldUseJdbcBatching() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            transactions.add(new Transaction(null, "JDBC-BATCH-" + i + "-" + System.nanoTime(), "LYQ" + (i % 10),
+                new BigDecimal("10.00"), TransactionType.DEPOSIT, "batch insert"));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BatchCreateResult result = transactionService.createTransactions(transactions);
+
+        assertEquals(BATCH_SIZE, result.getCreated());
+        assertEquals(BATCH_SIZE, statistics.getEntityInsertCount());
+        // 1 duplicate check + sequence calls + one insert statement per JDBC batch of 50
+        assertTrue(statistics.getPrepareStatementCount() < BATCH_SIZE / 10,
+            "expected batched inserts but prepared " + statistics.getPrepareStatementCount() + " statements");
+    }
+}
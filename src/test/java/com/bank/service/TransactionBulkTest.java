@@ -0,0 +1,104 @@
+package com.bank.service;
+
+import com.bank.dto.BulkResult;
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.TransactionCriteria;
+import com.bank.dto.TransactionView;
+import com.bank.exception.InvalidBulkRequestException;
+import com.bank.exception.TransactionNotFoundException;
+import com.bank.model.AccountSummary;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 在真实数据库上验证按条件分块批量删除/更新: 行数、分块、账户汇总和缓存
+ */
+@SpringBootTest(properties = "bank.bulk.chunk-size=3")
+public class TransactionBulkTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionBulkService transactionBulkService;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Test
+    void deleteTransactions_ShouldDeleteInChunksAndEvictCache() {
+        String account = "BULK-DEL-" + System.nanoTime();
+        String otherAccount = account + "-OTHER";
+        for (int i = 0; i < 5; i++) {
+            transactionService.createTransaction(transaction(account + "-D" + i, account, "10.00", TransactionType.DEPOSIT));
+        }
+        transactionService.createTransaction(transaction(account + "-P0", account, "1.00", TransactionType.PAYMENT));
+        transactionService.createTransaction(transaction(account + "-P1", account, "1.00", TransactionType.PAYMENT));
+        transactionService.createTransaction(transaction(otherAccount + "-D0", otherAccount, "10.00", TransactionType.DEPOSIT));
+        transactionService.getTransactionByReference(account + "-D0");
+
+        BulkResult result = transactionBulkService.deleteTransactions(new TransactionCriteria(account, null, null, null, null));
+
+        assertEquals(7, result.affected());
+        assertEquals(3, result.chunks());
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionByReference(account + "-D0"));
+        assertEquals(otherAccount, transactionService.getTransactionByReference(otherAccount + "-D0").accountNumber());
+        AccountSummary summary = accountSummaryService.getAccountSummary(account);
+        assertEquals(0, summary.getBalance().signum());
+        assertEquals(0, summary.getDepositCount());
+        assertEquals(0, summary.getPaymentCount());
+    }
+
+    @Test
+    void updateTransactions_ShouldMatchPrefixLiterallyAndMoveTypeCounts() {
+        String account = "BULK-UPD-" + System.nanoTime();
+        String prefix = account + "_";
+        TransactionView before = TransactionView.of(
+            transactionService.createTransaction(transaction(prefix + "1", account, "20.00", TransactionType.PAYMENT)));
+        transactionService.createTransaction(transaction(prefix + "2", account, "30.00", TransactionType.PAYMENT));
+        // '_' is not a wildcard, this one must not match
+        transactionService.createTransaction(transaction(account + "X3", account, "50.00", TransactionType.PAYMENT));
+        transactionService.getTransactionByReference(prefix + "1");
+
+        BulkResult result = transactionBulkService.updateTransactions(
+            new TransactionCriteria(null, prefix, TransactionType.PAYMENT, null, null),
+            new BulkUpdate("corrected feed", TransactionType.DEPOSIT));
+
+        assertEquals(2, result.affected());
+        TransactionView updated = transactionService.getTransactionByReference(prefix + "1");
+        assertEquals(TransactionType.DEPOSIT, updated.type());
+        assertEquals("corrected feed", updated.description());
+        assertTrue(updated.updatedAt().isAfter(before.updatedAt()));
+        assertEquals(TransactionType.PAYMENT, transactionService.getTransactionByReference(account + "X3").type());
+
+        // Deposits add to the balance, payments subtract: 20 + 30 - 50
+        AccountSummary summary = accountSummaryService.getAccountSummary(account);
+        assertEquals(0, new BigDecimal("0.00").compareTo(summary.getBalance()));
+        assertEquals(2, summary.getDepositCount());
+        assertEquals(1, summary.getPaymentCount());
+    }
+
+    @Test
+    void bulkOperations_WithoutCriteriaOrChanges_ShouldBeRejected() {
+        TransactionCriteria none = new TransactionCriteria(" ", "", null, null, null);
+        assertThrows(InvalidBulkRequestException.class, () -> transactionBulkService.deleteTransactions(none));
+
+        TransactionCriteria byAccount = new TransactionCriteria("LYQ001", null, null, null, null);
+        assertThrows(InvalidBulkRequestException.class,
+            () -> transactionBulkService.updateTransactions(byAccount, new BulkUpdate(null, null)));
+    }
+
+    private static Transaction transaction(String reference, String account, String amount, TransactionType type) {
+        return new Transaction(null, reference, account, new BigDecimal(amount), type, "bulk test");
+    }
+}
@@ -0,0 +1,140 @@
+package com.bank.service;
+
+import com.bank.BankApplication;
+import com.bank.config.EmbeddedSharedTransactionCache;
+import com.bank.config.SharedTransactionCache;
+import com.bank.dto.TransactionView;
+import com.bank.exception.TransactionNotFoundException;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 两个节点(同一JVM里的两个应用上下文)共用一个数据库、内嵌的L2和失效总线:
+ * 一个节点的修改、删除和创建经广播让另一个节点丢弃本地缓存, 之后从L2或数据库读到新值
+ */
+public class TransactionCacheClusterTest {
+
+    private static ConfigurableApplicationContext nodeA;
+
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = start("a");
+        nodeB = start("b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    private static ConfigurableApplicationContext start(String node) {
+        return new SpringApplicationBuilder(BankApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:cachecluster;DB_CLOSE_DELAY=-1",
+                "--bank.stats.rebuild-on-startup=false",
+                "--bank.cache.cluster.node-id=" + node,
+                "--bank.cache.cluster.l2.enabled=true",
+                "--bank.cache.cluster.l2.name=cachecluster",
+                "--bank.cache.cluster.invalidation.enabled=true",
+                "--bank.cache.cluster.invalidation.channel=cachecluster",
+                "--bank.cache.cluster.invalidation.batch-window=20ms");
+    }
+
+    @Test
+    void updateOnOneNode_ShouldReachTheOtherNodeThroughTheSharedCache() {
+        String reference = "CLUSTER-U-" + System.nanoTime();
+        service(nodeA).createTransaction(transaction(reference, "10.00"));
+        assertEquals(0, new BigDecimal("10.00").compareTo(service(nodeB).getTransactionByReference(reference).amount()));
+
+        EmbeddedSharedTransactionCache l2 = (EmbeddedSharedTransactionCache) nodeB.getBean(SharedTransactionCache.class);
+        long l2Hits = l2.getHits();
+        service(nodeA).updateTransaction(reference, transaction(reference, "20.00"));
+
+        TransactionView seen = await(() -> service(nodeB).getTransactionByReference(reference),
+            view -> new BigDecimal("20.00").compareTo(view.amount()) == 0);
+        assertEquals(1L, seen.version());
+        // Node b reloads the new version from the shared cache, which node a wrote on commit
+        assertTrue(l2.getHits() > l2Hits);
+    }
+
+    @Test
+    void deleteOnOneNode_ShouldMakeTheOtherNodeReturnNotFound() {
+        String reference = "CLUSTER-D-" + System.nanoTime();
+        Transaction created = service(nodeA).createTransaction(transaction(reference, "10.00"));
+        service(nodeB).getTransactionByReference(reference);
+
+        service(nodeA).deleteTransaction(created.getId());
+
+        await(() -> {
+            try {
+                service(nodeB).getTransactionByReference(reference);
+                return false;
+            } catch (TransactionNotFoundException e) {
+                return true;
+            }
+        }, Boolean::booleanValue);
+    }
+
+    @Test
+    void createOnOneNode_ShouldClearTheOtherNodesNotFoundEntry() {
+        String reference = "CLUSTER-C-" + System.nanoTime();
+        assertThrows(TransactionNotFoundException.class, () -> service(nodeB).getTransactionByReference(reference));
+
+        service(nodeA).createTransaction(transaction(reference, "10.00"));
+
+        // Well within the 5s the not-found entry would otherwise live
+        long start = System.nanoTime();
+        await(() -> {
+            try {
+                return service(nodeB).getTransactionByReference(reference) != null;
+            } catch (TransactionNotFoundException e) {
+                return false;
+            }
+        }, Boolean::booleanValue);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+    }
+
+    private static TransactionService service(ConfigurableApplicationContext node) {
+        return node.getBean(TransactionService.class);
+    }
+
+    private static <T> T await(Supplier<T> read, Predicate<T> condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            T value = read.get();
+            if (condition.test(value)) {
+                return value;
+            }
+            assertTrue(System.nanoTime() < deadline, "node b still reads " + value);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static Transaction transaction(String reference, String amount) {
+        return new Transaction(null, reference, "CLUSTER-ACC", new BigDecimal(amount), TransactionType.DEPOSIT, "cluster");
+    }
+}
@@ -0,0 +1,165 @@
+package com.bank.service;
+
+import com.bank.config.CacheConfig;
+import com.bank.config.CacheInvalidationBroadcaster;
+import com.bank.config.SharedTransactionCache;
+import com.bank.config.TransactionCacheProperties;
+import com.bank.config.UpdateRetryProperties;
+import com.bank.dto.TransactionView;
+import com.bank.exception.TransactionNotFoundException;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.repository.ShardRouter;
+import com.bank.repository.TransactionRepository;
+import com.bank.service.impl.TransactionServiceImpl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 使用真实缓存验证: 同一编号的并发未命中只会查询一次数据库, 不存在的编号会被负缓存
+ */
+public class TransactionCacheConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    private static final String REFERENCE = "HOT-REF";
+
+    private TransactionRepository transactionRepository;
+
+    private TransactionServiceImpl transactionService;
+
+    @BeforeEach
+    void setUp() {
+        CacheConfig cacheConfig = new CacheConfig();
+        TransactionCacheProperties properties = new TransactionCacheProperties();
+        transactionRepository = mock(TransactionRepository.class);
+        transactionService = new TransactionServiceImpl(transactionRepository,
+            cacheConfig.transactionByReferenceCache(properties, transactionRepository, ShardRouter.single(null)),
+            cacheConfig.transactionNotFoundCache(properties), PendingTransactions.NONE, null, mock(AccountSummaryService.class),
+            cacheConfig.transactionCacheCodec(properties), mock(TransactionStatsService.class),
+            mock(TransactionSearchService.class), new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            new UpdateRetryProperties(),
+            SharedTransactionCache.NONE, CacheInvalidationBroadcaster.local());
+    }
+
+    @Test
+    void concurrentMissesOnSameReference_ShouldQueryDatabaseOnce() throws Exception {
+        TransactionView transaction = TransactionView.of(new Transaction(1L, REFERENCE, "LYQ001",
+            new BigDecimal("100.00"), TransactionType.DEPOSIT, "hot"));
+        when(transactionRepository.findViewByReference(REFERENCE)).thenAnswer(invocation -> {
+            // Slow query so that every thread misses while the first load is in flight
+            Thread.sleep(200);
+            return Optional.of(transaction);
+        });
+
+        List<Object> results = runConcurrently(() -> transactionService.getTransactionByReference(REFERENCE));
+
+        results.forEach(result -> assertSame(transaction, result));
+        verify(transactionRepository, times(1)).findViewByReference(REFERENCE);
+    }
+
+    @Test
+    void concurrentMissesOnUnknownReference_ShouldQueryDatabaseOnceAndCacheNotFound() throws Exception {
+        when(transactionRepository.findViewByReference(REFERENCE)).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return Optional.empty();
+        });
+
+        List<Object> results = runConcurrently(() -> {
+            try {
+                return transactionService.getTransactionByReference(REFERENCE);
+            } catch (TransactionNotFoundException e) {
+                return e;
+            }
+        });
+        results.forEach(result -> assertInstanceOf(TransactionNotFoundException.class, result));
+
+        // Retries are answered by the negative cache
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionByReference(REFERENCE));
+        verify(transactionRepository, times(1)).findViewByReference(REFERENCE);
+    }
+
+    @Test
+    void updateDuringInFlightLoad_ShouldNotCacheStaleResult() throws Exception {
+        Transaction existing = new Transaction(1L, REFERENCE, "LYQ001",
+            new BigDecimal("100.00"), TransactionType.DEPOSIT, "before update");
+        TransactionView stale = TransactionView.of(existing);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        when(transactionRepository.findViewByReference(REFERENCE)).thenAnswer(invocation -> {
+            if (queries.incrementAndGet() == 1) {
+                // The first lookup is still running while the update commits
+                loading.countDown();
+                updated.await();
+                return Optional.of(stale);
+            }
+            return Optional.of(TransactionView.of(existing));
+        });
+        when(transactionRepository.findByReference(REFERENCE)).thenReturn(Optional.of(existing));
+        when(transactionRepository.saveAndFlush(existing)).thenReturn(existing);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<TransactionView> load = executor.submit(() -> transactionService.getTransactionByReference(REFERENCE));
+        loading.await();
+        transactionService.updateTransaction(REFERENCE, new Transaction(null, REFERENCE, "LYQ001",
+            new BigDecimal("250.00"), TransactionType.DEPOSIT, "after update"));
+        updated.countDown();
+
+        assertSame(stale, load.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        // The committed update was written through, the stale in-flight result did not overwrite it
+        assertEquals(new BigDecimal("250.00"), transactionService.getTransactionByReference(REFERENCE).amount());
+        verify(transactionRepository, times(1)).findViewByReference(REFERENCE);
+    }
+
+    @Test
+    void createTransaction_ShouldInvalidateNegativeCache() {
+        Transaction transaction = new Transaction(null, REFERENCE, "LYQ001",
+            new BigDecimal("100.00"), TransactionType.DEPOSIT, "created after a miss");
+        when(transactionRepository.findViewByReference(REFERENCE)).thenReturn(Optional.empty());
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionByReference(REFERENCE));
+
+        when(transactionRepository.saveAndFlush(transaction)).thenReturn(transaction);
+        transactionService.createTransaction(transaction);
+
+        assertEquals(TransactionView.of(transaction), transactionService.getTransactionByReference(REFERENCE));
+    }
+
+    private List<Object> runConcurrently(java.util.concurrent.Callable<Object> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+
+        List<Object> results = new ArrayList<>();
+        for (Future<Object> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return results;
+    }
+}
@@ -0,0 +1,131 @@
+package com.bank.service;
+
+import com.bank.dto.BatchCreateResult;
+import com.bank.dto.BatchItemResult;
+import com.bank.exception.TransactionAlreadyExistsException;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.repository.TransactionRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 多个线程同时用同一编号创建交易, 只能有一个成功, 其余都应得到TransactionAlreadyExistsException;
+ * 批量创建和单笔创建争用同一编号时, 批量创建不应整批失败
+ */
+@SpringBootTest
+public class TransactionDuplicateRaceTest {
+
+    private static final int THREADS = 16;
+
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void concurrentCreatesWithSameReference_ShouldCreateExactlyOne() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                String reference = "RACE-" + round + "-" + System.nanoTime();
+                AtomicInteger created = new AtomicInteger();
+                AtomicInteger duplicates = new AtomicInteger();
+                CountDownLatch start = new CountDownLatch(1);
+
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            transactionService.createTransaction(new Transaction(null, reference, "LYQ001",
+                                new BigDecimal("10.00"), TransactionType.DEPOSIT, "race"));
+                            created.incrementAndGet();
+                        } catch (TransactionAlreadyExistsException e) {
+                            duplicates.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+
+                assertEquals(1, created.get());
+                assertEquals(THREADS - 1, duplicates.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void batchRacingSingleCreateWithSameReference_ShouldNotFailTheBatch() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                String prefix = "RACE-BATCH-" + round + "-" + System.nanoTime();
+                String contested = prefix + "-contested";
+                List<Transaction> batch = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    batch.add(new Transaction(null, prefix + "-" + i, "LYQ001",
+                        new BigDecimal("10.00"), TransactionType.DEPOSIT, "batch"));
+                }
+                batch.add(new Transaction(null, contested, "LYQ001",
+                    new BigDecimal("10.00"), TransactionType.DEPOSIT, "batch"));
+                CountDownLatch start = new CountDownLatch(1);
+
+                Future<BatchCreateResult> batchResult = executor.submit(() -> {
+                    start.await();
+                    return transactionService.createTransactions(batch);
+                });
+                Future<Boolean> singleCreated = executor.submit(() -> {
+                    start.await();
+                    try {
+                        transactionService.createTransaction(new Transaction(null, contested, "LYQ001",
+                            new BigDecimal("10.00"), TransactionType.DEPOSIT, "single"));
+                        return true;
+                    } catch (TransactionAlreadyExistsException e) {
+                        return false;
+                    }
+                });
+                start.countDown();
+
+                BatchCreateResult result = batchResult.get(30, TimeUnit.SECONDS);
+                boolean single = singleCreated.get(30, TimeUnit.SECONDS);
+
+                assertEquals(10, result.getItems().stream()
+                    .filter(item -> !item.getReference().equals(contested))
+                    .filter(item -> item.getStatus() == BatchItemResult.Status.CREATED)
+                    .count());
+                BatchItemResult.Status contestedStatus = result.getItems().get(10).getStatus();
+                assertNotEquals(BatchItemResult.Status.INVALID, contestedStatus);
+                // Exactly one of the two creates wins the contested reference
+                assertEquals(single, contestedStatus == BatchItemResult.Status.DUPLICATE);
+                assertTrue(transactionRepository.findByReference(contested).isPresent());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
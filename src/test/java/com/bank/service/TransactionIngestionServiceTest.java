@@ -0,0 +1,272 @@
+package com.bank.service;
+
+import com.bank.config.CacheConfig;
+import com.bank.config.CacheInvalidationBroadcaster;
+import com.bank.config.IngestionConfig;
+import com.bank.config.IngestionProperties;
+import com.bank.config.SharedTransactionCache;
+import com.bank.config.TransactionCacheCodec;
+import com.bank.config.TransactionCacheProperties;
+import com.bank.dto.BatchCreateResult;
+import com.bank.dto.BatchItemResult;
+import com.bank.dto.IngestionStatus;
+import com.bank.dto.TransactionView;
+import com.bank.exception.IngestionQueueFullException;
+import com.bank.exception.TransactionAlreadyExistsException;
+import com.bank.exception.TransactionNotFoundException;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+import com.bank.repository.ShardRouter;
+import com.bank.repository.TransactionRepository;
+import com.bank.service.impl.TransactionIngestionServiceImpl;
+import com.bank.service.impl.TransactionServiceImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 异步写入: 按批提交、提交前可读、队列满时拒绝、批次失败后逐条重试
+ */
+public class TransactionIngestionServiceTest {
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private TransactionService writer;
+
+    private TransactionRepository transactionRepository;
+
+    private Cache<String, Object> transactionByReferenceCache;
+
+    private TransactionServiceImpl reader;
+
+    private final TransactionCacheCodec codec = new TransactionCacheCodec(TransactionCacheProperties.Encoding.OBJECT);
+
+    private IngestionProperties properties;
+
+    private PendingTransactions pendingTransactions;
+
+    private TransactionIngestionServiceImpl ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        CacheConfig cacheConfig = new CacheConfig();
+        TransactionCacheProperties cacheProperties = new TransactionCacheProperties();
+        transactionRepository = mock(TransactionRepository.class);
+        transactionByReferenceCache = cacheConfig.transactionByReferenceCache(cacheProperties, transactionRepository, ShardRouter.single(null));
+        Cache<String, Boolean> transactionNotFoundCache = cacheConfig.transactionNotFoundCache(cacheProperties);
+        properties = new IngestionProperties();
+        properties.setMaxBatchDelay(Duration.ofMillis(200));
+        properties.setQueueCapacity(100);
+        pendingTransactions = new IngestionConfig().pendingTransactions(properties);
+        reader = new TransactionServiceImpl(transactionRepository, transactionByReferenceCache,
+            transactionNotFoundCache, pendingTransactions, null, mock(AccountSummaryService.class), codec,
+            mock(TransactionStatsService.class), mock(TransactionSearchService.class), null, null, SharedTransactionCache.NONE,
+            CacheInvalidationBroadcaster.local());
+
+        writer = mock(TransactionService.class);
+        ingestionService = new TransactionIngestionServiceImpl(writer, transactionByReferenceCache, transactionNotFoundCache,
+            new IngestionConfig().ingestionStatusCache(properties), pendingTransactions, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ingestionService.isRunning()) {
+            ingestionService.stop();
+        }
+    }
+
+    @Test
+    void submit_ShouldCommitQueuedTransactionsInOneBatch() throws Exception {
+        when(writer.createTransactions(anyList())).thenAnswer(invocation -> createdAll(invocation.getArgument(0)));
+        ingestionService.start();
+
+        List<CompletableFuture<IngestionStatus>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(ingestionService.submit(transaction("ASYNC-" + i)));
+        }
+
+        for (CompletableFuture<IngestionStatus> future : futures) {
+            IngestionStatus status = future.get(5, TimeUnit.SECONDS);
+            assertEquals(IngestionStatus.Status.COMMITTED, status.getStatus());
+            assertNotNull(status.getId());
+            assertEquals(IngestionStatus.Status.COMMITTED, ingestionService.getStatus(status.getReference()).getStatus());
+        }
+        verify(writer, times(1)).createTransactions(argThatHasSize(10));
+    }
+
+    @Test
+    void submit_PendingTransaction_ShouldBeReadableBeforeCommit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(writer.createTransactions(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return createdAll(invocation.getArgument(0));
+        });
+        ingestionService.start();
+
+        CompletableFuture<IngestionStatus> future = ingestionService.submit(transaction("ASYNC-PENDING"));
+
+        TransactionView pending = reader.getTransactionByReference("ASYNC-PENDING");
+        assertNull(pending.id());
+        assertEquals(new BigDecimal("10.00"), pending.amount());
+        assertEquals(IngestionStatus.Status.PENDING, ingestionService.getStatus("ASYNC-PENDING").getStatus());
+        verify(transactionRepository, never()).findViewByReference(any());
+
+        release.countDown();
+        assertEquals(IngestionStatus.Status.COMMITTED, future.get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    void submit_SameReferenceWhilePending_ShouldBeRejected() {
+        when(writer.createTransactions(anyList())).thenAnswer(invocation -> createdAll(invocation.getArgument(0)));
+        ingestionService.start();
+        ingestionService.submit(transaction("ASYNC-TWICE"));
+
+        assertThrows(TransactionAlreadyExistsException.class, () -> ingestionService.submit(transaction("ASYNC-TWICE")));
+    }
+
+    @Test
+    void submit_PendingTransactionEvictedFromCache_ShouldStayReadableAndRejectDuplicates() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(writer.createTransactions(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return createdAll(invocation.getArgument(0));
+        });
+        when(transactionRepository.findViewByReference("ASYNC-EVICTED")).thenReturn(Optional.empty());
+        ingestionService.start();
+
+        // A read before the submit caches "not found"
+        assertThrows(TransactionNotFoundException.class, () -> reader.getTransactionByReference("ASYNC-EVICTED"));
+        CompletableFuture<IngestionStatus> future = ingestionService.submit(transaction("ASYNC-EVICTED"));
+        // Size eviction or expiry may drop any cache entry at any time
+        transactionByReferenceCache.invalidateAll();
+
+        assertEquals(new BigDecimal("10.00"), reader.getTransactionByReference("ASYNC-EVICTED").amount());
+        assertThrows(TransactionAlreadyExistsException.class, () -> ingestionService.submit(transaction("ASYNC-EVICTED")));
+
+        release.countDown();
+        assertEquals(IngestionStatus.Status.COMMITTED, future.get(5, TimeUnit.SECONDS).getStatus());
+        assertNull(pendingTransactions.get("ASYNC-EVICTED"));
+    }
+
+    @Test
+    void submit_QueueFull_ShouldRejectAndDropPendingEntry() throws Exception {
+        properties.setQueueCapacity(2);
+        properties.setMaxBatchSize(1);
+        setUp(properties);
+        CountDownLatch release = new CountDownLatch(1);
+        when(writer.createTransactions(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return createdAll(invocation.getArgument(0));
+        });
+        ingestionService.start();
+
+        int rejected = 0;
+        for (int i = 0; i < 5; i++) {
+            try {
+                ingestionService.submit(transaction("ASYNC-FULL-" + i));
+            } catch (IngestionQueueFullException e) {
+                rejected++;
+                assertNull(pendingTransactions.get("ASYNC-FULL-" + i));
+            }
+        }
+        release.countDown();
+
+        // At most two transactions are pending, whether queued or held by the writer
+        assertTrue(rejected >= 3, "Expected at least three rejections, got " + rejected);
+    }
+
+    @Test
+    void submit_DuplicateInDatabase_ShouldReportDuplicateAndDropPendingEntry() throws Exception {
+        when(writer.createTransactions(anyList())).thenAnswer(invocation -> {
+            List<Transaction> transactions = invocation.getArgument(0);
+            return new BatchCreateResult(List.of(BatchItemResult.duplicate(0, transactions.get(0).getReference())));
+        });
+        ingestionService.start();
+
+        IngestionStatus status = ingestionService.submit(transaction("ASYNC-DUP")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(IngestionStatus.Status.DUPLICATE, status.getStatus());
+        assertNull(pendingTransactions.get("ASYNC-DUP"));
+        assertNull(transactionByReferenceCache.getIfPresent("ASYNC-DUP"));
+    }
+
+    @Test
+    void submit_BatchFailure_ShouldRetryTransactionsIndividually() throws Exception {
+        when(writer.createTransactions(anyList())).thenThrow(new DataIntegrityViolationException("uk_transactions_reference"));
+        when(writer.createTransaction(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            if (transaction.getReference().equals("ASYNC-RACE")) {
+                throw new TransactionAlreadyExistsException("Transaction with reference ASYNC-RACE already exists");
+            }
+            transaction.setId(ids.incrementAndGet());
+            return transaction;
+        });
+        ingestionService.start();
+
+        CompletableFuture<IngestionStatus> ok = ingestionService.submit(transaction("ASYNC-OK"));
+        CompletableFuture<IngestionStatus> race = ingestionService.submit(transaction("ASYNC-RACE"));
+
+        assertEquals(IngestionStatus.Status.COMMITTED, ok.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(IngestionStatus.Status.DUPLICATE, race.get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    void stop_ShouldWriteQueuedTransactionsBeforeReturning() throws Exception {
+        properties.setMaxBatchDelay(Duration.ZERO);
+        when(writer.createTransactions(anyList())).thenAnswer(invocation -> createdAll(invocation.getArgument(0)));
+        ingestionService.start();
+
+        List<CompletableFuture<IngestionStatus>> futures = IntStream.range(0, 50)
+            .mapToObj(i -> ingestionService.submit(transaction("ASYNC-STOP-" + i)))
+            .toList();
+        ingestionService.stop();
+
+        futures.forEach(future -> assertTrue(future.isDone()));
+        assertThrows(IngestionQueueFullException.class, () -> ingestionService.submit(transaction("ASYNC-LATE")));
+    }
+
+    private void setUp(IngestionProperties properties) {
+        Cache<String, Boolean> transactionNotFoundCache = new CacheConfig().transactionNotFoundCache(new TransactionCacheProperties());
+        pendingTransactions = new IngestionConfig().pendingTransactions(properties);
+        ingestionService = new TransactionIngestionServiceImpl(writer, transactionByReferenceCache, transactionNotFoundCache,
+            new IngestionConfig().ingestionStatusCache(properties), pendingTransactions, properties);
+    }
+
+    private BatchCreateResult createdAll(List<Transaction> transactions) {
+        List<BatchItemResult> items = new ArrayList<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            transaction.setId(ids.incrementAndGet());
+            transactionByReferenceCache.put(transaction.getReference(), codec.encode(TransactionView.of(transaction)));
+            items.add(BatchItemResult.created(i, transaction.getReference(), transaction.getId()));
+        }
+        return new BatchCreateResult(items);
+    }
+
+    private static List<Transaction> argThatHasSize(int size) {
+        return argThat(list -> list.size() == size);
+    }
+
+    private static Transaction transaction(String reference) {
+        return new Transaction(null, reference, "LYQ001", new BigDecimal("10.00"), TransactionType.DEPOSIT, "async");
+    }
+}
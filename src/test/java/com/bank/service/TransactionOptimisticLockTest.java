@@ -0,0 +1,123 @@
+package com.bank.service;
+
+import com.bank.dto.TransactionView;
+import com.bank.exception.PreconditionFailedException;
+import com.bank.model.AccountSummary;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 多个线程同时更新同一笔交易: 带If-Match的读-改-写不丢失更新, 不带If-Match的更新冲突后重试,
+ * 版本号、账户汇总和缓存始终与最后一次提交一致
+ */
+@SpringBootTest(properties = "bank.update.retry.max-attempts=50")
+public class TransactionOptimisticLockTest {
+
+    private static final int THREADS = 8;
+
+    private static final int INCREMENTS = 5;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Test
+    void concurrentConditionalIncrements_ShouldNotLoseUpdates() throws Exception {
+        String account = "OCC-INC-" + System.nanoTime();
+        String reference = account + "-1";
+        transactionService.createTransaction(new Transaction(null, reference, account,
+            new BigDecimal("0.01"), TransactionType.DEPOSIT, "counter"));
+        AtomicInteger preconditionFailures = new AtomicInteger();
+
+        run(() -> {
+            for (int i = 0; i < INCREMENTS; i++) {
+                while (true) {
+                    TransactionView current = transactionService.getTransactionByReference(reference);
+                    try {
+                        transactionService.updateTransaction(reference, new Transaction(null, reference, account,
+                            current.amount().add(BigDecimal.ONE), TransactionType.DEPOSIT, "counter"), List.of(current.etag()));
+                        break;
+                    } catch (PreconditionFailedException e) {
+                        preconditionFailures.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        TransactionView result = transactionService.getTransactionByReference(reference);
+        assertEquals(0, new BigDecimal(THREADS * INCREMENTS).add(new BigDecimal("0.01")).compareTo(result.amount()));
+        assertEquals(THREADS * INCREMENTS, result.version().longValue());
+        assertTrue(preconditionFailures.get() > 0, "the threads never raced, the test proves nothing");
+        assertEquals(0, result.amount().compareTo(accountSummaryService.getAccountSummary(account).getBalance()));
+    }
+
+    @Test
+    void concurrentUnconditionalUpdates_ShouldRetryAndKeepSummaryConsistent() throws Exception {
+        String account = "OCC-LWW-" + System.nanoTime();
+        String reference = account + "-1";
+        transactionService.createTransaction(new Transaction(null, reference, account,
+            new BigDecimal("1.00"), TransactionType.DEPOSIT, "initial"));
+        AtomicInteger thread = new AtomicInteger();
+
+        run(() -> {
+            BigDecimal amount = new BigDecimal(thread.incrementAndGet() * 100);
+            for (int i = 0; i < INCREMENTS; i++) {
+                transactionService.updateTransaction(reference, new Transaction(null, reference, account,
+                    amount, i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.PAYMENT, "writer"));
+            }
+        });
+
+        // Whichever writer committed last, the summary must reflect exactly that row and nothing else
+        TransactionView result = transactionService.getTransactionByReference(reference);
+        assertEquals(THREADS * INCREMENTS, result.version().longValue());
+        AccountSummary summary = accountSummaryService.getAccountSummary(account);
+        BigDecimal expected = result.type() == TransactionType.DEPOSIT ? result.amount() : result.amount().negate();
+        assertEquals(0, expected.compareTo(summary.getBalance()));
+        assertEquals(1, summary.getDepositCount() + summary.getPaymentCount());
+    }
+
+    private static void run(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    worker.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+        void run() throws Exception;
+    }
+}
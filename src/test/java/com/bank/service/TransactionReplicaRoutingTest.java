@@ -0,0 +1,189 @@
+package com.bank.service;
+
+import com.bank.config.ReplicaRoutingDataSource;
+import com.bank.config.ReplicationStandIn;
+import com.bank.dto.TransactionView;
+import com.bank.exception.TransactionNotFoundException;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 主库加一个由 ReplicationStandIn 复制的副本: 只读查询走同步的副本, 写入和读写事务走主库,
+ * 副本落后时只读查询回到主库, 请求中写过之后的读取留在主库, 写入缓存的按编号读取始终在主库
+ * 只写在副本上的一行用来判断查询在哪个库上执行
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:replicatest-primary",
+    "bank.replication.enabled=true",
+    "bank.replication.replica-urls=jdbc:h2:mem:replicatest-replica;DB_CLOSE_DELAY=-1",
+    "bank.replication.max-lag=400ms",
+    "bank.replication.heartbeat-interval=50ms"
+})
+public class TransactionReplicaRoutingTest {
+
+    private static final Duration MAX_LAG = Duration.ofMillis(400);
+
+    /**
+     * 只在副本上的行使用的id, 远高于主库序列的取值
+     */
+    private static final AtomicLong REPLICA_ONLY_IDS = new AtomicLong(1L << 50);
+
+    @TestConfiguration
+    static class StandInConfig {
+
+        @Bean(destroyMethod = "close")
+        @DependsOn("flywayInitializer")
+        public ReplicationStandIn replicationStandIn(ReplicaRoutingDataSource dataSource) throws SQLException {
+            return new ReplicationStandIn(dataSource.getPrimary(), dataSource.getReplicas().get(0)).start(Duration.ofMillis(20));
+        }
+    }
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ReplicaRoutingDataSource dataSource;
+
+    @Autowired
+    private ReplicationStandIn replicationStandIn;
+
+    @BeforeEach
+    void replicaInSync() throws Exception {
+        replicationStandIn.setDelay(Duration.ZERO);
+        replicationStandIn.flush();
+        awaitLag(lag -> lag <= MAX_LAG.toMillis());
+    }
+
+    @Test
+    void readOnlyQueries_ShouldUseTheReplica() {
+        String reference = insertOnReplicaOnly();
+        long replicaReads = dataSource.getReplicaReads();
+
+        assertEquals(reference, newest().reference());
+        assertTrue(dataSource.getReplicaReads() > replicaReads);
+
+        // Lookups that fill the cache and updates run on the primary, where the row does not exist
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionByReference(reference));
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.updateTransaction(reference,
+            transaction(reference, "REPLICA-ACC", "1.00")));
+    }
+
+    @Test
+    void readAfterDelete_ShouldNotCacheTheRowStillOnALaggingReplica() throws Exception {
+        String reference = "REPLICA-DEL-" + System.nanoTime();
+        Transaction created = transactionService.createTransaction(transaction(reference, "REPLICA-ACC", "7.00"));
+        replicationStandIn.flush();
+        assertEquals(reference, transactionService.getTransactionByReference(reference).reference());
+
+        transactionService.deleteTransaction(created.getId());
+        replicationStandIn.flush();
+        // The replica has not applied the delete yet, while its lag is still within max-lag
+        insertOnReplica(created.getId(), reference);
+
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionByReference(reference));
+        new JdbcTemplate(dataSource.getReplicas().get(0)).update("delete from transactions where id = ?", created.getId());
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionByReference(reference));
+    }
+
+    @Test
+    void writes_ShouldBeReadFromTheReplicaOnceReplicated() throws Exception {
+        String reference = "REPLICA-W-" + System.nanoTime();
+        Transaction created = transactionService.createTransaction(transaction(reference, "REPLICA-ACC", "12.00"));
+        replicationStandIn.flush();
+
+        Long replicated = new JdbcTemplate(dataSource.getReplicas().get(0))
+            .queryForObject("select version from transactions where reference = ?", Long.class, reference);
+        assertEquals(created.getVersion(), replicated);
+        long replicaReads = dataSource.getReplicaReads();
+        assertTrue(transactionService.getAllTransactions(PageRequest.of(0, 1000, Sort.by(Sort.Direction.DESC, "id")))
+            .getContent().stream().anyMatch(view -> view.reference().equals(reference)));
+        assertTrue(dataSource.getReplicaReads() > replicaReads);
+    }
+
+    @Test
+    void laggingReplica_ShouldFallBackToThePrimary() {
+        replicationStandIn.setDelay(Duration.ofMinutes(1));
+        awaitLag(lag -> lag > MAX_LAG.toMillis());
+        String reference = "REPLICA-LAG-" + System.nanoTime();
+        transactionService.createTransaction(transaction(reference, "REPLICA-ACC", "3.00"));
+        long fallbacks = dataSource.getPrimaryFallbacks();
+
+        assertTrue(transactionService.getAllTransactions(PageRequest.of(0, 1000, Sort.by(Sort.Direction.DESC, "id")))
+            .getContent().stream().anyMatch(view -> view.reference().equals(reference)));
+        assertTrue(dataSource.getPrimaryFallbacks() > fallbacks);
+    }
+
+    @Test
+    void readAfterWriteInARequest_ShouldStayOnThePrimary() {
+        String replicaOnly = insertOnReplicaOnly();
+
+        ReplicaRoutingDataSource.beginRequest();
+        try {
+            assertEquals(replicaOnly, newest().reference());
+            transactionService.createTransaction(transaction("REPLICA-RAW-" + System.nanoTime(), "REPLICA-ACC", "5.00"));
+            assertTrue(!newest().reference().equals(replicaOnly));
+        } finally {
+            ReplicaRoutingDataSource.endRequest();
+        }
+
+        assertEquals(replicaOnly, newest().reference());
+    }
+
+    private TransactionView newest() {
+        return transactionService.getAllTransactions(PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "id"))).getContent().get(0);
+    }
+
+    private String insertOnReplicaOnly() {
+        long id = REPLICA_ONLY_IDS.incrementAndGet();
+        String reference = "REPLICA-ONLY-" + id;
+        insertOnReplica(id, reference);
+        return reference;
+    }
+
+    private void insertOnReplica(long id, String reference) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        new JdbcTemplate(dataSource.getReplicas().get(0)).update("insert into transactions (id, reference, account_number, "
+                + "amount, type, description, created_at, updated_at, version) values (?, ?, ?, ?, ?, ?, ?, ?, 0)",
+            id, reference, "REPLICA-ACC", new BigDecimal("1.00"), TransactionType.DEPOSIT.name(), "replica only", now, now);
+    }
+
+    private void awaitLag(LongPredicate condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.test(dataSource.getLagMillis(0))) {
+            assertTrue(System.nanoTime() < deadline, "replica lag stayed at " + dataSource.getLagMillis(0) + " ms");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static Transaction transaction(String reference, String account, String amount) {
+        return new Transaction(null, reference, account, new BigDecimal(amount), TransactionType.DEPOSIT, "replica test");
+    }
+}
@@ -0,0 +1,155 @@
+package com.bank.service;
+
+import com.bank.dto.BulkUpdate;
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionCriteria;
+import com.bank.dto.TransactionView;
+import com.bank.exception.InvalidSearchQueryException;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 在真实数据库上验证描述索引随交易的创建、更新、批量更新和删除变化, 回滚不生效,
+ * 账户、类型和日期过滤, 游标分页, 以及重建结果与增量维护一致
+ */
+@SpringBootTest
+public class TransactionSearchTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionBulkService transactionBulkService;
+
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void search_ShouldFollowCreateUpdateAndDelete() {
+        String word = unique();
+        Transaction created = transactionService.createTransaction(
+            transaction(word + "-1", "ACC-1", TransactionType.PAYMENT, "Coffee " + word + " downtown"));
+        assertEquals(List.of(created.getReference()), references(search("COFFEE " + word)));
+
+        transactionService.updateTransaction(created.getReference(),
+            transaction(created.getReference(), "ACC-1", TransactionType.PAYMENT, "Tea " + word));
+        assertTrue(search("coffee " + word).getContent().isEmpty());
+        assertEquals(List.of(created.getReference()), references(search("tea " + word)));
+
+        transactionService.deleteTransaction(created.getId());
+        assertTrue(search(word).getContent().isEmpty());
+    }
+
+    @Test
+    void search_ShouldFollowBulkDescriptionUpdates() {
+        String word = unique();
+        String account = "SEARCH-BULK-" + word;
+        transactionService.createTransaction(transaction(word + "-1", account, TransactionType.DEPOSIT, "pending " + word));
+        transactionService.createTransaction(transaction(word + "-2", account, TransactionType.DEPOSIT, "pending " + word));
+
+        transactionBulkService.updateTransactions(new TransactionCriteria(account, null, null, null, null),
+            new BulkUpdate("settled " + word, null));
+
+        assertTrue(search("pending " + word).getContent().isEmpty());
+        assertEquals(2, search("settled " + word).getContent().size());
+    }
+
+    @Test
+    void search_RolledBackCreate_ShouldNotBeIndexed() {
+        String word = unique();
+        DescriptionIndex.Stats before = transactionSearchService.getIndexStats();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transactionService.createTransaction(transaction(word, "ACC-1", TransactionType.PAYMENT, word));
+            status.setRollbackOnly();
+        });
+
+        // A hit would be dropped by the database check anyway, so look at the index itself
+        assertEquals(before, transactionSearchService.getIndexStats());
+    }
+
+    @Test
+    void search_ShouldFilterByAccountTypeAndDateAndPageNewestFirst() {
+        String word = unique();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            String account = i % 2 == 0 ? "SEARCH-A-" + word : "SEARCH-B-" + word;
+            TransactionType type = i < 4 ? TransactionType.TRANSFER : TransactionType.WITHDRAWAL;
+            Transaction created = transactionService.createTransaction(
+                transaction(word + "-" + i, account, type, "rent " + word));
+            if (account.startsWith("SEARCH-A-") && type == TransactionType.TRANSFER) {
+                expected.add(0, created.getReference());
+            }
+        }
+
+        CursorPage<TransactionView> first = transactionSearchService.search("rent " + word, "SEARCH-A-" + word,
+            TransactionType.TRANSFER, LocalDateTime.now().minusHours(1), LocalDateTime.now().plusHours(1), null, 1);
+        CursorPage<TransactionView> second = transactionSearchService.search("rent " + word, "SEARCH-A-" + word,
+            TransactionType.TRANSFER, LocalDateTime.now().minusHours(1), LocalDateTime.now().plusHours(1),
+            first.getNextCursor(), 5);
+        List<String> pages = new ArrayList<>(references(first));
+        pages.addAll(references(second));
+        assertEquals(expected, pages);
+        assertNull(second.getNextCursor());
+
+        assertEquals(7, search(word).getContent().size());
+        assertTrue(transactionSearchService.search(word, null, null, LocalDateTime.now().plusDays(1), null, null, 10)
+            .getContent().isEmpty());
+        assertTrue(transactionSearchService.search(word, null, null, null, LocalDateTime.now().minusDays(1), null, 10)
+            .getContent().isEmpty());
+    }
+
+    @Test
+    void search_WithoutWords_ShouldBeRejected() {
+        assertThrows(InvalidSearchQueryException.class, () -> search(" -- "));
+    }
+
+    @Test
+    void rebuild_ShouldMatchIncrementallyMaintainedIndex() {
+        String word = unique();
+        for (int i = 0; i < 5; i++) {
+            transactionService.createTransaction(transaction(word + "-" + i, "ACC-" + i, TransactionType.values()[i % 4],
+                "invoice " + word + " line " + i));
+        }
+        List<String> before = references(search("invoice " + word));
+
+        transactionSearchService.rebuild();
+
+        assertEquals(5, before.size());
+        assertEquals(before, references(search("invoice " + word)));
+    }
+
+    private CursorPage<TransactionView> search(String query) {
+        return transactionSearchService.search(query, null, null, null, null, null, 100);
+    }
+
+    private static List<String> references(CursorPage<TransactionView> page) {
+        return page.getContent().stream().map(TransactionView::reference).toList();
+    }
+
+    private static String unique() {
+        return "w" + Long.toString(System.nanoTime(), 36);
+    }
+
+    private static Transaction transaction(String reference, String account, TransactionType type, String description) {
+        return new Transaction(null, reference, account, new BigDecimal("10.00"), type, description);
+    }
+}
@@ -1,30 +1,62 @@
 package com.bank.service;
 
+import com.bank.config.CacheInvalidationBroadcaster;
+import com.bank.config.SharedTransactionCache;
+import com.bank.config.TransactionCacheCodec;
+import com.bank.config.TransactionCacheProperties;
+import com.bank.config.UpdateRetryProperties;
+import com.bank.dto.BatchCreateResult;
+import com.bank.dto.BatchItemResult;
+import com.bank.dto.CursorPage;
+import com.bank.dto.TransactionCursor;
+import com.bank.dto.TransactionView;
+import com.bank.exception.ConcurrentUpdateException;
+import com.bank.exception.PreconditionFailedException;
 import com.bank.exception.TransactionAlreadyExistsException;
 import com.bank.exception.TransactionNotFoundException;
 import com.bank.model.Transaction;
 import com.bank.model.TransactionType;
 import com.bank.repository.TransactionRepository;
 import com.bank.service.impl.TransactionServiceImpl;
-import com.google.common.cache.Cache;
+import com.github.benmanes.caffeine.cache.Cache;
 
+import org.hibernate.exception.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,7 +65,6 @@ public class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
-    @InjectMocks
     private TransactionServiceImpl transactionService;
 
     private Transaction transaction;
@@ -41,8 +72,34 @@ public class TransactionServiceTest {
     @Mock
     private Cache<String, Object> transactionByReferenceCache;
 
+    @Mock
+    private Cache<String, Boolean> transactionNotFoundCache;
+
+    @Mock
+    private AccountSummaryService accountSummaryService;
+
+    @Mock
+    private TransactionStatsService transactionStatsService;
+
+    @Mock
+    private TransactionSearchService transactionSearchService;
+
+    // Writes go through asMap().compute so a newer cached version is never replaced by an older one
+    private final ConcurrentMap<String, Object> cachedByReference = new ConcurrentHashMap<>();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @BeforeEach
     void setUp() {
+        // Both caches share the erased type Cache, so they are wired by hand instead of @InjectMocks
+        transactionService = new TransactionServiceImpl(transactionRepository,
+            transactionByReferenceCache, transactionNotFoundCache, PendingTransactions.NONE, validator, accountSummaryService,
+            new TransactionCacheCodec(TransactionCacheProperties.Encoding.OBJECT), transactionStatsService,
+            transactionSearchService, new TransactionTemplate(mock(PlatformTransactionManager.class)), new UpdateRetryProperties(),
+            SharedTransactionCache.NONE, CacheInvalidationBroadcaster.local());
+        lenient().when(transactionByReferenceCache.asMap()).thenReturn(cachedByReference);
+
         transaction = new Transaction();
         transaction.setId(1L);
         transaction.setReference("TEST123");
@@ -54,42 +111,212 @@ public class TransactionServiceTest {
 
     @Test
     void createTransaction_ShouldSaveAndReturnTransaction() {
-        when(transactionRepository.findByReference(transaction.getReference())).thenReturn(Optional.empty());
-        when(transactionRepository.save(transaction)).thenReturn(transaction);
+        when(transactionRepository.saveAndFlush(transaction)).thenReturn(transaction);
 
         Transaction created = transactionService.createTransaction(transaction);
 
         assertNotNull(created);
         assertEquals(transaction.getReference(), created.getReference());
-        verify(transactionRepository).findByReference(transaction.getReference());
-        verify(transactionByReferenceCache, times(1)).put(eq(transaction.getReference()), eq(transaction));
-        verify(transactionRepository).save(transaction);
+        verify(transactionRepository, never()).findByReference(any());
+        assertEquals(TransactionView.of(transaction), cachedByReference.get(transaction.getReference()));
+        verify(transactionNotFoundCache).invalidateAll(List.of(transaction.getReference()));
+        verify(transactionRepository).saveAndFlush(transaction);
+        verify(accountSummaryService).applyDeltas(argThat(deltas ->
+            deltas.get("LYQ001").getBalance().compareTo(new BigDecimal("100.00")) == 0
+                && deltas.get("LYQ001").count(TransactionType.DEPOSIT) == 1));
+        verify(transactionStatsService).record(List.of(TransactionView.of(transaction)), List.of());
+    }
+
+    @Test
+    void createTransaction_ShouldCacheOnlyAfterCommit() {
+        when(transactionRepository.saveAndFlush(transaction)).thenReturn(transaction);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transactionService.createTransaction(transaction);
+            assertTrue(cachedByReference.isEmpty());
+
+            // Rolled back: the afterCommit hooks never run
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            assertTrue(cachedByReference.isEmpty());
+            verify(transactionNotFoundCache, never()).invalidateAll(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(TransactionView.of(transaction), cachedByReference.get(transaction.getReference()));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void createTransactions_ShouldCacheOnlyAfterCommit() {
+        Transaction fresh = new Transaction(null, "BATCH-1", "LYQ001",
+            new BigDecimal("10.00"), TransactionType.DEPOSIT, "fresh");
+        when(transactionRepository.findExistingReferences(anyCollection())).thenReturn(Set.of());
+        when(transactionRepository.saveAllAndFlush(anyList())).thenAnswer(i -> i.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transactionService.createTransactions(List.of(fresh));
+            assertTrue(cachedByReference.isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(TransactionView.of(fresh), cachedByReference.get("BATCH-1"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
     void createTransaction_WithExistingReference_ShouldThrowException() {
-        when(transactionRepository.findByReference(transaction.getReference())).thenReturn(Optional.of(transaction));
+        when(transactionRepository.saveAndFlush(transaction)).thenThrow(new DataIntegrityViolationException("duplicate",
+            new ConstraintViolationException("duplicate", null, "PUBLIC.UK_TRANSACTIONS_REFERENCE_INDEX_F")));
 
         assertThrows(TransactionAlreadyExistsException.class, () -> {
             transactionService.createTransaction(transaction);
         });
-        verify(transactionRepository, never()).save(any());
+        assertTrue(cachedByReference.isEmpty());
+    }
+
+    @Test
+    void createTransaction_WithOtherIntegrityViolation_ShouldRethrow() {
+        when(transactionRepository.saveAndFlush(transaction)).thenThrow(new DataIntegrityViolationException("not null",
+            new ConstraintViolationException("not null", null, "PUBLIC.CONSTRAINT_OTHER")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> transactionService.createTransaction(transaction));
+    }
+
+    @Test
+    void createTransactions_ShouldReportCreatedDuplicateAndInvalidItems() {
+        Transaction fresh = new Transaction(null, "BATCH-1", "LYQ001",
+            new BigDecimal("10.00"), TransactionType.DEPOSIT, "fresh");
+        Transaction inBatchDuplicate = new Transaction(null, "BATCH-1", "LYQ001",
+            new BigDecimal("20.00"), TransactionType.DEPOSIT, "duplicate inside batch");
+        Transaction invalid = new Transaction(null, "BATCH-2", "LYQ001",
+            new BigDecimal("-1.00"), TransactionType.DEPOSIT, "negative amount");
+
+        when(transactionRepository.findExistingReferences(anyCollection())).thenReturn(Set.of(transaction.getReference()));
+        when(transactionRepository.saveAllAndFlush(anyList())).thenAnswer(i -> {
+            List<Transaction> toSave = i.getArgument(0);
+            toSave.forEach(t -> t.setId(100L));
+            return toSave;
+        });
+
+        BatchCreateResult result = transactionService.createTransactions(
+            Arrays.asList(fresh, inBatchDuplicate, invalid, transaction));
+
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getDuplicate());
+        assertEquals(1, result.getInvalid());
+        assertEquals(BatchItemResult.Status.CREATED, result.getItems().get(0).getStatus());
+        assertEquals(100L, result.getItems().get(0).getId());
+        assertEquals(BatchItemResult.Status.DUPLICATE, result.getItems().get(1).getStatus());
+        assertEquals(BatchItemResult.Status.INVALID, result.getItems().get(2).getStatus());
+        assertEquals(BatchItemResult.Status.DUPLICATE, result.getItems().get(3).getStatus());
+        verify(transactionRepository, times(1)).findExistingReferences(anyCollection());
+        verify(transactionRepository).saveAllAndFlush(argThat(toSave -> onlySaved(toSave, "BATCH-1", "fresh")));
+        assertEquals(100L, ((TransactionView) cachedByReference.get("BATCH-1")).id());
+        // The caller's objects are copied, not modified
+        assertNull(fresh.getId());
+        assertEquals(1L, transaction.getId());
+    }
+
+    @Test
+    void createTransactions_ReferenceCreatedConcurrently_ShouldRetryWithoutIt() {
+        Transaction first = new Transaction(null, "BATCH-RACE-1", "LYQ001",
+            new BigDecimal("10.00"), TransactionType.DEPOSIT, "first");
+        Transaction raced = new Transaction(null, "BATCH-RACE-2", "LYQ001",
+            new BigDecimal("20.00"), TransactionType.DEPOSIT, "created concurrently");
+
+        // The concurrent create commits between the existence check and the insert
+        when(transactionRepository.findExistingReferences(anyCollection()))
+            .thenReturn(Set.of())
+            .thenReturn(Set.of("BATCH-RACE-2"));
+        when(transactionRepository.saveAllAndFlush(anyList()))
+            .thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", null, "PUBLIC.UK_TRANSACTIONS_REFERENCE_INDEX_F")))
+            .thenAnswer(i -> {
+                List<Transaction> toSave = i.getArgument(0);
+                toSave.forEach(t -> t.setId(200L));
+                return toSave;
+            });
+
+        BatchCreateResult result = transactionService.createTransactions(List.of(first, raced));
+
+        assertEquals(BatchItemResult.Status.CREATED, result.getItems().get(0).getStatus());
+        assertEquals(200L, result.getItems().get(0).getId());
+        assertEquals(BatchItemResult.Status.DUPLICATE, result.getItems().get(1).getStatus());
+        verify(transactionRepository, times(2)).saveAllAndFlush(anyList());
+        verify(transactionRepository).saveAllAndFlush(argThat(toSave -> onlySaved(toSave, "BATCH-RACE-1", "first")));
+        assertNull(first.getId());
+    }
+
+    @Test
+    void createTransactions_OtherIntegrityViolation_ShouldNotRetry() {
+        Transaction fresh = new Transaction(null, "BATCH-OTHER", "LYQ001",
+            new BigDecimal("10.00"), TransactionType.DEPOSIT, "fresh");
+        when(transactionRepository.findExistingReferences(anyCollection())).thenReturn(Set.of());
+        when(transactionRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("not null",
+            new ConstraintViolationException("not null", null, "PUBLIC.CONSTRAINT_OTHER")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> transactionService.createTransactions(List.of(fresh)));
+        verify(transactionRepository, times(1)).saveAllAndFlush(anyList());
     }
 
     @Test
     void getAllTransactions_ShouldReturnPageOfTransactions() {
-        List<Transaction> transactions = Arrays.asList(transaction, new Transaction(2L, "REF124", "LYQ001",
-                new BigDecimal("200.00"), TransactionType.WITHDRAWAL, "Test withdrawal"));
-        Page<Transaction> transactionPage = new PageImpl<>(transactions);
-        
-        when(transactionRepository.findAll(any(Pageable.class))).thenReturn(transactionPage);
+        List<TransactionView> transactions = Arrays.asList(TransactionView.of(transaction), TransactionView.of(
+            new Transaction(2L, "REF124", "LYQ001", new BigDecimal("200.00"), TransactionType.WITHDRAWAL, "Test withdrawal")));
+        Page<TransactionView> transactionPage = new PageImpl<>(transactions);
 
-        Page<Transaction> result = transactionService.getAllTransactions(Pageable.unpaged());
+        when(transactionRepository.findAllViews(any(Pageable.class))).thenReturn(transactionPage);
+
+        Page<TransactionView> result = transactionService.getAllTransactions(Pageable.unpaged());
 
         assertNotNull(result);
         assertEquals(2, result.getTotalElements());
     }
 
+    @Test
+    void getTransactions_ShouldReturnNextCursorWhenMoreRowsExist() {
+        TransactionView older = TransactionView.of(new Transaction(0L, "REF000", "LYQ001",
+            new BigDecimal("5.00"), TransactionType.DEPOSIT, "older"));
+        when(transactionRepository.findByIdBefore(eq(Long.MAX_VALUE), any(Pageable.class)))
+            .thenReturn(Arrays.asList(TransactionView.of(transaction), older));
+
+        CursorPage<TransactionView> page = transactionService.getTransactions(null, 1);
+
+        assertEquals(1, page.getContent().size());
+        assertEquals(transaction.getId(), TransactionCursor.decode(page.getNextCursor()).id());
+        verify(transactionRepository, never()).count();
+    }
+
+    @Test
+    void getTransactions_LastPage_ShouldReturnNullCursor() {
+        when(transactionRepository.findByIdBefore(anyLong(), any(Pageable.class))).thenReturn(List.of(TransactionView.of(transaction)));
+
+        CursorPage<TransactionView> page = transactionService.getTransactions(TransactionCursor.ofId(2L).encode(), 10);
+
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getNextCursor());
+        verify(transactionRepository).findByIdBefore(eq(2L), any(Pageable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportTransactions_ShouldPassEachViewInOrder() {
+        TransactionView first = TransactionView.of(transaction);
+        TransactionView second = TransactionView.of(new Transaction(2L, "REF124", "LYQ001",
+            new BigDecimal("200.00"), TransactionType.WITHDRAWAL, "Test withdrawal"));
+        when(transactionRepository.streamAllOrderById()).thenReturn(Stream.of(first, second));
+        Consumer<TransactionView> consumer = mock(Consumer.class);
+
+        transactionService.exportTransactions(consumer);
+
+        InOrder inOrder = inOrder(consumer);
+        inOrder.verify(consumer).accept(first);
+        inOrder.verify(consumer).accept(second);
+    }
+
     @Test
     void updateTransaction_ExistingId_ShouldUpdateAndReturnTransaction() {
         Transaction updatedDetails = new Transaction();
@@ -100,15 +327,68 @@ public class TransactionServiceTest {
         updatedDetails.setDescription("Updated deposit");
 
         when(transactionRepository.findByReference(updatedDetails.getReference())).thenReturn(Optional.of(transaction));
-        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
+        when(transactionRepository.saveAndFlush(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
 
+        TransactionView before = TransactionView.of(transaction);
         Transaction updated = transactionService.updateTransaction("TEST123", updatedDetails);
 
         assertNotNull(updated);
         assertEquals(updatedDetails.getReference(), updated.getReference());
         assertEquals(updatedDetails.getAmount(), updated.getAmount());
         verify(transactionRepository).findByReference(updatedDetails.getReference());
-        verify(transactionRepository).save(any(Transaction.class));
+        verify(transactionRepository).saveAndFlush(any(Transaction.class));
+        // 100 -> 150 on the same account is a +50 delta, the deposit count does not change
+        verify(accountSummaryService).applyDeltas(argThat(deltas ->
+            deltas.get("LYQ001").getBalance().compareTo(new BigDecimal("50.00")) == 0
+                && deltas.get("LYQ001").count(TransactionType.DEPOSIT) == 0));
+        // Stats take back the old amount and count the new one
+        verify(transactionStatsService).record(List.of(TransactionView.of(updated)), List.of(before));
+    }
+
+    @Test
+    void updateTransaction_IfMatch_ShouldCompareWithTheCurrentVersion() {
+        transaction.setVersion(4L);
+        String etag = TransactionView.of(transaction).etag();
+        when(transactionRepository.findByReference("TEST123")).thenReturn(Optional.of(transaction));
+        Transaction details = new Transaction(null, "TEST123", "LYQ001", new BigDecimal("150.00"), TransactionType.DEPOSIT, "Updated");
+
+        assertThrows(PreconditionFailedException.class,
+            () -> transactionService.updateTransaction("TEST123", details, List.of("\"stale\"")));
+        verify(transactionRepository, never()).saveAndFlush(any(Transaction.class));
+
+        when(transactionRepository.saveAndFlush(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
+        Transaction updated = transactionService.updateTransaction("TEST123", details, List.of("\"stale\"", etag));
+
+        assertEquals(new BigDecimal("150.00"), updated.getAmount());
+    }
+
+    @Test
+    void updateTransaction_VersionConflict_ShouldRetryWithFreshReadThenGiveUp() {
+        when(transactionRepository.findByReference("TEST123")).thenAnswer(i -> Optional.of(copy(transaction)));
+        when(transactionRepository.saveAndFlush(any(Transaction.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Transaction.class, 1L))
+            .thenAnswer(i -> i.getArgument(0));
+        Transaction details = new Transaction(null, "TEST123", "LYQ001", new BigDecimal("150.00"), TransactionType.DEPOSIT, "Updated");
+
+        assertEquals(new BigDecimal("150.00"), transactionService.updateTransaction("TEST123", details).getAmount());
+        verify(transactionRepository, times(2)).findByReference("TEST123");
+        // The failed attempt rolled back, only the successful one is recorded
+        verify(transactionStatsService, times(1)).record(anyList(), anyList());
+
+        reset(transactionRepository);
+        when(transactionRepository.findByReference("TEST123")).thenAnswer(i -> Optional.of(copy(transaction)));
+        when(transactionRepository.saveAndFlush(any(Transaction.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Transaction.class, 1L));
+
+        assertThrows(ConcurrentUpdateException.class, () -> transactionService.updateTransaction("TEST123", details));
+        verify(transactionRepository, times(new UpdateRetryProperties().getMaxAttempts())).saveAndFlush(any(Transaction.class));
+    }
+
+    private static Transaction copy(Transaction source) {
+        Transaction copy = new Transaction(source.getId(), source.getReference(), source.getAccountNumber(),
+            source.getAmount(), source.getType(), source.getDescription());
+        copy.setVersion(source.getVersion());
+        return copy;
     }
 
     @Test
@@ -120,6 +400,7 @@ public class TransactionServiceTest {
 
         verify(transactionRepository).findById(1L);
         verify(transactionRepository).deleteById(1L);
+        verify(transactionStatsService).record(List.of(), List.of(TransactionView.of(transaction)));
     }
 
     @Test
@@ -131,4 +412,11 @@ public class TransactionServiceTest {
         });
         verify(transactionRepository, never()).deleteById(any());
     }
+
+    private static boolean onlySaved(Iterable<Transaction> toSave, String reference, String description) {
+        List<Transaction> saved = new ArrayList<>();
+        toSave.forEach(saved::add);
+        return saved.size() == 1 && saved.get(0).getReference().equals(reference)
+            && saved.get(0).getDescription().equals(description);
+    }
 }
@@ -0,0 +1,95 @@
+package com.bank.service;
+
+import com.bank.dto.TransactionStats;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionType;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 在真实数据库上验证窗口统计随交易的创建、更新、删除变化, 回滚不计入, 重建结果与增量维护一致
+ */
+@SpringBootTest
+public class TransactionStatsTest {
+
+    private static final List<Duration> LAST_HOUR = List.of(Duration.ofHours(1));
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionStatsService transactionStatsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void stats_ShouldFollowCreateUpdateAndDelete() {
+        String prefix = "STATS-" + System.nanoTime();
+        TransactionStats.Window before = lastHour();
+
+        transactionService.createTransaction(transaction(prefix + "-1", "100.00", TransactionType.DEPOSIT));
+        Transaction payment = transactionService.createTransaction(transaction(prefix + "-2", "30.00", TransactionType.PAYMENT));
+        assertDelta(before, TransactionType.DEPOSIT, 1, "100.00");
+        assertDelta(before, TransactionType.PAYMENT, 1, "30.00");
+
+        transactionService.updateTransaction(payment.getReference(), transaction(payment.getReference(), "40.00", TransactionType.WITHDRAWAL));
+        assertDelta(before, TransactionType.PAYMENT, 0, "0.00");
+        assertDelta(before, TransactionType.WITHDRAWAL, 1, "40.00");
+
+        transactionService.deleteTransaction(payment.getId());
+        assertDelta(before, TransactionType.WITHDRAWAL, 0, "0.00");
+        assertDelta(before, TransactionType.DEPOSIT, 1, "100.00");
+    }
+
+    @Test
+    void stats_RolledBackCreate_ShouldNotBeCounted() {
+        TransactionStats.Window before = lastHour();
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.executeWithoutResult(status -> {
+            transactionService.createTransaction(transaction("STATS-ROLLBACK-" + System.nanoTime(), "5.00", TransactionType.TRANSFER));
+            status.setRollbackOnly();
+        });
+
+        assertDelta(before, TransactionType.TRANSFER, 0, "0.00");
+    }
+
+    @Test
+    void rebuild_ShouldMatchIncrementallyMaintainedStats() {
+        String prefix = "STATS-REBUILD-" + System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            transactionService.createTransaction(transaction(prefix + "-" + i, "12.34", TransactionType.values()[i % 4]));
+        }
+        TransactionStats.Window before = lastHour();
+
+        transactionStatsService.rebuild();
+
+        assertEquals(before, lastHour());
+    }
+
+    private TransactionStats.Window lastHour() {
+        return transactionStatsService.getStats(LAST_HOUR).windows().get(0);
+    }
+
+    private void assertDelta(TransactionStats.Window before, TransactionType type, long count, String amount) {
+        TransactionStats.Totals was = before.byType().get(type);
+        TransactionStats.Totals now = lastHour().byType().get(type);
+        assertEquals(count, now.count() - was.count());
+        assertEquals(0, new BigDecimal(amount).compareTo(now.amount().subtract(was.amount())));
+    }
+
+    private static Transaction transaction(String reference, String amount, TransactionType type) {
+        return new Transaction(null, reference, "STATS-ACC", new BigDecimal(amount), type, "stats");
+    }
+}
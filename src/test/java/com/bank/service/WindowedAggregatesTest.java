@@ -0,0 +1,115 @@
+package com.bank.service;
+
+import com.bank.model.TransactionType;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 时间桶环形数组: 窗口覆盖的桶、过期的桶、撤销、账户排名和并发写入
+ */
+public class WindowedAggregatesTest {
+
+    private static final long SECOND = 1_000;
+
+    private final WindowedAggregates aggregates =
+        new WindowedAggregates(Duration.ofSeconds(10), Duration.ofMinutes(1), 3);
+
+    @Test
+    void sum_ShouldOnlyCoverBucketsInsideTheWindow() {
+        // Near the end of a bucket, so the newest bucket holds almost ten seconds
+        long now = 1_000_009 * SECOND;
+        aggregates.add(now - 5 * SECOND, "A", TransactionType.DEPOSIT, 1_000, 1);
+        aggregates.add(now - 15 * SECOND, "A", TransactionType.DEPOSIT, 2_000, 1);
+        aggregates.add(now - 45 * SECOND, "B", TransactionType.PAYMENT, 500, 1);
+
+        WindowedAggregates.Snapshot last10s = aggregates.sum(now, Duration.ofSeconds(10), 0);
+        assertEquals(1, last10s.count(TransactionType.DEPOSIT));
+        assertEquals(1_000, last10s.amountCents(TransactionType.DEPOSIT));
+
+        WindowedAggregates.Snapshot last1m = aggregates.sum(now, Duration.ofMinutes(1), 0);
+        assertEquals(2, last1m.count(TransactionType.DEPOSIT));
+        assertEquals(3_000, last1m.amountCents(TransactionType.DEPOSIT));
+        assertEquals(1, last1m.count(TransactionType.PAYMENT));
+    }
+
+    @Test
+    void add_ShouldDropExpiredBucketsAndIgnoreEventsOlderThanRetention() {
+        long now = 1_000_000 * SECOND;
+        aggregates.add(now, "A", TransactionType.DEPOSIT, 1_000, 1);
+
+        // Seven buckets later the ring wraps around to the slot of the first bucket
+        long later = now + 70 * SECOND;
+        aggregates.add(later, "A", TransactionType.DEPOSIT, 7_000, 1);
+        aggregates.add(now, "A", TransactionType.DEPOSIT, 1_000, 1);
+
+        WindowedAggregates.Snapshot snapshot = aggregates.sum(later, Duration.ofMinutes(1), 0);
+        assertEquals(1, snapshot.count(TransactionType.DEPOSIT));
+        assertEquals(7_000, snapshot.amountCents(TransactionType.DEPOSIT));
+    }
+
+    @Test
+    void add_NegativeSign_ShouldTakeBackAnEarlierTransaction() {
+        long now = 1_000_000 * SECOND;
+        aggregates.add(now - 30 * SECOND, "A", TransactionType.WITHDRAWAL, 4_000, 1);
+        aggregates.add(now - 30 * SECOND, "A", TransactionType.WITHDRAWAL, 4_000, -1);
+        aggregates.add(now - 30 * SECOND, "A", TransactionType.TRANSFER, 4_500, 1);
+
+        WindowedAggregates.Snapshot snapshot = aggregates.sum(now, Duration.ofMinutes(1), 5);
+        assertEquals(0, snapshot.count(TransactionType.WITHDRAWAL));
+        assertEquals(0, snapshot.amountCents(TransactionType.WITHDRAWAL));
+        assertEquals(1, snapshot.count(TransactionType.TRANSFER));
+        assertEquals(List.of(new WindowedAggregates.AccountTotals("A", 1, 4_500)), snapshot.topAccounts());
+    }
+
+    @Test
+    void sum_ShouldRankAccountsAcrossBucketsAndCapAccountsPerBucket() {
+        long now = 1_000_000 * SECOND;
+        aggregates.add(now - 25 * SECOND, "A", TransactionType.DEPOSIT, 100, 1);
+        aggregates.add(now - 5 * SECOND, "A", TransactionType.DEPOSIT, 100, 1);
+        aggregates.add(now - 5 * SECOND, "B", TransactionType.DEPOSIT, 900, 1);
+        aggregates.add(now - 5 * SECOND, "C", TransactionType.DEPOSIT, 100, 1);
+        // The bucket already tracks 3 accounts, D only counts towards the type totals
+        aggregates.add(now - 5 * SECOND, "D", TransactionType.DEPOSIT, 100, 1);
+
+        WindowedAggregates.Snapshot snapshot = aggregates.sum(now, Duration.ofMinutes(1), 2);
+        assertEquals(5, snapshot.count(TransactionType.DEPOSIT));
+        assertEquals(List.of(
+            new WindowedAggregates.AccountTotals("A", 2, 200),
+            new WindowedAggregates.AccountTotals("B", 1, 900)), snapshot.topAccounts());
+    }
+
+    @Test
+    void add_ConcurrentWriters_ShouldNotLoseUpdates() throws Exception {
+        long now = 1_000_000 * SECOND;
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    // Spread over all buckets of the window so that buckets are created concurrently
+                    aggregates.add(now - (i % 50) * SECOND, "A", TransactionType.PAYMENT, 1, 1);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        WindowedAggregates.Snapshot snapshot = aggregates.sum(now, Duration.ofMinutes(1), 1);
+        assertEquals((long) threads * perThread, snapshot.count(TransactionType.PAYMENT));
+        assertEquals((long) threads * perThread, snapshot.amountCents(TransactionType.PAYMENT));
+        assertEquals((long) threads * perThread, snapshot.topAccounts().get(0).count());
+    }
+}